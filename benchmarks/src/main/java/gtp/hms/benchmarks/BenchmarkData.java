@@ -0,0 +1,194 @@
+package gtp.hms.benchmarks;
+
+import gtp.hms.cache.PatientCache;
+import gtp.hms.exception.DaoException;
+import gtp.hms.util.CopyWriter;
+import gtp.hms.util.DatabaseConnection;
+import gtp.hms.util.MigrationRunner;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Prepares the patient table that the benchmarks read.
+ * <p>
+ * Patients are generated from a fixed seed, so a table of a given size holds
+ * the same rows on every run and results are comparable between runs. Loading
+ * a different size truncates the table, which is only allowed in a database
+ * whose name contains {@code bench}.
+ */
+public final class BenchmarkData {
+    public static final int PATIENT_NUMBER_BASE = 20_000_000;
+
+    private static final long SEED = 42L;
+
+    private static final String[] FIRST_NAMES = {
+            "Kwame", "Ama", "Kofi", "Akosua", "Yaw", "Abena", "Kwabena", "Adwoa", "Kojo", "Efua",
+            "Emmanuel", "Grace", "Samuel", "Mercy", "Daniel", "Esther", "Michael", "Comfort", "Joseph", "Ruth"};
+
+    // Last names are built from three syllables, giving 8000 distinct names
+    private static final String[] SYLLABLES = {
+            "ba", "do", "fi", "ku", "la", "me", "no", "pa", "ri", "sa",
+            "te", "wu", "ya", "zo", "ge", "hi", "jo", "ke", "mo", "ne"};
+
+    private static final String[] CITIES = {"Accra", "Kumasi", "Tamale", "Takoradi", "Cape Coast", "Ho"};
+
+    private static volatile boolean migrated;
+
+    private BenchmarkData() {}
+
+    /**
+     * Makes sure the patient table holds at least the given number of patients.
+     *
+     * @param patients the minimum table size
+     * @throws SQLException if the table cannot be loaded
+     */
+    public static void ensureAtLeast(int patients) throws SQLException {
+        if (countPatients() < patients) {
+            reload(patients);
+        }
+    }
+
+    /**
+     * Makes sure the patient table holds exactly the given number of generated
+     * patients, reloading it if it does not.
+     *
+     * @param patients the table size
+     * @throws SQLException if the table cannot be loaded
+     */
+    public static void ensureExactly(int patients) throws SQLException {
+        if (countPatients() != patients) {
+            reload(patients);
+        }
+    }
+
+    /**
+     * Returns the IDs of the first patients by patient number.
+     *
+     * @param limit the maximum number of IDs
+     * @return patient IDs in patient-number order
+     * @throws SQLException if the query fails
+     */
+    public static List<UUID> patientIds(int limit) throws SQLException {
+        List<UUID> ids = new ArrayList<>(limit);
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                     "SELECT id FROM patient ORDER BY patient_number LIMIT ?")) {
+            stmt.setInt(1, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add((UUID) rs.getObject("id"));
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Returns the generated last name of the patient at the given position,
+     * for use as a search term known to match.
+     *
+     * @param index the patient's position, from 0
+     * @return the patient's last name
+     */
+    public static String lastNameOf(int index) {
+        return patient(index)[2];
+    }
+
+    private static long countPatients() throws SQLException {
+        migrate();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT count(*) FROM patient")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private static void reload(int patients) throws SQLException {
+        System.out.printf("Loading %,d benchmark patients...%n", patients);
+        long start = System.nanoTime();
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            checkScratchDatabase(conn);
+            conn.setAutoCommit(false);
+            try {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("TRUNCATE patient CASCADE");
+                }
+                try (CopyWriter copy = new CopyWriter(conn, "patient", "patient_number", "first_name",
+                        "middle_name", "last_name", "address", "telephone_number")) {
+                    for (int i = 0; i < patients; i++) {
+                        String[] patient = patient(i);
+                        copy.field(PATIENT_NUMBER_BASE + i);
+                        for (int f = 1; f < patient.length; f++) {
+                            copy.field(patient[f]);
+                        }
+                        copy.endRow();
+                    }
+                    copy.finish();
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("ANALYZE patient");
+            }
+        }
+        PatientCache.getInstance().clear();
+        System.out.printf("Loaded in %.1fs%n", (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Generates the patient at the given position from its random random stream,
+     * so any single patient can be recreated without generating the rest.
+     */
+    private static String[] patient(int index) {
+        SplittableRandom random = new SplittableRandom(SEED * 1_000_003L + index);
+        String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+        String middle = random.nextInt(3) == 0 ? FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] : null;
+        String last = capitalize(SYLLABLES[random.nextInt(SYLLABLES.length)] +
+                SYLLABLES[random.nextInt(SYLLABLES.length)] + SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        String address = (1 + random.nextInt(200)) + " " + last + " Street, " + CITIES[random.nextInt(CITIES.length)];
+        String telephone = String.format("0%09d", random.nextInt(1_000_000_000));
+        return new String[]{Integer.toString(PATIENT_NUMBER_BASE + index), first, middle, last, address, telephone};
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static void migrate() throws SQLException {
+        if (!migrated) {
+            try {
+                MigrationRunner.migrate();
+            } catch (DaoException e) {
+                throw new SQLException("Benchmark database could not be migrated", e);
+            }
+            migrated = true;
+        }
+    }
+
+    private static void checkScratchDatabase(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT current_database()")) {
+            rs.next();
+            String name = rs.getString(1);
+            if (!name.contains("bench")) {
+                throw new SQLException("Refusing to reload patients in database '" + name +
+                        "'; benchmarks need a scratch database whose name contains 'bench'");
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package gtp.hms.benchmarks;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the JMH benchmarks with the GC profiler on and results written as
+ * JSON, unless the command line says otherwise.
+ * <p>
+ * Usage: {@code java -jar benchmarks.jar [JMH options] [benchmark regex]}.
+ * Without {@code -prof}, {@code -rf} or {@code -rff} the run adds
+ * {@code -prof gc -rf json -rff jmh-result.json}, so every result carries
+ * allocation rates ({@code gc.alloc.rate.norm} is bytes per operation).
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {}
+
+    public static void main(String[] args) throws Exception {
+        List<String> options = new ArrayList<>(List.of(args));
+        if (!options.contains("-prof")) {
+            options.addAll(List.of("-prof", "gc"));
+        }
+        if (!options.contains("-rf")) {
+            options.addAll(List.of("-rf", "json"));
+        }
+        if (!options.contains("-rff")) {
+            options.addAll(List.of("-rff", "jmh-result.json"));
+        }
+        Main.main(options.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,76 @@
+package gtp.hms.benchmarks;
+
+import gtp.hms.dao.PatientDAO;
+import gtp.hms.model.Patient;
+import gtp.hms.util.DatabaseConnection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of binding a patient to the insert statement with
+ * {@link PatientDAO#setPatientParameters}. The statement is never executed,
+ * so this measures the driver-side work alone.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParameterBindingBenchmark {
+    private static final String INSERT_SQL = "INSERT INTO patient (patient_number, first_name, middle_name, " +
+            "last_name, address, telephone_number) VALUES (?,?,?,?,?,?)";
+
+    /** {@code full} sets every column; {@code sparse} leaves the optional ones null. */
+    @Param({"full", "sparse"})
+    private String shape;
+
+    private Connection conn;
+    private PreparedStatement stmt;
+    private Patient patient;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        conn = DatabaseConnection.getInstance().getConnection();
+        stmt = conn.prepareStatement(INSERT_SQL);
+        patient = "full".equals(shape)
+                ? new Patient(1234567, "Kwame", "Kofi", "Mensah", "12 Asaman Street, Accra", "0244123456")
+                : new Patient(1234567, "Kwame", null, "Mensah", null, null);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        stmt.close();
+        conn.close();
+        DatabaseConnection.getInstance().closeConnection();
+    }
+
+    @Benchmark
+    public PreparedStatement bind() throws SQLException {
+        PatientDAO.setPatientParameters(stmt, patient);
+        return stmt;
+    }
+
+    @Benchmark
+    public PreparedStatement bindAndClear() throws SQLException {
+        PatientDAO.setPatientParameters(stmt, patient);
+        stmt.clearParameters();
+        return stmt;
+    }
+}
@@ -0,0 +1,93 @@
+package gtp.hms.benchmarks;
+
+import gtp.hms.cache.PatientCache;
+import gtp.hms.dao.PatientDAO;
+import gtp.hms.exception.DaoException;
+import gtp.hms.model.Patient;
+import gtp.hms.util.DatabaseConnection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looking up a set of patients one query at a time versus in one
+ * {@link PatientDAO#findByIds} query, with the patient cache cold or warm.
+ * <p>
+ * Each invocation looks up a fresh random set of keys drawn from the first
+ * {@value #KEY_POOL} patients, which fit in the default-sized cache. When
+ * {@code cached} is false the cache is cleared before every invocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PatientLookupBenchmark {
+    private static final int KEY_POOL = 5_000;
+
+    @Param({"1", "10", "100"})
+    private int keys;
+
+    @Param({"false", "true"})
+    private boolean cached;
+
+    private final PatientDAO patientDAO = new PatientDAO();
+    private final SplittableRandom random = new SplittableRandom(7);
+    private List<UUID> pool;
+    private List<UUID> lookup;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        BenchmarkData.ensureAtLeast(KEY_POOL);
+        pool = BenchmarkData.patientIds(KEY_POOL);
+        PatientCache.getInstance().clear();
+    }
+
+    @Setup(Level.Invocation)
+    public void pickKeys() {
+        lookup = new ArrayList<>(keys);
+        for (int i = 0; i < keys; i++) {
+            lookup.add(pool.get(random.nextInt(pool.size())));
+        }
+        if (!cached) {
+            PatientCache.getInstance().clear();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        DatabaseConnection.getInstance().closeConnection();
+    }
+
+    @Benchmark
+    public void singleLookups(Blackhole blackhole) throws DaoException {
+        for (UUID id : lookup) {
+            blackhole.consume(patientDAO.findById(id));
+        }
+    }
+
+    @Benchmark
+    public Map<UUID, Patient> batchLookup() throws DaoException {
+        return patientDAO.findByIds(lookup);
+    }
+}
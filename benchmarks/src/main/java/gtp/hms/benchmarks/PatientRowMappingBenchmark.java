@@ -0,0 +1,111 @@
+package gtp.hms.benchmarks;
+
+import gtp.hms.dao.PageRequest;
+import gtp.hms.dao.PatientDAO;
+import gtp.hms.util.DatabaseConnection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning patient rows into objects.
+ * <p>
+ * Every benchmark leases a read connection and runs the query behind
+ * {@link PatientDAO#findPage} for the first page by patient number;
+ * {@link #fetchOnly} does nothing else, so the difference between it and
+ * another benchmark is the cost of that benchmark's decoding.
+ * {@link #fetchAndMap} calls {@code findPage} itself. The key benchmarks
+ * compare decoding a UUID from its text form, as {@code create} does with
+ * generated keys, against letting the driver decode it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PatientRowMappingBenchmark {
+    /** The statement {@code findPage} runs, including its look-ahead row. */
+    private static final String FIRST_PAGE_SQL = "SELECT * FROM patient ORDER BY patient_number LIMIT ?";
+
+    @Param({"100", "500"})
+    private int rows;
+
+    private final PatientDAO patientDAO = new PatientDAO();
+    private PageRequest firstPage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        BenchmarkData.ensureAtLeast(10_000);
+        firstPage = PageRequest.first(PageRequest.Sort.PATIENT_NUMBER, rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        DatabaseConnection.getInstance().closeConnection();
+    }
+
+    @Benchmark
+    public int fetchOnly() throws SQLException {
+        int count = 0;
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+             PreparedStatement stmt = firstPage(conn);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public void fetchAndMap(Blackhole blackhole) throws SQLException {
+        blackhole.consume(patientDAO.findPage(firstPage));
+    }
+
+    @Benchmark
+    public void keyFromString(Blackhole blackhole) throws SQLException {
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+             PreparedStatement stmt = firstPage(conn);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                blackhole.consume(UUID.fromString(rs.getString(1)));
+            }
+        }
+    }
+
+    @Benchmark
+    public void keyFromObject(Blackhole blackhole) throws SQLException {
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+             PreparedStatement stmt = firstPage(conn);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                blackhole.consume((UUID) rs.getObject(1));
+            }
+        }
+    }
+
+    private PreparedStatement firstPage(Connection conn) throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement(FIRST_PAGE_SQL);
+        stmt.setInt(1, rows + 1);
+        return stmt;
+    }
+}
@@ -0,0 +1,87 @@
+package gtp.hms.benchmarks;
+
+import gtp.hms.dao.Page;
+import gtp.hms.dao.PageRequest;
+import gtp.hms.dao.PatientDAO;
+import gtp.hms.exception.DaoException;
+import gtp.hms.model.Patient;
+import gtp.hms.model.PatientMatch;
+import gtp.hms.model.PatientSuggestion;
+import gtp.hms.service.PatientTypeaheadIndex;
+import gtp.hms.util.DatabaseConnection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Patient name search at several table sizes: the unbounded
+ * {@code searchByName} list, its first keyset page, the trigram-ranked search
+ * and the in-memory typeahead index.
+ * <p>
+ * The table is reloaded in trial setup whenever its size changes. Loading is
+ * not measured, but takes a while at the largest size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PatientSearchBenchmark {
+    private static final int LIMIT = 20;
+
+    @Param({"10000", "100000", "1000000"})
+    private int tableSize;
+
+    private final PatientDAO patientDAO = new PatientDAO();
+    private PatientTypeaheadIndex typeaheadIndex;
+    private String query;
+    private String prefix;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        BenchmarkData.ensureExactly(tableSize);
+        typeaheadIndex = PatientTypeaheadIndex.load(patientDAO);
+        query = BenchmarkData.lastNameOf(tableSize / 2);
+        prefix = query.substring(0, 4);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        DatabaseConnection.getInstance().closeConnection();
+    }
+
+    @Benchmark
+    public List<Patient> searchByName() throws DaoException {
+        return patientDAO.searchByName(query);
+    }
+
+    @Benchmark
+    public Page<Patient> searchByNameFirstPage() throws DaoException {
+        return patientDAO.searchByName(query, PageRequest.first(PageRequest.Sort.NAME, LIMIT));
+    }
+
+    @Benchmark
+    public List<PatientMatch> searchRanked() throws DaoException {
+        return patientDAO.searchRanked(query, LIMIT);
+    }
+
+    @Benchmark
+    public List<PatientSuggestion> typeahead() {
+        return typeaheadIndex.search(prefix, LIMIT);
+    }
+}
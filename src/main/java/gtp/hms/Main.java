@@ -1,30 +1,41 @@
 package gtp.hms;
 
-import gtp.hms.dao.DepartmentDAO;
-import gtp.hms.dao.DoctorDAO;
+import gtp.hms.cache.PatientCache;
+import gtp.hms.cache.ReferenceDataCache;
 import gtp.hms.dao.PatientAdmissionDAO;
-import gtp.hms.dao.WardDAO;
+import gtp.hms.dao.PatientDAO;
 import gtp.hms.model.Patient;
 import gtp.hms.model.PatientAdmission;
 import gtp.hms.model.Ward;
 import gtp.hms.model.employee.Doctor;
+import gtp.hms.service.BatchLoader;
+import gtp.hms.service.BedOccupancyIndex;
 import gtp.hms.service.PatientAdmissionService;
 import gtp.hms.util.DatabaseSeeder;
+import gtp.hms.util.MigrationRunner;
 import gtp.hms.service.PatientService;
+import gtp.hms.service.PatientTypeaheadIndex;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 
 public class Main {
     public static void main(String[] args) {
         try {
+            MigrationRunner.migrate();
+
             // Initialize services and DAOs
-            PatientService patientService = new PatientService();
-            WardDAO wardDAO = new WardDAO();
-            DoctorDAO doctorDAO = new DoctorDAO();
-            DepartmentDAO departmentDAO = new DepartmentDAO();
-            PatientAdmissionService patientAdmissionService = new PatientAdmissionService();
+            PatientTypeaheadIndex typeaheadIndex = PatientTypeaheadIndex.load(new PatientDAO());
+            System.out.printf("Typeahead index loaded: %d patients, ~%d KB%n",
+                    typeaheadIndex.size(), typeaheadIndex.estimateMemoryBytes() / 1024);
+            BedOccupancyIndex bedOccupancy = BedOccupancyIndex.load();
+            PatientService patientService = new PatientService(typeaheadIndex, bedOccupancy);
+            ReferenceDataCache referenceData = ReferenceDataCache.getInstance();
+            referenceData.warmUp();
+            PatientAdmissionService patientAdmissionService = new PatientAdmissionService(bedOccupancy);
 
             // Handle first patient (10005)
             handlePatientOperations(patientService, 10005, "Elias", "Tetteh", "Djonu");
@@ -35,9 +46,7 @@ public class Main {
             int randomPatientNumber = 10000 + rand.nextInt(90000); // 5-digit number
             Patient admittedPatient = handleAdmissionProcess(
                     patientService,
-                    wardDAO,
-                    doctorDAO,
-                    departmentDAO,
+                    referenceData,
                     patientAdmissionService,
                     randomPatientNumber,
                     "Patrick", "Joan", "Kubi"
@@ -48,6 +57,10 @@ public class Main {
                 displayAdmissionRecords(patientAdmissionService, admittedPatient);
             }
 
+            System.out.println("\nReference data cache: " + referenceData.getStats());
+            System.out.println("Patient cache: " + PatientCache.getInstance().getStats());
+            bedOccupancy.close();
+
         } catch (Exception e) {
             System.err.println("❌ Error in patient operations: " + e.getMessage());
             e.printStackTrace();
@@ -84,9 +97,7 @@ public class Main {
     }
 
     private static Patient handleAdmissionProcess(PatientService patientService,
-                                                  WardDAO wardDAO,
-                                                  DoctorDAO doctorDAO,
-                                                  DepartmentDAO departmentDAO,
+                                                  ReferenceDataCache referenceData,
                                                   PatientAdmissionService admissionService,
                                                   int patientNumber,
                                                   String firstName,
@@ -109,31 +120,35 @@ public class Main {
         }
 
         // Admission process
-        UUID cardioDeptId = departmentDAO.findDepartmentIdByCode("CARD");
+        UUID cardioDeptId = referenceData.getDepartmentIdByCode("CARD");
         if (cardioDeptId == null) {
             System.err.println("Cardiology department not found");
             return null;
         }
 
-        UUID wardId = wardDAO.findWardIdByNumber(1, cardioDeptId);
+        UUID wardId = referenceData.getWardId(1, cardioDeptId);
         if (wardId == null) {
             System.err.println("Ward not found in Cardiology department");
             return null;
         }
 
-        Ward ward = wardDAO.findById(wardId);
+        Ward ward = referenceData.getWard(wardId);
         if (ward == null) {
             System.err.println("Ward details not found");
             return null;
         }
 
-        List<Doctor> doctors = doctorDAO.findAll();
+        List<Doctor> doctors = referenceData.getDoctors();
         if (doctors.isEmpty()) {
             System.err.println("No doctors available");
             return null;
         }
 
-        int bedNumber = 5;
+        int bedNumber = admissionService.findNextFreeBed(ward.getWardNumber(), ward.getDepartmentId());
+        if (bedNumber < 0) {
+            System.err.println("No free beds in ward " + ward.getWardNumber());
+            return patient;
+        }
         Doctor doctor = doctors.get(0); // Get first available doctor
 
         try {
@@ -162,8 +177,19 @@ public class Main {
         if (allAdmissions.isEmpty()) {
             System.out.println("No admission records found");
         } else {
+            // Treating doctors are fetched together in one query
+            BatchLoader<UUID, Doctor> doctors = BatchLoader.doctors();
+            List<CompletableFuture<Doctor>> treatingDoctors = new ArrayList<>();
             for (PatientAdmission admission : allAdmissions) {
-                System.out.println(admission);
+                UUID doctorId = admission.getTreatingDoctorId();
+                treatingDoctors.add(doctorId == null ? CompletableFuture.completedFuture(null) : doctors.load(doctorId));
+            }
+            doctors.dispatch();
+
+            for (int i = 0; i < allAdmissions.size(); i++) {
+                Doctor doctor = treatingDoctors.get(i).join();
+                System.out.println(allAdmissions.get(i) + (doctor == null ? "" :
+                        " - treated by Dr. " + doctor.getFirstName() + " " + doctor.getLastName()));
             }
         }
 
@@ -0,0 +1,370 @@
+package gtp.hms.bench;
+
+import gtp.hms.cache.ReferenceDataCache;
+import gtp.hms.dao.WardDAO;
+import gtp.hms.exception.BedUnavailableException;
+import gtp.hms.model.Ward;
+import gtp.hms.service.BedOccupancyIndex;
+import gtp.hms.service.PatientAdmissionService;
+import gtp.hms.service.PatientService;
+import gtp.hms.util.DatabaseConnection;
+import gtp.hms.util.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop workload driver for the patient and admission services.
+ * <p>
+ * Requests arrive at a fixed average rate, as a Poisson process, whatever the
+ * system's response time, and are served by a fixed number of virtual-thread
+ * clients. When every client is busy, arrivals queue. Response time is measured
+ * from when a request was due to start, not when a client picked it up, so
+ * queueing shows up in the percentiles instead of silently lowering the
+ * offered load (coordinated omission). Service time, measured from pick-up,
+ * is reported alongside.
+ * <p>
+ * Usage: {@code AdmissionWorkloadDriver [ratePerSecond] [durationSeconds] [clients] [warmupSeconds] [mix]},
+ * where {@code mix} weights the operations, e.g.
+ * {@code register=15,search=35,admit=15,current=25,discharge=10}.
+ * Requests due during the warm-up are executed but not recorded.
+ * <p>
+ * Patients registered by the run are left in place; admissions still open at
+ * the end are discharged. Run it against a scratch database with wards and
+ * doctors loaded.
+ */
+public class AdmissionWorkloadDriver {
+    private static final String DEFAULT_MIX = "register=15,search=35,admit=15,current=25,discharge=10";
+    private static final int SEARCH_LIMIT = 20;
+    private static final int MAX_LOGGED_ERRORS = 10;
+
+    private static final String[] FIRST_NAMES = {
+            "Kwame", "Ama", "Kofi", "Akosua", "Yaw", "Abena", "Emmanuel", "Grace", "Samuel", "Mercy"};
+
+    private static final String[] LAST_NAMES = {
+            "Mensah", "Boateng", "Owusu", "Asante", "Osei", "Agyeman", "Appiah", "Addo", "Quaye", "Tetteh"};
+
+    private static final String[] DIAGNOSES = {"Malaria", "Pneumonia", "Hypertension", "Appendicitis", "Asthma"};
+
+    private enum Operation { REGISTER, SEARCH, ADMIT, CURRENT, DISCHARGE }
+
+    private enum Outcome { OK, REJECTED, SKIPPED }
+
+    private record Arrival(Operation operation, long dueNanos) {}
+
+    private record Admitted(UUID patientId, UUID admissionId) {}
+
+    private static final Arrival STOP = new Arrival(null, 0);
+
+    private final PatientService patientService;
+    private final PatientAdmissionService admissionService;
+    private final BedOccupancyIndex bedOccupancy;
+    private final List<Ward> wards;
+    private final UUID doctorId;
+
+    private final ConcurrentLinkedQueue<UUID> waiting = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Admitted> admitted = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger nextPatientNumber =
+            new AtomicInteger(1_500_000_000 + ThreadLocalRandom.current().nextInt(100_000_000));
+
+    private final Map<Operation, LatencyHistogram> responseTimes = new EnumMap<>(Operation.class);
+    private final Map<Operation, LatencyHistogram> serviceTimes = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> completed = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> rejected = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> skipped = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final AtomicInteger loggedErrors = new AtomicInteger();
+
+    private AdmissionWorkloadDriver(BedOccupancyIndex bedOccupancy, List<Ward> wards, UUID doctorId) {
+        this.bedOccupancy = bedOccupancy;
+        this.patientService = new PatientService(null, bedOccupancy);
+        this.admissionService = new PatientAdmissionService(bedOccupancy);
+        this.wards = wards;
+        this.doctorId = doctorId;
+        for (Operation operation : Operation.values()) {
+            responseTimes.put(operation, new LatencyHistogram());
+            serviceTimes.put(operation, new LatencyHistogram());
+            completed.put(operation, new LongAdder());
+            rejected.put(operation, new LongAdder());
+            skipped.put(operation, new LongAdder());
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        double rate = args.length > 0 ? Double.parseDouble(args[0]) : 200;
+        int durationSeconds = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+        int clients = args.length > 2 ? Integer.parseInt(args[2]) : 32;
+        int warmupSeconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        Map<Operation, Integer> mix = parseMix(args.length > 4 ? args[4] : DEFAULT_MIX);
+
+        List<Ward> wards = new WardDAO().findAll();
+        if (wards.isEmpty()) {
+            System.err.println("No wards found; seed the database first");
+            return;
+        }
+        UUID doctorId = ReferenceDataCache.getInstance().getDoctors().get(0).getId();
+        BedOccupancyIndex bedOccupancy = BedOccupancyIndex.load();
+
+        AdmissionWorkloadDriver driver = new AdmissionWorkloadDriver(bedOccupancy, wards, doctorId);
+        try {
+            driver.run(rate, durationSeconds, clients, warmupSeconds, mix);
+        } finally {
+            driver.dischargeRemaining();
+            bedOccupancy.close();
+            DatabaseConnection.getInstance().closeConnection();
+        }
+    }
+
+    private void run(double rate, int durationSeconds, int clients, int warmupSeconds,
+                     Map<Operation, Integer> mix) throws InterruptedException {
+        // Give the first admissions someone to admit
+        for (int i = 0; i < clients * 4; i++) {
+            register(new SplittableRandom(i));
+        }
+
+        System.out.printf("rate=%.0f/s duration=%ds warmup=%ds clients=%d mix=%s%n",
+                rate, durationSeconds, warmupSeconds, clients, mix);
+
+        BlockingQueue<Arrival> arrivals = new LinkedBlockingQueue<>();
+        long start = System.nanoTime();
+        long measureFrom = start + warmupSeconds * 1_000_000_000L;
+        long end = measureFrom + durationSeconds * 1_000_000_000L;
+
+        List<Thread> threads = new ArrayList<>(clients);
+        for (int c = 0; c < clients; c++) {
+            long seed = c;
+            threads.add(Thread.ofVirtual().name("workload-client-" + c)
+                    .start(() -> serve(arrivals, measureFrom, new SplittableRandom(seed))));
+        }
+
+        Operation[] weighted = weightedOperations(mix);
+        SplittableRandom random = new SplittableRandom(42);
+        long due = start;
+        long issued = 0;
+        while (due < end) {
+            long delay = due - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            arrivals.add(new Arrival(weighted[random.nextInt(weighted.length)], due));
+            issued++;
+            due += (long) (-Math.log(1 - random.nextDouble()) * 1e9 / rate);
+        }
+        long backlog = arrivals.size();
+        for (int c = 0; c < clients; c++) {
+            arrivals.add(STOP);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        report(durationSeconds, issued, backlog);
+    }
+
+    private void serve(BlockingQueue<Arrival> arrivals, long measureFrom, SplittableRandom random) {
+        while (true) {
+            Arrival arrival;
+            try {
+                arrival = arrivals.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (arrival == STOP) {
+                return;
+            }
+
+            Operation operation = arrival.operation();
+            long started = System.nanoTime();
+            Outcome outcome;
+            try {
+                outcome = execute(operation, random);
+            } catch (Exception e) {
+                if (arrival.dueNanos() >= measureFrom) {
+                    errors.get(operation).increment();
+                }
+                if (loggedErrors.incrementAndGet() <= MAX_LOGGED_ERRORS) {
+                    System.err.println(operation + " failed: " + e.getMessage());
+                }
+                continue;
+            }
+            long finished = System.nanoTime();
+
+            if (arrival.dueNanos() >= measureFrom) {
+                switch (outcome) {
+                    case OK -> completed.get(operation).increment();
+                    case REJECTED -> rejected.get(operation).increment();
+                    case SKIPPED -> skipped.get(operation).increment();
+                }
+                if (outcome != Outcome.SKIPPED) {
+                    responseTimes.get(operation).record(finished - arrival.dueNanos());
+                    serviceTimes.get(operation).record(finished - started);
+                }
+            }
+        }
+    }
+
+    private Outcome execute(Operation operation, SplittableRandom random) throws Exception {
+        switch (operation) {
+            case REGISTER -> register(random);
+            case SEARCH -> patientService.searchPatientsRanked(LAST_NAMES[random.nextInt(LAST_NAMES.length)],
+                    SEARCH_LIMIT);
+            case ADMIT -> {
+                return admit(random);
+            }
+            case CURRENT -> {
+                Admitted admission = admitted.poll();
+                if (admission == null) {
+                    return Outcome.SKIPPED;
+                }
+                try {
+                    admissionService.getCurrentAdmission(admission.patientId());
+                } finally {
+                    admitted.add(admission);
+                }
+            }
+            case DISCHARGE -> {
+                Admitted admission = admitted.poll();
+                if (admission == null) {
+                    return Outcome.SKIPPED;
+                }
+                admissionService.discharge(admission.admissionId());
+                waiting.add(admission.patientId());
+            }
+        }
+        return Outcome.OK;
+    }
+
+    private void register(SplittableRandom random) {
+        UUID patientId = patientService.registerNewPatient(nextPatientNumber.getAndIncrement(),
+                FIRST_NAMES[random.nextInt(FIRST_NAMES.length)], null,
+                LAST_NAMES[random.nextInt(LAST_NAMES.length)], "Workload", null);
+        waiting.add(patientId);
+    }
+
+    private Outcome admit(SplittableRandom random) throws Exception {
+        UUID patientId = waiting.poll();
+        if (patientId == null) {
+            return Outcome.SKIPPED;
+        }
+        Ward ward = wards.get(random.nextInt(wards.size()));
+        int bed = bedOccupancy.nextFreeBed(ward.getId());
+        if (bed < 0) {
+            waiting.add(patientId);
+            return Outcome.REJECTED;
+        }
+
+        try {
+            UUID admissionId = admissionService.admitPatient(patientId, ward.getWardNumber(),
+                    ward.getDepartmentId(), bed, doctorId, DIAGNOSES[random.nextInt(DIAGNOSES.length)]);
+            admitted.add(new Admitted(patientId, admissionId));
+            return Outcome.OK;
+        } catch (BedUnavailableException e) {
+            waiting.add(patientId);
+            return Outcome.REJECTED;
+        } catch (Exception e) {
+            waiting.add(patientId);
+            throw e;
+        }
+    }
+
+    private void report(int durationSeconds, long issued, long backlog) {
+        System.out.printf("issued=%d, backlog when arrivals stopped=%d%n%n", issued, backlog);
+        System.out.printf("%-10s %9s %9s %9s %9s %9s %9s %9s %9s %9s %8s%n", "operation", "ok", "ok/s",
+                "p50 ms", "p99 ms", "p999 ms", "max ms", "svc p99", "rejected", "skipped", "errors");
+
+        LatencyHistogram all = new LatencyHistogram();
+        long totalOk = 0;
+        long totalErrors = 0;
+        long totalAttempts = 0;
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram response = responseTimes.get(operation);
+            long ok = completed.get(operation).sum();
+            long failed = errors.get(operation).sum();
+            long attempts = response.getCount() + failed;
+            all.add(response);
+            totalOk += ok;
+            totalErrors += failed;
+            totalAttempts += attempts;
+
+            System.out.printf("%-10s %9d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %9d %9d %7.2f%%%n",
+                    operation.name().toLowerCase(Locale.ROOT), ok, (double) ok / durationSeconds,
+                    millis(response.getValueAtPercentile(50)), millis(response.getValueAtPercentile(99)),
+                    millis(response.getValueAtPercentile(99.9)), millis(response.getMaxNanos()),
+                    millis(serviceTimes.get(operation).getValueAtPercentile(99)),
+                    rejected.get(operation).sum(), skipped.get(operation).sum(), errorRate(failed, attempts));
+        }
+
+        System.out.printf("%-10s %9d %9.1f %9.2f %9.2f %9.2f %9.2f %9s %9s %9s %7.2f%%%n",
+                "all", totalOk, (double) totalOk / durationSeconds,
+                millis(all.getValueAtPercentile(50)), millis(all.getValueAtPercentile(99)),
+                millis(all.getValueAtPercentile(99.9)), millis(all.getMaxNanos()),
+                "", "", "", errorRate(totalErrors, totalAttempts));
+    }
+
+    private void dischargeRemaining() {
+        List<UUID> admissionIds = new ArrayList<>();
+        for (Admitted admission : admitted) {
+            admissionIds.add(admission.admissionId());
+        }
+        if (admissionIds.isEmpty()) {
+            return;
+        }
+        try {
+            admissionService.dischargeAll(admissionIds);
+            System.out.println("Discharged " + admissionIds.size() + " remaining admissions");
+        } catch (Exception e) {
+            System.err.println("Failed to discharge remaining admissions: " + e.getMessage());
+        }
+    }
+
+    private static Map<Operation, Integer> parseMix(String spec) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String part : spec.split(",")) {
+            String[] pair = part.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Bad mix entry '" + part + "', expected operation=weight");
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Weight for " + pair[0] + " must not be negative");
+            }
+            mix.put(Operation.valueOf(pair[0].trim().toUpperCase(Locale.ROOT)), weight);
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("Mix must give at least one operation a positive weight");
+        }
+        return mix;
+    }
+
+    private static Operation[] weightedOperations(Map<Operation, Integer> mix) {
+        List<Operation> weighted = new ArrayList<>();
+        mix.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                weighted.add(operation);
+            }
+        });
+        return weighted.toArray(Operation[]::new);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static double errorRate(long errors, long attempts) {
+        return attempts == 0 ? 0 : 100.0 * errors / attempts;
+    }
+}
@@ -0,0 +1,134 @@
+package gtp.hms.bench;
+
+import gtp.hms.cache.ReferenceDataCache;
+import gtp.hms.dao.PatientAdmissionDAO;
+import gtp.hms.dao.PatientDAO;
+import gtp.hms.dao.WardDAO;
+import gtp.hms.exception.BedUnavailableException;
+import gtp.hms.model.Patient;
+import gtp.hms.model.Ward;
+import gtp.hms.service.BedOccupancyIndex;
+import gtp.hms.service.PatientAdmissionService;
+import gtp.hms.util.DatabaseConnection;
+import gtp.hms.util.TransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contention benchmark for bed reservation.
+ * <p>
+ * N threads repeatedly admit a patient into a random bed of one of M wards and
+ * immediately remove the admission again, so beds keep changing hands and
+ * threads collide whenever they pick the same bed. Reports throughput and the
+ * share of attempts rejected because the bed was taken.
+ * <p>
+ * Usage: {@code BedReservationBenchmark [threads] [wards] [attemptsPerThread] [index|db]}.
+ * In {@code index} mode conflicts are caught by the in-memory
+ * {@link BedOccupancyIndex}; in {@code db} mode only by the partial unique index.
+ * Test patients are created up front and deleted afterwards.
+ */
+public class BedReservationBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int wardCount = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        int attemptsPerThread = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+        boolean useIndex = args.length <= 3 || !"db".equalsIgnoreCase(args[3]);
+
+        List<Ward> allWards = new WardDAO().findAll();
+        if (allWards.size() < wardCount) {
+            System.err.println("Need " + wardCount + " wards, found " + allWards.size());
+            return;
+        }
+        List<Ward> wards = allWards.subList(0, wardCount);
+        UUID doctorId = ReferenceDataCache.getInstance().getDoctors().get(0).getId();
+
+        BedOccupancyIndex bedOccupancy = useIndex ? BedOccupancyIndex.load() : null;
+        PatientAdmissionService admissionService = new PatientAdmissionService(bedOccupancy);
+        PatientAdmissionDAO admissionDAO = new PatientAdmissionDAO();
+        List<UUID> patientIds = createPatients(threads * attemptsPerThread);
+
+        LongAdder admitted = new LongAdder();
+        LongAdder conflicts = new LongAdder();
+        LongAdder errors = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        for (int t = 0; t < threads; t++) {
+            List<UUID> own = patientIds.subList(t * attemptsPerThread, (t + 1) * attemptsPerThread);
+            executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (UUID patientId : own) {
+                    Ward ward = wards.get(random.nextInt(wards.size()));
+                    int bed = 1 + random.nextInt(ward.getNumberOfBeds());
+                    try {
+                        UUID admissionId = admissionService.admitPatient(patientId, ward.getWardNumber(),
+                                ward.getDepartmentId(), bed, doctorId, "Benchmark");
+                        admitted.increment();
+                        admissionDAO.delete(admissionId);
+                        if (bedOccupancy != null) {
+                            bedOccupancy.markFree(ward.getId(), bed);
+                        }
+                    } catch (BedUnavailableException e) {
+                        conflicts.increment();
+                    } catch (Exception e) {
+                        errors.increment();
+                        System.err.println("Admission failed: " + e.getMessage());
+                    }
+                }
+                return null;
+            });
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.HOURS);
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+
+        long attempts = (long) threads * attemptsPerThread;
+        System.out.printf("mode=%s threads=%d wards=%d attempts=%d%n",
+                useIndex ? "index" : "db", threads, wardCount, attempts);
+        System.out.printf("admitted=%d conflicts=%d errors=%d elapsed=%.2fs%n",
+                admitted.sum(), conflicts.sum(), errors.sum(), seconds);
+        System.out.printf("throughput=%.1f attempts/s, %.1f admissions/s, conflict rate=%.1f%%%n",
+                attempts / seconds, admitted.sum() / seconds, 100.0 * conflicts.sum() / attempts);
+
+        deletePatients(patientIds);
+        if (bedOccupancy != null) {
+            bedOccupancy.close();
+        }
+        DatabaseConnection.getInstance().closeConnection();
+    }
+
+    private static List<UUID> createPatients(int count) throws Exception {
+        PatientDAO patientDAO = new PatientDAO();
+        int firstNumber = 1_000_000_000 + ThreadLocalRandom.current().nextInt(1_000_000_000 - count);
+        return TransactionManager.inUnitOfWork(() -> {
+            List<UUID> ids = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                ids.add(patientDAO.create(new Patient(firstNumber + i, "Bench", null, "Patient" + i, null, null)));
+            }
+            return ids;
+        });
+    }
+
+    private static void deletePatients(List<UUID> patientIds) throws Exception {
+        PatientDAO patientDAO = new PatientDAO();
+        TransactionManager.inTransaction(() -> {
+            for (UUID id : patientIds) {
+                patientDAO.delete(id);
+            }
+            return null;
+        });
+    }
+}
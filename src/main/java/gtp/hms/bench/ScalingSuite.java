@@ -0,0 +1,366 @@
+package gtp.hms.bench;
+
+import gtp.hms.cache.PatientCache;
+import gtp.hms.dao.DepartmentDAO;
+import gtp.hms.dao.DoctorDAO;
+import gtp.hms.dao.EmployeeDAO;
+import gtp.hms.dao.PageRequest;
+import gtp.hms.dao.PatientAdmissionDAO;
+import gtp.hms.dao.PatientChartDAO;
+import gtp.hms.dao.PatientDAO;
+import gtp.hms.dao.WardDAO;
+import gtp.hms.model.Department;
+import gtp.hms.model.Patient;
+import gtp.hms.model.Ward;
+import gtp.hms.model.employee.Doctor;
+import gtp.hms.util.DatabaseConnection;
+import gtp.hms.util.LatencyHistogram;
+import gtp.hms.util.MigrationRunner;
+import gtp.hms.util.SyntheticDataGenerator;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Times every read method in {@code gtp.hms.dao} at several data sizes and
+ * flags the ones whose latency grows faster than logarithmically.
+ * <p>
+ * For each size the suite truncates the database, loads a synthetic dataset
+ * with {@link SyntheticDataGenerator} (about ten admissions per patient), and
+ * times each method on randomly sampled keys with the patient cache cleared
+ * before every call. The median latency at each size is fitted to a power law
+ * {@code t = c * n^k}. A method is flagged when its median grows by more than
+ * {@value #TOLERANCE} times the growth of {@code log n} between the smallest
+ * and largest size, and by more than {@value #NOISE_FLOOR_MILLIS} ms.
+ * <p>
+ * The report is a tab-separated file with one line per method in a fixed
+ * order and no timestamps, so reports from two releases can be diffed.
+ * Writes are not timed here: they change the data being measured, and their
+ * cost under load is what {@link AdmissionWorkloadDriver} measures.
+ * <p>
+ * Usage: {@code ScalingSuite [admissionSizes] [reportFile]}, for example
+ * {@code ScalingSuite 10000,1000000,10000000 scaling-report.tsv}. Every table
+ * is truncated, so the suite only runs against a database whose name contains
+ * {@code bench}.
+ */
+public final class ScalingSuite {
+    private static final double TOLERANCE = 1.5;
+    private static final double NOISE_FLOOR_MILLIS = 0.2;
+    private static final int ADMISSIONS_PER_PATIENT = 10;
+    private static final int SAMPLE_KEYS = 500;
+    private static final int WARMUP_CALLS = 20;
+    private static final int MEASURED_CALLS = 200;
+    private static final long TIME_BUDGET_NANOS = 5_000_000_000L;
+    private static final int PAGE_SIZE = 20;
+    private static final int MULTI_GET_KEYS = 50;
+
+    private static final String TRUNCATE_SQL =
+            "TRUNCATE hospital, employee, department, doctor, nurse, ward, patient, patient_admission CASCADE";
+
+    @FunctionalInterface
+    private interface Call {
+        Object run(Keys keys, SplittableRandom random) throws Exception;
+    }
+
+    private record Probe(String name, Call call) {}
+
+    /**
+     * Keys sampled from the loaded data for the probes to look up.
+     */
+    private record Keys(List<Patient> patients, List<Ward> wards, List<Department> departments,
+                        List<Doctor> doctors) {
+
+        Patient patient(SplittableRandom random) {
+            return patients.get(random.nextInt(patients.size()));
+        }
+
+        Ward ward(SplittableRandom random) {
+            return wards.get(random.nextInt(wards.size()));
+        }
+
+        Department department(SplittableRandom random) {
+            return departments.get(random.nextInt(departments.size()));
+        }
+
+        Doctor doctor(SplittableRandom random) {
+            return doctors.get(random.nextInt(doctors.size()));
+        }
+
+        List<UUID> patientIds(SplittableRandom random, int count) {
+            List<UUID> ids = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                ids.add(patient(random).getId());
+            }
+            return ids;
+        }
+    }
+
+    private final PatientDAO patientDAO = new PatientDAO();
+    private final PatientAdmissionDAO admissionDAO = new PatientAdmissionDAO();
+    private final PatientChartDAO chartDAO = new PatientChartDAO();
+    private final WardDAO wardDAO = new WardDAO();
+    private final DepartmentDAO departmentDAO = new DepartmentDAO();
+    private final DoctorDAO doctorDAO = new DoctorDAO();
+    private final EmployeeDAO employeeDAO = new EmployeeDAO();
+
+    private final List<Probe> probes = List.of(
+            new Probe("PatientDAO.findById", (k, r) -> patientDAO.findById(k.patient(r).getId())),
+            new Probe("PatientDAO.findByPatientNumber",
+                    (k, r) -> patientDAO.findByPatientNumber(k.patient(r).getPatientNumber())),
+            new Probe("PatientDAO.findByIds", (k, r) -> patientDAO.findByIds(k.patientIds(r, MULTI_GET_KEYS))),
+            new Probe("PatientDAO.findByPatientNumbers", (k, r) -> {
+                List<Integer> numbers = new ArrayList<>(MULTI_GET_KEYS);
+                for (int i = 0; i < MULTI_GET_KEYS; i++) {
+                    numbers.add(k.patient(r).getPatientNumber());
+                }
+                return patientDAO.findByPatientNumbers(numbers);
+            }),
+            new Probe("PatientDAO.findPage",
+                    (k, r) -> patientDAO.findPage(PageRequest.first(PageRequest.Sort.NAME, PAGE_SIZE))),
+            new Probe("PatientDAO.searchByName", (k, r) -> patientDAO.searchByName(k.patient(r).getLastName())),
+            new Probe("PatientDAO.searchByName(page)", (k, r) -> patientDAO.searchByName(k.patient(r).getLastName(),
+                    PageRequest.first(PageRequest.Sort.NAME, PAGE_SIZE))),
+            new Probe("PatientDAO.searchRanked", (k, r) -> {
+                Patient patient = k.patient(r);
+                return patientDAO.searchRanked(patient.getFirstName() + " " + patient.getLastName(), PAGE_SIZE);
+            }),
+            new Probe("PatientAdmissionDAO.findByPatientId",
+                    (k, r) -> admissionDAO.findByPatientId(k.patient(r).getId())),
+            new Probe("PatientAdmissionDAO.findCurrentAdmissionByPatientId",
+                    (k, r) -> admissionDAO.findCurrentAdmissionByPatientId(k.patient(r).getId())),
+            new Probe("PatientAdmissionDAO.findAllCurrent", (k, r) -> admissionDAO.findAllCurrent()),
+            new Probe("PatientChartDAO.findByPatientId", (k, r) -> chartDAO.findByPatientId(k.patient(r).getId())),
+            new Probe("PatientChartDAO.findByPatientNumber",
+                    (k, r) -> chartDAO.findByPatientNumber(k.patient(r).getPatientNumber())),
+            new Probe("WardDAO.findById", (k, r) -> wardDAO.findById(k.ward(r).getId())),
+            new Probe("WardDAO.findByIds",
+                    (k, r) -> wardDAO.findByIds(List.of(k.ward(r).getId(), k.ward(r).getId()))),
+            new Probe("WardDAO.findWardIdByNumber", (k, r) -> {
+                Ward ward = k.ward(r);
+                return wardDAO.findWardIdByNumber(ward.getWardNumber(), ward.getDepartmentId());
+            }),
+            new Probe("WardDAO.findAll", (k, r) -> wardDAO.findAll()),
+            new Probe("WardDAO.isBedAvailable", (k, r) -> {
+                Ward ward = k.ward(r);
+                return wardDAO.isBedAvailable(ward.getWardNumber(), ward.getDepartmentId(),
+                        1 + r.nextInt(ward.getNumberOfBeds()));
+            }),
+            new Probe("DepartmentDAO.findById", (k, r) -> departmentDAO.findById(k.department(r).getId())),
+            new Probe("DepartmentDAO.findDepartmentIdByCode", (k, r) ->
+                    departmentDAO.findDepartmentIdByCode(String.valueOf(k.department(r).getDepartmentCode()))),
+            new Probe("DepartmentDAO.findAll", (k, r) -> departmentDAO.findAll()),
+            new Probe("DepartmentDAO.findAllIdsByCode", (k, r) -> departmentDAO.findAllIdsByCode()),
+            new Probe("DoctorDAO.findById", (k, r) -> doctorDAO.findById(k.doctor(r).getId())),
+            new Probe("DoctorDAO.findByEmployeeNumber",
+                    (k, r) -> doctorDAO.findByEmployeeNumber(k.doctor(r).getEmployeeNumber())),
+            new Probe("DoctorDAO.findByIds",
+                    (k, r) -> doctorDAO.findByIds(List.of(k.doctor(r).getId(), k.doctor(r).getId()))),
+            new Probe("DoctorDAO.findBySpecialty", (k, r) -> doctorDAO.findBySpecialty(k.doctor(r).getSpecialty())),
+            new Probe("DoctorDAO.findAll", (k, r) -> doctorDAO.findAll()),
+            new Probe("EmployeeDAO.getEmployee", (k, r) -> employeeDAO.getEmployee(k.doctor(r).getId())),
+            new Probe("EmployeeDAO.getEmployees",
+                    (k, r) -> employeeDAO.getEmployees(List.of(k.doctor(r).getId(), k.doctor(r).getId()))));
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = Arrays.stream((args.length > 0 ? args[0] : "10000,1000000,10000000").split(","))
+                .map(String::trim)
+                .mapToInt(Integer::parseInt)
+                .sorted()
+                .toArray();
+        Path reportFile = Paths.get(args.length > 1 ? args[1] : "scaling-report.tsv");
+        if (sizes.length < 2) {
+            throw new IllegalArgumentException("At least two sizes are needed to fit a growth curve");
+        }
+
+        try {
+            new ScalingSuite().run(sizes, reportFile);
+        } finally {
+            DatabaseConnection.getInstance().closeConnection();
+        }
+    }
+
+    private void run(int[] sizes, Path reportFile) throws Exception {
+        MigrationRunner.migrate();
+        double[][] medians = new double[probes.size()][sizes.length];
+        long[] loaded = new long[sizes.length];
+
+        for (int s = 0; s < sizes.length; s++) {
+            loaded[s] = load(sizes[s]);
+            Keys keys = sampleKeys();
+            System.out.printf("%nTiming %d methods at %,d admissions%n", probes.size(), loaded[s]);
+
+            for (int p = 0; p < probes.size(); p++) {
+                Probe probe = probes.get(p);
+                LatencyHistogram histogram = measure(probe, keys, new SplittableRandom(p));
+                medians[p][s] = histogram.getValueAtPercentile(50) / 1e6;
+                System.out.printf("  %-52s p50=%9.3fms p90=%9.3fms (%d calls)%n", probe.name(), medians[p][s],
+                        histogram.getValueAtPercentile(90) / 1e6, histogram.getCount());
+            }
+        }
+
+        int flagged = writeReport(reportFile, sizes, loaded, medians);
+        System.out.printf("%nReport written to %s; %d of %d methods grow faster than log n%n",
+                reportFile.toAbsolutePath(), flagged, probes.size());
+    }
+
+    private LatencyHistogram measure(Probe probe, Keys keys, SplittableRandom random) throws Exception {
+        PatientCache cache = PatientCache.getInstance();
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            cache.clear();
+            probe.call().run(keys, random);
+        }
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        long deadline = System.nanoTime() + TIME_BUDGET_NANOS;
+        for (int i = 0; i < MEASURED_CALLS && (i < 5 || System.nanoTime() < deadline); i++) {
+            cache.clear();
+            long start = System.nanoTime();
+            probe.call().run(keys, random);
+            histogram.record(System.nanoTime() - start);
+        }
+        return histogram;
+    }
+
+    private int writeReport(Path reportFile, int[] sizes, long[] loaded, double[][] medians) throws IOException {
+        double logGrowth = Math.log(sizes[sizes.length - 1]) / Math.log(sizes[0]);
+        int flagged = 0;
+
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(reportFile, StandardCharsets.UTF_8))) {
+            out.println("# Median latency in ms by target admission count; exponent k of t ~ n^k");
+            out.print("# admissions loaded:");
+            for (long count : loaded) {
+                out.print(" " + count);
+            }
+            out.println();
+
+            StringBuilder header = new StringBuilder("method");
+            for (int size : sizes) {
+                header.append("\tn=").append(size);
+            }
+            out.println(header.append("\texponent\tgrowth\tverdict"));
+
+            for (int p = 0; p < probes.size(); p++) {
+                double[] times = medians[p];
+                double first = times[0];
+                double last = times[times.length - 1];
+                boolean superLogarithmic = last - first > NOISE_FLOOR_MILLIS
+                        && last > TOLERANCE * logGrowth * Math.max(first, 1e-3);
+                double exponent = fitExponent(sizes, times);
+                if (superLogarithmic) {
+                    flagged++;
+                }
+
+                StringBuilder line = new StringBuilder(probes.get(p).name());
+                for (double time : times) {
+                    line.append('\t').append(String.format(Locale.ROOT, "%.3f", time));
+                }
+                line.append('\t').append(String.format(Locale.ROOT, "%.2f", exponent))
+                        .append('\t').append(growthClass(exponent))
+                        .append('\t').append(superLogarithmic ? "SUPER-LOG" : "ok");
+                out.println(line);
+            }
+        }
+        return flagged;
+    }
+
+    /**
+     * Least-squares slope of log t against log n.
+     */
+    private static double fitExponent(int[] sizes, double[] times) {
+        int n = sizes.length;
+        double meanX = 0;
+        double meanY = 0;
+        for (int i = 0; i < n; i++) {
+            meanX += Math.log(sizes[i]);
+            meanY += Math.log(Math.max(times[i], 1e-3));
+        }
+        meanX /= n;
+        meanY /= n;
+
+        double covariance = 0;
+        double variance = 0;
+        for (int i = 0; i < n; i++) {
+            double dx = Math.log(sizes[i]) - meanX;
+            covariance += dx * (Math.log(Math.max(times[i], 1e-3)) - meanY);
+            variance += dx * dx;
+        }
+        return covariance / variance;
+    }
+
+    private static String growthClass(double exponent) {
+        if (exponent < 0.12) {
+            return "flat-or-log";
+        }
+        if (exponent < 0.75) {
+            return "sublinear";
+        }
+        return exponent < 1.25 ? "linear" : "superlinear";
+    }
+
+    /**
+     * Replaces the database contents with a dataset of about the given number
+     * of admissions.
+     *
+     * @return the number of admissions actually loaded
+     */
+    private long load(int admissions) throws SQLException {
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             Statement stmt = conn.createStatement()) {
+            checkScratchDatabase(stmt);
+            stmt.execute(TRUNCATE_SQL);
+        }
+        PatientCache.getInstance().clear();
+
+        int patients = Math.max(1_000, admissions / ADMISSIONS_PER_PATIENT);
+        new SyntheticDataGenerator(42L, patients, (double) admissions / patients,
+                Runtime.getRuntime().availableProcessors()).generate();
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT count(*) FROM patient_admission")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private Keys sampleKeys() throws Exception {
+        List<UUID> ids = new ArrayList<>(SAMPLE_KEYS);
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT id FROM patient ORDER BY random() LIMIT ?")) {
+            stmt.setInt(1, SAMPLE_KEYS);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add((UUID) rs.getObject("id"));
+                }
+            }
+        }
+        return new Keys(new ArrayList<>(patientDAO.findByIds(ids).values()), wardDAO.findAll(),
+                departmentDAO.findAll(), doctorDAO.findAll());
+    }
+
+    private static void checkScratchDatabase(Statement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("SELECT current_database()")) {
+            rs.next();
+            String name = rs.getString(1);
+            if (!name.contains("bench")) {
+                throw new SQLException("Refusing to truncate database '" + name +
+                        "'; the scaling suite needs a scratch database whose name contains 'bench'");
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package gtp.hms.cache;
+
+/**
+ * Immutable snapshot of a cache's hit and miss counters.
+ */
+public class CacheStats {
+    private final long hits;
+    private final long misses;
+    private final int size;
+
+    public CacheStats(long hits, long misses, int size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.size = size;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the fraction of lookups served from the cache.
+     *
+     * @return hit ratio between 0 and 1, or 0 if there were no lookups
+     */
+    public double getHitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CacheStats{hits=%d, misses=%d, size=%d, hitRatio=%.2f}",
+                hits, misses, size, getHitRatio());
+    }
+}
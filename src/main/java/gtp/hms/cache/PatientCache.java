@@ -0,0 +1,266 @@
+package gtp.hms.cache;
+
+import gtp.hms.config.DatabaseConfig;
+import gtp.hms.model.Patient;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Size-bounded cache of patients keyed by ID and by patient number.
+ * <p>
+ * Entries are kept in least-recently-used order and the oldest is evicted
+ * once {@code cache.patient.maxEntries} is reached. Lookups by patient number
+ * go through a primitive int-keyed index onto the ID. The cache stores and
+ * returns copies, so callers may modify the patients they get back.
+ * <p>
+ * {@code PatientDAO} keeps the cache coherent: writes invalidate the affected
+ * entries immediately and again once their transaction commits.
+ */
+public final class PatientCache {
+    private static final Object LOCK = new Object();
+    private static volatile PatientCache instance;
+
+    private final int maxEntries;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<UUID, Patient> byId;
+    private final IntKeyedMap<UUID> idsByNumber;
+    private long estimatedBytes;
+
+    // Incremented on every invalidation so loads that raced a write are not cached
+    private long version;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    PatientCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.byId = new LinkedHashMap<>(16, 0.75f, true);
+        this.idsByNumber = new IntKeyedMap<>(Math.min(maxEntries, 1024));
+    }
+
+    /**
+     * Gets the singleton instance of the cache, sized from {@link DatabaseConfig}.
+     *
+     * @return the patient cache
+     */
+    public static PatientCache getInstance() {
+        PatientCache current = instance;
+        if (current == null) {
+            synchronized (LOCK) {
+                current = instance;
+                if (current == null) {
+                    current = new PatientCache(DatabaseConfig.getPatientCacheMaxEntries());
+                    instance = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Indicates whether caching is enabled.
+     *
+     * @return false if the configured maximum is zero
+     */
+    public boolean isEnabled() {
+        return maxEntries > 0;
+    }
+
+    /**
+     * Returns a copy of the cached patient with the given ID.
+     *
+     * @param id the patient's ID
+     * @return the patient, or null if not cached
+     */
+    public Patient getById(UUID id) {
+        lock.lock();
+        try {
+            return copyOrMiss(byId.get(id));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a copy of the cached patient with the given patient number.
+     *
+     * @param patientNumber the patient number
+     * @return the patient, or null if not cached
+     */
+    public Patient getByPatientNumber(int patientNumber) {
+        lock.lock();
+        try {
+            UUID id = idsByNumber.get(patientNumber);
+            return copyOrMiss(id == null ? null : byId.get(id));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the cache version to pass to {@link #put} for a patient about to
+     * be loaded from the database.
+     *
+     * @return the current version
+     */
+    public long currentVersion() {
+        lock.lock();
+        try {
+            return version;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Caches a copy of a patient loaded from the database, evicting the least
+     * recently used entry if the cache is full. The patient is not cached if
+     * any entry was invalidated since the load began, since the loaded row may
+     * predate that write.
+     *
+     * @param patient     the patient; must have an ID
+     * @param loadVersion the {@link #currentVersion()} taken before the load
+     */
+    public void put(Patient patient, long loadVersion) {
+        if (!isEnabled() || patient == null || patient.getId() == null) {
+            return;
+        }
+
+        Patient copy = copy(patient);
+        lock.lock();
+        try {
+            if (loadVersion != version) {
+                return;
+            }
+            removeEntry(copy.getId());
+            UUID previousHolder = idsByNumber.get(copy.getPatientNumber());
+            if (previousHolder != null) {
+                removeEntry(previousHolder);
+            }
+            byId.put(copy.getId(), copy);
+            idsByNumber.put(copy.getPatientNumber(), copy.getId());
+            estimatedBytes += entryBytes(copy);
+
+            while (byId.size() > maxEntries) {
+                Map.Entry<UUID, Patient> eldest = byId.entrySet().iterator().next();
+                removeEntry(eldest.getKey());
+                evictions.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes a patient from the cache.
+     *
+     * @param id the patient's ID
+     */
+    public void invalidate(UUID id) {
+        lock.lock();
+        try {
+            version++;
+            removeEntry(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes whichever patient is cached under the given patient number.
+     *
+     * @param patientNumber the patient number
+     */
+    public void invalidateNumber(int patientNumber) {
+        lock.lock();
+        try {
+            version++;
+            UUID id = idsByNumber.get(patientNumber);
+            if (id != null) {
+                removeEntry(id);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes every cached patient. Counters are kept.
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            version++;
+            byId.clear();
+            idsByNumber.clear();
+            estimatedBytes = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a snapshot of the cache's size and counters.
+     *
+     * @return cache statistics
+     */
+    public PatientCacheStats getStats() {
+        lock.lock();
+        try {
+            long indexBytes = 32L + 16 + (long) idsByNumber.capacity() * 8;
+            long mapBytes = 64L + 16 + (long) byId.size() * 40 * 2;
+            return new PatientCacheStats(hits.sum(), misses.sum(), evictions.sum(),
+                    byId.size(), maxEntries, estimatedBytes + indexBytes + mapBytes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Patient copyOrMiss(Patient cached) {
+        if (cached == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return copy(cached);
+    }
+
+    private void removeEntry(UUID id) {
+        Patient removed = byId.remove(id);
+        if (removed != null) {
+            // Only drop the number mapping if it still points at this patient
+            if (id.equals(idsByNumber.get(removed.getPatientNumber()))) {
+                idsByNumber.remove(removed.getPatientNumber());
+            }
+            estimatedBytes -= entryBytes(removed);
+        }
+    }
+
+    private static Patient copy(Patient patient) {
+        return new Patient(patient.getId(), patient.getPatientNumber(), patient.getFirstName(),
+                patient.getMiddleName(), patient.getLastName(), patient.getAddress(),
+                patient.getTelephoneNumber(), patient.getCreatedAt(), patient.getUpdatedAt());
+    }
+
+    /**
+     * Approximates the heap retained by one cached patient: the object, its
+     * UUID, two timestamps and its strings, assuming compressed pointers and
+     * compact Latin-1 strings.
+     */
+    private static long entryBytes(Patient patient) {
+        long bytes = 48 + 32 + 2 * 48;
+        bytes += stringBytes(patient.getFirstName()) + stringBytes(patient.getMiddleName())
+                + stringBytes(patient.getLastName()) + stringBytes(patient.getAddress())
+                + stringBytes(patient.getTelephoneNumber());
+        return bytes;
+    }
+
+    private static long stringBytes(String value) {
+        return value == null ? 0 : 24 + 16 + value.length();
+    }
+}
@@ -0,0 +1,67 @@
+package gtp.hms.cache;
+
+/**
+ * Immutable snapshot of {@link PatientCache} usage, for sizing the cache.
+ */
+public class PatientCacheStats {
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final int size;
+    private final int maxEntries;
+    private final long estimatedBytes;
+
+    public PatientCacheStats(long hits, long misses, long evictions, int size, int maxEntries, long estimatedBytes) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+        this.maxEntries = maxEntries;
+        this.estimatedBytes = estimatedBytes;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Returns the approximate heap retained by the cached entries and indexes.
+     *
+     * @return estimated footprint in bytes
+     */
+    public long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    /**
+     * Returns the fraction of lookups served from the cache.
+     *
+     * @return hit ratio between 0 and 1, or 0 if there were no lookups
+     */
+    public double getHitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PatientCacheStats{hits=%d, misses=%d, hitRatio=%.2f, evictions=%d, size=%d/%d, ~%d KB}",
+                hits, misses, getHitRatio(), evictions, size, maxEntries, estimatedBytes / 1024);
+    }
+}
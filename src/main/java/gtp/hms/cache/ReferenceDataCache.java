@@ -0,0 +1,236 @@
+package gtp.hms.cache;
+
+import gtp.hms.config.DatabaseConfig;
+import gtp.hms.dao.DepartmentDAO;
+import gtp.hms.dao.DoctorDAO;
+import gtp.hms.dao.WardDAO;
+import gtp.hms.exception.DaoException;
+import gtp.hms.model.Ward;
+import gtp.hms.model.employee.Doctor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Read-through cache for departments, wards and doctors.
+ * <p>
+ * Reference data changes rarely but is resolved on every admission, so
+ * lookups are served from memory and reloaded from the DAOs once an entry is
+ * older than {@code cache.reference.ttlMillis}. Writes through
+ * {@link DepartmentDAO#create}, {@link WardDAO#create} and
+ * {@code EmployeeDAO.addDoctor} invalidate the affected data as soon as their
+ * transaction commits.
+ * <p>
+ * Returned objects are shared between callers and must not be modified.
+ */
+public final class ReferenceDataCache {
+    private static final Object LOCK = new Object();
+    private static volatile ReferenceDataCache instance;
+
+    private static final String ALL_DOCTORS = "";
+
+    private final DepartmentDAO departmentDAO;
+    private final WardDAO wardDAO;
+    private final DoctorDAO doctorDAO;
+
+    private final TtlCache<String, UUID> departmentIds;
+    private final TtlCache<WardKey, UUID> wardIds;
+    private final TtlCache<UUID, Ward> wards;
+    private final TtlCache<String, List<Doctor>> doctorLists;
+    private final TtlCache<UUID, Doctor> doctors;
+
+    private ReferenceDataCache() {
+        long ttlMillis = DatabaseConfig.getReferenceCacheTtlMillis();
+        this.departmentDAO = new DepartmentDAO();
+        this.wardDAO = new WardDAO();
+        this.doctorDAO = new DoctorDAO();
+        this.departmentIds = new TtlCache<>(ttlMillis);
+        this.wardIds = new TtlCache<>(ttlMillis);
+        this.wards = new TtlCache<>(ttlMillis);
+        this.doctorLists = new TtlCache<>(ttlMillis);
+        this.doctors = new TtlCache<>(ttlMillis);
+    }
+
+    /**
+     * Gets the singleton instance of the cache.
+     *
+     * @return the reference data cache
+     */
+    public static ReferenceDataCache getInstance() {
+        ReferenceDataCache current = instance;
+        if (current == null) {
+            synchronized (LOCK) {
+                current = instance;
+                if (current == null) {
+                    current = new ReferenceDataCache();
+                    instance = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Finds a department ID by its department code.
+     *
+     * @param departmentCode the department code
+     * @return the department's ID
+     * @throws DaoException if the department does not exist or cannot be loaded
+     */
+    public UUID getDepartmentIdByCode(String departmentCode) throws DaoException {
+        return departmentIds.get(departmentCode, departmentDAO::findDepartmentIdByCode);
+    }
+
+    /**
+     * Finds a ward ID by its number and department.
+     *
+     * @param wardNumber   the ward number
+     * @param departmentId the department the ward belongs to
+     * @return the ward's ID
+     * @throws DaoException if the ward does not exist or cannot be loaded
+     */
+    public UUID getWardId(int wardNumber, UUID departmentId) throws DaoException {
+        return wardIds.get(new WardKey(wardNumber, departmentId),
+                key -> wardDAO.findWardIdByNumber(key.wardNumber(), key.departmentId()));
+    }
+
+    /**
+     * Finds a ward by its ID.
+     *
+     * @param wardId the ward's ID
+     * @return the ward
+     * @throws DaoException if the ward does not exist or cannot be loaded
+     */
+    public Ward getWard(UUID wardId) throws DaoException {
+        return wards.get(wardId, wardDAO::findById);
+    }
+
+    /**
+     * Returns all doctors.
+     *
+     * @return an unmodifiable list of doctors
+     * @throws DaoException if the doctors cannot be loaded
+     */
+    public List<Doctor> getDoctors() throws DaoException {
+        return doctorLists.get(ALL_DOCTORS, key -> List.copyOf(doctorDAO.findAll()));
+    }
+
+    /**
+     * Returns the doctors with the given specialty.
+     *
+     * @param specialty the specialty
+     * @return an unmodifiable list of doctors
+     * @throws DaoException if the doctors cannot be loaded
+     */
+    public List<Doctor> getDoctorsBySpecialty(String specialty) throws DaoException {
+        return doctorLists.get(specialty, key -> List.copyOf(doctorDAO.findBySpecialty(key)));
+    }
+
+    /**
+     * Finds a doctor by ID.
+     *
+     * @param doctorId the doctor's ID
+     * @return the doctor, or null if not found
+     * @throws DaoException if the doctor cannot be loaded
+     */
+    public Doctor getDoctor(UUID doctorId) throws DaoException {
+        return doctors.get(doctorId, doctorDAO::findById);
+    }
+
+    /**
+     * Loads all departments, wards and doctors in parallel so the first
+     * admissions after startup are served from memory.
+     *
+     * @throws DaoException if any of the loads fails
+     */
+    public void warmUp() throws DaoException {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Void>> loads = new ArrayList<>();
+            loads.add(executor.submit(() -> {
+                departmentDAO.findAllIdsByCode().forEach(departmentIds::put);
+                return null;
+            }));
+            loads.add(executor.submit(() -> {
+                for (Ward ward : wardDAO.findAll()) {
+                    wards.put(ward.getId(), ward);
+                    wardIds.put(new WardKey(ward.getWardNumber(), ward.getDepartmentId()), ward.getId());
+                }
+                return null;
+            }));
+            loads.add(executor.submit(() -> {
+                List<Doctor> all = List.copyOf(doctorDAO.findAll());
+                doctorLists.put(ALL_DOCTORS, all);
+                all.forEach(doctor -> doctors.put(doctor.getId(), doctor));
+                return null;
+            }));
+
+            for (Future<Void> load : loads) {
+                load.get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof DaoException daoException) {
+                throw daoException;
+            }
+            throw new DaoException("Warming reference data cache failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DaoException("Warming reference data cache interrupted", e);
+        }
+    }
+
+    /**
+     * Returns hit and miss counts for each cached lookup.
+     *
+     * @return statistics keyed by lookup name
+     */
+    public Map<String, CacheStats> getStats() {
+        Map<String, CacheStats> stats = new LinkedHashMap<>();
+        stats.put("departmentIds", departmentIds.getStats());
+        stats.put("wardIds", wardIds.getStats());
+        stats.put("wards", wards.getStats());
+        stats.put("doctorLists", doctorLists.getStats());
+        stats.put("doctors", doctors.getStats());
+        return stats;
+    }
+
+    /**
+     * Discards cached department lookups. Does nothing if the cache is not in use.
+     */
+    public static void invalidateDepartments() {
+        ReferenceDataCache current = instance;
+        if (current != null) {
+            current.departmentIds.invalidateAll();
+        }
+    }
+
+    /**
+     * Discards cached ward lookups. Does nothing if the cache is not in use.
+     */
+    public static void invalidateWards() {
+        ReferenceDataCache current = instance;
+        if (current != null) {
+            current.wardIds.invalidateAll();
+            current.wards.invalidateAll();
+        }
+    }
+
+    /**
+     * Discards cached doctor lookups. Does nothing if the cache is not in use.
+     */
+    public static void invalidateDoctors() {
+        ReferenceDataCache current = instance;
+        if (current != null) {
+            current.doctorLists.invalidateAll();
+            current.doctors.invalidateAll();
+        }
+    }
+
+    private record WardKey(int wardNumber, UUID departmentId) {}
+}
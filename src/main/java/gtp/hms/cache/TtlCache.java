@@ -0,0 +1,73 @@
+package gtp.hms.cache;
+
+import gtp.hms.exception.DaoException;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent map whose entries expire a fixed time after being loaded.
+ * <p>
+ * Missing or expired entries are loaded on demand. Concurrent misses on the
+ * same key may each load it; for small, rarely changing reference data that
+ * is cheaper than coordinating the loads. Null values are never cached.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+final class TtlCache<K, V> {
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    // Bumped on invalidation so loads that started earlier are not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Loads the value for a key that is not cached.
+     */
+    @FunctionalInterface
+    interface Loader<K, V> {
+        V load(K key) throws DaoException;
+    }
+
+    TtlCache(long ttlMillis) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    V get(K key, Loader<K, V> loader) throws DaoException {
+        Entry<V> entry = entries.get(key);
+        if (entry != null && System.nanoTime() - entry.loadedAt < ttlNanos) {
+            hits.increment();
+            return entry.value;
+        }
+
+        misses.increment();
+        long loadGeneration = generation.get();
+        V value = loader.load(key);
+        if (value != null && generation.get() == loadGeneration) {
+            entries.put(key, new Entry<>(value, System.nanoTime()));
+        }
+        return value;
+    }
+
+    void put(K key, V value) {
+        if (value != null) {
+            entries.put(key, new Entry<>(value, System.nanoTime()));
+        }
+    }
+
+    void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    CacheStats getStats() {
+        return new CacheStats(hits.sum(), misses.sum(), entries.size());
+    }
+
+    private record Entry<V>(V value, long loadedAt) {}
+}
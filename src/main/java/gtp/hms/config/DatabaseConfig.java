@@ -2,6 +2,8 @@ package gtp.hms.config;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Properties;
 
 /**
@@ -16,6 +18,34 @@ import java.util.Properties;
  *   <li>db.password - The database password</li>
  *   <li>db.driver - The JDBC driver class name</li>
  * </ul>
+ * <p>
+ * The following connection pool properties are optional and fall back to
+ * sensible defaults when absent:
+ * <ul>
+ *   <li>db.pool.minSize - Connections kept open even when idle (default 2)</li>
+ *   <li>db.pool.maxSize - Upper bound on open connections (default 10)</li>
+ *   <li>db.pool.borrowTimeoutMillis - How long a caller waits for a free connection (default 30000)</li>
+ *   <li>db.pool.idleTimeoutMillis - Idle time after which surplus connections are closed (default 600000)</li>
+ *   <li>db.pool.validationTimeoutSeconds - Timeout for the validity check on borrow (default 2)</li>
+ *   <li>db.pool.evictionIntervalMillis - How often idle connections are inspected (default 60000)</li>
+ *   <li>db.statementCache.size - Prepared statements cached per connection, 0 disables (default 64)</li>
+ *   <li>db.statementCache.preload - Prepare registered DAO statements on connect (default true)</li>
+ *   <li>db.prepareThreshold - Driver executions before a statement is server-prepared (driver default)</li>
+ *   <li>db.stream.fetchSize - Rows fetched per round trip by streaming queries (default 1000)</li>
+ *   <li>db.replica.urls - Comma-separated JDBC URLs of read replicas (none by default)</li>
+ *   <li>db.replica.selection - round-robin or least-loaded (default round-robin)</li>
+ *   <li>db.replica.maxLagMillis - Replication lag above which a replica is skipped (default 5000)</li>
+ *   <li>db.replica.lagCheckIntervalMillis - How often replica lag is measured (default 5000)</li>
+ *   <li>db.replica.readYourWritesMillis - How long reads stay on the primary after a write
+ *       on the same thread, 0 disables (default 1000)</li>
+ *   <li>cache.patient.maxEntries - Patients held in the LRU patient cache, 0 disables (default 10000)</li>
+ *   <li>beds.reconcileIntervalMillis - How often bed occupancy is checked against the database, 0 disables (default 300000)</li>
+ *   <li>cache.reference.ttlMillis - How long cached departments, wards and doctors stay fresh (default 300000)</li>
+ *   <li>batch.windowMillis - How long batch loaders wait to coalesce lookups (default 2)</li>
+ *   <li>batch.maxSize - Keys after which a batch loader dispatches without waiting (default 500)</li>
+ *   <li>metrics.dump.file - File that DAO and service metrics are periodically appended to (none by default)</li>
+ *   <li>metrics.dump.intervalMillis - How often metrics are appended to the dump file (default 60000)</li>
+ * </ul>
  *
  * @throws RuntimeException if:
  *                         <ul>
@@ -73,4 +103,241 @@ public class DatabaseConfig {
     public static String getDbDriver() {
         return properties.getProperty("db.driver");
     }
+
+    /**
+     * Retrieves the minimum number of connections the pool keeps open.
+     *
+     * @return The configured minimum pool size, or 2 if not specified
+     */
+    public static int getPoolMinSize() {
+        return getIntProperty("db.pool.minSize", 2);
+    }
+
+    /**
+     * Retrieves the maximum number of connections the pool may open.
+     *
+     * @return The configured maximum pool size, or 10 if not specified
+     */
+    public static int getPoolMaxSize() {
+        return getIntProperty("db.pool.maxSize", 10);
+    }
+
+    /**
+     * Retrieves how long a caller may wait for a pooled connection before giving up.
+     *
+     * @return The borrow timeout in milliseconds, or 30000 if not specified
+     */
+    public static long getPoolBorrowTimeoutMillis() {
+        return getLongProperty("db.pool.borrowTimeoutMillis", 30_000L);
+    }
+
+    /**
+     * Retrieves how long a surplus connection may sit idle before it is closed.
+     *
+     * @return The idle timeout in milliseconds, or 600000 if not specified
+     */
+    public static long getPoolIdleTimeoutMillis() {
+        return getLongProperty("db.pool.idleTimeoutMillis", 600_000L);
+    }
+
+    /**
+     * Retrieves the timeout used when validating a connection on borrow.
+     *
+     * @return The validation timeout in seconds, or 2 if not specified
+     */
+    public static int getPoolValidationTimeoutSeconds() {
+        return getIntProperty("db.pool.validationTimeoutSeconds", 2);
+    }
+
+    /**
+     * Retrieves how often the pool inspects its idle connections for eviction.
+     *
+     * @return The eviction interval in milliseconds, or 60000 if not specified
+     */
+    public static long getPoolEvictionIntervalMillis() {
+        return getLongProperty("db.pool.evictionIntervalMillis", 60_000L);
+    }
+
+    /**
+     * Retrieves how many prepared statements are cached per pooled connection.
+     *
+     * @return The statement cache size, or 64 if not specified; 0 disables caching
+     */
+    public static int getStatementCacheSize() {
+        return getIntProperty("db.statementCache.size", 64);
+    }
+
+    /**
+     * Indicates whether registered DAO statements are prepared when a connection is opened.
+     *
+     * @return true unless db.statementCache.preload is set to false
+     */
+    public static boolean isStatementPreloadEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("db.statementCache.preload", "true").trim());
+    }
+
+    /**
+     * Retrieves the driver's prepare threshold, i.e. how many executions of a
+     * statement happen before it is prepared on the server.
+     *
+     * @return The configured threshold, or null to use the driver default
+     */
+    public static String getPrepareThreshold() {
+        String value = properties.getProperty("db.prepareThreshold");
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    /**
+     * Retrieves how many rows streaming queries fetch from the server cursor per round trip.
+     *
+     * @return The streaming fetch size, or 1000 if not specified
+     */
+    public static int getStreamFetchSize() {
+        return getIntProperty("db.stream.fetchSize", 1000);
+    }
+
+    /**
+     * Retrieves the JDBC URLs of the read replicas that read-only queries may use.
+     *
+     * @return The replica URLs, or an empty list if none are configured
+     */
+    public static List<String> getReplicaUrls() {
+        String value = properties.getProperty("db.replica.urls");
+        if (value == null || value.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .toList();
+    }
+
+    /**
+     * Retrieves the strategy used to pick a replica for a read.
+     *
+     * @return "round-robin" or "least-loaded"; defaults to "round-robin"
+     */
+    public static String getReplicaSelection() {
+        return properties.getProperty("db.replica.selection", "round-robin").trim();
+    }
+
+    /**
+     * Retrieves the replication lag above which a replica stops receiving reads.
+     *
+     * @return The maximum tolerated lag in milliseconds, or 5000 if not specified
+     */
+    public static long getReplicaMaxLagMillis() {
+        return getLongProperty("db.replica.maxLagMillis", 5_000L);
+    }
+
+    /**
+     * Retrieves how often replication lag is measured on each replica.
+     *
+     * @return The lag check interval in milliseconds, or 5000 if not specified
+     */
+    public static long getReplicaLagCheckIntervalMillis() {
+        return getLongProperty("db.replica.lagCheckIntervalMillis", 5_000L);
+    }
+
+    /**
+     * Retrieves how long reads are pinned to the primary after a thread writes,
+     * so that it sees its own changes.
+     *
+     * @return The read-your-writes window in milliseconds, or 1000 if not specified; 0 disables it
+     */
+    public static long getReadYourWritesMillis() {
+        return getLongProperty("db.replica.readYourWritesMillis", 1_000L);
+    }
+
+    /**
+     * Retrieves how long reference data (departments, wards and doctors) is
+     * served from the cache before being reloaded.
+     *
+     * @return The reference data TTL in milliseconds, or 300000 if not specified
+     */
+    public static long getReferenceCacheTtlMillis() {
+        return getLongProperty("cache.reference.ttlMillis", 300_000L);
+    }
+
+    /**
+     * Retrieves the maximum number of patients held in the patient cache.
+     *
+     * @return The patient cache capacity, or 10000 if not specified; 0 disables the cache
+     */
+    public static int getPatientCacheMaxEntries() {
+        return getIntProperty("cache.patient.maxEntries", 10_000);
+    }
+
+    /**
+     * Retrieves how often the in-memory bed occupancy is reconciled with the
+     * current admissions in the database.
+     *
+     * @return The reconciliation interval in milliseconds, or 300000 if not specified; 0 disables it
+     */
+    public static long getBedReconcileIntervalMillis() {
+        return getLongProperty("beds.reconcileIntervalMillis", 300_000L);
+    }
+
+    /**
+     * Retrieves how long a batch loader collects individual lookups before
+     * fetching them together.
+     *
+     * @return The coalescing window in milliseconds, or 2 if not specified
+     */
+    public static long getBatchWindowMillis() {
+        return getLongProperty("batch.windowMillis", 2L);
+    }
+
+    /**
+     * Retrieves the number of pending keys at which a batch loader fetches
+     * immediately rather than waiting for its window to close.
+     *
+     * @return The maximum batch size, or 500 if not specified
+     */
+    public static int getBatchMaxSize() {
+        return getIntProperty("batch.maxSize", 500);
+    }
+
+    /**
+     * Retrieves the file that DAO and service metrics are periodically appended to.
+     *
+     * @return The dump file path, or null if metrics are only exposed over JMX
+     */
+    public static String getMetricsDumpFile() {
+        String value = properties.getProperty("metrics.dump.file");
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    /**
+     * Retrieves how often metrics are appended to the dump file.
+     *
+     * @return The dump interval in milliseconds, or 60000 if not specified
+     */
+    public static long getMetricsDumpIntervalMillis() {
+        return getLongProperty("metrics.dump.intervalMillis", 60_000L);
+    }
+
+    private static int getIntProperty(String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException ex) {
+            throw new RuntimeException("Invalid integer value for " + key + ": " + value, ex);
+        }
+    }
+
+    private static long getLongProperty(String key, long defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException ex) {
+            throw new RuntimeException("Invalid numeric value for " + key + ": " + value, ex);
+        }
+    }
 }
\ No newline at end of file
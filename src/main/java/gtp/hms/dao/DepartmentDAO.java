@@ -1,12 +1,19 @@
 package gtp.hms.dao;
 
+import gtp.hms.cache.ReferenceDataCache;
 import gtp.hms.exception.DaoException;
+import gtp.hms.metrics.MethodMetrics;
+import gtp.hms.metrics.Metrics;
 import gtp.hms.model.Department;
 import gtp.hms.util.DatabaseConnection;
+import gtp.hms.util.StatementCache;
+import gtp.hms.util.TransactionManager;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -23,8 +30,32 @@ import java.util.UUID;
  * @throws DaoException if any database access error occurs
  */
 public class DepartmentDAO {
+    private static final String INSERT_SQL = "INSERT INTO department (department_name, department_code, number_of_wards," +
+            "building, hospital_id, director_id) VALUES (?,?,?,?,?,?)";
+
+    private static final String FIND_BY_ID_SQL = "SELECT * FROM department WHERE id = ?";
+
+    private static final String FIND_ALL_SQL = "SELECT * FROM department ORDER BY department_name";
+
+    private static final String FIND_ID_BY_CODE_SQL = "SELECT id FROM department WHERE department_code = ?";
+
+    private static final String FIND_ALL_IDS_BY_CODE_SQL = "SELECT department_code, id FROM department";
+
+    static {
+        StatementCache.preload(FIND_BY_ID_SQL, FIND_ID_BY_CODE_SQL);
+    }
+
+    private static final MethodMetrics CREATE_METRICS = Metrics.forMethod(DepartmentDAO.class, "create");
+    private static final MethodMetrics FIND_BY_ID_METRICS = Metrics.forMethod(DepartmentDAO.class, "findById");
+    private static final MethodMetrics FIND_ALL_METRICS = Metrics.forMethod(DepartmentDAO.class, "findAll");
+    private static final MethodMetrics FIND_DEPARTMENT_ID_BY_CODE_METRICS =
+            Metrics.forMethod(DepartmentDAO.class, "findDepartmentIdByCode");
+    private static final MethodMetrics FIND_ALL_IDS_BY_CODE_METRICS =
+            Metrics.forMethod(DepartmentDAO.class, "findAllIdsByCode");
+
     /**
-     * Creates a new department record in the database.
+     * Creates a new department record in the database. Cached department
+     * lookups are invalidated once the insert commits.
      *
      * @param department the department entity to be created
      * @return the generated UUID of the newly created department
@@ -35,26 +66,26 @@ public class DepartmentDAO {
      *                      </ul>
      */
     public UUID create(Department department) throws DaoException {
-        String sql = "INSERT INTO department (department_name, department_code, number_of_wards," +
-                "building, hospital_id, director_id) VALUES (?,?,?,?,?,?)";
-
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            setDefaultParameters(stmt, department);
-            stmt.executeUpdate();
-
-            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    UUID id = UUID.fromString(generatedKeys.getString(1));
-                    department.setId(id);
-                    return id;
-                } else {
-                    throw new DaoException("Creating department failed, no ID obtained.");
+        return CREATE_METRICS.time(() -> {
+            try (Connection conn = DatabaseConnection.getInstance().getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                setDefaultParameters(stmt, department);
+                stmt.executeUpdate();
+
+                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        UUID id = UUID.fromString(generatedKeys.getString(1));
+                        department.setId(id);
+                        TransactionManager.afterCommit(ReferenceDataCache::invalidateDepartments);
+                        return id;
+                    } else {
+                        throw new DaoException("Creating department failed, no ID obtained.");
+                    }
                 }
+            } catch (SQLException e) {
+                throw new DaoException("Error creating department", e);
             }
-        } catch (SQLException e) {
-            throw new DaoException("Error creating department", e);
-        }
+        });
     }
 
     /**
@@ -69,23 +100,23 @@ public class DepartmentDAO {
      *                      </ul>
      */
     public Department findById(UUID id) throws DaoException {
-        String sql = "SELECT * FROM department WHERE id = ?";
-
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setObject(1, id);
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return mapResultSetToDepartment(rs);
-                } else {
-                    throw new DaoException("Department with id " + id + " not found.");
+        return FIND_BY_ID_METRICS.time(() -> {
+            try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+                 PreparedStatement stmt = conn.prepareStatement(FIND_BY_ID_SQL)) {
+
+                stmt.setObject(1, id);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return mapResultSetToDepartment(rs);
+                    } else {
+                        throw new DaoException("Department with id " + id + " not found.");
+                    }
                 }
-            }
 
-        } catch (SQLException e) {
-            throw new DaoException("Error finding department by ID", e);
-        }
+            } catch (SQLException e) {
+                throw new DaoException("Error finding department by ID", e);
+            }
+        });
     }
 
     /**
@@ -95,21 +126,22 @@ public class DepartmentDAO {
      * @throws DaoException if a database access error occurs
      */
     public List<Department> findAll() throws DaoException {
-        String sql = "SELECT * FROM department ORDER BY department_name";
-        List<Department> departments = new ArrayList<>();
+        return FIND_ALL_METRICS.time(() -> {
+            List<Department> departments = new ArrayList<>();
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+            try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+                 PreparedStatement stmt = conn.prepareStatement(FIND_ALL_SQL);
+                 ResultSet rs = stmt.executeQuery()) {
 
-            while (rs.next()) {
-                departments.add(mapResultSetToDepartment(rs));
-            }
-            return departments;
+                while (rs.next()) {
+                    departments.add(mapResultSetToDepartment(rs));
+                }
+                return departments;
 
-        } catch (SQLException e) {
-            throw new DaoException("Error retrieving all departments", e);
-        }
+            } catch (SQLException e) {
+                throw new DaoException("Error retrieving all departments", e);
+            }
+        });
     }
 
     /**
@@ -124,21 +156,45 @@ public class DepartmentDAO {
      *                      </ul>
      */
     public UUID findDepartmentIdByCode(String departmentCode) throws DaoException {
-        String sql = "SELECT id FROM department WHERE department_code = ?";
+        return FIND_DEPARTMENT_ID_BY_CODE_METRICS.time(() -> {
+            try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+                 PreparedStatement stmt = conn.prepareStatement(FIND_ID_BY_CODE_SQL)) {
+
+                stmt.setString(1, departmentCode);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return (UUID) rs.getObject("id");
+                    }
+                    throw new DaoException("Department not found with code: " + departmentCode);
+                }
+            } catch (SQLException e) {
+                throw new DaoException("Error finding department by code", e);
+            }
+        });
+    }
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+    /**
+     * Retrieves the ID of every department keyed by department code.
+     *
+     * @return department IDs by code
+     * @throws DaoException if a database access error occurs
+     */
+    public Map<String, UUID> findAllIdsByCode() throws DaoException {
+        return FIND_ALL_IDS_BY_CODE_METRICS.time(() -> {
+            Map<String, UUID> idsByCode = new HashMap<>();
+
+            try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+                 PreparedStatement stmt = conn.prepareStatement(FIND_ALL_IDS_BY_CODE_SQL);
+                 ResultSet rs = stmt.executeQuery()) {
 
-            stmt.setString(1, departmentCode);
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return (UUID) rs.getObject("id");
+                while (rs.next()) {
+                    idsByCode.put(rs.getString("department_code"), (UUID) rs.getObject("id"));
                 }
-                throw new DaoException("Department not found with code: " + departmentCode);
+                return idsByCode;
+            } catch (SQLException e) {
+                throw new DaoException("Error retrieving department codes", e);
             }
-        } catch (SQLException e) {
-            throw new DaoException("Error finding department by code", e);
-        }
+        });
     }
 
     /**
@@ -1,13 +1,22 @@
 package gtp.hms.dao;
 
+import gtp.hms.exception.DaoException;
+import gtp.hms.metrics.MethodMetrics;
+import gtp.hms.metrics.Metrics;
 import gtp.hms.model.employee.Doctor;
 import gtp.hms.model.employee.EmployeeType;
 import gtp.hms.util.DatabaseConnection;
+import gtp.hms.util.StatementCache;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Data Access Object (DAO) for handling database operations related to {@link Doctor} entities.
@@ -16,60 +25,102 @@ import java.util.UUID;
  * <p>This class handles:
  * <ul>
  *   <li>Retrieval of doctors by various criteria (ID, employee number, specialty)</li>
+ *   <li>Batch retrieval of many doctors by ID in one query</li>
  *   <li>Retrieval of all doctors</li>
  * </ul>
  */
 public class DoctorDAO {
+    private static final String FIND_BY_EMPLOYEE_NUMBER_SQL = "SELECT e.*, d.specialty FROM employee e " +
+            "JOIN doctor d ON e.id = d.id " +
+            "WHERE e.employee_number = ? AND e.employee_type = 'doctor'";
+
+    private static final String FIND_ALL_SQL = "SELECT e.*, d.specialty FROM employee e " +
+            "JOIN doctor d ON e.id = d.id " +
+            "WHERE e.employee_type = 'doctor'";
+
+    private static final String FIND_BY_ID_SQL = "SELECT e.*, d.specialty FROM employee e " +
+            "JOIN doctor d ON e.id = d.id " +
+            "WHERE e.id = ? AND e.employee_type = 'doctor'";
+
+    private static final String FIND_BY_SPECIALTY_SQL = "SELECT e.*, d.specialty FROM employee e " +
+            "JOIN doctor d ON e.id = d.id " +
+            "WHERE e.employee_type = 'doctor' AND d.specialty = ?";
+
+    private static final String FIND_BY_IDS_SQL = "SELECT e.*, d.specialty FROM employee e " +
+            "JOIN doctor d ON e.id = d.id " +
+            "WHERE e.id = ANY(?) AND e.employee_type = 'doctor'";
+
+    static {
+        StatementCache.preload(FIND_ALL_SQL, FIND_BY_ID_SQL, FIND_BY_IDS_SQL, FIND_BY_SPECIALTY_SQL);
+    }
+
+    private static final MethodMetrics FIND_BY_EMPLOYEE_NUMBER_METRICS =
+            Metrics.forMethod(DoctorDAO.class, "findByEmployeeNumber");
+    private static final MethodMetrics FIND_ALL_METRICS = Metrics.forMethod(DoctorDAO.class, "findAll");
+    private static final MethodMetrics STREAM_ALL_METRICS = Metrics.forMethod(DoctorDAO.class, "streamAll");
+    private static final MethodMetrics FIND_BY_ID_METRICS = Metrics.forMethod(DoctorDAO.class, "findById");
+    private static final MethodMetrics FIND_BY_IDS_METRICS = Metrics.forMethod(DoctorDAO.class, "findByIds");
+    private static final MethodMetrics FIND_BY_SPECIALTY_METRICS =
+            Metrics.forMethod(DoctorDAO.class, "findBySpecialty");
+
     /**
      * Finds a doctor by their employee number.
      *
      * @param employeeNumber the unique employee number to search for
      * @return the Doctor object if found, null otherwise
-     * @throws SQLException if a database access error occurs
+     * @throws DaoException if a database access error occurs
      */
-    public Doctor findByEmployeeNumber(int employeeNumber) {
-        String sql = "SELECT e.*, d.specialty FROM employee e " +
-                "JOIN doctor d ON e.id = d.id " +
-                "WHERE e.employee_number = ? AND e.employee_type = 'doctor'";
-
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, employeeNumber);
-            ResultSet rs = stmt.executeQuery();
-
-            if (rs.next()) {
-                return extractDoctorFromResultSet(rs);
+    public Doctor findByEmployeeNumber(int employeeNumber) throws DaoException {
+        return FIND_BY_EMPLOYEE_NUMBER_METRICS.time(() -> {
+            try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+                 PreparedStatement stmt = conn.prepareStatement(FIND_BY_EMPLOYEE_NUMBER_SQL)) {
+
+                stmt.setInt(1, employeeNumber);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return extractDoctorFromResultSet(rs);
+                    }
+                }
+            } catch (SQLException e) {
+                throw new DaoException("Error finding doctor by employee number", e);
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return null;
+            return null;
+        });
     }
 
     /**
      * Retrieves all doctors from the database.
      *
      * @return a list of all Doctor entities, empty list if none found
-     * @throws SQLException if a database access error occurs
+     * @throws DaoException if a database access error occurs
      */
-    public List<Doctor> findAll() {
-        List<Doctor> doctors = new ArrayList<>();
-        String sql = "SELECT e.*, d.specialty FROM employee e " +
-                "JOIN doctor d ON e.id = d.id " +
-                "WHERE e.employee_type = 'doctor'";
-
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            while (rs.next()) {
-                doctors.add(extractDoctorFromResultSet(rs));
+    public List<Doctor> findAll() throws DaoException {
+        return FIND_ALL_METRICS.time(() -> {
+            List<Doctor> doctors = new ArrayList<>();
+            try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+                 PreparedStatement stmt = conn.prepareStatement(FIND_ALL_SQL);
+                 ResultSet rs = stmt.executeQuery()) {
+
+                while (rs.next()) {
+                    doctors.add(extractDoctorFromResultSet(rs));
+                }
+            } catch (SQLException e) {
+                throw new DaoException("Error finding all doctors", e);
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return doctors;
+            return doctors;
+        });
+    }
+
+    /**
+     * Streams all doctors through a server-side cursor, mapping rows lazily as
+     * the stream is consumed. The stream must be closed after use.
+     *
+     * @return a stream of all Doctor entities
+     * @throws DaoException if the query cannot be started
+     */
+    public Stream<Doctor> streamAll() throws DaoException {
+        return STREAM_ALL_METRICS.timeStream(() ->
+                ResultSetStream.open(FIND_ALL_SQL, stmt -> {}, this::extractDoctorFromResultSet));
     }
 
     /**
@@ -77,26 +128,47 @@ public class DoctorDAO {
      *
      * @param id the UUID of the doctor to find
      * @return the Doctor object if found, null otherwise
-     * @throws SQLException if a database access error occurs
+     * @throws DaoException if a database access error occurs
      */
-    public Doctor findById(UUID id) {
-        String sql = "SELECT e.*, d.specialty FROM employee e " +
-                "JOIN doctor d ON e.id = d.id " +
-                "WHERE e.id = ? AND e.employee_type = 'doctor'";
-
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+    public Doctor findById(UUID id) throws DaoException {
+        return FIND_BY_ID_METRICS.time(() -> {
+            try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+                 PreparedStatement stmt = conn.prepareStatement(FIND_BY_ID_SQL)) {
+
+                stmt.setObject(1, id);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return extractDoctorFromResultSet(rs);
+                    }
+                }
+            } catch (SQLException e) {
+                throw new DaoException("Error finding doctor by ID", e);
+            }
+            return null;
+        });
+    }
 
-            stmt.setObject(1, id);
-            ResultSet rs = stmt.executeQuery();
+    /**
+     * Finds many doctors by ID in a single query.
+     *
+     * @param ids the doctor IDs to look up; duplicates and nulls are ignored
+     * @return the doctors found, in the order their IDs were first given;
+     *         IDs that are not doctors are absent
+     * @throws DaoException if a database access error occurs
+     */
+    public Map<UUID, Doctor> findByIds(Collection<UUID> ids) throws DaoException {
+        return FIND_BY_IDS_METRICS.time(() -> {
+            Set<UUID> keys = MultiGet.distinct(ids);
+            if (keys.isEmpty()) {
+                return new LinkedHashMap<>();
+            }
 
-            if (rs.next()) {
-                return extractDoctorFromResultSet(rs);
+            try (Connection conn = DatabaseConnection.getInstance().getReadConnection()) {
+                return MultiGet.fetch(conn, FIND_BY_IDS_SQL, "uuid", keys, this::extractDoctorFromResultSet, Doctor::getId);
+            } catch (SQLException e) {
+                throw new DaoException("Error finding doctors by ID", e);
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return null;
+        });
     }
 
     /**
@@ -104,27 +176,25 @@ public class DoctorDAO {
      *
      * @param specialty the medical specialty to search for
      * @return a list of matching Doctor entities, empty list if none found
-     * @throws SQLException if a database access error occurs
+     * @throws DaoException if a database access error occurs
      */
-    public List<Doctor> findBySpecialty(String specialty) {
-        List<Doctor> doctors = new ArrayList<>();
-        String sql = "SELECT e.*, d.specialty FROM employee e " +
-                "JOIN doctor d ON e.id = d.id " +
-                "WHERE e.employee_type = 'doctor' AND d.specialty = ?";
-
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setString(1, specialty);
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
-                doctors.add(extractDoctorFromResultSet(rs));
+    public List<Doctor> findBySpecialty(String specialty) throws DaoException {
+        return FIND_BY_SPECIALTY_METRICS.time(() -> {
+            List<Doctor> doctors = new ArrayList<>();
+            try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+                 PreparedStatement stmt = conn.prepareStatement(FIND_BY_SPECIALTY_SQL)) {
+
+                stmt.setString(1, specialty);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        doctors.add(extractDoctorFromResultSet(rs));
+                    }
+                }
+            } catch (SQLException e) {
+                throw new DaoException("Error finding doctors by specialty", e);
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return doctors;
+            return doctors;
+        });
     }
 
     /**
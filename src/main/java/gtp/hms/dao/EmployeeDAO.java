@@ -1,15 +1,24 @@
 package gtp.hms.dao;
 
+import gtp.hms.cache.ReferenceDataCache;
 import gtp.hms.exception.DaoException;
+import gtp.hms.metrics.MethodMetrics;
+import gtp.hms.metrics.Metrics;
 import gtp.hms.model.employee.Doctor;
 import gtp.hms.model.employee.Employee;
 import gtp.hms.model.employee.Nurse;
 import gtp.hms.util.DatabaseConnection;
+import gtp.hms.util.StatementCache;
+import gtp.hms.util.TransactionManager;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -18,12 +27,34 @@ import java.util.UUID;
  *
  * This class provides methods for:
  * - Adding new employees (generic and specialised)
- * - Retrieving employee information
+ * - Retrieving employee information, singly or in batches
  *
- * The class handles transactions for operations that span multiple tables.
+ * Operations that span multiple tables run through {@link TransactionManager}.
  */
 public class EmployeeDAO {
 
+    private static final String INSERT_EMPLOYEE_SQL = "INSERT INTO employee (employee_number, first_name, middle_name, last_name," +
+            "address, phone_number, employee_type) values(?,?,?,?,?,?,?::employee_type)" +
+            "RETURNING id";
+
+    private static final String INSERT_DOCTOR_SQL = "INSERT INTO doctor (id, specialty) values(?,?)";
+
+    private static final String INSERT_NURSE_SQL = "INSERT INTO nurse (id, rotation, salary, department_id) values(?, ?, ?, ?)";
+
+    private static final String FIND_BY_ID_SQL = "SELECT * FROM employee WHERE id = ?";
+
+    private static final String FIND_BY_IDS_SQL = "SELECT * FROM employee WHERE id = ANY(?)";
+
+    static {
+        StatementCache.preload(FIND_BY_ID_SQL, FIND_BY_IDS_SQL);
+    }
+
+    private static final MethodMetrics ADD_EMPLOYEE_METRICS = Metrics.forMethod(EmployeeDAO.class, "addEmployee");
+    private static final MethodMetrics ADD_DOCTOR_METRICS = Metrics.forMethod(EmployeeDAO.class, "addDoctor");
+    private static final MethodMetrics ADD_NURSE_METRICS = Metrics.forMethod(EmployeeDAO.class, "addNurse");
+    private static final MethodMetrics GET_EMPLOYEE_METRICS = Metrics.forMethod(EmployeeDAO.class, "getEmployee");
+    private static final MethodMetrics GET_EMPLOYEES_METRICS = Metrics.forMethod(EmployeeDAO.class, "getEmployees");
+
     /**
      * Adds a generic employee record to the database.
      *
@@ -34,32 +65,32 @@ public class EmployeeDAO {
      *   - No generated ID is returned from the database
      */
     public UUID addEmployee(Employee employee) throws SQLException {
-        String sql = "INSERT INTO employee (employee_number, first_name, middle_name, last_name," +
-                "address, phone_number, employee_type) values(?,?,?,?,?,?,?::employee_type)" +
-                "RETURNING id";
-
-        Connection conn = DatabaseConnection.getInstance().getConnection();
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, employee.getEmployeeNumber());
-            stmt.setString(2, employee.getFirstName());
-            stmt.setString(3, employee.getMiddleName());
-            stmt.setString(4, employee.getLastName());
-            stmt.setString(5, employee.getAddress());
-            stmt.setString(6, employee.getPhoneNumber());
-            stmt.setString(7, employee.getEmployeeType().toString());
-
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                return rs.getObject("id", UUID.class);
-            }
+        return ADD_EMPLOYEE_METRICS.time(() -> {
+            try (Connection conn = DatabaseConnection.getInstance().getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(INSERT_EMPLOYEE_SQL)) {
+
+                stmt.setInt(1, employee.getEmployeeNumber());
+                stmt.setString(2, employee.getFirstName());
+                stmt.setString(3, employee.getMiddleName());
+                stmt.setString(4, employee.getLastName());
+                stmt.setString(5, employee.getAddress());
+                stmt.setString(6, employee.getPhoneNumber());
+                stmt.setString(7, employee.getEmployeeType().toString());
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return rs.getObject("id", UUID.class);
+                    }
+                }
 
-            throw new SQLException("Creating employee failed, no ID found");
-        }
+                throw new SQLException("Creating employee failed, no ID found");
+            }
+        });
     }
 
     /**
      * Adds a doctor to the database as a transaction spanning both employee and doctor tables.
+     * Cached doctor lookups are invalidated once the transaction commits.
      *
      * @param doctor the doctor entity to be added
      * @throws SQLException if:
@@ -67,34 +98,21 @@ public class EmployeeDAO {
      *   - The transaction needs to be rolled back
      */
     public void addDoctor(Doctor doctor) throws SQLException {
-        Connection conn = null;
-
-        try {
-            conn = DatabaseConnection.getInstance().getConnection();
-            conn.setAutoCommit(false);
-
-            UUID employeeId = addEmployee(doctor);
-
-            String sql = "INSERT INTO doctor (id, specialty) values(?,?)";
-
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setObject(1, employeeId);
-                stmt.setString(2, doctor.getSpecialty());
-                stmt.executeUpdate();
-            }
-
-            conn.commit();
+        ADD_DOCTOR_METRICS.run(() -> {
+            UUID employeeId = TransactionManager.inTransaction(() -> {
+                UUID id = addEmployee(doctor);
+
+                try (Connection conn = DatabaseConnection.getInstance().getConnection();
+                     PreparedStatement stmt = conn.prepareStatement(INSERT_DOCTOR_SQL)) {
+                    stmt.setObject(1, id);
+                    stmt.setString(2, doctor.getSpecialty());
+                    stmt.executeUpdate();
+                }
+                TransactionManager.afterCommit(ReferenceDataCache::invalidateDoctors);
+                return id;
+            });
             doctor.setId(employeeId);
-        } catch (SQLException e) {
-            if (conn != null) {
-                conn.rollback();
-                throw e;
-            }
-        } finally {
-            if (conn != null) {
-                conn.setAutoCommit(true);
-            }
-        }
+        });
     }
 
     /**
@@ -106,35 +124,22 @@ public class EmployeeDAO {
      *   - The transaction needs to be rolled back
      */
     public void addNurse(Nurse nurse) throws SQLException {
-        Connection conn = null;
-
-        try {
-            conn = DatabaseConnection.getInstance().getConnection();
-            conn.setAutoCommit(false);
-
-            UUID employeeId = addEmployee(nurse);
-
-            String sql = "INSERT INTO nurse (id, rotation, salary, department_id) values(?, ?, ?, ?)";
-
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setObject(1, employeeId);
-                stmt.setString(2, nurse.getRotation());
-                stmt.setDouble(3, nurse.getSalary());
-                stmt.setObject(4, nurse.getDepartmentId());
-
-                conn.commit();
-                nurse.setId(employeeId);
-            }
-        } catch (SQLException e) {
-            if (conn != null) {
-                conn.rollback();
-                throw e;
-            }
-        } finally {
-            if (conn != null) {
-                conn.setAutoCommit(true);
-            }
-        }
+        ADD_NURSE_METRICS.run(() -> {
+            UUID employeeId = TransactionManager.inTransaction(() -> {
+                UUID id = addEmployee(nurse);
+
+                try (Connection conn = DatabaseConnection.getInstance().getConnection();
+                     PreparedStatement stmt = conn.prepareStatement(INSERT_NURSE_SQL)) {
+                    stmt.setObject(1, id);
+                    stmt.setString(2, nurse.getRotation());
+                    stmt.setDouble(3, nurse.getSalary());
+                    stmt.setObject(4, nurse.getDepartmentId());
+                    stmt.executeUpdate();
+                }
+                return id;
+            });
+            nurse.setId(employeeId);
+        });
     }
 
     /**
@@ -147,27 +152,45 @@ public class EmployeeDAO {
      *   - A database access error occurs
      */
     public Employee getEmployee(UUID employeeId) throws DaoException {
-        Connection conn = null;
-
-        try {
-            conn = DatabaseConnection.getInstance().getConnection();
-            conn.setAutoCommit(false);
+        return GET_EMPLOYEE_METRICS.time(() -> {
+            try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+                 PreparedStatement stmt = conn.prepareStatement(FIND_BY_ID_SQL)) {
 
-            String sql = "SELECT * FROM employee WHERE id = ?";
-
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
                 stmt.setObject(1, employeeId);
-                ResultSet rs = stmt.executeQuery();
-
-                if (rs.next()) {
-                    return mapResultSetToEmployee(rs);
-                } else {
-                    throw new SQLException("Employee with id " + employeeId + " not found");
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return mapResultSetToEmployee(rs);
+                    } else {
+                        throw new SQLException("Employee with id " + employeeId + " not found");
+                    }
                 }
+            } catch (SQLException e) {
+                throw new DaoException("Getting employee failed", e);
+            }
+        });
+    }
+
+    /**
+     * Retrieves many employees by ID in a single query.
+     *
+     * @param employeeIds the employee IDs to look up; duplicates and nulls are ignored
+     * @return the employees found, in the order their IDs were first given;
+     *         unknown IDs are absent
+     * @throws DaoException if a database access error occurs
+     */
+    public Map<UUID, Employee> getEmployees(Collection<UUID> employeeIds) throws DaoException {
+        return GET_EMPLOYEES_METRICS.time(() -> {
+            Set<UUID> keys = MultiGet.distinct(employeeIds);
+            if (keys.isEmpty()) {
+                return new LinkedHashMap<>();
+            }
+
+            try (Connection conn = DatabaseConnection.getInstance().getReadConnection()) {
+                return MultiGet.fetch(conn, FIND_BY_IDS_SQL, "uuid", keys, this::mapResultSetToEmployee, Employee::getId);
+            } catch (SQLException e) {
+                throw new DaoException("Getting employees failed", e);
             }
-        } catch (SQLException e) {
-            throw new DaoException("Getting employee failed", e);
-        }
+        });
     }
 
     /**
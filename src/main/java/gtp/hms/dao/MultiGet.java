@@ -0,0 +1,73 @@
+package gtp.hms.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Shared plumbing for the DAOs' batch lookups. A batch is fetched with a
+ * single {@code = ANY(?)} query bound to an array of the distinct keys, and
+ * the rows are returned in the order the keys were first requested.
+ */
+final class MultiGet {
+
+    private MultiGet() {}
+
+    /**
+     * Removes duplicate and null keys, keeping first-seen order.
+     */
+    static <K> Set<K> distinct(Collection<K> keys) {
+        Set<K> distinct = new LinkedHashSet<>(keys);
+        distinct.remove(null);
+        return distinct;
+    }
+
+    /**
+     * Runs an {@code = ANY(?)} query for the given keys and maps each row.
+     *
+     * @param conn      the connection to query on
+     * @param sql       SQL with a single array parameter
+     * @param arrayType the SQL element type of the array, e.g. {@code uuid}
+     * @param keys      distinct keys, in the order to return them
+     * @param mapper    maps a row to a value
+     * @param keyOf     extracts a value's key
+     * @return the values found, keyed and ordered as requested; missing keys are absent
+     * @throws SQLException if the query fails
+     */
+    static <K, V> Map<K, V> fetch(Connection conn, String sql, String arrayType, Set<K> keys,
+                                  RowMapper<V> mapper, Function<V, K> keyOf) throws SQLException {
+        Map<K, V> found = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setArray(1, conn.createArrayOf(arrayType, keys.toArray()));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    V value = mapper.map(rs);
+                    found.put(keyOf.apply(value), value);
+                }
+            }
+        }
+        return inKeyOrder(keys, found);
+    }
+
+    /**
+     * Orders found values by the requested keys.
+     */
+    static <K, V> Map<K, V> inKeyOrder(Set<K> keys, Map<K, V> found) {
+        Map<K, V> ordered = new LinkedHashMap<>();
+        for (K key : keys) {
+            V value = found.get(key);
+            if (value != null) {
+                ordered.put(key, value);
+            }
+        }
+        return ordered;
+    }
+}
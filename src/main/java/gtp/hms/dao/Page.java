@@ -0,0 +1,55 @@
+package gtp.hms.dao;
+
+import gtp.hms.metrics.RowCounted;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of results from a keyset-paginated query.
+ *
+ * @param <T> the row type
+ */
+public final class Page<T> implements RowCounted {
+    private final List<T> items;
+    private final String nextPageToken;
+    private final long estimatedTotal;
+
+    Page(List<T> items, String nextPageToken, long estimatedTotal) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextPageToken = nextPageToken;
+        this.estimatedTotal = estimatedTotal;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Returns the token for {@link PageRequest#after(String, int)}.
+     *
+     * @return the next page's token, or null if this is the last page
+     */
+    public String getNextPageToken() {
+        return nextPageToken;
+    }
+
+    public boolean hasNextPage() {
+        return nextPageToken != null;
+    }
+
+    /**
+     * Returns the planner's estimate of the total number of matching rows.
+     * The estimate is only as fresh as the table statistics.
+     *
+     * @return the estimated total, or -1 if it was not requested or is unknown
+     */
+    public long getEstimatedTotal() {
+        return estimatedTotal;
+    }
+
+    @Override
+    public long getRowCount() {
+        return items.size();
+    }
+}
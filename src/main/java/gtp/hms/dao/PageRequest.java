@@ -0,0 +1,142 @@
+package gtp.hms.dao;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Describes one page of a keyset-paginated patient listing.
+ * <p>
+ * The first page is requested with {@link #first(Sort, int)}. Each returned
+ * {@link Page} carries an opaque token holding the sort key of its last row;
+ * passing it to {@link #after(String, int)} seeks directly past that row, so
+ * fetching page 1000 costs the same as fetching page 1.
+ */
+public final class PageRequest {
+    public static final int MAX_SIZE = 500;
+
+    /**
+     * Orderings supported for keyset pagination. Each one is unique, so no row
+     * is skipped or repeated between pages.
+     */
+    public enum Sort {
+        /** Orders by last name, first name, then ID. */
+        NAME(3),
+        /** Orders by patient number. */
+        PATIENT_NUMBER(1);
+
+        private final int keyLength;
+
+        Sort(int keyLength) {
+            this.keyLength = keyLength;
+        }
+    }
+
+    private final Sort sort;
+    private final int size;
+    private final List<String> afterKey;
+    private final boolean totalEstimateRequested;
+
+    private PageRequest(Sort sort, int size, List<String> afterKey, boolean totalEstimateRequested) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_SIZE);
+        }
+        this.sort = sort;
+        this.size = size;
+        this.afterKey = afterKey;
+        this.totalEstimateRequested = totalEstimateRequested;
+    }
+
+    /**
+     * Requests the first page in the given order.
+     *
+     * @param sort the ordering
+     * @param size the maximum number of rows on the page
+     * @return a page request
+     */
+    public static PageRequest first(Sort sort, int size) {
+        return new PageRequest(sort, size, null, false);
+    }
+
+    /**
+     * Requests the page following the one that returned the given token.
+     *
+     * @param pageToken the {@link Page#getNextPageToken()} of the previous page
+     * @param size      the maximum number of rows on the page
+     * @return a page request in the same order as the previous page
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static PageRequest after(String pageToken, int size) {
+        try (DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(Base64.getUrlDecoder().decode(pageToken)))) {
+            Sort sort = Sort.values()[in.readUnsignedByte()];
+            String[] key = new String[sort.keyLength];
+            for (int i = 0; i < key.length; i++) {
+                key[i] = in.readUTF();
+            }
+            if (in.available() > 0) {
+                throw new IOException("Trailing bytes in page token");
+            }
+            if (sort == Sort.NAME) {
+                UUID.fromString(key[2]);
+            } else {
+                Integer.parseInt(key[0]);
+            }
+            return new PageRequest(sort, size, List.of(key), false);
+        } catch (IOException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed page token", e);
+        }
+    }
+
+    /**
+     * Returns a copy of this request that also asks for an estimate of the
+     * total number of matching rows, taken from planner statistics.
+     *
+     * @return a page request with the total estimate enabled
+     */
+    public PageRequest withTotalEstimate() {
+        return new PageRequest(sort, size, afterKey, true);
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public boolean isTotalEstimateRequested() {
+        return totalEstimateRequested;
+    }
+
+    /**
+     * Returns the sort key of the last row of the previous page.
+     *
+     * @return the key values in sort order, or null for the first page
+     */
+    List<String> getAfterKey() {
+        return afterKey;
+    }
+
+    /**
+     * Encodes the sort key of a page's last row as an opaque token.
+     */
+    static String encodeToken(Sort sort, String... key) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(sort.ordinal());
+            for (String value : key) {
+                out.writeUTF(value);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot encode page token", e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+}
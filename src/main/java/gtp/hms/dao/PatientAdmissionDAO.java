@@ -1,89 +1,122 @@
 package gtp.hms.dao;
 
 import gtp.hms.exception.DaoException;
+import gtp.hms.metrics.MethodMetrics;
+import gtp.hms.metrics.Metrics;
+import gtp.hms.model.DischargeResult;
 import gtp.hms.model.PatientAdmission;
 import gtp.hms.util.DatabaseConnection;
+import gtp.hms.util.StatementCache;
+import gtp.hms.util.TransactionManager;
+import gtp.hms.util.UnitOfWork;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Data Access Object for managing patient admission records in the database.
  * Handles CRUD operations for patient admissions including finding current admissions.
  */
 public class PatientAdmissionDAO {
+    /** Partial unique index allowing one current admission per bed. */
+    public static final String CURRENT_BED_INDEX = "uq_admission_current_bed";
+
     private static final String INSERT_SQL = "INSERT INTO patient_admission (patient_id, ward_id, bed_number, diagnosis," +
             "treating_doctor_id, admission_date, is_current) VALUES (?,?,?,?,?,?,?)";
 
-    /**
-     * Creates a new patient admission record in the database.
-     *
-     * @param patientAdmission the admission record to create
-     * @return UUID of the created admission or null if creation failed
-     * @throws DaoException if there's an error creating the record
-     */
-    public UUID create(PatientAdmission patientAdmission) throws DaoException {
-        try {
-            Connection conn = DatabaseConnection.getInstance().getConnection();
-            PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
-
-            setPatientAdmissionParams(stmt, patientAdmission);
-            stmt.executeUpdate();
-
-            ResultSet generatedKeys = stmt.getGeneratedKeys();
-            if (generatedKeys.next()) {
-                UUID id = UUID.fromString(generatedKeys.getString(1));
-                patientAdmission.setId(id);
-                return id;
-            } else {
-                return null;
-            }
-        } catch (SQLException e) {
-            throw new DaoException("Error creating patient admission record", e);
-        }
+    private static final String INSERT_WITH_ID_SQL = "INSERT INTO patient_admission (patient_id, ward_id, bed_number, diagnosis," +
+            "treating_doctor_id, admission_date, is_current, id) VALUES (?,?,?,?,?,?,?,?)";
+
+    private static final String FIND_BY_PATIENT_ID_SQL = "SELECT * FROM patient_admission WHERE patient_id = ? ORDER BY admission_date DESC";
+
+    private static final String FIND_CURRENT_BY_PATIENT_ID_SQL = "SELECT * FROM patient_admission WHERE patient_id = ? AND is_current = TRUE";
+
+    private static final String FIND_ALL_SQL = "SELECT * FROM patient_admission";
+
+    private static final String DELETE_SQL = "DELETE FROM patient_admission WHERE id = ?";
+
+    private static final String DISCHARGE_RETURNING =
+            " RETURNING id, patient_id, ward_id, bed_number, admission_date, discharge_date";
+
+    private static final String DISCHARGE_BY_IDS_SQL = "UPDATE patient_admission " +
+            "SET discharge_date = CURRENT_TIMESTAMP, is_current = FALSE, updated_at = CURRENT_TIMESTAMP " +
+            "WHERE id = ANY(?) AND is_current = TRUE" + DISCHARGE_RETURNING;
+
+    private static final String DISCHARGE_WARD_SQL = "UPDATE patient_admission " +
+            "SET discharge_date = CURRENT_TIMESTAMP, is_current = FALSE, updated_at = CURRENT_TIMESTAMP " +
+            "WHERE ward_id = ? AND is_current = TRUE" + DISCHARGE_RETURNING;
+
+    private static final String FIND_ALL_CURRENT_SQL = "SELECT * FROM patient_admission WHERE is_current = TRUE";
+
+    static {
+        StatementCache.preload(FIND_BY_PATIENT_ID_SQL, FIND_CURRENT_BY_PATIENT_ID_SQL, DISCHARGE_BY_IDS_SQL);
+        StatementCache.preloadWithGeneratedKeys(INSERT_SQL);
     }
 
+    private static final MethodMetrics CREATE_METRICS = Metrics.forMethod(PatientAdmissionDAO.class, "create");
+    private static final MethodMetrics FIND_BY_PATIENT_ID_METRICS =
+            Metrics.forMethod(PatientAdmissionDAO.class, "findByPatientId");
+    private static final MethodMetrics FIND_CURRENT_ADMISSION_BY_PATIENT_ID_METRICS =
+            Metrics.forMethod(PatientAdmissionDAO.class, "findCurrentAdmissionByPatientId");
+    private static final MethodMetrics DISCHARGE_ALL_METRICS =
+            Metrics.forMethod(PatientAdmissionDAO.class, "dischargeAll");
+    private static final MethodMetrics DISCHARGE_WARD_METRICS =
+            Metrics.forMethod(PatientAdmissionDAO.class, "dischargeWard");
+    private static final MethodMetrics DELETE_METRICS = Metrics.forMethod(PatientAdmissionDAO.class, "delete");
+    private static final MethodMetrics FIND_ALL_CURRENT_METRICS =
+            Metrics.forMethod(PatientAdmissionDAO.class, "findAllCurrent");
+    private static final MethodMetrics STREAM_ALL_METRICS = Metrics.forMethod(PatientAdmissionDAO.class, "streamAll");
+
     /**
-     * Creates a new patient admission record using an existing database connection.
+     * Creates a new patient admission record in the database. Inside
+     * {@link TransactionManager#inUnitOfWork} the insert is queued for batching
+     * instead, using an ID generated up front.
      *
      * @param patientAdmission the admission record to create
-     * @param conn the existing database connection to use
      * @return UUID of the created admission
-     * @throws DaoException if connection is invalid or creation fails
+     * @throws DaoException if there's an error creating the record
      */
-    public UUID create(PatientAdmission patientAdmission, Connection conn) throws DaoException {
-        if (conn == null) {
-            throw new DaoException("Database connection is null");
-        }
-
-        try {
-            if (conn.isClosed()) {
-                throw new DaoException("Connection is closed");
+    public UUID create(PatientAdmission patientAdmission) throws DaoException {
+        return CREATE_METRICS.time(() -> {
+            UnitOfWork unitOfWork = TransactionManager.currentUnitOfWork();
+            if (unitOfWork != null) {
+                if (patientAdmission.getId() == null) {
+                    patientAdmission.setId(UUID.randomUUID());
+                }
+                unitOfWork.register(INSERT_WITH_ID_SQL, stmt -> {
+                    setPatientAdmissionParams(stmt, patientAdmission);
+                    stmt.setObject(8, patientAdmission.getId());
+                });
+                return patientAdmission.getId();
             }
 
-            PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
-            setPatientAdmissionParams(stmt, patientAdmission);
+            try (Connection conn = DatabaseConnection.getInstance().getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
 
-            int affectedRows = stmt.executeUpdate();
-            if (affectedRows == 0) {
-                throw new DaoException("Error creating patient admission record");
-            }
+                setPatientAdmissionParams(stmt, patientAdmission);
 
-            try (ResultSet rs = stmt.getGeneratedKeys()) {
-                if (rs.next()) {
-                    UUID id = UUID.fromString(rs.getString(1));
-                    patientAdmission.setId(id);
-                    return id;
-                } else {
+                int affectedRows = stmt.executeUpdate();
+                if (affectedRows == 0) {
                     throw new DaoException("Error creating patient admission record");
                 }
-            }
 
-        } catch (SQLException e) {
-            throw new DaoException("Error creating patient admission record", e);
-        }
+                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        UUID id = UUID.fromString(generatedKeys.getString(1));
+                        patientAdmission.setId(id);
+                        return id;
+                    } else {
+                        throw new DaoException("Error creating patient admission record");
+                    }
+                }
+            } catch (SQLException e) {
+                throw new DaoException("Error creating patient admission record", e);
+            }
+        });
     }
 
     /**
@@ -94,23 +127,24 @@ public class PatientAdmissionDAO {
      * @throws DaoException if there's an error accessing the database
      */
     public List<PatientAdmission> findByPatientId(UUID patientId) throws DaoException {
-        String sql = "SELECT * FROM patient_admission WHERE patient_id = ? ORDER BY admission_date DESC";
-        List<PatientAdmission> admissions = new ArrayList<>();
+        return FIND_BY_PATIENT_ID_METRICS.time(() -> {
+            List<PatientAdmission> admissions = new ArrayList<>();
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+                 PreparedStatement stmt = conn.prepareStatement(FIND_BY_PATIENT_ID_SQL)) {
 
-            stmt.setObject(1, patientId);
+                stmt.setObject(1, patientId);
 
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    admissions.add(mapResultSetToPatientAdmission(rs));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        admissions.add(mapResultSetToPatientAdmission(rs));
+                    }
                 }
+                return admissions;
+            } catch (SQLException e) {
+                throw new DaoException("Error finding admissions by patient ID", e);
             }
-            return admissions;
-        } catch (SQLException e) {
-            throw new DaoException("Error finding admissions by patient ID", e);
-        }
+        });
     }
 
     /**
@@ -121,22 +155,141 @@ public class PatientAdmissionDAO {
      * @throws DaoException if there's an error accessing the database
      */
     public PatientAdmission findCurrentAdmissionByPatientId(UUID patientId) throws DaoException {
-        String sql = "SELECT * FROM patient_admission WHERE patient_id = ? AND is_current = TRUE";
+        return FIND_CURRENT_ADMISSION_BY_PATIENT_ID_METRICS.time(() -> {
+            try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+                 PreparedStatement stmt = conn.prepareStatement(FIND_CURRENT_BY_PATIENT_ID_SQL)) {
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setObject(1, patientId);
 
-            stmt.setObject(1, patientId);
-
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return mapResultSetToPatientAdmission(rs);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return mapResultSetToPatientAdmission(rs);
+                    }
+                    return null;
                 }
-                return null;
+            } catch (SQLException e) {
+                throw new DaoException("Error finding current admission", e);
+            }
+        });
+    }
+
+    /**
+     * Discharges the given admissions in one statement, setting their discharge
+     * date and clearing their current flag. Admissions that are unknown or
+     * already discharged are skipped.
+     *
+     * @param admissionIds the admissions to discharge
+     * @return one result per admission actually discharged
+     * @throws DaoException if there's an error updating the records
+     */
+    public List<DischargeResult> dischargeAll(Collection<UUID> admissionIds) throws DaoException {
+        return DISCHARGE_ALL_METRICS.time(() -> {
+            if (admissionIds.isEmpty()) {
+                return new ArrayList<>();
+            }
+
+            try (Connection conn = DatabaseConnection.getInstance().getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(DISCHARGE_BY_IDS_SQL)) {
+
+                stmt.setArray(1, conn.createArrayOf("uuid", admissionIds.toArray()));
+                return readDischargeResults(stmt);
+            } catch (SQLException e) {
+                throw new DaoException("Error discharging admissions", e);
+            }
+        });
+    }
+
+    /**
+     * Discharges every current admission in a ward in one statement.
+     *
+     * @param wardId the ward to empty
+     * @return one result per admission discharged
+     * @throws DaoException if there's an error updating the records
+     */
+    public List<DischargeResult> dischargeWard(UUID wardId) throws DaoException {
+        return DISCHARGE_WARD_METRICS.time(() -> {
+            try (Connection conn = DatabaseConnection.getInstance().getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(DISCHARGE_WARD_SQL)) {
+
+                stmt.setObject(1, wardId);
+                return readDischargeResults(stmt);
+            } catch (SQLException e) {
+                throw new DaoException("Error discharging ward", e);
+            }
+        });
+    }
+
+    private List<DischargeResult> readDischargeResults(PreparedStatement stmt) throws SQLException {
+        List<DischargeResult> results = new ArrayList<>();
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                results.add(new DischargeResult(
+                        (UUID) rs.getObject("id"),
+                        (UUID) rs.getObject("patient_id"),
+                        (UUID) rs.getObject("ward_id"),
+                        rs.getInt("bed_number"),
+                        rs.getTimestamp("admission_date").toLocalDateTime(),
+                        rs.getTimestamp("discharge_date").toLocalDateTime()));
             }
-        } catch (SQLException e) {
-            throw new DaoException("Error finding current admission", e);
         }
+        return results;
+    }
+
+    /**
+     * Deletes an admission record.
+     *
+     * @param admissionId the admission's ID
+     * @return true if a record was deleted
+     * @throws DaoException if there's an error deleting the record
+     */
+    public boolean delete(UUID admissionId) throws DaoException {
+        return DELETE_METRICS.time(() -> {
+            try (Connection conn = DatabaseConnection.getInstance().getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(DELETE_SQL)) {
+
+                stmt.setObject(1, admissionId);
+                return stmt.executeUpdate() > 0;
+            } catch (SQLException e) {
+                throw new DaoException("Error deleting admission", e);
+            }
+        });
+    }
+
+    /**
+     * Retrieves every current admission across all wards.
+     *
+     * @return list of current admissions
+     * @throws DaoException if there's an error retrieving records
+     */
+    public List<PatientAdmission> findAllCurrent() throws DaoException {
+        return FIND_ALL_CURRENT_METRICS.time(() -> {
+            List<PatientAdmission> admissions = new ArrayList<>();
+
+            try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+                 PreparedStatement stmt = conn.prepareStatement(FIND_ALL_CURRENT_SQL);
+                 ResultSet rs = stmt.executeQuery()) {
+
+                while (rs.next()) {
+                    admissions.add(mapResultSetToPatientAdmission(rs));
+                }
+                return admissions;
+            } catch (SQLException e) {
+                throw new DaoException("Error finding current admissions", e);
+            }
+        });
+    }
+
+    /**
+     * Streams every admission record through a server-side cursor, mapping rows
+     * lazily as the stream is consumed. The stream holds a database connection
+     * until it is closed, so it must be used in a try-with-resources block.
+     *
+     * @return a stream of all admission records
+     * @throws DaoException if the query cannot be started
+     */
+    public Stream<PatientAdmission> streamAll() throws DaoException {
+        return STREAM_ALL_METRICS.timeStream(() ->
+                ResultSetStream.open(FIND_ALL_SQL, stmt -> {}, this::mapResultSetToPatientAdmission));
     }
 
     /**
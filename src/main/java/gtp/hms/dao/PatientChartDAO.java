@@ -0,0 +1,142 @@
+package gtp.hms.dao;
+
+import gtp.hms.exception.DaoException;
+import gtp.hms.metrics.MethodMetrics;
+import gtp.hms.metrics.Metrics;
+import gtp.hms.model.PatientChart;
+import gtp.hms.util.DatabaseConnection;
+import gtp.hms.util.StatementCache;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Data Access Object that loads a complete {@link PatientChart} in one query.
+ * <p>
+ * The patient is left-joined to its admissions and each admission to its
+ * ward, department and treating doctor, so a chart costs a single round trip
+ * however many admissions the patient has. The patient columns repeat on every
+ * row and are read from the first.
+ */
+public class PatientChartDAO {
+    private static final String CHART_SELECT_SQL = "SELECT p.id, p.patient_number, p.first_name, p.middle_name, " +
+            "p.last_name, p.address, p.telephone_number, " +
+            "pa.id AS admission_id, pa.ward_id, pa.bed_number, pa.diagnosis, pa.admission_date, " +
+            "pa.discharge_date, pa.is_current, pa.treating_doctor_id, " +
+            "w.ward_number, d.department_name, " +
+            "e.first_name AS doctor_first_name, e.last_name AS doctor_last_name, doc.specialty " +
+            "FROM patient p " +
+            "LEFT JOIN patient_admission pa ON pa.patient_id = p.id " +
+            "LEFT JOIN ward w ON w.id = pa.ward_id " +
+            "LEFT JOIN department d ON d.id = w.department_id " +
+            "LEFT JOIN doctor doc ON doc.id = pa.treating_doctor_id " +
+            "LEFT JOIN employee e ON e.id = doc.id ";
+
+    private static final String CHART_ORDER_SQL = " ORDER BY pa.admission_date DESC, pa.id";
+
+    private static final String FIND_BY_ID_SQL = CHART_SELECT_SQL + "WHERE p.id = ?" + CHART_ORDER_SQL;
+
+    private static final String FIND_BY_NUMBER_SQL = CHART_SELECT_SQL + "WHERE p.patient_number = ?" + CHART_ORDER_SQL;
+
+    static {
+        StatementCache.preload(FIND_BY_ID_SQL, FIND_BY_NUMBER_SQL);
+    }
+
+    private static final MethodMetrics FIND_BY_PATIENT_ID_METRICS =
+            Metrics.forMethod(PatientChartDAO.class, "findByPatientId");
+    private static final MethodMetrics FIND_BY_PATIENT_NUMBER_METRICS =
+            Metrics.forMethod(PatientChartDAO.class, "findByPatientNumber");
+
+    /**
+     * Loads the chart of the patient with the given ID.
+     *
+     * @param patientId the patient's ID
+     * @return the chart, or null if no such patient exists
+     * @throws DaoException if there's an error loading the chart
+     */
+    public PatientChart findByPatientId(UUID patientId) throws DaoException {
+        return FIND_BY_PATIENT_ID_METRICS.time(() -> {
+            try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+                 PreparedStatement stmt = conn.prepareStatement(FIND_BY_ID_SQL)) {
+
+                stmt.setObject(1, patientId);
+                return readChart(stmt);
+            } catch (SQLException e) {
+                throw new DaoException("Error loading patient chart", e);
+            }
+        });
+    }
+
+    /**
+     * Loads the chart of the patient with the given patient number.
+     *
+     * @param patientNumber the patient number
+     * @return the chart, or null if no such patient exists
+     * @throws DaoException if there's an error loading the chart
+     */
+    public PatientChart findByPatientNumber(int patientNumber) throws DaoException {
+        return FIND_BY_PATIENT_NUMBER_METRICS.time(() -> {
+            try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+                 PreparedStatement stmt = conn.prepareStatement(FIND_BY_NUMBER_SQL)) {
+
+                stmt.setInt(1, patientNumber);
+                return readChart(stmt);
+            } catch (SQLException e) {
+                throw new DaoException("Error loading patient chart", e);
+            }
+        });
+    }
+
+    private PatientChart readChart(PreparedStatement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery()) {
+            if (!rs.next()) {
+                return null;
+            }
+
+            UUID patientId = (UUID) rs.getObject("id");
+            int patientNumber = rs.getInt("patient_number");
+            String firstName = rs.getString("first_name");
+            String middleName = rs.getString("middle_name");
+            String lastName = rs.getString("last_name");
+            String address = rs.getString("address");
+            String telephoneNumber = rs.getString("telephone_number");
+
+            List<PatientChart.Admission> admissions = new ArrayList<>();
+            do {
+                // A patient with no admissions yields one row of NULL admission columns
+                if (rs.getObject("admission_id") != null) {
+                    admissions.add(mapAdmission(rs));
+                }
+            } while (rs.next());
+
+            return new PatientChart(patientId, patientNumber, firstName, middleName, lastName,
+                    address, telephoneNumber, admissions);
+        }
+    }
+
+    private PatientChart.Admission mapAdmission(ResultSet rs) throws SQLException {
+        Date dischargeDate = rs.getDate("discharge_date");
+        String doctorFirstName = rs.getString("doctor_first_name");
+        String doctorName = doctorFirstName == null ? null : doctorFirstName + " " + rs.getString("doctor_last_name");
+
+        return new PatientChart.Admission(
+                (UUID) rs.getObject("admission_id"),
+                (UUID) rs.getObject("ward_id"),
+                rs.getInt("ward_number"),
+                rs.getString("department_name"),
+                rs.getInt("bed_number"),
+                rs.getString("diagnosis"),
+                rs.getDate("admission_date").toLocalDate(),
+                dischargeDate == null ? null : dischargeDate.toLocalDate(),
+                rs.getBoolean("is_current"),
+                (UUID) rs.getObject("treating_doctor_id"),
+                doctorName,
+                rs.getString("specialty"));
+    }
+}
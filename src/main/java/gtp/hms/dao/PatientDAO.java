@@ -1,194 +1,747 @@
 package gtp.hms.dao;
 
+import gtp.hms.cache.PatientCache;
 import gtp.hms.exception.DaoException;
+import gtp.hms.metrics.MethodMetrics;
+import gtp.hms.metrics.Metrics;
 import gtp.hms.model.Patient;
+import gtp.hms.model.PatientMatch;
 import gtp.hms.util.DatabaseConnection;
+import gtp.hms.util.StatementCache;
+import gtp.hms.util.TransactionManager;
+import gtp.hms.util.UnitOfWork;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 public class PatientDAO {
+    private static final String INSERT_SQL = "INSERT INTO patient (patient_number, first_name, middle_name, last_name," +
+            "address, telephone_number) VALUES (?,?,?,?,?,?)";
 
+    private static final String INSERT_WITH_ID_SQL = "INSERT INTO patient (patient_number, first_name, middle_name, last_name," +
+            "address, telephone_number, id) VALUES (?,?,?,?,?,?,?)";
+
+    private static final String FIND_BY_ID_SQL = "SELECT * FROM patient WHERE id = ?";
+
+    private static final String FIND_BY_NUMBER_SQL = "SELECT * FROM patient WHERE patient_number = ?";
+
+    private static final String FIND_BY_IDS_SQL = "SELECT * FROM patient WHERE id = ANY(?)";
+
+    private static final String FIND_BY_NUMBERS_SQL = "SELECT * FROM patient WHERE patient_number = ANY(?)";
+
+    private static final String UPDATE_SQL = "UPDATE patient SET " +
+            "patient_number = ?, first_name = ?, middle_name = ?, last_name = ?, " +
+            "address = ?, telephone_number = ?, updated_at = CURRENT_TIMESTAMP" +
+            " WHERE id = ?";
+
+    private static final String DELETE_SQL = "DELETE FROM patient WHERE id = ?";
+
+    // Rows whose columns all match are skipped by the WHERE clause: no write, no updated_at bump
+    private static final String UPSERT_SQL = "INSERT INTO patient AS p (patient_number, first_name, middle_name, " +
+            "last_name, address, telephone_number) " +
+            "SELECT * FROM unnest(?::int[], ?::varchar[], ?::varchar[], ?::varchar[], ?::text[], ?::varchar[]) " +
+            "ON CONFLICT (patient_number) DO UPDATE SET first_name = EXCLUDED.first_name, " +
+            "middle_name = EXCLUDED.middle_name, last_name = EXCLUDED.last_name, address = EXCLUDED.address, " +
+            "telephone_number = EXCLUDED.telephone_number, updated_at = CURRENT_TIMESTAMP " +
+            "WHERE (p.first_name, p.middle_name, p.last_name, p.address, p.telephone_number) IS DISTINCT FROM " +
+            "(EXCLUDED.first_name, EXCLUDED.middle_name, EXCLUDED.last_name, EXCLUDED.address, EXCLUDED.telephone_number) " +
+            "RETURNING id, patient_number, (xmax = 0) AS inserted";
+
+    private static final int UPSERT_CHUNK_SIZE = 1000;
+
+    /** Raised when ON CONFLICT DO UPDATE would update the same row twice in one statement. */
+    private static final String CARDINALITY_VIOLATION = "21000";
+
+    private static final String FIND_ALL_SQL = "SELECT * FROM patient";
+
+    private static final String SEARCH_BY_NAME_SQL = "SELECT * FROM patient WHERE " +
+            "LOWER(first_name) LIKE LOWER(?) OR LOWER(last_name) LIKE LOWER(?)";
+
+    private static final String NAME_FILTER = "(LOWER(first_name) LIKE LOWER(?) OR LOWER(last_name) LIKE LOWER(?))";
+
+    private static final String TABLE_ROW_ESTIMATE_SQL =
+            "SELECT reltuples::bigint FROM pg_class WHERE oid = 'patient'::regclass";
+
+    private static final String EXPLAIN_SEARCH_SQL = "EXPLAIN (FORMAT JSON) SELECT * FROM patient WHERE " + NAME_FILTER;
+
+    public static final int MAX_SEARCH_LIMIT = 100;
+
+    private static final int MAX_SEARCH_TOKENS = 4;
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}'-]+");
+
+    /** Ranked search SQL indexed by the number of query tokens. */
+    private static final String[] RANKED_SEARCH_SQL = new String[MAX_SEARCH_TOKENS + 1];
+
+    private static final Pattern PLAN_ROWS = Pattern.compile("\"Plan Rows\":\\s*(\\d+)");
+
+    static {
+        // Every token must word-match the name; "<%" is served by the trigram GIN index
+        for (int tokens = 1; tokens <= MAX_SEARCH_TOKENS; tokens++) {
+            RANKED_SEARCH_SQL[tokens] = "SELECT *, word_similarity(?, search_name) AS score FROM patient WHERE " +
+                    String.join(" AND ", Collections.nCopies(tokens, "? <% search_name")) +
+                    " ORDER BY score DESC, last_name, first_name, id LIMIT ?";
+        }
+
+        StatementCache.preload(FIND_BY_ID_SQL, FIND_BY_NUMBER_SQL, FIND_BY_IDS_SQL, FIND_BY_NUMBERS_SQL, UPDATE_SQL, SEARCH_BY_NAME_SQL,
+                RANKED_SEARCH_SQL[1], RANKED_SEARCH_SQL[2], UPSERT_SQL);
+        StatementCache.preloadWithGeneratedKeys(INSERT_SQL);
+    }
+
+    private static final MethodMetrics CREATE_METRICS = Metrics.forMethod(PatientDAO.class, "create");
+    private static final MethodMetrics FIND_BY_ID_METRICS = Metrics.forMethod(PatientDAO.class, "findById");
+    private static final MethodMetrics FIND_BY_PATIENT_NUMBER_METRICS =
+            Metrics.forMethod(PatientDAO.class, "findByPatientNumber");
+    private static final MethodMetrics FIND_BY_IDS_METRICS = Metrics.forMethod(PatientDAO.class, "findByIds");
+    private static final MethodMetrics FIND_BY_PATIENT_NUMBERS_METRICS =
+            Metrics.forMethod(PatientDAO.class, "findByPatientNumbers");
+    private static final MethodMetrics UPDATE_METRICS = Metrics.forMethod(PatientDAO.class, "update");
+    private static final MethodMetrics DELETE_METRICS = Metrics.forMethod(PatientDAO.class, "delete");
+    private static final MethodMetrics UPSERT_ALL_METRICS = Metrics.forMethod(PatientDAO.class, "upsertAll");
+    private static final MethodMetrics FIND_ALL_METRICS = Metrics.forMethod(PatientDAO.class, "findAll");
+    private static final MethodMetrics STREAM_ALL_METRICS = Metrics.forMethod(PatientDAO.class, "streamAll");
+    private static final MethodMetrics FIND_PAGE_METRICS = Metrics.forMethod(PatientDAO.class, "findPage");
+    private static final MethodMetrics SEARCH_BY_NAME_PAGE_METRICS =
+            Metrics.forMethod(PatientDAO.class, "searchByName(page)");
+    private static final MethodMetrics SEARCH_RANKED_METRICS = Metrics.forMethod(PatientDAO.class, "searchRanked");
+    private static final MethodMetrics SEARCH_BY_NAME_METRICS = Metrics.forMethod(PatientDAO.class, "searchByName");
+
+    private final PatientCache cache = PatientCache.getInstance();
+
+    /**
+     * Inserts a patient. Inside {@link TransactionManager#inUnitOfWork} the insert
+     * is queued for batching instead, using an ID generated up front.
+     *
+     * @param patient the patient to insert; its ID is set on success
+     * @return the patient's ID
+     * @throws DaoException if the insert fails
+     */
     public UUID create(Patient patient) throws DaoException {
-        String sql = "INSERT INTO patient (patient_number, first_name, middle_name, last_name," +
-                "address, telephone_number) VALUES (?,?,?,?,?,?)";
+        return CREATE_METRICS.time(() -> {
+            invalidateCached(null, patient.getPatientNumber());
+            UnitOfWork unitOfWork = TransactionManager.currentUnitOfWork();
+            if (unitOfWork != null) {
+                if (patient.getId() == null) {
+                    patient.setId();
+                }
+                unitOfWork.register(INSERT_WITH_ID_SQL, stmt -> {
+                    setPatientParameters(stmt, patient);
+                    stmt.setObject(7, patient.getId());
+                });
+                return patient.getId();
+            }
 
+            try (Connection conn = DatabaseConnection.getInstance().getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                setPatientParameters(stmt, patient);
 
-        try {
-            Connection conn = DatabaseConnection.getInstance().getConnection();
-            PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-            setPatientParameters(stmt, patient);
-            stmt.executeUpdate();
+                int affectedRows = stmt.executeUpdate();
+                if (affectedRows == 0) {
+                    throw new DaoException("Creating Patient failed. No rows affected.");
+                }
 
-            ResultSet generatedKeys = stmt.getGeneratedKeys();
-            if (generatedKeys.next()) {
-                UUID id = UUID.fromString(generatedKeys.getString(1));
-                patient.setId(id);
-                return id;
-            } else {
-                throw new DaoException("Creating Patient failed. No ID obtained.");
+                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        UUID id = UUID.fromString(generatedKeys.getString(1));
+                        patient.setId(id);
+                        return id;
+                    } else {
+                        throw new DaoException("Creating Patient failed. No ID obtained.");
+                    }
+                }
+
+            } catch (SQLException e) {
+                throw new DaoException("Creating Patient failed.", e);
             }
+        });
+    }
 
-        } catch (SQLException e) {
-            throw new DaoException("Creating Patient failed.", e);
-        }
+    public Patient findById(UUID id) throws DaoException {
+        return FIND_BY_ID_METRICS.time(() -> {
+            Patient cached = cache.isEnabled() ? cache.getById(id) : null;
+            if (cached != null) {
+                return cached;
+            }
+
+            long cacheVersion = cache.currentVersion();
+            try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+                 PreparedStatement stmt = conn.prepareStatement(FIND_BY_ID_SQL)) {
+
+                stmt.setObject(1, id);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return cacheLoaded(mapResultSetToPatient(rs), cacheVersion);
+                    } else {
+                        throw new DaoException("Patient with id" + id + " not found.");
+                    }
+                }
+            } catch (SQLException e) {
+                throw new DaoException("Finding Patient failed.", e);
+            }
+        });
     }
 
-    public UUID create(Patient patient, Connection conn) throws DaoException {
-        String sql = "INSERT INTO patient (patient_number, first_name, middle_name, last_name," +
-                "address, telephone_number) VALUES (?,?,?,?,?,?)";
+    public Patient findByPatientNumber(int patientNumber) throws DaoException {
+        return FIND_BY_PATIENT_NUMBER_METRICS.time(() -> {
+            Patient cached = cache.isEnabled() ? cache.getByPatientNumber(patientNumber) : null;
+            if (cached != null) {
+                return cached;
+            }
+
+            long cacheVersion = cache.currentVersion();
+            try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+                 PreparedStatement stmt = conn.prepareStatement(FIND_BY_NUMBER_SQL)) {
+
+                stmt.setInt(1, patientNumber);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return cacheLoaded(mapResultSetToPatient(rs), cacheVersion);
+                    }
 
-        try {
-            PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-            setPatientParameters(stmt, patient);
+                    return null;
+                }
 
-            int affectedRows = stmt.executeUpdate();
-            if (affectedRows == 0) {
-                throw new DaoException("Creating Patient failed. No rows affected.");
+            } catch (SQLException e) {
+                throw new DaoException("Finding Patient failed.", e);
             }
+        });
+    }
 
-            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    UUID id = UUID.fromString(generatedKeys.getString(1));
-                    patient.setId(id);
-                    return id;
+    /**
+     * Looks up many patients by ID in one query. Cached patients are served
+     * from the cache and only the rest are fetched.
+     *
+     * @param ids the IDs to look up; duplicates and nulls are ignored
+     * @return the patients found, in the order their IDs were first given;
+     *         IDs with no patient are absent
+     * @throws DaoException if the query fails
+     */
+    public Map<UUID, Patient> findByIds(Collection<UUID> ids) throws DaoException {
+        return FIND_BY_IDS_METRICS.time(() -> {
+            Set<UUID> keys = MultiGet.distinct(ids);
+            Map<UUID, Patient> found = new HashMap<>();
+            Set<UUID> missing = new LinkedHashSet<>();
+            for (UUID id : keys) {
+                Patient cached = cache.isEnabled() ? cache.getById(id) : null;
+                if (cached != null) {
+                    found.put(id, cached);
                 } else {
-                    throw new DaoException("Creating Patient failed. No ID obtained.");
+                    missing.add(id);
                 }
             }
-        } catch (SQLException e) {
-            throw new DaoException("Creating Patient failed.", e);
-        }
+            if (missing.isEmpty()) {
+                return MultiGet.inKeyOrder(keys, found);
+            }
+
+            long cacheVersion = cache.currentVersion();
+            try (Connection conn = DatabaseConnection.getInstance().getReadConnection()) {
+                MultiGet.fetch(conn, FIND_BY_IDS_SQL, "uuid", missing, this::mapResultSetToPatient, Patient::getId)
+                        .forEach((id, patient) -> found.put(id, cacheLoaded(patient, cacheVersion)));
+                return MultiGet.inKeyOrder(keys, found);
+            } catch (SQLException e) {
+                throw new DaoException("Finding Patients failed.", e);
+            }
+        });
     }
 
+    /**
+     * Looks up many patients by patient number in one query. Cached patients
+     * are served from the cache and only the rest are fetched.
+     *
+     * @param patientNumbers the patient numbers to look up; duplicates and nulls are ignored
+     * @return the patients found, in the order their numbers were first given;
+     *         numbers with no patient are absent
+     * @throws DaoException if the query fails
+     */
+    public Map<Integer, Patient> findByPatientNumbers(Collection<Integer> patientNumbers) throws DaoException {
+        return FIND_BY_PATIENT_NUMBERS_METRICS.time(() -> {
+            Set<Integer> keys = MultiGet.distinct(patientNumbers);
+            Map<Integer, Patient> found = new HashMap<>();
+            Set<Integer> missing = new LinkedHashSet<>();
+            for (Integer number : keys) {
+                Patient cached = cache.isEnabled() ? cache.getByPatientNumber(number) : null;
+                if (cached != null) {
+                    found.put(number, cached);
+                } else {
+                    missing.add(number);
+                }
+            }
+            if (missing.isEmpty()) {
+                return MultiGet.inKeyOrder(keys, found);
+            }
 
-    public Patient findById(UUID id) throws DaoException {
-        String sql = "SELECT * FROM patient WHERE id = ?";
+            long cacheVersion = cache.currentVersion();
+            try (Connection conn = DatabaseConnection.getInstance().getReadConnection()) {
+                MultiGet.fetch(conn, FIND_BY_NUMBERS_SQL, "int4", missing, this::mapResultSetToPatient,
+                                Patient::getPatientNumber)
+                        .forEach((number, patient) -> found.put(number, cacheLoaded(patient, cacheVersion)));
+                return MultiGet.inKeyOrder(keys, found);
+            } catch (SQLException e) {
+                throw new DaoException("Finding Patients failed.", e);
+            }
+        });
+    }
 
-        try {
-            Connection conn = DatabaseConnection.getInstance().getConnection();
-            PreparedStatement stmt = conn.prepareStatement(sql);
+    public void update(Patient patient) throws DaoException {
+        UPDATE_METRICS.run(() -> {
+            invalidateCached(patient.getId(), patient.getPatientNumber());
+            UnitOfWork unitOfWork = TransactionManager.currentUnitOfWork();
+            if (unitOfWork != null) {
+                unitOfWork.register(UPDATE_SQL, stmt -> {
+                    setPatientParameters(stmt, patient);
+                    stmt.setObject(7, patient.getId());
+                });
+                return;
+            }
 
-            stmt.setObject(1, id);
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return mapResultSetToPatient(rs);
-                } else {
+            try (Connection conn = DatabaseConnection.getInstance().getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
+
+                setPatientParameters(stmt, patient);
+                stmt.setObject(7, patient.getId());
+
+                int affectedRows = stmt.executeUpdate();
+                if (affectedRows == 0) {
+                    throw new DaoException("Patient with id" + patient.getId() + " not found.");
+                }
+            } catch (SQLException e) {
+                throw new DaoException("Updating Patient failed.", e);
+            }
+        });
+    }
+
+    public boolean delete(UUID id) throws DaoException {
+        return DELETE_METRICS.time(() -> {
+            invalidateCached(id, null);
+            try (Connection conn = DatabaseConnection.getInstance().getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(DELETE_SQL)) {
+
+                stmt.setObject(1, id);
+                int affectedRows = stmt.executeUpdate();
+                if (affectedRows == 0) {
                     throw new DaoException("Patient with id" + id + " not found.");
                 }
+                return affectedRows > 0;
+            } catch (SQLException e) {
+                throw new DaoException("Deleting Patient failed.", e);
             }
-        } catch (SQLException e) {
-            throw new DaoException("Finding Patient failed.", e);
-        }
+        });
     }
 
-    public Patient findByPatientNumber(int patientNumber) throws DaoException {
-        String sql = "SELECT * FROM patient WHERE patient_number = ?";
+    /**
+     * Inserts or updates patients by patient number, as when applying a change
+     * file from an external patient index.
+     *
+     * @param patients the patients to merge
+     * @return the number of patients inserted, updated and left unchanged
+     * @throws DaoException if the merge fails; nothing is written
+     * @see #upsertAll(Iterable, Consumer)
+     */
+    public UpsertResult upsertAll(Iterable<Patient> patients) throws DaoException {
+        return upsertAll(patients, null);
+    }
 
-        try {
-            Connection conn = DatabaseConnection.getInstance().getConnection();
-            PreparedStatement stmt = conn.prepareStatement(sql);
+    /**
+     * Inserts or updates patients by patient number. A patient whose stored
+     * columns already match is left untouched, so re-applying the same data
+     * writes nothing and keeps {@code updated_at} stable.
+     * <p>
+     * If a patient number appears more than once, its last occurrence wins and
+     * the patient is merged and counted once. Inserted and updated patients
+     * have their IDs set.
+     * <p>
+     * Rows are sent in chunks of {@value #UPSERT_CHUNK_SIZE} as column arrays
+     * expanded with {@code unnest}, one statement per chunk, rather than as a
+     * JDBC batch. A chunk is then one round trip and one execution of one plan,
+     * and its {@code RETURNING} rows say which patients were inserted and which
+     * updated; a batch executes the statement once per row and its update counts
+     * cannot tell an insert from an update. The whole merge runs in one
+     * transaction, joining the caller's if there is one.
+     *
+     * @param patients  the patients to merge
+     * @param onChanged called for each inserted or updated patient once the
+     *                  merge commits; may be null
+     * @return the number of patients inserted, updated and left unchanged
+     * @throws DaoException if the merge fails; nothing is written
+     */
+    public UpsertResult upsertAll(Iterable<Patient> patients, Consumer<Patient> onChanged) throws DaoException {
+        return UPSERT_ALL_METRICS.time(() -> {
+            List<Patient> changed = new ArrayList<>();
+            long[] counts = new long[3];
+
+            // Deduplicate up front: a number repeated across chunks would otherwise be merged twice
+            Map<Integer, Patient> byNumber = new LinkedHashMap<>();
+            for (Patient patient : patients) {
+                byNumber.remove(patient.getPatientNumber());
+                byNumber.put(patient.getPatientNumber(), patient);
+            }
 
-            stmt.setInt(1, patientNumber);
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return mapResultSetToPatient(rs);
+            TransactionManager.inTransaction(() -> {
+                List<Patient> chunk = new ArrayList<>(Math.min(byNumber.size(), UPSERT_CHUNK_SIZE));
+                for (Patient patient : byNumber.values()) {
+                    chunk.add(patient);
+                    if (chunk.size() == UPSERT_CHUNK_SIZE) {
+                        upsertChunk(chunk, byNumber, changed, counts);
+                        chunk.clear();
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    upsertChunk(chunk, byNumber, changed, counts);
                 }
-
                 return null;
+            });
+
+            if (onChanged != null && !changed.isEmpty()) {
+                TransactionManager.afterCommit(() -> changed.forEach(onChanged));
             }
+            return new UpsertResult(counts[0], counts[1], counts[2]);
+        });
+    }
+
+    private void upsertChunk(List<Patient> chunk, Map<Integer, Patient> byNumber, List<Patient> changed,
+                             long[] counts) throws SQLException {
+        int size = chunk.size();
+        Integer[] numbers = new Integer[size];
+        String[] firstNames = new String[size];
+        String[] middleNames = new String[size];
+        String[] lastNames = new String[size];
+        String[] addresses = new String[size];
+        String[] telephones = new String[size];
+        int i = 0;
+        for (Patient patient : chunk) {
+            numbers[i] = patient.getPatientNumber();
+            firstNames[i] = patient.getFirstName();
+            middleNames[i] = patient.getMiddleName();
+            lastNames[i] = patient.getLastName();
+            addresses[i] = patient.getAddress();
+            telephones[i] = patient.getTelephoneNumber();
+            i++;
+        }
 
+        int returned = 0;
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(UPSERT_SQL)) {
+            stmt.setArray(1, conn.createArrayOf("int4", numbers));
+            stmt.setArray(2, conn.createArrayOf("varchar", firstNames));
+            stmt.setArray(3, conn.createArrayOf("varchar", middleNames));
+            stmt.setArray(4, conn.createArrayOf("varchar", lastNames));
+            stmt.setArray(5, conn.createArrayOf("text", addresses));
+            stmt.setArray(6, conn.createArrayOf("varchar", telephones));
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    UUID id = (UUID) rs.getObject("id");
+                    int number = rs.getInt("patient_number");
+                    Patient patient = byNumber.get(number);
+                    patient.setId(id);
+                    changed.add(patient);
+                    if (rs.getBoolean("inserted")) {
+                        counts[0]++;
+                        invalidateCached(null, number);
+                    } else {
+                        counts[1]++;
+                        invalidateCached(id, number);
+                    }
+                    returned++;
+                }
+            }
         } catch (SQLException e) {
-            throw new DaoException("Finding Patient failed.", e);
+            if (CARDINALITY_VIOLATION.equals(e.getSQLState())) {
+                throw new DaoException("Upserting patients failed: a patient number appears more than once in one statement.", e);
+            }
+            throw e;
         }
+        counts[2] += size - returned;
     }
 
-    public void update(Patient patient) throws DaoException {
-        String sql = "UPDATE patient SET " +
-                "patient_number = ?, first_name = ?, middle_name = ?, last_name = ?, " +
-                "address = ?, telephone_number = ?, updated_at = CURRENT_TIMESTAMP" +
-                " WHERE id = ?";
+    public List<Patient> findAll() throws DaoException {
+        return FIND_ALL_METRICS.time(() -> {
+            List<Patient> patients = new ArrayList<>();
 
-        try {
-            Connection conn = DatabaseConnection.getInstance().getConnection();
-            PreparedStatement stmt = conn.prepareStatement(sql);
+            try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+                 PreparedStatement stmt = conn.prepareStatement(FIND_ALL_SQL);
+                 ResultSet rs = stmt.executeQuery()) {
 
-            ParameterMetaData metaData = stmt.getParameterMetaData();
-            if (metaData.getParameterCount() != 7) {  // Now correct count
-                throw new DaoException("SQL parameter count mismatch");
+                while (rs.next()) {
+                    patients.add(mapResultSetToPatient(rs));
+                }
+                return patients;
+            } catch (SQLException e) {
+                throw new DaoException("Finding all patients failed.", e);
             }
+        });
+    }
 
-            setPatientParameters(stmt, patient);
-            stmt.setObject(7, patient.getId());
+    /**
+     * Streams every patient through a server-side cursor, mapping rows lazily
+     * as the stream is consumed. The stream holds a database connection until
+     * it is closed, so it must be used in a try-with-resources block.
+     *
+     * @return a stream of all patients
+     * @throws DaoException if the query cannot be started
+     */
+    public Stream<Patient> streamAll() throws DaoException {
+        return STREAM_ALL_METRICS.timeStream(() ->
+                ResultSetStream.open(FIND_ALL_SQL, stmt -> {}, this::mapResultSetToPatient));
+    }
+
+    /**
+     * Fetches one page of patients using keyset pagination. Each page seeks
+     * past the previous page's last row through an index instead of skipping
+     * rows with OFFSET, so deep pages cost the same as the first.
+     *
+     * @param request the page to fetch
+     * @return the page, with a token for the next page if there is one
+     * @throws DaoException if the query fails
+     */
+    public Page<Patient> findPage(PageRequest request) throws DaoException {
+        return FIND_PAGE_METRICS.time(() -> fetchPage(request, null));
+    }
 
-            int affectedRows = stmt.executeUpdate();
-            if (affectedRows == 0) {
-                throw new DaoException("Patient with id" + patient.getId() + " not found.");
+    /**
+     * Fetches one page of patients whose first or last name contains the query,
+     * using keyset pagination.
+     *
+     * @param nameQuery the text to search for
+     * @param request   the page to fetch
+     * @return the page, with a token for the next page if there is one
+     * @throws DaoException if the query fails
+     */
+    public Page<Patient> searchByName(String nameQuery, PageRequest request) throws DaoException {
+        return SEARCH_BY_NAME_PAGE_METRICS.time(() -> fetchPage(request, nameQuery));
+    }
+
+    /**
+     * Searches patients by name using trigram similarity, tolerating typos and
+     * matching each word of the query independently, so "kubi patrick" finds
+     * "Patrick Kuubi". Results are ordered by similarity to the whole query.
+     * <p>
+     * Each token is matched with the {@code <%} operator against the indexed
+     * {@code search_name} column, so the search stays an index lookup as the
+     * table grows. Only the first four tokens are used.
+     *
+     * @param query the free-text name query
+     * @param limit the maximum number of results, at most {@value #MAX_SEARCH_LIMIT}
+     * @return matching patients, best match first; empty if the query has no words
+     * @throws DaoException if the query fails
+     */
+    public List<PatientMatch> searchRanked(String query, int limit) throws DaoException {
+        return SEARCH_RANKED_METRICS.time(() -> {
+            if (limit < 1) {
+                throw new IllegalArgumentException("Search limit must be positive");
+            }
+            List<String> tokens = tokenize(query);
+            if (tokens.isEmpty()) {
+                return new ArrayList<>();
+            }
+
+            try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+                 PreparedStatement stmt = conn.prepareStatement(RANKED_SEARCH_SQL[tokens.size()])) {
+
+                int index = 1;
+                stmt.setString(index++, String.join(" ", tokens));
+                for (String token : tokens) {
+                    stmt.setString(index++, token);
+                }
+                stmt.setInt(index, Math.min(limit, MAX_SEARCH_LIMIT));
+
+                List<PatientMatch> matches = new ArrayList<>();
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        matches.add(new PatientMatch(mapResultSetToPatient(rs), rs.getDouble("score")));
+                    }
+                }
+                return matches;
+            } catch (SQLException e) {
+                throw new DaoException("Error searching patients by name", e);
+            }
+        });
+    }
+
+    /**
+     * Splits a query into distinct lower-case words, the same normalisation
+     * applied to the {@code search_name} column.
+     */
+    private static List<String> tokenize(String query) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (query != null) {
+            for (String token : TOKEN_SEPARATOR.split(query.toLowerCase(Locale.ROOT))) {
+                if (!token.isEmpty() && tokens.size() < MAX_SEARCH_TOKENS) {
+                    tokens.add(token);
+                }
             }
-        } catch (SQLException e) {
-            throw new DaoException("Updating Patient failed.", e);
         }
+        return new ArrayList<>(tokens);
     }
 
-    public boolean delete(UUID id) throws DaoException {
-        String sql = "DELETE FROM patient WHERE id = ?";
+    public List<Patient> searchByName(String nameQuery) throws DaoException {
+        return SEARCH_BY_NAME_METRICS.time(() -> {
+            List<Patient> patients = new ArrayList<>();
+
+            try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+                 PreparedStatement stmt = conn.prepareStatement(SEARCH_BY_NAME_SQL)) {
 
-        try {
-            Connection conn = DatabaseConnection.getInstance().getConnection();
-            PreparedStatement stmt = conn.prepareStatement(sql);
+                String searchTerm = "%" + nameQuery + "%";
+                stmt.setString(1, searchTerm);
+                stmt.setString(2, searchTerm);
 
-            stmt.setObject(1, id);
-            int affectedRows = stmt.executeUpdate();
-            if (affectedRows == 0) {
-                throw new DaoException("Patient with id" + id + " not found.");
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        patients.add(mapResultSetToPatient(rs));
+                    }
+                    return patients;
+                }
+            } catch (SQLException e) {
+                throw new DaoException("Error searching patients by name", e);
             }
-            return affectedRows > 0;
-        } catch (SQLException e) {
-            throw new DaoException("Deleting Patient failed.", e);
+        });
+    }
+
+    /**
+     * Adds a freshly loaded patient to the cache, unless it was read inside a
+     * transaction and may reflect uncommitted changes.
+     */
+    private Patient cacheLoaded(Patient patient, long cacheVersion) {
+        if (cache.isEnabled() && !TransactionManager.isActive()) {
+            cache.put(patient, cacheVersion);
         }
+        return patient;
     }
 
-    public List<Patient> findAll() throws DaoException {
-        List<Patient> patients = new ArrayList<>();
+    /**
+     * Drops cached entries a write is about to change, and again once the
+     * write commits so that reads racing the transaction cannot leave a stale
+     * copy behind.
+     */
+    private void invalidateCached(UUID id, Integer patientNumber) {
+        if (!cache.isEnabled()) {
+            return;
+        }
+        Runnable invalidation = () -> {
+            if (id != null) {
+                cache.invalidate(id);
+            }
+            if (patientNumber != null) {
+                cache.invalidateNumber(patientNumber);
+            }
+        };
+        invalidation.run();
+        if (TransactionManager.isActive()) {
+            TransactionManager.afterCommit(invalidation);
+        }
+    }
+
+    private Page<Patient> fetchPage(PageRequest request, String nameQuery) throws DaoException {
+        List<String> afterKey = request.getAfterKey();
+        String sql = pageSql(request.getSort(), nameQuery != null, afterKey != null);
 
-        String sql = "SELECT * FROM patient";
-        try {
-            Connection conn = DatabaseConnection.getInstance().getConnection();
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            ResultSet rs = stmt.executeQuery();
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            while (rs.next()) {
-                patients.add(mapResultSetToPatient(rs));
+            int index = 1;
+            if (nameQuery != null) {
+                String searchTerm = "%" + nameQuery + "%";
+                stmt.setString(index++, searchTerm);
+                stmt.setString(index++, searchTerm);
             }
-            return patients;
+            if (afterKey != null) {
+                if (request.getSort() == PageRequest.Sort.NAME) {
+                    stmt.setString(index++, afterKey.get(0));
+                    stmt.setString(index++, afterKey.get(1));
+                    stmt.setObject(index++, UUID.fromString(afterKey.get(2)));
+                } else {
+                    stmt.setInt(index++, Integer.parseInt(afterKey.get(0)));
+                }
+            }
+            // Fetch one extra row to learn whether another page follows
+            stmt.setInt(index, request.getSize() + 1);
+
+            List<Patient> patients = new ArrayList<>(request.getSize() + 1);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    patients.add(mapResultSetToPatient(rs));
+                }
+            }
+
+            String nextPageToken = null;
+            if (patients.size() > request.getSize()) {
+                patients.remove(patients.size() - 1);
+                nextPageToken = pageToken(request.getSort(), patients.get(patients.size() - 1));
+            }
+
+            long estimatedTotal = request.isTotalEstimateRequested() ? estimateTotal(conn, nameQuery) : -1;
+            return new Page<>(patients, nextPageToken, estimatedTotal);
         } catch (SQLException e) {
-            throw new DaoException("Finding all patients failed.", e);
+            throw new DaoException("Fetching patient page failed", e);
         }
     }
 
-    public List<Patient> searchByName(String nameQuery) throws DaoException {
-        List<Patient> patients = new ArrayList<>();
+    private static String pageSql(PageRequest.Sort sort, boolean filtered, boolean seek) {
+        String keyColumns = sort == PageRequest.Sort.NAME ? "(last_name, first_name, id)" : "patient_number";
+        String keyParameters = sort == PageRequest.Sort.NAME ? "(?, ?, ?)" : "?";
+
+        StringBuilder sql = new StringBuilder("SELECT * FROM patient");
+        if (filtered || seek) {
+            sql.append(" WHERE ");
+        }
+        if (filtered) {
+            sql.append(NAME_FILTER);
+        }
+        if (seek) {
+            sql.append(filtered ? " AND " : "").append(keyColumns).append(" > ").append(keyParameters);
+        }
+        sql.append(sort == PageRequest.Sort.NAME ? " ORDER BY last_name, first_name, id" : " ORDER BY patient_number");
+        return sql.append(" LIMIT ?").toString();
+    }
 
-        String sql = "SELECT * FROM patient WHERE " +
-                "LOWER(first_name) LIKE LOWER(?) OR LOWER(last_name) LIKE LOWER(?)";
-        try {
-            Connection conn = DatabaseConnection.getInstance().getConnection();
-            PreparedStatement stmt = conn.prepareStatement(sql);
+    private static String pageToken(PageRequest.Sort sort, Patient last) {
+        if (sort == PageRequest.Sort.NAME) {
+            return PageRequest.encodeToken(sort, last.getLastName(), last.getFirstName(), last.getId().toString());
+        }
+        return PageRequest.encodeToken(sort, String.valueOf(last.getPatientNumber()));
+    }
 
+    /**
+     * Estimates the number of matching patients from planner statistics instead
+     * of counting rows. The whole table uses pg_class.reltuples; a name search
+     * uses the row estimate of its query plan.
+     */
+    private long estimateTotal(Connection conn, String nameQuery) throws SQLException {
+        if (nameQuery == null) {
+            try (PreparedStatement stmt = conn.prepareStatement(TABLE_ROW_ESTIMATE_SQL);
+                 ResultSet rs = stmt.executeQuery()) {
+                // reltuples is -1 until the table has been vacuumed or analysed
+                return rs.next() ? Math.max(rs.getLong(1), -1) : -1;
+            }
+        }
+
+        try (PreparedStatement stmt = conn.prepareStatement(EXPLAIN_SEARCH_SQL)) {
             String searchTerm = "%" + nameQuery + "%";
             stmt.setString(1, searchTerm);
             stmt.setString(2, searchTerm);
-
             try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    patients.add(mapResultSetToPatient(rs));
+                if (rs.next()) {
+                    Matcher matcher = PLAN_ROWS.matcher(rs.getString(1));
+                    if (matcher.find()) {
+                        return Long.parseLong(matcher.group(1));
+                    }
                 }
-                return patients;
+                return -1;
             }
-        } catch (SQLException e) {
-            throw new DaoException("Error searching patients by name", e);
         }
     }
 
@@ -0,0 +1,127 @@
+package gtp.hms.dao;
+
+import gtp.hms.config.DatabaseConfig;
+import gtp.hms.exception.DaoException;
+import gtp.hms.util.DatabaseConnection;
+import gtp.hms.util.TransactionManager;
+import gtp.hms.util.UnitOfWork.ParameterBinder;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Exposes a query as a lazily mapped {@link Stream} backed by a server-side cursor.
+ * <p>
+ * The PostgreSQL driver only uses a cursor when autocommit is off and a fetch
+ * size is set, so the stream runs the query in a read-only transaction of its
+ * own (or inside the caller's transaction, if one is active) and pulls
+ * {@code db.stream.fetchSize} rows per round trip. Memory use therefore stays
+ * constant no matter how large the table is.
+ * <p>
+ * The returned stream holds a connection until it is closed, so callers must
+ * use it in a try-with-resources block.
+ */
+final class ResultSetStream {
+    private static final System.Logger LOG = System.getLogger(ResultSetStream.class.getName());
+
+    private ResultSetStream() {}
+
+    /**
+     * Executes the query and returns its rows as a stream.
+     *
+     * @param sql    the query
+     * @param binder sets the query parameters
+     * @param mapper maps each row
+     * @param <T>    the mapped type
+     * @return a stream that releases the cursor, statement and connection on close
+     * @throws DaoException if the query cannot be started
+     */
+    static <T> Stream<T> open(String sql, ParameterBinder binder, RowMapper<T> mapper) throws DaoException {
+        boolean ownTransaction = !TransactionManager.isActive();
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = DatabaseConnection.getInstance().getReadConnection();
+            if (ownTransaction) {
+                conn.setAutoCommit(false);
+                conn.setReadOnly(true);
+            }
+            stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(DatabaseConfig.getStreamFetchSize());
+            binder.bind(stmt);
+            rs = stmt.executeQuery();
+        } catch (SQLException e) {
+            closeQuietly(rs, stmt, conn, ownTransaction);
+            throw new DaoException("Error opening streaming query", e);
+        }
+
+        ResultSet cursor = rs;
+        PreparedStatement statement = stmt;
+        Connection connection = conn;
+        Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!cursor.next()) {
+                        return false;
+                    }
+                    action.accept(mapper.map(cursor));
+                    return true;
+                } catch (SQLException e) {
+                    throw new RuntimeException("Error reading streamed row", e);
+                }
+            }
+        };
+
+        return StreamSupport.stream(spliterator, false)
+                .onClose(() -> closeQuietly(cursor, statement, connection, ownTransaction));
+    }
+
+    private static void closeQuietly(ResultSet rs, PreparedStatement stmt, Connection conn,
+                                     boolean ownTransaction) {
+        if (rs != null) {
+            try {
+                rs.close();
+            } catch (SQLException e) {
+                LOG.log(System.Logger.Level.WARNING, "Error closing streaming cursor", e);
+            }
+        }
+        if (stmt != null) {
+            try {
+                stmt.close();
+            } catch (SQLException e) {
+                LOG.log(System.Logger.Level.WARNING, "Error closing streaming statement", e);
+            }
+        }
+        if (conn == null) {
+            return;
+        }
+
+        // The pool rolls back and restores autocommit on release; read-only can
+        // only be cleared outside a transaction, so end it here first
+        try {
+            if (ownTransaction) {
+                conn.rollback();
+                conn.setReadOnly(false);
+            }
+        } catch (SQLException e) {
+            LOG.log(System.Logger.Level.WARNING, "Error resetting streaming connection", e);
+        } finally {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                LOG.log(System.Logger.Level.WARNING, "Error releasing streaming connection", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package gtp.hms.dao;
+
+import gtp.hms.metrics.RowCounted;
+
+/**
+ * Row counts from a bulk upsert.
+ */
+public final class UpsertResult implements RowCounted {
+    private final long inserted;
+    private final long updated;
+    private final long unchanged;
+
+    UpsertResult(long inserted, long updated, long unchanged) {
+        this.inserted = inserted;
+        this.updated = updated;
+        this.unchanged = unchanged;
+    }
+
+    public long getInserted() {
+        return inserted;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    /**
+     * Returns the number of rows that matched an existing record exactly and
+     * were therefore not written.
+     *
+     * @return unchanged rows
+     */
+    public long getUnchanged() {
+        return unchanged;
+    }
+
+    public long getTotal() {
+        return inserted + updated + unchanged;
+    }
+
+    @Override
+    public long getRowCount() {
+        return getTotal();
+    }
+
+    @Override
+    public String toString() {
+        return "UpsertResult [inserted=" + inserted + ", updated=" + updated + ", unchanged=" + unchanged + "]";
+    }
+}
@@ -1,10 +1,21 @@
 package gtp.hms.dao;
 
+import gtp.hms.cache.ReferenceDataCache;
 import gtp.hms.exception.DaoException;
+import gtp.hms.metrics.MethodMetrics;
+import gtp.hms.metrics.Metrics;
 import gtp.hms.model.Ward;
 import gtp.hms.util.DatabaseConnection;
+import gtp.hms.util.StatementCache;
+import gtp.hms.util.TransactionManager;
 
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -22,35 +33,66 @@ public class WardDAO {
                     "JOIN department d ON w.department_id = d.id " +
                     "WHERE w.id = ?";
 
+    private static final String FIND_BY_IDS_SQL =
+            "SELECT w.*, d.department_name " +
+                    "FROM ward w " +
+                    "JOIN department d ON w.department_id = d.id " +
+                    "WHERE w.id = ANY(?)";
+
+    private static final String FIND_ALL_SQL = "SELECT * FROM ward ORDER BY ward_number";
+
+    private static final String INSERT_SQL = "INSERT INTO ward (ward_number, number_of_beds, department_id," +
+            "supervisor_id) VALUES (?, ?, ?, ?)";
+
+    private static final String IS_BED_AVAILABLE_SQL = "SELECT COUNT(*) = 0 FROM patient_admission pa " +
+            "JOIN ward w ON pa.ward_id = w.id " +
+            "WHERE w.ward_number = ? " +
+            "AND w.department_id = ? " +
+            "AND pa.bed_number = ? " +
+            "AND pa.is_current";
+
+    static {
+        StatementCache.preload(FIND_BY_NUMBER_SQL, FIND_BY_ID_SQL, FIND_BY_IDS_SQL, IS_BED_AVAILABLE_SQL);
+    }
+
+    private static final MethodMetrics CREATE_METRICS = Metrics.forMethod(WardDAO.class, "create");
+    private static final MethodMetrics FIND_WARD_ID_BY_NUMBER_METRICS =
+            Metrics.forMethod(WardDAO.class, "findWardIdByNumber");
+    private static final MethodMetrics FIND_BY_ID_METRICS = Metrics.forMethod(WardDAO.class, "findById");
+    private static final MethodMetrics FIND_BY_IDS_METRICS = Metrics.forMethod(WardDAO.class, "findByIds");
+    private static final MethodMetrics FIND_ALL_METRICS = Metrics.forMethod(WardDAO.class, "findAll");
+    private static final MethodMetrics IS_BED_AVAILABLE_METRICS = Metrics.forMethod(WardDAO.class, "isBedAvailable");
+
     /**
-     * Creates a new ward record in the database.
+     * Creates a new ward record in the database. Cached ward lookups are
+     * invalidated once the insert commits.
      *
      * @param ward the ward object containing data to insert
      * @return UUID of the newly created ward
      * @throws DaoException if creation fails or no ID is generated
      */
     public UUID create(Ward ward) throws DaoException {
-        String sql = "INSERT INTO ward (ward_number, number_of_beds, department_id," +
-                "supervisor_id) VALUES (?, ?, ?, ?)";
-
-        try {
-            Connection conn = DatabaseConnection.getInstance().getConnection();
-            PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-
-            setDefaultParameters(stmt, ward);
-            stmt.executeUpdate();
-
-            ResultSet generatedKeys = stmt.getGeneratedKeys();
-            if (generatedKeys.next()) {
-                UUID id = UUID.fromString(generatedKeys.getString(1));
-                ward.setId(id);
-                return id;
-            } else {
-                throw new DaoException("Creating ward failed. No id obtained.");
+        return CREATE_METRICS.time(() -> {
+            try (Connection conn = DatabaseConnection.getInstance().getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+
+                setDefaultParameters(stmt, ward);
+                stmt.executeUpdate();
+
+                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        UUID id = UUID.fromString(generatedKeys.getString(1));
+                        ward.setId(id);
+                        TransactionManager.afterCommit(ReferenceDataCache::invalidateWards);
+                        return id;
+                    } else {
+                        throw new DaoException("Creating ward failed. No id obtained.");
+                    }
+                }
+            } catch (SQLException e) {
+                throw new DaoException("Creating ward failed.", e);
             }
-        } catch (SQLException e) {
-            throw new DaoException("Creating ward failed.", e);
-        }
+        });
     }
 
     /**
@@ -62,22 +104,24 @@ public class WardDAO {
      * @throws DaoException if ward is not found or database error occurs
      */
     public UUID findWardIdByNumber(int wardNumber, UUID departmentId) throws DaoException {
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(FIND_BY_NUMBER_SQL)) {
+        return FIND_WARD_ID_BY_NUMBER_METRICS.time(() -> {
+            try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+                 PreparedStatement stmt = conn.prepareStatement(FIND_BY_NUMBER_SQL)) {
 
-            stmt.setInt(1, wardNumber);
-            stmt.setObject(2, departmentId);
+                stmt.setInt(1, wardNumber);
+                stmt.setObject(2, departmentId);
 
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return (UUID) rs.getObject("id");
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return (UUID) rs.getObject("id");
+                    }
+                    throw new DaoException("Ward not found with number: " + wardNumber +
+                            " in department: " + departmentId);
                 }
-                throw new DaoException("Ward not found with number: " + wardNumber +
-                        " in department: " + departmentId);
+            } catch (SQLException e) {
+                throw new DaoException("Error finding ward by number", e);
             }
-        } catch (SQLException e) {
-            throw new DaoException("Error finding ward by number", e);
-        }
+        });
     }
 
     /**
@@ -88,20 +132,69 @@ public class WardDAO {
      * @throws DaoException if ward is not found or database error occurs
      */
     public Ward findById(UUID wardId) throws DaoException {
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(FIND_BY_ID_SQL)) {
+        return FIND_BY_ID_METRICS.time(() -> {
+            try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+                 PreparedStatement stmt = conn.prepareStatement(FIND_BY_ID_SQL)) {
 
-            stmt.setObject(1, wardId);
+                stmt.setObject(1, wardId);
 
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return mapResultSetToWard(rs);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return mapResultSetToWard(rs);
+                    }
+                    throw new DaoException("Ward not found with ID: " + wardId);
                 }
-                throw new DaoException("Ward not found with ID: " + wardId);
+            } catch (SQLException e) {
+                throw new DaoException("Error finding ward by ID: " + wardId, e);
             }
-        } catch (SQLException e) {
-            throw new DaoException("Error finding ward by ID: " + wardId, e);
-        }
+        });
+    }
+
+    /**
+     * Finds many wards by ID in a single query.
+     *
+     * @param wardIds the ward IDs to look up; duplicates and nulls are ignored
+     * @return the wards found, in the order their IDs were first given;
+     *         unknown IDs are absent
+     * @throws DaoException if a database error occurs
+     */
+    public Map<UUID, Ward> findByIds(Collection<UUID> wardIds) throws DaoException {
+        return FIND_BY_IDS_METRICS.time(() -> {
+            Set<UUID> keys = MultiGet.distinct(wardIds);
+            if (keys.isEmpty()) {
+                return new LinkedHashMap<>();
+            }
+
+            try (Connection conn = DatabaseConnection.getInstance().getReadConnection()) {
+                return MultiGet.fetch(conn, FIND_BY_IDS_SQL, "uuid", keys, this::mapResultSetToWard, Ward::getId);
+            } catch (SQLException e) {
+                throw new DaoException("Error finding wards by ID", e);
+            }
+        });
+    }
+
+    /**
+     * Retrieves all wards, ordered by ward number.
+     *
+     * @return list of all wards
+     * @throws DaoException if a database error occurs
+     */
+    public List<Ward> findAll() throws DaoException {
+        return FIND_ALL_METRICS.time(() -> {
+            List<Ward> wards = new ArrayList<>();
+
+            try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+                 PreparedStatement stmt = conn.prepareStatement(FIND_ALL_SQL);
+                 ResultSet rs = stmt.executeQuery()) {
+
+                while (rs.next()) {
+                    wards.add(mapResultSetToWard(rs));
+                }
+                return wards;
+            } catch (SQLException e) {
+                throw new DaoException("Error retrieving all wards", e);
+            }
+        });
     }
 
     /**
@@ -114,29 +207,24 @@ public class WardDAO {
      * @throws DaoException if database error occurs during check
      */
     public boolean isBedAvailable(int wardNumber, UUID departmentId, int bedNumber) throws DaoException {
-        String sql = "SELECT COUNT(*) = 0 FROM patient_admission pa " +
-                "JOIN ward w ON pa.ward_id = w.id " +
-                "WHERE w.ward_number = ? " +
-                "AND w.department_id = ? " +
-                "AND pa.bed_number = ? " +
-                "AND pa.discharge_date IS NULL";
-
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, wardNumber);
-            stmt.setObject(2, departmentId);
-            stmt.setInt(3, bedNumber);
-
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getBoolean(1);
+        return IS_BED_AVAILABLE_METRICS.time(() -> {
+            try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+                 PreparedStatement stmt = conn.prepareStatement(IS_BED_AVAILABLE_SQL)) {
+
+                stmt.setInt(1, wardNumber);
+                stmt.setObject(2, departmentId);
+                stmt.setInt(3, bedNumber);
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return rs.getBoolean(1);
+                    }
+                    return false;
                 }
-                return false;
+            } catch (SQLException e) {
+                throw new DaoException("Error checking bed availability", e);
             }
-        } catch (SQLException e) {
-            throw new DaoException("Error checking bed availability", e);
-        }
+        });
     }
 
     /**
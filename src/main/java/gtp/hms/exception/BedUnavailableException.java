@@ -0,0 +1,34 @@
+package gtp.hms.exception;
+
+import java.util.UUID;
+
+/**
+ * Thrown when an admission asks for a bed that already has a current admission.
+ * Callers can pick another bed and retry.
+ */
+public class BedUnavailableException extends ServiceException {
+    private static final long serialVersionUID = 1L;
+
+    private final UUID wardId;
+    private final int bedNumber;
+
+    /**
+     * Constructs a new BedUnavailableException for the given bed.
+     *
+     * @param wardId    the ward's ID
+     * @param bedNumber the bed that is taken
+     */
+    public BedUnavailableException(UUID wardId, int bedNumber) {
+        super("Bed " + bedNumber + " in ward " + wardId + " is not available");
+        this.wardId = wardId;
+        this.bedNumber = bedNumber;
+    }
+
+    public UUID getWardId() {
+        return wardId;
+    }
+
+    public int getBedNumber() {
+        return bedNumber;
+    }
+}
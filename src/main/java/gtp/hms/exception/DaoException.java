@@ -1,5 +1,8 @@
 package gtp.hms.exception;
 
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.ServerErrorMessage;
+
 import java.sql.SQLException;
 
 /**
@@ -10,6 +13,7 @@ import java.sql.SQLException;
  * data access layer while providing meaningful error context.
  */
 public class DaoException extends SQLException {
+    private static final String UNIQUE_VIOLATION = "23505";
 
     /**
      * Creates a new DaoException with the specified error message.
@@ -29,4 +33,53 @@ public class DaoException extends SQLException {
     public DaoException(String message, Throwable cause) {
         super(message, cause);
     }
+
+    /**
+     * Checks whether this error, or any error it wraps, was raised by a
+     * unique constraint or unique index rejecting a duplicate value.
+     *
+     * @return true if the database reported a unique violation
+     */
+    public boolean isUniqueViolation() {
+        for (Throwable cause = this; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException
+                    && UNIQUE_VIOLATION.equals(sqlException.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether this error, or any error it wraps or chains, was raised by
+     * the named unique constraint or unique index. Batch failures report the
+     * statement's own error through {@link SQLException#getNextException()}.
+     * The constraint is taken from the server's error fields; the message text
+     * is localized, so it is only searched when those fields are missing.
+     *
+     * @param constraintName the constraint or index name
+     * @return true if the database reported a unique violation on that constraint
+     */
+    public boolean isUniqueViolation(String constraintName) {
+        String quotedName = "\"" + constraintName + "\"";
+        for (Throwable cause = this; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException) {
+                for (SQLException next = sqlException; next != null; next = next.getNextException()) {
+                    if (!UNIQUE_VIOLATION.equals(next.getSQLState())) {
+                        continue;
+                    }
+                    ServerErrorMessage serverError = next instanceof PSQLException psqlException
+                            ? psqlException.getServerErrorMessage() : null;
+                    if (serverError != null && serverError.getConstraint() != null) {
+                        if (constraintName.equals(serverError.getConstraint())) {
+                            return true;
+                        }
+                    } else if (next.getMessage() != null && next.getMessage().contains(quotedName)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
 }
\ No newline at end of file
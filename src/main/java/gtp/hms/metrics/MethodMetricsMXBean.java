@@ -0,0 +1,31 @@
+package gtp.hms.metrics;
+
+/**
+ * JMX view of the metrics recorded for one instrumented method. Latencies are
+ * in microseconds.
+ */
+public interface MethodMetricsMXBean {
+    long getCalls();
+
+    long getErrors();
+
+    /**
+     * @return rows returned by successful calls, or 0 if the method does not return rows
+     */
+    long getRows();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+
+    double getMaxMicros();
+
+    /**
+     * Discards everything recorded so far.
+     */
+    void reset();
+}
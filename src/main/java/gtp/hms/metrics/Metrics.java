@@ -0,0 +1,153 @@
+package gtp.hms.metrics;
+
+import gtp.hms.config.DatabaseConfig;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registry of {@link MethodMetrics}, each exposed as an MXBean on the platform
+ * MBean server under {@code gtp.hms:type=<group>,component=<class>,name=<method>}.
+ * The group is the last segment of the class's package, such as {@code dao}
+ * or {@code service}.
+ * <p>
+ * Classes look up their metrics once, into static fields:
+ * <pre>{@code
+ * private static final MethodMetrics FIND_BY_ID_METRICS = Metrics.forMethod(PatientDAO.class, "findById");
+ *
+ * public Patient findById(UUID id) throws DaoException {
+ *     return FIND_BY_ID_METRICS.time(() -> { ... });
+ * }
+ * }</pre>
+ * <p>
+ * If {@code metrics.dump.file} is configured, every method that has been called
+ * is appended to that file every {@code metrics.dump.intervalMillis}.
+ */
+public final class Metrics {
+    private static final System.Logger LOG = System.getLogger(Metrics.class.getName());
+    private static final String DOMAIN = "gtp.hms";
+    private static final ConcurrentMap<String, MethodMetrics> METRICS = new ConcurrentHashMap<>();
+
+    static {
+        startDumper();
+    }
+
+    private Metrics() {}
+
+    /**
+     * Returns the metrics for a method of the given class, registering them
+     * the first time.
+     *
+     * @param owner  the class declaring the method
+     * @param method the method name; overloads need distinct names
+     * @return the method's metrics
+     */
+    public static MethodMetrics forMethod(Class<?> owner, String method) {
+        String packageName = owner.getPackageName();
+        return forMethod(packageName.substring(packageName.lastIndexOf('.') + 1), owner.getSimpleName(), method);
+    }
+
+    /**
+     * Returns the metrics for a named operation, registering them the first time.
+     *
+     * @param group     the MBean type, such as {@code dao} or {@code pool}
+     * @param component the class or resource the operation belongs to
+     * @param method    the operation name
+     * @return the operation's metrics
+     */
+    public static MethodMetrics forMethod(String group, String component, String method) {
+        String objectName = DOMAIN + ":type=" + quoteIfNeeded(group) +
+                ",component=" + quoteIfNeeded(component) + ",name=" + quoteIfNeeded(method);
+        return METRICS.computeIfAbsent(objectName, key -> register(key, component + "." + method));
+    }
+
+    /**
+     * Returns every registered metric, ordered by name.
+     *
+     * @return a snapshot of the registered metrics
+     */
+    public static List<MethodMetrics> all() {
+        List<MethodMetrics> all = new ArrayList<>(METRICS.values());
+        all.sort(Comparator.comparing(MethodMetrics::getName));
+        return all;
+    }
+
+    /**
+     * Writes one line for each method that has been called.
+     *
+     * @param out where to write
+     * @throws IOException if writing fails
+     */
+    public static void dump(Appendable out) throws IOException {
+        out.append("# ").append(LocalDateTime.now().toString()).append(System.lineSeparator());
+        for (MethodMetrics metrics : all()) {
+            if (metrics.getCalls() > 0) {
+                out.append(metrics.toString()).append(System.lineSeparator());
+            }
+        }
+    }
+
+    private static MethodMetrics register(String objectName, String name) {
+        MethodMetrics metrics = new MethodMetrics(name);
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName mbeanName = new ObjectName(objectName);
+            if (!server.isRegistered(mbeanName)) {
+                server.registerMBean(metrics, mbeanName);
+            }
+        } catch (JMException | RuntimeException e) {
+            // Still record; the numbers remain available through all() and the dump
+            LOG.log(System.Logger.Level.WARNING, "Could not register MBean " + objectName, e);
+        }
+        return metrics;
+    }
+
+    private static String quoteIfNeeded(String value) {
+        for (char c : value.toCharArray()) {
+            if (c == ',' || c == '=' || c == ':' || c == '"' || c == '*' || c == '?' || c == '\n') {
+                return ObjectName.quote(value);
+            }
+        }
+        return value;
+    }
+
+    private static void startDumper() {
+        String file = DatabaseConfig.getMetricsDumpFile();
+        long intervalMillis = DatabaseConfig.getMetricsDumpIntervalMillis();
+        if (file == null || intervalMillis <= 0) {
+            return;
+        }
+
+        Path path = Path.of(file);
+        ScheduledExecutorService dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hms-metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleWithFixedDelay(() -> {
+            try (Writer out = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                dump(out);
+            } catch (IOException | RuntimeException e) {
+                LOG.log(System.Logger.Level.WARNING, "Failed to write metrics to " + path, e);
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+}
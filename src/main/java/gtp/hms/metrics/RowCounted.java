@@ -0,0 +1,15 @@
+package gtp.hms.metrics;
+
+/**
+ * A method result that knows how many rows it covers. {@link MethodMetrics}
+ * adds this count to the method's row total.
+ */
+public interface RowCounted {
+
+    /**
+     * Returns the number of rows this result covers.
+     *
+     * @return the row count
+     */
+    long getRowCount();
+}
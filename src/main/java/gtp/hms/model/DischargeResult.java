@@ -0,0 +1,79 @@
+package gtp.hms.model;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+/**
+ * Outcome of discharging one admission: the bed it freed and how long the
+ * patient stayed.
+ */
+public class DischargeResult {
+    private final UUID admissionId;
+    private final UUID patientId;
+    private final UUID wardId;
+    private final int bedNumber;
+    private final LocalDateTime admittedAt;
+    private final LocalDateTime dischargedAt;
+
+    public DischargeResult(UUID admissionId, UUID patientId, UUID wardId, int bedNumber,
+                           LocalDateTime admittedAt, LocalDateTime dischargedAt) {
+        this.admissionId = admissionId;
+        this.patientId = patientId;
+        this.wardId = wardId;
+        this.bedNumber = bedNumber;
+        this.admittedAt = admittedAt;
+        this.dischargedAt = dischargedAt;
+    }
+
+    public UUID getAdmissionId() {
+        return admissionId;
+    }
+
+    public UUID getPatientId() {
+        return patientId;
+    }
+
+    public UUID getWardId() {
+        return wardId;
+    }
+
+    public int getBedNumber() {
+        return bedNumber;
+    }
+
+    public LocalDateTime getAdmittedAt() {
+        return admittedAt;
+    }
+
+    public LocalDateTime getDischargedAt() {
+        return dischargedAt;
+    }
+
+    /**
+     * Returns the exact time between admission and discharge.
+     *
+     * @return the length of stay
+     */
+    public Duration getLengthOfStay() {
+        return Duration.between(admittedAt, dischargedAt);
+    }
+
+    /**
+     * Returns the length of stay in calendar days, counting the number of
+     * midnights between admission and discharge.
+     *
+     * @return the length of stay in days
+     */
+    public long getLengthOfStayDays() {
+        return ChronoUnit.DAYS.between(admittedAt.toLocalDate(), dischargedAt.toLocalDate());
+    }
+
+    @Override
+    public String toString() {
+        return "DischargeResult [admissionId=" + admissionId + ", patientId=" + patientId + ", wardId=" + wardId +
+                ", bedNumber=" + bedNumber + ", admittedAt=" + admittedAt + ", dischargedAt=" + dischargedAt +
+                ", lengthOfStayDays=" + getLengthOfStayDays() + "]";
+    }
+}
@@ -0,0 +1,180 @@
+package gtp.hms.model;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Immutable read model of a patient's chart: the patient's details and every
+ * admission with its ward, department and treating doctor resolved.
+ */
+public final class PatientChart {
+    private final UUID patientId;
+    private final int patientNumber;
+    private final String firstName;
+    private final String middleName;
+    private final String lastName;
+    private final String address;
+    private final String telephoneNumber;
+    private final List<Admission> admissions;
+
+    public PatientChart(UUID patientId, int patientNumber, String firstName, String middleName, String lastName,
+                        String address, String telephoneNumber, List<Admission> admissions) {
+        this.patientId = patientId;
+        this.patientNumber = patientNumber;
+        this.firstName = firstName;
+        this.middleName = middleName;
+        this.lastName = lastName;
+        this.address = address;
+        this.telephoneNumber = telephoneNumber;
+        this.admissions = List.copyOf(admissions);
+    }
+
+    public UUID getPatientId() {
+        return patientId;
+    }
+
+    public int getPatientNumber() {
+        return patientNumber;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getMiddleName() {
+        return middleName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public String getTelephoneNumber() {
+        return telephoneNumber;
+    }
+
+    /**
+     * Returns the patient's admissions, most recent first.
+     *
+     * @return an unmodifiable list of admissions
+     */
+    public List<Admission> getAdmissions() {
+        return admissions;
+    }
+
+    /**
+     * Returns the admission the patient is currently in.
+     *
+     * @return the current admission, or null if the patient is not admitted
+     */
+    public Admission getCurrentAdmission() {
+        for (Admission admission : admissions) {
+            if (admission.isCurrent()) {
+                return admission;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "PatientChart [patientId=" + patientId + ", patientNumber=" + patientNumber + ", firstName=" + firstName +
+                ", middleName=" + middleName + ", lastName=" + lastName + ", admissions=" + admissions + "]";
+    }
+
+    /**
+     * One admission on a chart, with its ward and doctor details.
+     */
+    public static final class Admission {
+        private final UUID admissionId;
+        private final UUID wardId;
+        private final int wardNumber;
+        private final String departmentName;
+        private final int bedNumber;
+        private final String diagnosis;
+        private final LocalDate admissionDate;
+        private final LocalDate dischargeDate;
+        private final boolean current;
+        private final UUID doctorId;
+        private final String doctorName;
+        private final String doctorSpecialty;
+
+        public Admission(UUID admissionId, UUID wardId, int wardNumber, String departmentName, int bedNumber,
+                         String diagnosis, LocalDate admissionDate, LocalDate dischargeDate, boolean current,
+                         UUID doctorId, String doctorName, String doctorSpecialty) {
+            this.admissionId = admissionId;
+            this.wardId = wardId;
+            this.wardNumber = wardNumber;
+            this.departmentName = departmentName;
+            this.bedNumber = bedNumber;
+            this.diagnosis = diagnosis;
+            this.admissionDate = admissionDate;
+            this.dischargeDate = dischargeDate;
+            this.current = current;
+            this.doctorId = doctorId;
+            this.doctorName = doctorName;
+            this.doctorSpecialty = doctorSpecialty;
+        }
+
+        public UUID getAdmissionId() {
+            return admissionId;
+        }
+
+        public UUID getWardId() {
+            return wardId;
+        }
+
+        public int getWardNumber() {
+            return wardNumber;
+        }
+
+        public String getDepartmentName() {
+            return departmentName;
+        }
+
+        public int getBedNumber() {
+            return bedNumber;
+        }
+
+        public String getDiagnosis() {
+            return diagnosis;
+        }
+
+        public LocalDate getAdmissionDate() {
+            return admissionDate;
+        }
+
+        public LocalDate getDischargeDate() {
+            return dischargeDate;
+        }
+
+        public boolean isCurrent() {
+            return current;
+        }
+
+        public UUID getDoctorId() {
+            return doctorId;
+        }
+
+        public String getDoctorName() {
+            return doctorName;
+        }
+
+        public String getDoctorSpecialty() {
+            return doctorSpecialty;
+        }
+
+        @Override
+        public String toString() {
+            return "Admission [admissionId=" + admissionId + ", wardNumber=" + wardNumber +
+                    ", departmentName=" + departmentName + ", bedNumber=" + bedNumber + ", diagnosis=" + diagnosis +
+                    ", admissionDate=" + admissionDate + ", dischargeDate=" + dischargeDate + ", current=" + current +
+                    ", doctorName=" + doctorName + ", doctorSpecialty=" + doctorSpecialty + "]";
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package gtp.hms.model;
+
+/**
+ * A patient returned by a fuzzy name search, with its similarity score.
+ */
+public class PatientMatch {
+    private final Patient patient;
+    private final double score;
+
+    public PatientMatch(Patient patient, double score) {
+        this.patient = patient;
+        this.score = score;
+    }
+
+    public Patient getPatient() {
+        return patient;
+    }
+
+    /**
+     * Returns the trigram word similarity between the query and the patient's
+     * full name, from 0 (unrelated) to 1 (exact match).
+     *
+     * @return the similarity score
+     */
+    public double getScore() {
+        return score;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PatientMatch{patient=%s, score=%.3f}", patient, score);
+    }
+}
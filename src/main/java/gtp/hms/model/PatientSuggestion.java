@@ -0,0 +1,35 @@
+package gtp.hms.model;
+
+import java.util.UUID;
+
+/**
+ * A lightweight typeahead result identifying a patient by number and name.
+ */
+public class PatientSuggestion {
+    private final UUID patientId;
+    private final int patientNumber;
+    private final String fullName;
+
+    public PatientSuggestion(UUID patientId, int patientNumber, String fullName) {
+        this.patientId = patientId;
+        this.patientNumber = patientNumber;
+        this.fullName = fullName;
+    }
+
+    public UUID getPatientId() {
+        return patientId;
+    }
+
+    public int getPatientNumber() {
+        return patientNumber;
+    }
+
+    public String getFullName() {
+        return fullName;
+    }
+
+    @Override
+    public String toString() {
+        return "PatientSuggestion [patientId=" + patientId + ", patientNumber=" + patientNumber + ", fullName=" + fullName + "]";
+    }
+}
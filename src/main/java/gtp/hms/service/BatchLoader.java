@@ -0,0 +1,243 @@
+package gtp.hms.service;
+
+import gtp.hms.config.DatabaseConfig;
+import gtp.hms.dao.DoctorDAO;
+import gtp.hms.dao.PatientDAO;
+import gtp.hms.dao.WardDAO;
+import gtp.hms.exception.DaoException;
+import gtp.hms.model.Patient;
+import gtp.hms.model.Ward;
+import gtp.hms.model.employee.Doctor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request-scoped batcher that coalesces individual lookups into batch queries.
+ * <p>
+ * Each {@link #load} returns a future and queues its key. Keys queued within
+ * {@code batch.windowMillis} of the first one are fetched together through a
+ * single call to the batch function, or sooner once {@code batch.maxSize}
+ * keys are pending or {@link #dispatch()} is called. Results are memoised, so
+ * loading the same key twice costs nothing; create one loader per request and
+ * discard it afterwards rather than sharing it as a cache.
+ * <p>
+ * Batches run on virtual threads without a database permit, so a caller that
+ * holds one can wait on a batch without starving it. They run outside any
+ * transaction the caller has open, so uncommitted rows are not visible to them.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class BatchLoader<K, V> {
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "hms-batch-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Fetches the values for a batch of distinct keys.
+     *
+     * @param <K> the key type
+     * @param <V> the value type
+     */
+    @FunctionalInterface
+    public interface BatchFunction<K, V> {
+        /**
+         * @param keys the keys to fetch
+         * @return the values found; keys without a value may be absent
+         * @throws DaoException if the fetch fails
+         */
+        Map<K, V> loadAll(Collection<K> keys) throws DaoException;
+    }
+
+    private final BatchFunction<K, V> batchFunction;
+    private final long windowMillis;
+    private final int maxBatchSize;
+    private final Map<K, CompletableFuture<V>> loaded = new HashMap<>();
+    private Map<K, CompletableFuture<V>> pending = new LinkedHashMap<>();
+    private ScheduledFuture<?> scheduledDispatch;
+
+    /**
+     * Creates a loader with the window and batch size from {@link DatabaseConfig}.
+     *
+     * @param batchFunction fetches a batch of keys
+     */
+    public BatchLoader(BatchFunction<K, V> batchFunction) {
+        this(batchFunction, DatabaseConfig.getBatchWindowMillis(), DatabaseConfig.getBatchMaxSize());
+    }
+
+    /**
+     * Creates a loader.
+     *
+     * @param batchFunction fetches a batch of keys
+     * @param windowMillis  how long to collect keys before fetching; 0 waits for {@link #dispatch()}
+     * @param maxBatchSize  pending keys at which the batch is fetched at once
+     */
+    public BatchLoader(BatchFunction<K, V> batchFunction, long windowMillis, int maxBatchSize) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be positive");
+        }
+        this.batchFunction = batchFunction;
+        this.windowMillis = windowMillis;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Creates a loader of patients by ID.
+     *
+     * @return a new patient loader
+     */
+    public static BatchLoader<UUID, Patient> patients() {
+        PatientDAO patientDAO = new PatientDAO();
+        return new BatchLoader<>(patientDAO::findByIds);
+    }
+
+    /**
+     * Creates a loader of doctors by ID.
+     *
+     * @return a new doctor loader
+     */
+    public static BatchLoader<UUID, Doctor> doctors() {
+        DoctorDAO doctorDAO = new DoctorDAO();
+        return new BatchLoader<>(doctorDAO::findByIds);
+    }
+
+    /**
+     * Creates a loader of wards by ID.
+     *
+     * @return a new ward loader
+     */
+    public static BatchLoader<UUID, Ward> wards() {
+        WardDAO wardDAO = new WardDAO();
+        return new BatchLoader<>(wardDAO::findByIds);
+    }
+
+    /**
+     * Queues a key for the next batch.
+     *
+     * @param key the key to load
+     * @return a future completed with the value, or with null if the key has none
+     */
+    public CompletableFuture<V> load(K key) {
+        CompletableFuture<V> future;
+        boolean full;
+        synchronized (this) {
+            future = loaded.get(key);
+            if (future != null) {
+                return future;
+            }
+            future = new CompletableFuture<>();
+            loaded.put(key, future);
+            pending.put(key, future);
+
+            full = pending.size() >= maxBatchSize;
+            if (!full && scheduledDispatch == null && windowMillis > 0) {
+                scheduledDispatch = TIMER.schedule(this::dispatch, windowMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (full) {
+            dispatch();
+        }
+        return future;
+    }
+
+    /**
+     * Queues several keys and combines their results.
+     *
+     * @param keys the keys to load
+     * @return a future completed with the values found, in key order
+     */
+    public CompletableFuture<Map<K, V>> loadMany(Collection<K> keys) {
+        List<K> order = new ArrayList<>(keys);
+        List<CompletableFuture<V>> futures = new ArrayList<>(order.size());
+        for (K key : order) {
+            futures.add(load(key));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            Map<K, V> values = new LinkedHashMap<>();
+            for (int i = 0; i < order.size(); i++) {
+                V value = futures.get(i).join();
+                if (value != null) {
+                    values.put(order.get(i), value);
+                }
+            }
+            return values;
+        });
+    }
+
+    /**
+     * Fetches every pending key now instead of waiting for the window to close.
+     */
+    public void dispatch() {
+        Map<K, CompletableFuture<V>> batch;
+        synchronized (this) {
+            if (scheduledDispatch != null) {
+                scheduledDispatch.cancel(false);
+                scheduledDispatch = null;
+            }
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new LinkedHashMap<>();
+        }
+
+        ServiceExecutor.supplyWithoutPermit(() -> batchFunction.loadAll(new ArrayList<>(batch.keySet())))
+                .whenComplete((values, error) -> {
+                    Throwable failure = error;
+                    try {
+                        if (failure == null) {
+                            for (Map.Entry<K, CompletableFuture<V>> entry : batch.entrySet()) {
+                                entry.getValue().complete(values.get(entry.getKey()));
+                            }
+                        }
+                    } catch (RuntimeException | Error e) {
+                        failure = e;
+                        throw e;
+                    } finally {
+                        if (failure != null) {
+                            fail(batch, failure);
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Fails every future of a batch that has not completed yet. Failed keys
+     * are forgotten so a later load retries them.
+     */
+    private void fail(Map<K, CompletableFuture<V>> batch, Throwable failure) {
+        synchronized (this) {
+            batch.forEach((key, future) -> {
+                if (loaded.get(key) == future && !future.isDone()) {
+                    loaded.remove(key);
+                }
+            });
+        }
+        batch.values().forEach(future -> future.completeExceptionally(failure));
+    }
+
+    /**
+     * Forgets a memoised value so the next load fetches it again.
+     *
+     * @param key the key to forget
+     */
+    public synchronized void clear(K key) {
+        CompletableFuture<V> future = loaded.get(key);
+        if (future != null && future.isDone()) {
+            loaded.remove(key);
+        }
+    }
+}
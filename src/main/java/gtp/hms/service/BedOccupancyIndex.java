@@ -0,0 +1,344 @@
+package gtp.hms.service;
+
+import gtp.hms.config.DatabaseConfig;
+import gtp.hms.dao.PatientAdmissionDAO;
+import gtp.hms.dao.WardDAO;
+import gtp.hms.exception.DaoException;
+import gtp.hms.model.PatientAdmission;
+import gtp.hms.model.Ward;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory model of which beds are occupied in every ward.
+ * <p>
+ * Each ward holds one bit per bed in a {@code long[]}, sized from
+ * {@link Ward#getNumberOfBeds()}; bed numbers start at 1. Availability checks
+ * are a single bit test, the next free bed is found by scanning 64 beds per
+ * word, and free-bed counts per ward and department are kept as counters.
+ * <p>
+ * The model is built from current admissions and updated by the services on
+ * admit and discharge. Writes made outside those services are picked up by a
+ * periodic reconciliation against the database, which also reports drift.
+ * The database remains the authority: this model only avoids round trips.
+ */
+public class BedOccupancyIndex implements AutoCloseable {
+    private static final System.Logger LOG = System.getLogger(BedOccupancyIndex.class.getName());
+
+    private final WardDAO wardDAO;
+    private final PatientAdmissionDAO admissionDAO;
+    private final Map<UUID, WardBeds> wards = new ConcurrentHashMap<>();
+    private final Map<UUID, AtomicInteger> freeBedsByDepartment = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService reconciler;
+    private volatile long lastDrift;
+
+    BedOccupancyIndex(WardDAO wardDAO, PatientAdmissionDAO admissionDAO, long reconcileIntervalMillis) {
+        this.wardDAO = wardDAO;
+        this.admissionDAO = admissionDAO;
+
+        if (reconcileIntervalMillis > 0) {
+            this.reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "hms-bed-reconciler");
+                thread.setDaemon(true);
+                return thread;
+            });
+            reconciler.scheduleWithFixedDelay(this::reconcileQuietly,
+                    reconcileIntervalMillis, reconcileIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.reconciler = null;
+        }
+    }
+
+    /**
+     * Builds the model from all wards and current admissions and starts
+     * periodic reconciliation as configured in {@link DatabaseConfig}.
+     *
+     * @return the loaded model
+     * @throws DaoException if wards or admissions cannot be read
+     */
+    public static BedOccupancyIndex load() throws DaoException {
+        BedOccupancyIndex index = new BedOccupancyIndex(new WardDAO(), new PatientAdmissionDAO(),
+                DatabaseConfig.getBedReconcileIntervalMillis());
+        index.reconcile();
+        return index;
+    }
+
+    /**
+     * Indicates whether the model tracks a ward. Wards created since the last
+     * reconciliation are unknown until the next one.
+     *
+     * @param wardId the ward's ID
+     * @return true if the ward's beds are tracked
+     */
+    public boolean hasWard(UUID wardId) {
+        return wards.containsKey(wardId);
+    }
+
+    /**
+     * Checks whether a bed is free.
+     *
+     * @param wardId    the ward's ID
+     * @param bedNumber the bed number, starting at 1
+     * @return true if the ward is known, the bed exists and it is not occupied
+     */
+    public boolean isBedAvailable(UUID wardId, int bedNumber) {
+        WardBeds ward = wards.get(wardId);
+        return ward != null && ward.isFree(bedNumber);
+    }
+
+    /**
+     * Finds the lowest-numbered free bed in a ward.
+     *
+     * @param wardId the ward's ID
+     * @return the bed number, or -1 if the ward is full or unknown
+     */
+    public int nextFreeBed(UUID wardId) {
+        WardBeds ward = wards.get(wardId);
+        return ward == null ? -1 : ward.nextFree();
+    }
+
+    /**
+     * Returns the number of free beds in a ward.
+     *
+     * @param wardId the ward's ID
+     * @return free beds, or 0 if the ward is unknown
+     */
+    public int getFreeBeds(UUID wardId) {
+        WardBeds ward = wards.get(wardId);
+        return ward == null ? 0 : ward.freeCount();
+    }
+
+    /**
+     * Returns the number of free beds across all wards of a department.
+     *
+     * @param departmentId the department's ID
+     * @return free beds, or 0 if the department has no known wards
+     */
+    public int getFreeBedsInDepartment(UUID departmentId) {
+        AtomicInteger free = freeBedsByDepartment.get(departmentId);
+        return free == null ? 0 : free.get();
+    }
+
+    /**
+     * Marks a bed as occupied. The check and the update are atomic, so this
+     * doubles as an in-memory reservation taken before the admission insert;
+     * only callers for the same ward contend.
+     *
+     * @param wardId    the ward's ID
+     * @param bedNumber the bed number
+     * @return false if the bed was already occupied or does not exist
+     */
+    public boolean markOccupied(UUID wardId, int bedNumber) {
+        WardBeds ward = wards.get(wardId);
+        return ward != null && ward.set(bedNumber, true);
+    }
+
+    /**
+     * Marks a bed as free after a discharge has committed, or releases a
+     * reservation whose admission failed.
+     *
+     * @param wardId    the ward's ID
+     * @param bedNumber the bed number
+     * @return false if the bed was already free or does not exist
+     */
+    public boolean markFree(UUID wardId, int bedNumber) {
+        WardBeds ward = wards.get(wardId);
+        return ward != null && ward.set(bedNumber, false);
+    }
+
+    /**
+     * Returns the number of beds found out of step with the database by the
+     * most recent reconciliation.
+     *
+     * @return beds corrected in the last reconciliation
+     */
+    public long getLastDrift() {
+        return lastDrift;
+    }
+
+    /**
+     * Reloads wards and current admissions and brings the model in line with
+     * them, dropping wards that no longer exist. Wards changed by the services
+     * while the snapshot was being read are left for the next run, so a fresh
+     * admission is never undone by an older snapshot.
+     *
+     * @return the number of beds whose state was corrected
+     * @throws DaoException if wards or admissions cannot be read
+     */
+    public long reconcile() throws DaoException {
+        Map<UUID, Long> versions = new HashMap<>();
+        wards.forEach((id, ward) -> versions.put(id, ward.version()));
+
+        List<Ward> wardList = wardDAO.findAll();
+        Map<UUID, List<Integer>> occupiedByWard = new HashMap<>();
+        for (PatientAdmission admission : admissionDAO.findAllCurrent()) {
+            occupiedByWard.computeIfAbsent(admission.getWardId(), id -> new ArrayList<>())
+                    .add(admission.getBedNumber());
+        }
+
+        long drift = 0;
+        Set<UUID> listed = new HashSet<>();
+        for (Ward ward : wardList) {
+            listed.add(ward.getId());
+            long[] snapshot = new long[(ward.getNumberOfBeds() + 63) >>> 6];
+            for (int bed : occupiedByWard.getOrDefault(ward.getId(), List.of())) {
+                if (bed >= 1 && bed <= ward.getNumberOfBeds()) {
+                    snapshot[(bed - 1) >>> 6] |= 1L << (bed - 1);
+                } else {
+                    LOG.log(System.Logger.Level.WARNING, "Admission in ward " + ward.getId() +
+                            " uses bed " + bed + " outside 1.." + ward.getNumberOfBeds());
+                }
+            }
+
+            WardBeds existing = wards.get(ward.getId());
+            if (existing == null || existing.beds != ward.getNumberOfBeds()) {
+                WardBeds fresh = new WardBeds(ward.getDepartmentId(), ward.getNumberOfBeds(), snapshot);
+                WardBeds replaced = wards.put(ward.getId(), fresh);
+                adjustDepartment(ward.getDepartmentId(), fresh.freeCount());
+                if (replaced != null) {
+                    adjustDepartment(replaced.departmentId, -replaced.freeCount());
+                }
+            } else {
+                Long version = versions.get(ward.getId());
+                drift += existing.replaceIfUnchanged(snapshot, version == null ? -1 : version);
+            }
+        }
+
+        for (Map.Entry<UUID, Long> known : versions.entrySet()) {
+            WardBeds removed = wards.get(known.getKey());
+            if (!listed.contains(known.getKey()) && removed != null
+                    && removed.retireIfUnchanged(known.getValue())
+                    && wards.remove(known.getKey(), removed)) {
+                adjustDepartment(removed.departmentId, -removed.freeCount());
+            }
+        }
+
+        lastDrift = drift;
+        if (drift > 0) {
+            LOG.log(System.Logger.Level.WARNING,
+                    "Bed occupancy drifted from the database; corrected " + drift + " bed(s)");
+        }
+        return drift;
+    }
+
+    @Override
+    public void close() {
+        if (reconciler != null) {
+            reconciler.shutdownNow();
+        }
+    }
+
+    private void reconcileQuietly() {
+        try {
+            reconcile();
+        } catch (DaoException e) {
+            LOG.log(System.Logger.Level.WARNING, "Bed occupancy reconciliation failed", e);
+        }
+    }
+
+    private void adjustDepartment(UUID departmentId, int delta) {
+        if (departmentId != null) {
+            freeBedsByDepartment.computeIfAbsent(departmentId, id -> new AtomicInteger()).addAndGet(delta);
+        }
+    }
+
+    /**
+     * Occupancy bits of one ward. Every access synchronises on the ward, so
+     * wards never contend with each other.
+     */
+    private final class WardBeds {
+        private final UUID departmentId;
+        private final int beds;
+        private final long[] occupied;
+        private int occupiedCount;
+        private long version;
+        private boolean retired;
+
+        private WardBeds(UUID departmentId, int beds, long[] occupied) {
+            this.departmentId = departmentId;
+            this.beds = beds;
+            this.occupied = occupied;
+            for (long word : occupied) {
+                occupiedCount += Long.bitCount(word);
+            }
+        }
+
+        synchronized boolean isFree(int bed) {
+            return bed >= 1 && bed <= beds && (occupied[(bed - 1) >>> 6] & (1L << (bed - 1))) == 0;
+        }
+
+        synchronized int nextFree() {
+            for (int i = 0; i < occupied.length; i++) {
+                long free = ~occupied[i];
+                if (free != 0) {
+                    int bed = (i << 6) + Long.numberOfTrailingZeros(free) + 1;
+                    return bed <= beds ? bed : -1;
+                }
+            }
+            return -1;
+        }
+
+        synchronized int freeCount() {
+            return beds - occupiedCount;
+        }
+
+        synchronized long version() {
+            return version;
+        }
+
+        synchronized boolean set(int bed, boolean occupy) {
+            if (retired || bed < 1 || bed > beds) {
+                return false;
+            }
+            int word = (bed - 1) >>> 6;
+            long mask = 1L << (bed - 1);
+            if (((occupied[word] & mask) != 0) == occupy) {
+                return false;
+            }
+            occupied[word] ^= mask;
+            occupiedCount += occupy ? 1 : -1;
+            version++;
+            adjustDepartment(departmentId, occupy ? -1 : 1);
+            return true;
+        }
+
+        synchronized boolean retireIfUnchanged(long expectedVersion) {
+            if (version != expectedVersion) {
+                return false;
+            }
+            retired = true;
+            return true;
+        }
+
+        synchronized int replaceIfUnchanged(long[] snapshot, long expectedVersion) {
+            if (version != expectedVersion) {
+                return 0;
+            }
+            int changed = 0;
+            for (int i = 0; i < occupied.length; i++) {
+                changed += Long.bitCount(occupied[i] ^ snapshot[i]);
+                occupied[i] = snapshot[i];
+            }
+            if (changed > 0) {
+                int before = occupiedCount;
+                occupiedCount = 0;
+                for (long word : occupied) {
+                    occupiedCount += Long.bitCount(word);
+                }
+                adjustDepartment(departmentId, before - occupiedCount);
+            }
+            return changed;
+        }
+    }
+}
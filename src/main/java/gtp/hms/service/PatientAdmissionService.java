@@ -1,55 +1,83 @@
 package gtp.hms.service;
 
+import gtp.hms.cache.ReferenceDataCache;
 import gtp.hms.dao.PatientAdmissionDAO;
-import gtp.hms.dao.WardDAO;
+import gtp.hms.exception.BedUnavailableException;
+import gtp.hms.exception.DaoException;
 import gtp.hms.exception.ServiceException;
+import gtp.hms.metrics.MethodMetrics;
+import gtp.hms.metrics.Metrics;
+import gtp.hms.model.DischargeResult;
 import gtp.hms.model.PatientAdmission;
 import gtp.hms.model.Ward;
-import gtp.hms.util.DatabaseConnection;
+import gtp.hms.util.TransactionManager;
 
-import java.sql.Connection;
-import java.sql.SQLException;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 public class PatientAdmissionService {
+    private static final MethodMetrics ADMIT_PATIENT_METRICS =
+            Metrics.forMethod(PatientAdmissionService.class, "admitPatient");
+    private static final MethodMetrics FIND_NEXT_FREE_BED_METRICS =
+            Metrics.forMethod(PatientAdmissionService.class, "findNextFreeBed");
+    private static final MethodMetrics DISCHARGE_METRICS =
+            Metrics.forMethod(PatientAdmissionService.class, "discharge");
+    private static final MethodMetrics DISCHARGE_ALL_METRICS =
+            Metrics.forMethod(PatientAdmissionService.class, "dischargeAll");
+    private static final MethodMetrics DISCHARGE_WARD_METRICS =
+            Metrics.forMethod(PatientAdmissionService.class, "dischargeWard");
+    private static final MethodMetrics GET_PATIENT_ADMISSIONS_METRICS =
+            Metrics.forMethod(PatientAdmissionService.class, "getPatientAdmissions");
+    private static final MethodMetrics GET_CURRENT_ADMISSION_METRICS =
+            Metrics.forMethod(PatientAdmissionService.class, "getCurrentAdmission");
+
     private final PatientAdmissionDAO admissionDAO;
-    private final WardDAO wardDAO;
+    private final ReferenceDataCache referenceData;
+    private final BedOccupancyIndex bedOccupancy;
 
     public PatientAdmissionService() {
+        this(null);
+    }
+
+    /**
+     * Creates a service that checks and updates the given bed occupancy model
+     * on every admission.
+     *
+     * @param bedOccupancy the occupancy model, or null to skip in-memory bed checks
+     */
+    public PatientAdmissionService(BedOccupancyIndex bedOccupancy) {
         this.admissionDAO = new PatientAdmissionDAO();
-        this.wardDAO = new WardDAO();
+        this.referenceData = ReferenceDataCache.getInstance();
+        this.bedOccupancy = bedOccupancy;
     }
 
     public UUID admitPatient(UUID patientId, int wardNumber, UUID departmentId,
                                     int bedNumber, UUID doctorId, String diagnosis)
             throws ServiceException {
-
-        Connection conn = null;
-        try {
-            conn = DatabaseConnection.getInstance().getConnection();
-            conn.setAutoCommit(false);
-
+        return ADMIT_PATIENT_METRICS.time(() -> {
             UUID wardId;
             Ward ward;
 
             try {
-                wardId = wardDAO.findWardIdByNumber(wardNumber, departmentId);
-                ward = wardDAO.findById(wardId);
+                wardId = referenceData.getWardId(wardNumber, departmentId);
+                ward = referenceData.getWard(wardId);
             } catch (Exception e) {
                 throw new ServiceException("Failed to find ward information", e);
             }
 
-
-            if (conn.isClosed()) {
-                // If connection is closed, get a new one
-                conn = DatabaseConnection.getInstance().getConnection();
-                conn.setAutoCommit(false);
+            // Reserve the bed in memory first so most conflicts never reach the database.
+            // The partial unique index on (ward_id, bed_number) is what guarantees no double booking.
+            boolean reserved = false;
+            if (bedOccupancy != null && bedOccupancy.hasWard(wardId)) {
+                if (!bedOccupancy.markOccupied(wardId, bedNumber)) {
+                    throw new BedUnavailableException(wardId, bedNumber);
+                }
+                reserved = true;
             }
 
-            // 2. Create admission record
             PatientAdmission admission = new PatientAdmission();
             admission.setPatientId(patientId);
             admission.setWardId(wardId);
@@ -59,31 +87,171 @@ public class PatientAdmissionService {
             admission.setAdmissionDate(LocalDate.now());
             admission.setIsCurrent(true);
 
-            UUID admissionId = admissionDAO.create(admission, conn);
-            conn.commit();
+            UUID admissionId;
+            try {
+                admissionId = TransactionManager.inTransaction(() -> admissionDAO.create(admission));
+            } catch (DaoException e) {
+                if (e.isUniqueViolation(PatientAdmissionDAO.CURRENT_BED_INDEX)) {
+                    // The bed is taken in the database, so leave it marked occupied
+                    if (bedOccupancy != null) {
+                        bedOccupancy.markOccupied(wardId, bedNumber);
+                    }
+                    throw new BedUnavailableException(wardId, bedNumber);
+                }
+                if (reserved) {
+                    bedOccupancy.markFree(wardId, bedNumber);
+                }
+                throw new ServiceException("Failed to admit patient", e);
+            } catch (RuntimeException e) {
+                if (reserved) {
+                    bedOccupancy.markFree(wardId, bedNumber);
+                }
+                throw e;
+            }
+
+            if (bedOccupancy != null && !reserved) {
+                bedOccupancy.markOccupied(wardId, bedNumber);
+            }
             return admissionId;
+        });
+    }
+
+    /**
+     * Finds the lowest-numbered free bed in a ward.
+     *
+     * @return the bed number, or -1 if the ward is full
+     */
+    public int findNextFreeBed(int wardNumber, UUID departmentId) throws ServiceException {
+        return FIND_NEXT_FREE_BED_METRICS.time(() -> {
+            UUID wardId;
+            try {
+                wardId = referenceData.getWardId(wardNumber, departmentId);
+            } catch (Exception e) {
+                throw new ServiceException("Failed to find ward information", e);
+            }
+
+            if (bedOccupancy == null) {
+                throw new ServiceException("Bed occupancy tracking is not enabled");
+            }
+            return bedOccupancy.nextFreeBed(wardId);
+        });
+    }
 
-        } catch (Exception e) {
-            if (conn != null) {
-                try { conn.rollback(); } catch (SQLException ignored) {}
+    public DischargeResult discharge(UUID admissionId) throws ServiceException {
+        return DISCHARGE_METRICS.time(() -> {
+            List<DischargeResult> results = dischargeAll(List.of(admissionId));
+            if (results.isEmpty()) {
+                throw new ServiceException("Admission " + admissionId + " not found or already discharged");
+            }
+            return results.get(0);
+        });
+    }
+
+    /**
+     * Discharges many admissions with a single UPDATE and frees their beds.
+     * Admissions that are unknown or already discharged are skipped.
+     *
+     * @return one result per admission discharged, with its length of stay
+     */
+    public List<DischargeResult> dischargeAll(Collection<UUID> admissionIds) throws ServiceException {
+        return DISCHARGE_ALL_METRICS.time(() -> {
+            try {
+                return freeBeds(TransactionManager.inTransaction(() -> admissionDAO.dischargeAll(admissionIds)));
+            } catch (Exception e) {
+                throw new ServiceException("Failed to discharge admissions", e);
+            }
+        });
+    }
+
+    /**
+     * Discharges every current admission in a ward with a single UPDATE.
+     *
+     * @return one result per admission discharged, with its length of stay
+     */
+    public List<DischargeResult> dischargeWard(UUID wardId) throws ServiceException {
+        return DISCHARGE_WARD_METRICS.time(() -> {
+            try {
+                return freeBeds(TransactionManager.inTransaction(() -> admissionDAO.dischargeWard(wardId)));
+            } catch (Exception e) {
+                throw new ServiceException("Failed to discharge ward", e);
+            }
+        });
+    }
+
+    private List<DischargeResult> freeBeds(List<DischargeResult> results) {
+        if (bedOccupancy != null) {
+            for (DischargeResult result : results) {
+                bedOccupancy.markFree(result.getWardId(), result.getBedNumber());
             }
-            throw new ServiceException("Failed to admit patient", e);
         }
+        return results;
     }
 
     public List<PatientAdmission> getPatientAdmissions(UUID patientId) throws ServiceException {
-        try {
-            return admissionDAO.findByPatientId(patientId);
-        } catch (Exception e) {
-            throw new ServiceException("Failed to find patient admissions", e);
-        }
+        return GET_PATIENT_ADMISSIONS_METRICS.time(() -> {
+            try {
+                return admissionDAO.findByPatientId(patientId);
+            } catch (Exception e) {
+                throw new ServiceException("Failed to find patient admissions", e);
+            }
+        });
     }
 
     public PatientAdmission getCurrentAdmission(UUID patientId) throws ServiceException {
-        try {
-            return admissionDAO.findCurrentAdmissionByPatientId(patientId);
-        } catch (Exception e) {
-            throw new ServiceException("Failed to find current admission", e);
-        }
+        return GET_CURRENT_ADMISSION_METRICS.time(() -> {
+            try {
+                return admissionDAO.findCurrentAdmissionByPatientId(patientId);
+            } catch (Exception e) {
+                throw new ServiceException("Failed to find current admission", e);
+            }
+        });
+    }
+
+    /**
+     * Asynchronous variant of {@link #admitPatient}. A {@link ServiceException}
+     * completes the future exceptionally.
+     *
+     * @return a future completed with the new admission's ID
+     */
+    public CompletableFuture<UUID> admitPatientAsync(UUID patientId, int wardNumber, UUID departmentId,
+                                                     int bedNumber, UUID doctorId, String diagnosis) {
+        return ServiceExecutor.supplyAsync(() ->
+                admitPatient(patientId, wardNumber, departmentId, bedNumber, doctorId, diagnosis));
+    }
+
+    /**
+     * Asynchronous variant of {@link #discharge}.
+     *
+     * @return a future completed with the discharge result
+     */
+    public CompletableFuture<DischargeResult> dischargeAsync(UUID admissionId) {
+        return ServiceExecutor.supplyAsync(() -> discharge(admissionId));
+    }
+
+    /**
+     * Asynchronous variant of {@link #dischargeAll}.
+     *
+     * @return a future completed with the discharge results
+     */
+    public CompletableFuture<List<DischargeResult>> dischargeAllAsync(Collection<UUID> admissionIds) {
+        return ServiceExecutor.supplyAsync(() -> dischargeAll(admissionIds));
+    }
+
+    /**
+     * Asynchronous variant of {@link #getPatientAdmissions}.
+     *
+     * @return a future completed with the patient's admissions
+     */
+    public CompletableFuture<List<PatientAdmission>> getPatientAdmissionsAsync(UUID patientId) {
+        return ServiceExecutor.supplyAsync(() -> getPatientAdmissions(patientId));
+    }
+
+    /**
+     * Asynchronous variant of {@link #getCurrentAdmission}.
+     *
+     * @return a future completed with the current admission, or null if none exists
+     */
+    public CompletableFuture<PatientAdmission> getCurrentAdmissionAsync(UUID patientId) {
+        return ServiceExecutor.supplyAsync(() -> getCurrentAdmission(patientId));
     }
 }
\ No newline at end of file
@@ -1,56 +1,121 @@
 package gtp.hms.service;
 
+import gtp.hms.dao.Page;
+import gtp.hms.dao.PageRequest;
+import gtp.hms.dao.PatientChartDAO;
 import gtp.hms.dao.PatientDAO;
 import gtp.hms.dao.PatientAdmissionDAO;
+import gtp.hms.dao.UpsertResult;
+import gtp.hms.exception.BedUnavailableException;
 import gtp.hms.exception.DaoException;
 import gtp.hms.exception.ServiceException;
+import gtp.hms.metrics.MethodMetrics;
+import gtp.hms.metrics.Metrics;
 import gtp.hms.model.Patient;
 import gtp.hms.model.PatientAdmission;
-import gtp.hms.util.DatabaseConnection;
+import gtp.hms.model.PatientChart;
+import gtp.hms.model.PatientMatch;
+import gtp.hms.model.PatientSuggestion;
+import gtp.hms.util.TransactionManager;
 
-import java.sql.Connection;
-import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 public class PatientService {
+    private static final MethodMetrics REGISTER_NEW_PATIENT_METRICS =
+            Metrics.forMethod(PatientService.class, "registerNewPatient");
+    private static final MethodMetrics ADMIT_NEW_PATIENT_METRICS =
+            Metrics.forMethod(PatientService.class, "admitNewPatient");
+    private static final MethodMetrics SEARCH_PATIENTS_METRICS =
+            Metrics.forMethod(PatientService.class, "searchPatients");
+    private static final MethodMetrics SEARCH_PATIENTS_RANKED_METRICS =
+            Metrics.forMethod(PatientService.class, "searchPatientsRanked");
+    private static final MethodMetrics TYPEAHEAD_METRICS = Metrics.forMethod(PatientService.class, "typeahead");
+    private static final MethodMetrics LIST_PATIENTS_METRICS = Metrics.forMethod(PatientService.class, "listPatients");
+    private static final MethodMetrics SEARCH_PATIENTS_PAGE_METRICS =
+            Metrics.forMethod(PatientService.class, "searchPatients(page)");
+    private static final MethodMetrics UPDATE_PATIENT_METRICS =
+            Metrics.forMethod(PatientService.class, "updatePatient");
+    private static final MethodMetrics SYNC_PATIENTS_METRICS = Metrics.forMethod(PatientService.class, "syncPatients");
+    private static final MethodMetrics DELETE_PATIENT_METRICS =
+            Metrics.forMethod(PatientService.class, "deletePatient");
+    private static final MethodMetrics GET_PATIENT_BY_ID_METRICS =
+            Metrics.forMethod(PatientService.class, "getPatientById");
+    private static final MethodMetrics GET_PATIENT_CHART_METRICS =
+            Metrics.forMethod(PatientService.class, "getPatientChart");
+    private static final MethodMetrics FIND_BY_PATIENT_NUMBER_METRICS =
+            Metrics.forMethod(PatientService.class, "findByPatientNumber");
+
     private final PatientDAO patientDAO;
     private final PatientAdmissionDAO patientAdmissionDAO;
+    private final PatientChartDAO patientChartDAO;
+    private final PatientTypeaheadIndex typeaheadIndex;
+    private final BedOccupancyIndex bedOccupancy;
 
     public PatientService() {
+        this(null, null);
+    }
+
+    public PatientService(PatientTypeaheadIndex typeaheadIndex) {
+        this(typeaheadIndex, null);
+    }
+
+    /**
+     * Creates a service that keeps the given typeahead index and bed occupancy
+     * model current as patients are registered, admitted, updated and deleted.
+     * Typeahead changes are applied once the change commits, so a caller's
+     * transaction that rolls back leaves the index untouched.
+     *
+     * @param typeaheadIndex the index to maintain, or null to search the database instead
+     * @param bedOccupancy   the occupancy model to update on admission, or null
+     */
+    public PatientService(PatientTypeaheadIndex typeaheadIndex, BedOccupancyIndex bedOccupancy) {
         this.patientDAO = new PatientDAO();
         this.patientAdmissionDAO = new PatientAdmissionDAO();
+        this.patientChartDAO = new PatientChartDAO();
+        this.typeaheadIndex = typeaheadIndex;
+        this.bedOccupancy = bedOccupancy;
     }
 
     public UUID registerNewPatient(int patientNumber, String firstName, String middleName,
                                       String lastName, String address, String phoneNumber) {
+        return REGISTER_NEW_PATIENT_METRICS.time(() -> {
+            Patient patient = new Patient();
+            patient.setPatientNumber(patientNumber);
+            patient.setFirstName(firstName);
+            patient.setMiddleName(middleName);
+            patient.setLastName(lastName);
+            patient.setAddress(address);
+            patient.setTelephoneNumber(phoneNumber);
 
-
-        Patient patient = new Patient();
-        patient.setPatientNumber(patientNumber);
-        patient.setFirstName(firstName);
-        patient.setMiddleName(middleName);
-        patient.setLastName(lastName);
-        patient.setAddress(address);
-        patient.setTelephoneNumber(phoneNumber);
-
-        try {
-            return patientDAO.create(patient);
-        } catch (DaoException e) {
-            throw new RuntimeException("Failed to register new patient", e);
-        }
+            try {
+                UUID patientId = patientDAO.create(patient);
+                if (typeaheadIndex != null) {
+                    TransactionManager.afterCommit(() -> typeaheadIndex.put(patient));
+                }
+                return patientId;
+            } catch (DaoException e) {
+                throw new RuntimeException("Failed to register new patient", e);
+            }
+        });
     }
 
+    /**
+     * Registers a patient and admits them to a bed in one unit of work. The bed
+     * is reserved in the occupancy model first, as in
+     * {@link PatientAdmissionService#admitPatient}, and released again if the
+     * admission fails for any reason other than the bed being taken.
+     *
+     * @throws BedUnavailableException if the bed already has a current admission
+     * @throws ServiceException        if the patient or admission cannot be saved
+     */
     public UUID admitNewPatient(int patientNumber, String firstName, String middleName,
                                 String lastName, String address, String phoneNumber,
-                                UUID wardId, int bedNumber, UUID treatingDoctorId) throws DaoException {
-
-        Connection conn = null;
-        try {
-            conn = DatabaseConnection.getInstance().getConnection();
-            conn.setAutoCommit(false);
-
+                                UUID wardId, int bedNumber, UUID treatingDoctorId) throws ServiceException {
+        return ADMIT_NEW_PATIENT_METRICS.time(() -> {
             Patient patient = new Patient();
             patient.setPatientNumber(patientNumber);
             patient.setFirstName(firstName);
@@ -59,87 +124,309 @@ public class PatientService {
             patient.setAddress(address);
             patient.setTelephoneNumber(phoneNumber);
 
-            UUID patientId = patientDAO.create(patient, conn);
-
             PatientAdmission admission = new PatientAdmission();
-            admission.setPatientId(patientId);
             admission.setWardId(wardId);
             admission.setBedNumber(bedNumber);
             admission.setTreatingDoctorId(treatingDoctorId);
             admission.setAdmissionDate(LocalDate.now());
             admission.setIsCurrent(true);
 
-            patientAdmissionDAO.create(admission, conn);
+            boolean reserved = false;
+            if (bedOccupancy != null && bedOccupancy.hasWard(wardId)) {
+                if (!bedOccupancy.markOccupied(wardId, bedNumber)) {
+                    throw new BedUnavailableException(wardId, bedNumber);
+                }
+                reserved = true;
+            }
 
-            conn.commit();
-            return patientId;
+            UUID admittedId;
+            try {
+                // Both inserts are queued and sent as batches in one round trip at commit
+                admittedId = TransactionManager.inUnitOfWork(() -> {
+                    UUID patientId = patientDAO.create(patient);
+                    admission.setPatientId(patientId);
+                    patientAdmissionDAO.create(admission);
+                    return patientId;
+                });
+            } catch (DaoException e) {
+                if (e.isUniqueViolation(PatientAdmissionDAO.CURRENT_BED_INDEX)) {
+                    // The bed is taken in the database, so leave it marked occupied
+                    if (bedOccupancy != null) {
+                        bedOccupancy.markOccupied(wardId, bedNumber);
+                    }
+                    throw new BedUnavailableException(wardId, bedNumber);
+                }
+                if (reserved) {
+                    bedOccupancy.markFree(wardId, bedNumber);
+                }
+                throw new ServiceException("Failed to admit patient", e);
+            } catch (RuntimeException e) {
+                if (reserved) {
+                    bedOccupancy.markFree(wardId, bedNumber);
+                }
+                throw e;
+            }
 
-        } catch (Exception e) {
-            if (conn != null) {
-                try {
-                   conn.rollback();
-                } catch (SQLException ignored) {}
+            if (typeaheadIndex != null) {
+                TransactionManager.afterCommit(() -> typeaheadIndex.put(patient));
             }
-            throw new DaoException("Failed to admit patient", e);
-        } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException ignored) {}
+            if (bedOccupancy != null && !reserved) {
+                bedOccupancy.markOccupied(wardId, bedNumber);
             }
-        }
-
+            return admittedId;
+        });
     }
 
     public List<Patient> searchPatients(String nameQuery) {
-        try {
-            return patientDAO.searchByName(nameQuery);
-        } catch (DaoException e) {
-            throw new RuntimeException("Failed to search patients", e);
-        }
+        return SEARCH_PATIENTS_METRICS.time(() -> {
+            try {
+                return patientDAO.searchByName(nameQuery);
+            } catch (DaoException e) {
+                throw new RuntimeException("Failed to search patients", e);
+            }
+        });
+    }
+
+    public List<PatientMatch> searchPatientsRanked(String query, int limit) {
+        return SEARCH_PATIENTS_RANKED_METRICS.time(() -> {
+            try {
+                return patientDAO.searchRanked(query, limit);
+            } catch (DaoException e) {
+                throw new RuntimeException("Failed to search patients", e);
+            }
+        });
+    }
+
+    /**
+     * Suggests patients for partially typed names or patient numbers. Served
+     * from the in-memory index when one is configured, otherwise by a ranked
+     * database search.
+     *
+     * @param query the text typed so far
+     * @param limit the maximum number of suggestions
+     * @return matching patients
+     */
+    public List<PatientSuggestion> typeahead(String query, int limit) {
+        return TYPEAHEAD_METRICS.time(() -> {
+            if (typeaheadIndex != null) {
+                return typeaheadIndex.search(query, limit);
+            }
+
+            List<PatientSuggestion> suggestions = new ArrayList<>();
+            for (PatientMatch match : searchPatientsRanked(query, limit)) {
+                Patient patient = match.getPatient();
+                suggestions.add(new PatientSuggestion(patient.getId(), patient.getPatientNumber(),
+                        patient.getFirstName() + " " + patient.getLastName()));
+            }
+            return suggestions;
+        });
+    }
+
+    public Page<Patient> listPatients(PageRequest request) {
+        return LIST_PATIENTS_METRICS.time(() -> {
+            try {
+                return patientDAO.findPage(request);
+            } catch (DaoException e) {
+                throw new RuntimeException("Failed to list patients", e);
+            }
+        });
+    }
+
+    public Page<Patient> searchPatients(String nameQuery, PageRequest request) {
+        return SEARCH_PATIENTS_PAGE_METRICS.time(() -> {
+            try {
+                return patientDAO.searchByName(nameQuery, request);
+            } catch (DaoException e) {
+                throw new RuntimeException("Failed to search patients", e);
+            }
+        });
     }
 
     public void updatePatient(Patient patient) {
-        try {
-            patientDAO.update(patient);
-        } catch (DaoException e) {
-            throw new RuntimeException("Failed to update patient", e);
-        }
+        UPDATE_PATIENT_METRICS.run(() -> {
+            try {
+                patientDAO.update(patient);
+                if (typeaheadIndex != null) {
+                    TransactionManager.afterCommit(() -> typeaheadIndex.put(patient));
+                }
+            } catch (DaoException e) {
+                throw new RuntimeException("Failed to update patient", e);
+            }
+        });
     }
 
-    public boolean deletePatient(UUID patientId) throws ServiceException {
-        try {
-            List<PatientAdmission> admissions = patientAdmissionDAO.findByPatientId(patientId);
-            if (admissions.stream().anyMatch(PatientAdmission::getIsCurrent)) {
-                throw new ServiceException("Patient has active admissions");
+    /**
+     * Merges a batch of patients from an external patient index, inserting new
+     * patient numbers and updating those whose details changed.
+     *
+     * @param patients the patients to merge
+     * @return the number of patients inserted, updated and left unchanged
+     */
+    public UpsertResult syncPatients(Iterable<Patient> patients) {
+        return SYNC_PATIENTS_METRICS.time(() -> {
+            try {
+                return patientDAO.upsertAll(patients, typeaheadIndex == null ? null : typeaheadIndex::put);
+            } catch (DaoException e) {
+                throw new RuntimeException("Failed to sync patients", e);
             }
+        });
+    }
+
+    public boolean deletePatient(UUID patientId) throws ServiceException {
+        return DELETE_PATIENT_METRICS.time(() -> {
+            try {
+                List<PatientAdmission> admissions = patientAdmissionDAO.findByPatientId(patientId);
+                if (admissions.stream().anyMatch(PatientAdmission::getIsCurrent)) {
+                    throw new ServiceException("Patient has active admissions");
+                }
 
-            return patientDAO.delete(patientId);
-        } catch (DaoException e) {
-            throw new ServiceException("Failed to delete patient", e);
-        }
+                boolean deleted = patientDAO.delete(patientId);
+                if (deleted && typeaheadIndex != null) {
+                    TransactionManager.afterCommit(() -> typeaheadIndex.remove(patientId));
+                }
+                return deleted;
+            } catch (DaoException e) {
+                throw new ServiceException("Failed to delete patient", e);
+            }
+        });
     }
 
     public Patient getPatientById(UUID id) {
-        try {
-            return patientDAO.findById(id);
-        } catch (DaoException e) {
-            throw new RuntimeException("Failed to get patient by id", e);
-        }
+        return GET_PATIENT_BY_ID_METRICS.time(() -> {
+            try {
+                return patientDAO.findById(id);
+            } catch (DaoException e) {
+                throw new RuntimeException("Failed to get patient by id", e);
+            }
+        });
+    }
+
+    /**
+     * Loads a patient's chart: the patient and every admission with its ward,
+     * department and treating doctor, fetched in a single query.
+     *
+     * @param patientId the patient's ID
+     * @return the chart, or null if no such patient exists
+     */
+    public PatientChart getPatientChart(UUID patientId) {
+        return GET_PATIENT_CHART_METRICS.time(() -> {
+            try {
+                return patientChartDAO.findByPatientId(patientId);
+            } catch (DaoException e) {
+                throw new RuntimeException("Failed to load patient chart", e);
+            }
+        });
     }
 
     public Patient findByPatientNumber(int patientNumber) {
-        try {
-            Patient patient = patientDAO.findByPatientNumber(patientNumber);
-            if (patient == null) {
-                //throw new RuntimeException("Patient with number " + patientNumber + " not found");
-                return null;
+        return FIND_BY_PATIENT_NUMBER_METRICS.time(() -> {
+            try {
+                Patient patient = patientDAO.findByPatientNumber(patientNumber);
+                if (patient == null) {
+                    //throw new RuntimeException("Patient with number " + patientNumber + " not found");
+                    return null;
+                }
+
+                return patient;
+            } catch (DaoException e) {
+                throw new RuntimeException("Failed to get patient by number", e);
             }
+        });
+    }
+
+    /**
+     * Asynchronous variant of {@link #registerNewPatient}.
+     *
+     * @return a future completed with the new patient's ID
+     */
+    public CompletableFuture<UUID> registerNewPatientAsync(int patientNumber, String firstName, String middleName,
+                                                           String lastName, String address, String phoneNumber) {
+        return ServiceExecutor.supplyAsync(() ->
+                registerNewPatient(patientNumber, firstName, middleName, lastName, address, phoneNumber));
+    }
+
+    /**
+     * Asynchronous variant of {@link #searchPatients(String)}.
+     *
+     * @return a future completed with the matching patients
+     */
+    public CompletableFuture<List<Patient>> searchPatientsAsync(String nameQuery) {
+        return ServiceExecutor.supplyAsync(() -> searchPatients(nameQuery));
+    }
+
+    /**
+     * Asynchronous variant of {@link #searchPatientsRanked}.
+     *
+     * @return a future completed with the best matches first
+     */
+    public CompletableFuture<List<PatientMatch>> searchPatientsRankedAsync(String query, int limit) {
+        return ServiceExecutor.supplyAsync(() -> searchPatientsRanked(query, limit));
+    }
+
+    /**
+     * Asynchronous variant of {@link #listPatients}.
+     *
+     * @return a future completed with the requested page
+     */
+    public CompletableFuture<Page<Patient>> listPatientsAsync(PageRequest request) {
+        return ServiceExecutor.supplyAsync(() -> listPatients(request));
+    }
+
+    /**
+     * Asynchronous variant of {@link #searchPatients(String, PageRequest)}.
+     *
+     * @return a future completed with the requested page of matches
+     */
+    public CompletableFuture<Page<Patient>> searchPatientsAsync(String nameQuery, PageRequest request) {
+        return ServiceExecutor.supplyAsync(() -> searchPatients(nameQuery, request));
+    }
+
+    /**
+     * Asynchronous variant of {@link #updatePatient}.
+     *
+     * @return a future completed once the patient has been updated
+     */
+    public CompletableFuture<Void> updatePatientAsync(Patient patient) {
+        return ServiceExecutor.supplyAsync(() -> {
+            updatePatient(patient);
+            return null;
+        });
+    }
+
+    /**
+     * Asynchronous variant of {@link #deletePatient}. A {@link ServiceException}
+     * completes the future exceptionally.
+     *
+     * @return a future completed with whether the patient was deleted
+     */
+    public CompletableFuture<Boolean> deletePatientAsync(UUID patientId) {
+        return ServiceExecutor.supplyAsync(() -> deletePatient(patientId));
+    }
+
+    /**
+     * Asynchronous variant of {@link #getPatientById}.
+     *
+     * @return a future completed with the patient
+     */
+    public CompletableFuture<Patient> getPatientByIdAsync(UUID id) {
+        return ServiceExecutor.supplyAsync(() -> getPatientById(id));
+    }
+
+    /**
+     * Asynchronous variant of {@link #getPatientChart}.
+     *
+     * @return a future completed with the chart, or null if no such patient exists
+     */
+    public CompletableFuture<PatientChart> getPatientChartAsync(UUID patientId) {
+        return ServiceExecutor.supplyAsync(() -> getPatientChart(patientId));
+    }
 
-            return patient;
-        } catch (DaoException e) {
-            throw new RuntimeException("Failed to get patient by number", e);
-        }
+    /**
+     * Asynchronous variant of {@link #findByPatientNumber}.
+     *
+     * @return a future completed with the patient, or null if none exists
+     */
+    public CompletableFuture<Patient> findByPatientNumberAsync(int patientNumber) {
+        return ServiceExecutor.supplyAsync(() -> findByPatientNumber(patientNumber));
     }
 }
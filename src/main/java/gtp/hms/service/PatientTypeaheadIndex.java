@@ -0,0 +1,480 @@
+package gtp.hms.service;
+
+import gtp.hms.dao.PatientDAO;
+import gtp.hms.exception.DaoException;
+import gtp.hms.model.Patient;
+import gtp.hms.model.PatientSuggestion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * In-memory prefix index over patient names and patient numbers for typeahead.
+ * <p>
+ * Every word of a patient's name, and the patient number as a decimal string,
+ * is a term. Terms are held in one sorted array with a parallel array of
+ * primitive int postings, each term's postings sorted by slot, so the terms
+ * sharing a prefix are found with two binary searches. Patients are given
+ * slots in name order when the index is built, which makes the lowest matching
+ * slots the first results alphabetically. A query merges the postings of each
+ * word's terms lazily in slot order, intersects the words by skipping ahead,
+ * and stops after the requested number of live hits, so its cost depends on
+ * the number of terms sharing each prefix rather than on the number of
+ * patients that match.
+ * <p>
+ * Changes after the build go to a small sorted delta and a tombstone set; the
+ * base arrays are rebuilt once the delta grows past a fraction of the base.
+ */
+public class PatientTypeaheadIndex {
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}'-]+");
+    private static final int MIN_COMPACTION_THRESHOLD = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Slot data, indexed by slot
+    private UUID[] ids = new UUID[0];
+    private int[] numbers = new int[0];
+    private String[] firstNames = new String[0];
+    private String[] middleNames = new String[0];
+    private String[] lastNames = new String[0];
+    private int slotCount;
+
+    private final Map<UUID, Integer> slotsById = new HashMap<>();
+    private final BitSet tombstones = new BitSet();
+
+    // Base segment: sorted terms, postings for terms[i] are postings[offsets[i]..offsets[i + 1])
+    private String[] terms = new String[0];
+    private int[] offsets = {0};
+    private int[] postings = new int[0];
+    private int baseSlotCount;
+
+    // Terms of slots added since the last build
+    private final TreeMap<String, int[]> delta = new TreeMap<>();
+    private int deltaSlotCount;
+
+    /**
+     * Builds an index over every patient in the database, streaming rows so
+     * the full patient list is never held as entities.
+     *
+     * @param patientDAO the DAO to read patients from
+     * @return the loaded index
+     * @throws DaoException if patients cannot be read
+     */
+    public static PatientTypeaheadIndex load(PatientDAO patientDAO) throws DaoException {
+        PatientTypeaheadIndex index = new PatientTypeaheadIndex();
+        index.lock.writeLock().lock();
+        try (Stream<Patient> patients = patientDAO.streamAll()) {
+            patients.forEach(index::addSlot);
+            index.rebuild();
+        } finally {
+            index.lock.writeLock().unlock();
+        }
+        return index;
+    }
+
+    /**
+     * Adds a patient, or replaces the entry for a patient already indexed.
+     *
+     * @param patient the patient; must have an ID
+     */
+    public void put(Patient patient) {
+        lock.writeLock().lock();
+        try {
+            Integer previous = slotsById.get(patient.getId());
+            if (previous != null) {
+                tombstones.set(previous);
+            }
+            int slot = addSlot(patient);
+            for (String term : termsOf(slot)) {
+                int[] slots = delta.get(term);
+                if (slots == null) {
+                    delta.put(term, new int[]{slot});
+                } else {
+                    slots = Arrays.copyOf(slots, slots.length + 1);
+                    slots[slots.length - 1] = slot;
+                    delta.put(term, slots);
+                }
+            }
+            deltaSlotCount++;
+            if (deltaSlotCount > Math.max(MIN_COMPACTION_THRESHOLD, baseSlotCount / 8)) {
+                rebuild();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a patient from the index.
+     *
+     * @param patientId the patient's ID
+     */
+    public void remove(UUID patientId) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotsById.remove(patientId);
+            if (slot != null) {
+                tombstones.set(slot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds patients whose name words or number start with every word of the
+     * query, so "kub pat" matches "Patrick Kubi" and "1002" matches 10021.
+     * Results from the last build come first in name order, followed by
+     * patients added since.
+     *
+     * @param query the partial text typed so far
+     * @param limit the maximum number of suggestions
+     * @return matching patients, empty if the query has no words
+     */
+    public List<PatientSuggestion> search(String query, int limit) {
+        String[] prefixes = query == null ? new String[0] : WORD_SEPARATOR.split(query.toLowerCase(Locale.ROOT));
+        List<PatientSuggestion> results = new ArrayList<>(Math.min(limit, 64));
+        if (limit < 1) {
+            return results;
+        }
+
+        lock.readLock().lock();
+        try {
+            List<PrefixCursor> cursors = new ArrayList<>(prefixes.length);
+            for (String prefix : prefixes) {
+                if (!prefix.isEmpty()) {
+                    cursors.add(new PrefixCursor(prefix));
+                }
+            }
+            if (cursors.isEmpty()) {
+                return results;
+            }
+
+            int slot = 0;
+            while (results.size() < limit) {
+                slot = nextCommonSlot(cursors, slot);
+                if (slot < 0) {
+                    break;
+                }
+                if (!tombstones.get(slot)) {
+                    results.add(new PatientSuggestion(ids[slot], numbers[slot], fullName(slot)));
+                }
+                slot++;
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of patients currently indexed.
+     *
+     * @return live patient count
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Estimates the heap used by the index, assuming compressed object pointers
+     * and compact Latin-1 strings. Name strings shared with other structures
+     * are counted in full.
+     *
+     * @return approximate footprint in bytes
+     */
+    public long estimateMemoryBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            bytes += arrayBytes(ids.length, 4) + arrayBytes(numbers.length, 4);
+            bytes += arrayBytes(firstNames.length, 4) * 3;
+            bytes += (long) slotCount * 32; // UUID objects
+            for (int slot = 0; slot < slotCount; slot++) {
+                bytes += stringBytes(firstNames[slot]) + stringBytes(middleNames[slot]) + stringBytes(lastNames[slot]);
+            }
+            bytes += arrayBytes(terms.length, 4);
+            for (String term : terms) {
+                bytes += stringBytes(term);
+            }
+            bytes += arrayBytes(offsets.length, 4) + arrayBytes(postings.length, 4);
+            for (Map.Entry<String, int[]> entry : delta.entrySet()) {
+                bytes += 40 + stringBytes(entry.getKey()) + arrayBytes(entry.getValue().length, 4);
+            }
+            bytes += (long) slotsById.size() * 64; // HashMap node, boxed Integer
+            bytes += tombstones.size() / 8;
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the lowest slot at or after {@code from} that every cursor
+     * contains, or -1 if there is none.
+     */
+    private static int nextCommonSlot(List<PrefixCursor> cursors, int from) {
+        int slot = from;
+        boolean agreed = false;
+        while (!agreed) {
+            agreed = true;
+            for (PrefixCursor cursor : cursors) {
+                int current = cursor.advanceTo(slot);
+                if (current < 0) {
+                    return -1;
+                }
+                if (current > slot) {
+                    slot = current;
+                    agreed = false;
+                }
+            }
+        }
+        return slot;
+    }
+
+    private int lowerBound(String key) {
+        int index = Arrays.binarySearch(terms, key);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * Assigns fresh slots in name order to every live patient and rebuilds the
+     * base term arrays. Must be called with the write lock held.
+     */
+    private void rebuild() {
+        Integer[] live = slotsById.values().toArray(new Integer[0]);
+        Arrays.sort(live, Comparator.<Integer, String>comparing(slot -> lastNames[slot], String.CASE_INSENSITIVE_ORDER)
+                .thenComparing(slot -> firstNames[slot], String.CASE_INSENSITIVE_ORDER)
+                .thenComparingInt(slot -> numbers[slot]));
+
+        UUID[] newIds = new UUID[live.length];
+        int[] newNumbers = new int[live.length];
+        String[] newFirst = new String[live.length];
+        String[] newMiddle = new String[live.length];
+        String[] newLast = new String[live.length];
+        for (int slot = 0; slot < live.length; slot++) {
+            int old = live[slot];
+            newIds[slot] = ids[old];
+            newNumbers[slot] = numbers[old];
+            newFirst[slot] = firstNames[old];
+            newMiddle[slot] = middleNames[old];
+            newLast[slot] = lastNames[old];
+        }
+        ids = newIds;
+        numbers = newNumbers;
+        firstNames = newFirst;
+        middleNames = newMiddle;
+        lastNames = newLast;
+        slotCount = live.length;
+
+        slotsById.clear();
+        int[] postingCounts = new int[0];
+        Map<String, Integer> termIds = new HashMap<>();
+        List<String> termList = new ArrayList<>();
+        int totalPostings = 0;
+
+        // First pass: count postings per term
+        for (int slot = 0; slot < slotCount; slot++) {
+            slotsById.put(ids[slot], slot);
+            for (String term : termsOf(slot)) {
+                Integer termId = termIds.get(term);
+                if (termId == null) {
+                    termId = termList.size();
+                    termIds.put(term, termId);
+                    termList.add(term);
+                    if (termId == postingCounts.length) {
+                        postingCounts = Arrays.copyOf(postingCounts, Math.max(16, termId * 2));
+                    }
+                }
+                postingCounts[termId]++;
+                totalPostings++;
+            }
+        }
+
+        // Lay terms out in sorted order and fill their postings in slot order
+        String[] sortedTerms = termList.toArray(new String[0]);
+        Arrays.sort(sortedTerms);
+        int[] newOffsets = new int[sortedTerms.length + 1];
+        int[] cursor = new int[termList.size()];
+        for (int i = 0; i < sortedTerms.length; i++) {
+            int termId = termIds.get(sortedTerms[i]);
+            newOffsets[i + 1] = newOffsets[i] + postingCounts[termId];
+            cursor[termId] = newOffsets[i];
+        }
+        int[] newPostings = new int[totalPostings];
+        for (int slot = 0; slot < slotCount; slot++) {
+            for (String term : termsOf(slot)) {
+                newPostings[cursor[termIds.get(term)]++] = slot;
+            }
+        }
+
+        terms = sortedTerms;
+        offsets = newOffsets;
+        postings = newPostings;
+        baseSlotCount = slotCount;
+        delta.clear();
+        deltaSlotCount = 0;
+        tombstones.clear();
+    }
+
+    private int addSlot(Patient patient) {
+        if (slotCount == ids.length) {
+            int capacity = Math.max(16, slotCount * 2);
+            ids = Arrays.copyOf(ids, capacity);
+            numbers = Arrays.copyOf(numbers, capacity);
+            firstNames = Arrays.copyOf(firstNames, capacity);
+            middleNames = Arrays.copyOf(middleNames, capacity);
+            lastNames = Arrays.copyOf(lastNames, capacity);
+        }
+        int slot = slotCount++;
+        ids[slot] = patient.getId();
+        numbers[slot] = patient.getPatientNumber();
+        firstNames[slot] = patient.getFirstName();
+        middleNames[slot] = patient.getMiddleName();
+        lastNames[slot] = patient.getLastName();
+        slotsById.put(patient.getId(), slot);
+        return slot;
+    }
+
+    /**
+     * Returns the distinct terms of a slot: the lower-case words of each name
+     * part and the decimal patient number.
+     */
+    private List<String> termsOf(int slot) {
+        List<String> slotTerms = new ArrayList<>(4);
+        slotTerms.add(Integer.toString(numbers[slot]));
+        for (String name : new String[]{firstNames[slot], middleNames[slot], lastNames[slot]}) {
+            if (name == null) {
+                continue;
+            }
+            for (String word : WORD_SEPARATOR.split(name.toLowerCase(Locale.ROOT))) {
+                if (!word.isEmpty() && !slotTerms.contains(word)) {
+                    slotTerms.add(word);
+                }
+            }
+        }
+        return slotTerms;
+    }
+
+    private String fullName(int slot) {
+        String middle = middleNames[slot];
+        return middle == null || middle.isBlank()
+                ? firstNames[slot] + " " + lastNames[slot]
+                : firstNames[slot] + " " + middle + " " + lastNames[slot];
+    }
+
+    /**
+     * Walks the slots of every term starting with a prefix in ascending order,
+     * merging the terms' postings through a binary heap keyed on each list's
+     * current slot. Must be used with the read lock held.
+     */
+    private final class PrefixCursor {
+        private final int[][] lists;
+        private final int[] positions;
+        private final int[] ends;
+        private final int[] heap;
+        private int heapSize;
+
+        private PrefixCursor(String prefix) {
+            String upper = prefix + Character.MAX_VALUE;
+            int from = lowerBound(prefix);
+            int to = lowerBound(upper);
+            Map<String, int[]> deltaTerms = delta.subMap(prefix, upper);
+
+            int count = to - from + deltaTerms.size();
+            lists = new int[count][];
+            positions = new int[count];
+            ends = new int[count];
+            heap = new int[count];
+            for (int i = from; i < to; i++) {
+                add(postings, offsets[i], offsets[i + 1]);
+            }
+            for (int[] deltaSlots : deltaTerms.values()) {
+                add(deltaSlots, 0, deltaSlots.length);
+            }
+            for (int i = heapSize / 2 - 1; i >= 0; i--) {
+                siftDown(i);
+            }
+        }
+
+        /**
+         * Skips to the lowest slot at or after the target.
+         *
+         * @return that slot, or -1 once every list is exhausted
+         */
+        int advanceTo(int target) {
+            while (heapSize > 0) {
+                int list = heap[0];
+                int position = positions[list];
+                if (lists[list][position] >= target) {
+                    return lists[list][position];
+                }
+                int found = Arrays.binarySearch(lists[list], position + 1, ends[list], target);
+                positions[list] = found >= 0 ? found : -found - 1;
+                if (positions[list] == ends[list]) {
+                    heap[0] = heap[--heapSize];
+                }
+                siftDown(0);
+            }
+            return -1;
+        }
+
+        private void add(int[] list, int start, int end) {
+            if (start < end) {
+                lists[heapSize] = list;
+                positions[heapSize] = start;
+                ends[heapSize] = end;
+                heap[heapSize] = heapSize;
+                heapSize++;
+            }
+        }
+
+        private int head(int list) {
+            return lists[list][positions[list]];
+        }
+
+        private void siftDown(int index) {
+            int list = heap[index];
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= heapSize) {
+                    break;
+                }
+                if (child + 1 < heapSize && head(heap[child + 1]) < head(heap[child])) {
+                    child++;
+                }
+                if (head(list) <= head(heap[child])) {
+                    break;
+                }
+                heap[index] = heap[child];
+                index = child;
+            }
+            heap[index] = list;
+        }
+    }
+
+    private static long arrayBytes(int length, int elementBytes) {
+        return 16 + (long) length * elementBytes;
+    }
+
+    private static long stringBytes(String value) {
+        return value == null ? 0 : 24 + arrayBytes(value.length(), 1);
+    }
+}
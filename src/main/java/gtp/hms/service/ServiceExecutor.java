@@ -0,0 +1,99 @@
+package gtp.hms.service;
+
+import gtp.hms.config.DatabaseConfig;
+import gtp.hms.util.DatabaseConnection;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs service calls for the asynchronous service API.
+ * <p>
+ * Every call gets its own virtual thread, so thousands of requests can be in
+ * flight without tying up platform threads. Calls that reach the database are
+ * limited by a semaphore sized to the connection pool, so excess callers park
+ * cheaply on their virtual thread instead of piling up inside the pool.
+ * <p>
+ * Each call shares the submitting thread's read-your-writes stamp, so a read
+ * submitted after a write, from either side, stays on the primary for the
+ * read-your-writes window.
+ */
+final class ServiceExecutor {
+    private static final ExecutorService EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+    private static final Semaphore DB_PERMITS = new Semaphore(DatabaseConfig.getPoolMaxSize(), true);
+
+    private ServiceExecutor() {}
+
+    /**
+     * A blocking service call that may throw a checked exception.
+     *
+     * @param <T> the result type
+     */
+    @FunctionalInterface
+    interface ServiceCall<T> {
+        T call() throws Exception;
+    }
+
+    /**
+     * Runs the call on a virtual thread once a database permit is available.
+     * Checked exceptions complete the future exceptionally, wrapped in a
+     * {@link CompletionException}.
+     *
+     * @param call the blocking service call
+     * @param <T>  the result type
+     * @return a future completed with the call's result
+     */
+    static <T> CompletableFuture<T> supplyAsync(ServiceCall<T> call) {
+        AtomicLong writeStamp = DatabaseConnection.currentWriteStamp();
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                DB_PERMITS.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+            AtomicLong previousStamp = DatabaseConnection.adoptWriteStamp(writeStamp);
+            try {
+                return call.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            } finally {
+                DatabaseConnection.adoptWriteStamp(previousStamp);
+                DB_PERMITS.release();
+            }
+        }, EXECUTOR);
+    }
+
+    /**
+     * Runs the call on a virtual thread without taking a database permit. Used
+     * for work that permit holders wait on, such as {@link BatchLoader} batches:
+     * taking a permit there would deadlock once every permit is held by a
+     * caller blocked on the batch. The connection pool still bounds how many
+     * of these calls reach the database at once.
+     *
+     * @param call the blocking call
+     * @param <T>  the result type
+     * @return a future completed with the call's result
+     */
+    static <T> CompletableFuture<T> supplyWithoutPermit(ServiceCall<T> call) {
+        AtomicLong writeStamp = DatabaseConnection.currentWriteStamp();
+        return CompletableFuture.supplyAsync(() -> {
+            AtomicLong previousStamp = DatabaseConnection.adoptWriteStamp(writeStamp);
+            try {
+                return call.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            } finally {
+                DatabaseConnection.adoptWriteStamp(previousStamp);
+            }
+        }, EXECUTOR);
+    }
+}
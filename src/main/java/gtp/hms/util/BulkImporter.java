@@ -0,0 +1,401 @@
+package gtp.hms.util;
+
+import gtp.hms.cache.PatientCache;
+import gtp.hms.exception.DaoException;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Imports patients and admissions in bulk from CSV or TSV files.
+ * <p>
+ * A file is streamed with {@code COPY} into a temporary staging table whose
+ * columns are all text, so malformed values never abort the load. Each row is
+ * then validated, natural keys are resolved (patient number, department code
+ * plus ward number, doctor employee number) and the valid rows are merged into
+ * the real table, all with set-wise SQL rather than per-row round trips. Rows
+ * that fail are kept in staging with a reason and reported; they can also be
+ * written out as a CSV file for correction.
+ * <p>
+ * Files must start with a header row; columns are matched by position:
+ * <ul>
+ *   <li>patients: patient_number, first_name, middle_name, last_name, address, telephone_number</li>
+ *   <li>admissions: patient_number, department_code, ward_number, bed_number, diagnosis,
+ *       doctor_employee_number, admission_date, discharge_date</li>
+ * </ul>
+ * An admission without a discharge date is imported as current. Each file is
+ * imported in one transaction. A structurally broken file, such as a row with
+ * the wrong number of columns, fails the whole import with the offending line
+ * in the error; value-level problems only reject their row. Imported rows
+ * bypass the services, so in-memory indexes such as the typeahead index see
+ * them on their next load or reconciliation.
+ * <p>
+ * Usage: {@code BulkImporter patients|admissions <file> [rejects.csv] [--update-existing]}.
+ */
+public final class BulkImporter {
+    /** Rejected rows included in an {@link ImportReport}. */
+    public static final int SAMPLE_REJECTS = 20;
+
+    private static final int COPY_BUFFER_SIZE = 256 * 1024;
+
+    private static final String INTEGER_PATTERN = "'^\\s*[0-9]{1,9}\\s*$'";
+
+    private static final String IS_TIMESTAMP_FUNCTION_SQL =
+            "CREATE OR REPLACE FUNCTION pg_temp.hms_is_timestamp(value TEXT) RETURNS BOOLEAN " +
+            "LANGUAGE plpgsql STABLE AS $$ " +
+            "BEGIN " +
+            "    IF value !~ '^\\s*[0-9]{4}-[0-9]{2}-[0-9]{2}([ T][0-9:.]+)?\\s*$' THEN RETURN FALSE; END IF; " +
+            "    PERFORM value::TIMESTAMP; " +
+            "    RETURN TRUE; " +
+            "EXCEPTION WHEN others THEN RETURN FALSE; " +
+            "END $$";
+
+    // --- Patients ---
+
+    private static final String CREATE_PATIENT_RAW_SQL = "CREATE TEMP TABLE import_patient_raw (" +
+            "line_no BIGINT GENERATED ALWAYS AS IDENTITY, patient_number TEXT, first_name TEXT, " +
+            "middle_name TEXT, last_name TEXT, address TEXT, telephone_number TEXT) ON COMMIT DROP";
+
+    private static final String COPY_PATIENT_SQL = "COPY import_patient_raw (patient_number, first_name, " +
+            "middle_name, last_name, address, telephone_number) FROM STDIN WITH (%s)";
+
+    private static final String STAGE_PATIENT_SQL = "CREATE TEMP TABLE import_patient ON COMMIT DROP AS " +
+            "SELECT r.line_no, r.patient_number AS raw_key, v.reason AS reject_reason, " +
+            "CASE WHEN v.reason IS NULL THEN trim(r.patient_number)::INT END AS patient_number, " +
+            "trim(r.first_name) AS first_name, NULLIF(trim(r.middle_name), '') AS middle_name, " +
+            "trim(r.last_name) AS last_name, NULLIF(trim(r.address), '') AS address, " +
+            "NULLIF(trim(r.telephone_number), '') AS telephone_number " +
+            "FROM import_patient_raw r CROSS JOIN LATERAL (SELECT CASE " +
+            "WHEN r.patient_number IS NULL OR r.patient_number !~ " + INTEGER_PATTERN +
+            " THEN 'invalid patient_number' " +
+            "WHEN NULLIF(trim(r.first_name), '') IS NULL THEN 'missing first_name' " +
+            "WHEN NULLIF(trim(r.last_name), '') IS NULL THEN 'missing last_name' " +
+            "WHEN length(trim(r.first_name)) > 100 OR length(trim(r.last_name)) > 100 " +
+            "OR length(trim(r.middle_name)) > 100 THEN 'name longer than 100 characters' " +
+            "WHEN length(trim(r.address)) > 254 THEN 'address longer than 254 characters' " +
+            "WHEN length(trim(r.telephone_number)) > 20 THEN 'telephone_number longer than 20 characters' " +
+            "END AS reason) v";
+
+    private static final String REJECT_DUPLICATE_PATIENTS_SQL = "UPDATE import_patient i " +
+            "SET reject_reason = 'duplicate patient_number in file' " +
+            "FROM (SELECT line_no, row_number() OVER (PARTITION BY patient_number ORDER BY line_no) AS rn " +
+            "FROM import_patient WHERE reject_reason IS NULL) d " +
+            "WHERE i.line_no = d.line_no AND d.rn > 1";
+
+    private static final String REJECT_EXISTING_PATIENTS_SQL = "UPDATE import_patient i " +
+            "SET reject_reason = 'patient_number already registered' " +
+            "FROM patient p WHERE i.reject_reason IS NULL AND p.patient_number = i.patient_number";
+
+    private static final String MERGE_PATIENTS_SQL = "WITH merged AS (" +
+            "INSERT INTO patient (patient_number, first_name, middle_name, last_name, address, telephone_number) " +
+            "SELECT patient_number, first_name, middle_name, last_name, address, telephone_number " +
+            "FROM import_patient WHERE reject_reason IS NULL ORDER BY line_no " +
+            "ON CONFLICT (patient_number) DO UPDATE SET first_name = EXCLUDED.first_name, " +
+            "middle_name = EXCLUDED.middle_name, last_name = EXCLUDED.last_name, address = EXCLUDED.address, " +
+            "telephone_number = EXCLUDED.telephone_number, updated_at = CURRENT_TIMESTAMP " +
+            "RETURNING (xmax = 0) AS inserted) " +
+            "SELECT count(*) FILTER (WHERE inserted), count(*) FILTER (WHERE NOT inserted) FROM merged";
+
+    // --- Admissions ---
+
+    private static final String CREATE_ADMISSION_RAW_SQL = "CREATE TEMP TABLE import_admission_raw (" +
+            "line_no BIGINT GENERATED ALWAYS AS IDENTITY, patient_number TEXT, department_code TEXT, " +
+            "ward_number TEXT, bed_number TEXT, diagnosis TEXT, doctor_employee_number TEXT, " +
+            "admission_date TEXT, discharge_date TEXT) ON COMMIT DROP";
+
+    private static final String COPY_ADMISSION_SQL = "COPY import_admission_raw (patient_number, department_code, " +
+            "ward_number, bed_number, diagnosis, doctor_employee_number, admission_date, discharge_date) " +
+            "FROM STDIN WITH (%s)";
+
+    private static final String STAGE_ADMISSION_SQL = "CREATE TEMP TABLE import_admission ON COMMIT DROP AS " +
+            "SELECT r.line_no, r.patient_number AS raw_key, v.reason AS reject_reason, " +
+            "CASE WHEN v.reason IS NULL THEN trim(r.patient_number)::INT END AS patient_number, " +
+            "trim(r.department_code) AS department_code, " +
+            "CASE WHEN v.reason IS NULL THEN trim(r.ward_number)::INT END AS ward_number, " +
+            "CASE WHEN v.reason IS NULL THEN trim(r.bed_number)::INT END AS bed_number, " +
+            "NULLIF(trim(r.diagnosis), '') AS diagnosis, " +
+            "CASE WHEN v.reason IS NULL THEN NULLIF(trim(r.doctor_employee_number), '')::INT END AS doctor_number, " +
+            "CASE WHEN v.reason IS NULL THEN trim(r.admission_date)::TIMESTAMP END AS admission_date, " +
+            "CASE WHEN v.reason IS NULL THEN NULLIF(trim(r.discharge_date), '')::TIMESTAMP END AS discharge_date, " +
+            "NULL::UUID AS patient_id, NULL::UUID AS ward_id, NULL::UUID AS doctor_id " +
+            "FROM import_admission_raw r CROSS JOIN LATERAL (SELECT CASE " +
+            "WHEN r.patient_number IS NULL OR r.patient_number !~ " + INTEGER_PATTERN +
+            " THEN 'invalid patient_number' " +
+            "WHEN NULLIF(trim(r.department_code), '') IS NULL THEN 'missing department_code' " +
+            "WHEN r.ward_number IS NULL OR r.ward_number !~ " + INTEGER_PATTERN + " THEN 'invalid ward_number' " +
+            "WHEN r.bed_number IS NULL OR r.bed_number !~ " + INTEGER_PATTERN + " THEN 'invalid bed_number' " +
+            "WHEN NULLIF(trim(r.doctor_employee_number), '') IS NOT NULL " +
+            "AND r.doctor_employee_number !~ " + INTEGER_PATTERN + " THEN 'invalid doctor_employee_number' " +
+            "WHEN r.admission_date IS NULL OR NOT pg_temp.hms_is_timestamp(r.admission_date) " +
+            "THEN 'invalid admission_date' " +
+            "WHEN NULLIF(trim(r.discharge_date), '') IS NOT NULL " +
+            "AND NOT pg_temp.hms_is_timestamp(r.discharge_date) THEN 'invalid discharge_date' " +
+            "WHEN length(trim(r.diagnosis)) > 500 THEN 'diagnosis longer than 500 characters' " +
+            "END AS reason) v";
+
+    private static final String RESOLVE_ADMISSIONS_SQL = "UPDATE import_admission i " +
+            "SET patient_id = k.patient_id, ward_id = k.ward_id, doctor_id = k.doctor_id, " +
+            "reject_reason = CASE " +
+            "WHEN k.patient_id IS NULL THEN 'unknown patient_number' " +
+            "WHEN k.ward_id IS NULL THEN 'unknown ward for department_code and ward_number' " +
+            "WHEN i.bed_number < 1 OR i.bed_number > k.number_of_beds THEN 'bed_number outside the ward' " +
+            "WHEN i.doctor_number IS NOT NULL AND k.doctor_id IS NULL THEN 'unknown doctor_employee_number' " +
+            "WHEN i.discharge_date < i.admission_date THEN 'discharge_date before admission_date' " +
+            "END " +
+            "FROM (SELECT s.line_no, p.id AS patient_id, w.id AS ward_id, w.number_of_beds, e.id AS doctor_id " +
+            "FROM import_admission s " +
+            "LEFT JOIN patient p ON p.patient_number = s.patient_number " +
+            "LEFT JOIN department d ON d.department_code = s.department_code " +
+            "LEFT JOIN ward w ON w.department_id = d.id AND w.ward_number = s.ward_number " +
+            "LEFT JOIN employee e ON e.employee_number = s.doctor_number " +
+            "AND EXISTS (SELECT 1 FROM doctor doc WHERE doc.id = e.id) " +
+            "WHERE s.reject_reason IS NULL) k " +
+            "WHERE i.line_no = k.line_no";
+
+    // A bed can hold one current admission: later rows for the same bed and beds already taken are rejected
+    private static final String REJECT_OCCUPIED_BEDS_SQL = "UPDATE import_admission i " +
+            "SET reject_reason = 'bed already occupied' " +
+            "FROM (SELECT s.line_no, " +
+            "row_number() OVER (PARTITION BY s.ward_id, s.bed_number ORDER BY s.line_no) AS rn, " +
+            "EXISTS (SELECT 1 FROM patient_admission pa WHERE pa.ward_id = s.ward_id " +
+            "AND pa.bed_number = s.bed_number AND pa.is_current) AS occupied " +
+            "FROM import_admission s WHERE s.reject_reason IS NULL AND s.discharge_date IS NULL) c " +
+            "WHERE i.line_no = c.line_no AND (c.rn > 1 OR c.occupied)";
+
+    private static final String MERGE_ADMISSIONS_SQL = "INSERT INTO patient_admission (patient_id, ward_id, " +
+            "bed_number, diagnosis, treating_doctor_id, admission_date, discharge_date, is_current) " +
+            "SELECT patient_id, ward_id, bed_number, diagnosis, doctor_id, admission_date, discharge_date, " +
+            "discharge_date IS NULL FROM import_admission WHERE reject_reason IS NULL ORDER BY line_no";
+
+    // --- Reporting ---
+
+    private static final String REJECT_REASONS_SQL = "SELECT reject_reason, count(*) FROM %s " +
+            "WHERE reject_reason IS NOT NULL GROUP BY reject_reason ORDER BY count(*) DESC, reject_reason";
+
+    private static final String SAMPLE_REJECTS_SQL = "SELECT line_no, raw_key, reject_reason FROM %s " +
+            "WHERE reject_reason IS NOT NULL ORDER BY line_no LIMIT " + SAMPLE_REJECTS;
+
+    private static final String EXPORT_REJECTS_SQL = "COPY (SELECT s.reject_reason, r.* " +
+            "FROM %s s JOIN %s r ON r.line_no = s.line_no " +
+            "WHERE s.reject_reason IS NOT NULL ORDER BY r.line_no) TO STDOUT WITH (FORMAT csv, HEADER true)";
+
+    /**
+     * Input file layout.
+     */
+    public enum Format {
+        CSV("FORMAT csv, HEADER true, ENCODING 'UTF8'"),
+        TSV("FORMAT csv, HEADER true, DELIMITER E'\\t', ENCODING 'UTF8'");
+
+        private final String copyOptions;
+
+        Format(String copyOptions) {
+            this.copyOptions = copyOptions;
+        }
+
+        /**
+         * Picks the format from a file's extension: {@code .tsv} or {@code .tab}
+         * is TSV, anything else CSV.
+         *
+         * @param file the input file
+         * @return the format
+         */
+        public static Format of(Path file) {
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            return name.endsWith(".tsv") || name.endsWith(".tab") ? TSV : CSV;
+        }
+    }
+
+    private final boolean updateExisting;
+
+    /**
+     * Creates an importer.
+     *
+     * @param updateExisting whether patients whose number is already registered
+     *                       are updated from the file, rather than rejected
+     */
+    public BulkImporter(boolean updateExisting) {
+        this.updateExisting = updateExisting;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2 || !("patients".equals(args[0]) || "admissions".equals(args[0]))) {
+            System.err.println("Usage: BulkImporter patients|admissions <file> [rejects.csv] [--update-existing]");
+            System.exit(2);
+        }
+        Path file = Paths.get(args[1]);
+        Path rejects = args.length > 2 && !args[2].startsWith("--") ? Paths.get(args[2]) : null;
+        boolean updateExisting = List.of(args).contains("--update-existing");
+
+        BulkImporter importer = new BulkImporter(updateExisting);
+        try {
+            ImportReport report = "patients".equals(args[0])
+                    ? importer.importPatients(file, Format.of(file), rejects)
+                    : importer.importAdmissions(file, Format.of(file), rejects);
+            System.out.println(report);
+            report.getSampleRejects().forEach(rejection -> System.out.println("  " + rejection));
+        } finally {
+            DatabaseConnection.getInstance().closeConnection();
+        }
+    }
+
+    /**
+     * Imports patients from a file.
+     *
+     * @param file        the input file
+     * @param format      the file's layout
+     * @param rejectsFile where to write every rejected row as CSV, or null
+     * @return the import report
+     * @throws DaoException if the file cannot be read or loaded; nothing is imported
+     */
+    public ImportReport importPatients(Path file, Format format, Path rejectsFile) throws DaoException {
+        long start = System.nanoTime();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                execute(conn, CREATE_PATIENT_RAW_SQL);
+                long rows = copyIn(conn, String.format(COPY_PATIENT_SQL, format.copyOptions), file);
+                execute(conn, STAGE_PATIENT_SQL);
+                execute(conn, "ANALYZE import_patient");
+                execute(conn, REJECT_DUPLICATE_PATIENTS_SQL);
+                if (!updateExisting) {
+                    execute(conn, REJECT_EXISTING_PATIENTS_SQL);
+                }
+
+                long inserted;
+                long updated;
+                try (Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery(MERGE_PATIENTS_SQL)) {
+                    rs.next();
+                    inserted = rs.getLong(1);
+                    updated = rs.getLong(2);
+                }
+
+                ImportReport report = report(conn, "patient", "import_patient", "import_patient_raw",
+                        rows, inserted, updated, rejectsFile, start);
+                conn.commit();
+                if (updated > 0) {
+                    PatientCache.getInstance().clear();
+                }
+                return report;
+            } catch (SQLException | IOException e) {
+                conn.rollback();
+                throw new DaoException("Importing patients from " + file + " failed", e);
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (DaoException e) {
+            throw e;
+        } catch (SQLException e) {
+            throw new DaoException("Importing patients from " + file + " failed", e);
+        }
+    }
+
+    /**
+     * Imports admissions from a file. The patients, wards and doctors they
+     * refer to must already exist.
+     *
+     * @param file        the input file
+     * @param format      the file's layout
+     * @param rejectsFile where to write every rejected row as CSV, or null
+     * @return the import report
+     * @throws DaoException if the file cannot be read or loaded; nothing is imported
+     */
+    public ImportReport importAdmissions(Path file, Format format, Path rejectsFile) throws DaoException {
+        long start = System.nanoTime();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                execute(conn, IS_TIMESTAMP_FUNCTION_SQL);
+                execute(conn, CREATE_ADMISSION_RAW_SQL);
+                long rows = copyIn(conn, String.format(COPY_ADMISSION_SQL, format.copyOptions), file);
+                execute(conn, STAGE_ADMISSION_SQL);
+                execute(conn, "ANALYZE import_admission");
+                execute(conn, RESOLVE_ADMISSIONS_SQL);
+                execute(conn, REJECT_OCCUPIED_BEDS_SQL);
+
+                long inserted;
+                try (Statement stmt = conn.createStatement()) {
+                    inserted = stmt.executeUpdate(MERGE_ADMISSIONS_SQL);
+                }
+
+                ImportReport report = report(conn, "patient_admission", "import_admission", "import_admission_raw",
+                        rows, inserted, 0, rejectsFile, start);
+                conn.commit();
+                return report;
+            } catch (SQLException | IOException e) {
+                conn.rollback();
+                throw new DaoException("Importing admissions from " + file + " failed", e);
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (DaoException e) {
+            throw e;
+        } catch (SQLException e) {
+            throw new DaoException("Importing admissions from " + file + " failed", e);
+        }
+    }
+
+    private static long copyIn(Connection conn, String sql, Path file) throws SQLException, IOException {
+        CopyManager copyManager = conn.unwrap(PGConnection.class).getCopyAPI();
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), COPY_BUFFER_SIZE)) {
+            return copyManager.copyIn(sql, in, COPY_BUFFER_SIZE);
+        }
+    }
+
+    private static ImportReport report(Connection conn, String target, String stage, String raw, long rows,
+                                       long inserted, long updated, Path rejectsFile, long start)
+            throws SQLException, IOException {
+        Map<String, Long> reasons = new LinkedHashMap<>();
+        long rejected = 0;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(String.format(REJECT_REASONS_SQL, stage))) {
+            while (rs.next()) {
+                reasons.put(rs.getString(1), rs.getLong(2));
+                rejected += rs.getLong(2);
+            }
+        }
+
+        List<ImportReport.Rejection> sample = new ArrayList<>();
+        if (rejected > 0) {
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(String.format(SAMPLE_REJECTS_SQL, stage))) {
+                while (rs.next()) {
+                    // Line numbers count the header row
+                    sample.add(new ImportReport.Rejection(rs.getLong(1) + 1, rs.getString(2), rs.getString(3)));
+                }
+            }
+            if (rejectsFile != null) {
+                try (Writer writer = Files.newBufferedWriter(rejectsFile, StandardCharsets.UTF_8)) {
+                    conn.unwrap(PGConnection.class).getCopyAPI()
+                            .copyOut(String.format(EXPORT_REJECTS_SQL, stage, raw), writer);
+                }
+            }
+        }
+
+        return new ImportReport(target, rows, inserted, updated, rejected, reasons, sample,
+                System.nanoTime() - start);
+    }
+
+    private static void execute(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+}
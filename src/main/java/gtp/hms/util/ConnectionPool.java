@@ -0,0 +1,469 @@
+package gtp.hms.util;
+
+import gtp.hms.config.DatabaseConfig;
+import gtp.hms.metrics.MethodMetrics;
+import gtp.hms.metrics.Metrics;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded, thread-safe pool of JDBC connections.
+ * <p>
+ * Connections are leased with {@link #borrow()} and handed back by closing the
+ * returned {@link Connection}. The pool:
+ * <ul>
+ *   <li>keeps at least {@code minSize} and at most {@code maxSize} physical connections open</li>
+ *   <li>validates idle connections before handing them out</li>
+ *   <li>serves waiting callers in arrival order and fails them after the borrow timeout</li>
+ *   <li>periodically closes surplus connections that have been idle for too long</li>
+ *   <li>optionally keeps a {@link StatementCache} per connection</li>
+ *   <li>records borrow waits and failures as {@code gtp.hms:type=pool} metrics</li>
+ * </ul>
+ * Physical connections are opened and validated outside the pool lock so a slow
+ * database never blocks callers that could be served from the idle list.
+ */
+public final class ConnectionPool implements AutoCloseable {
+    private static final System.Logger LOG = System.getLogger(ConnectionPool.class.getName());
+
+    private final String url;
+    private final Properties connectionProperties;
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutNanos;
+    private final long idleTimeoutNanos;
+    private final int validationTimeoutSeconds;
+    private final int statementCacheSize;
+    private final boolean preloadStatements;
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition connectionAvailable = lock.newCondition();
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private final ScheduledExecutorService evictor;
+
+    // Guarded by lock
+    private int totalConnections;
+    private int leasedConnections;
+    private int waitingCallers;
+    private boolean closed;
+
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+    private final LongAdder statementCacheEvictions = new LongAdder();
+    private final MethodMetrics borrowMetrics;
+
+    /**
+     * Creates a pool for the given database and opens the minimum number of connections.
+     *
+     * @param url                      the JDBC connection URL
+     * @param connectionProperties     driver properties, including user and password
+     * @param minSize                  connections kept open even when idle
+     * @param maxSize                  upper bound on open connections
+     * @param borrowTimeoutMillis      how long {@link #borrow()} waits for a free connection
+     * @param idleTimeoutMillis        idle time after which surplus connections are closed
+     * @param validationTimeoutSeconds timeout passed to {@link Connection#isValid(int)} on borrow
+     * @param evictionIntervalMillis   how often idle connections are inspected
+     * @param statementCacheSize       prepared statements cached per connection, 0 to disable
+     * @param preloadStatements        whether statements registered with
+     *                                 {@link StatementCache#preload(String...)} are prepared on connect
+     * @throws SQLException if the initial connections cannot be opened
+     */
+    public ConnectionPool(String url, Properties connectionProperties,
+                          int minSize, int maxSize,
+                          long borrowTimeoutMillis, long idleTimeoutMillis,
+                          int validationTimeoutSeconds, long evictionIntervalMillis,
+                          int statementCacheSize, boolean preloadStatements) throws SQLException {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+
+        this.url = url;
+        this.connectionProperties = connectionProperties;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.borrowTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(borrowTimeoutMillis);
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.statementCacheSize = statementCacheSize;
+        this.preloadStatements = preloadStatements;
+        // Named by host and database, such as localhost:5432/hms
+        String poolName = url.replaceFirst("^jdbc:[a-z]+://", "").replaceFirst("\\?.*$", "");
+        this.borrowMetrics = Metrics.forMethod("pool", poolName, "borrow");
+
+        fillToMinimum();
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hms-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor.scheduleWithFixedDelay(this::evictIdleConnections,
+                evictionIntervalMillis, evictionIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a pool for the given URL using the credentials and pool settings
+     * from {@link DatabaseConfig}.
+     *
+     * @param url the JDBC connection URL
+     * @return a new connection pool
+     * @throws SQLException if the initial connections cannot be opened
+     */
+    public static ConnectionPool fromConfig(String url) throws SQLException {
+        Properties properties = new Properties();
+        properties.setProperty("user", DatabaseConfig.getDbUsername());
+        properties.setProperty("password", DatabaseConfig.getDbPassword());
+        if (DatabaseConfig.getPrepareThreshold() != null) {
+            properties.setProperty("prepareThreshold", DatabaseConfig.getPrepareThreshold());
+        }
+
+        return new ConnectionPool(
+                url,
+                properties,
+                DatabaseConfig.getPoolMinSize(),
+                DatabaseConfig.getPoolMaxSize(),
+                DatabaseConfig.getPoolBorrowTimeoutMillis(),
+                DatabaseConfig.getPoolIdleTimeoutMillis(),
+                DatabaseConfig.getPoolValidationTimeoutSeconds(),
+                DatabaseConfig.getPoolEvictionIntervalMillis(),
+                DatabaseConfig.getStatementCacheSize(),
+                DatabaseConfig.isStatementPreloadEnabled()
+        );
+    }
+
+    /**
+     * Leases a connection from the pool, waiting up to the borrow timeout if
+     * all connections are in use. The caller must close the returned connection
+     * to hand it back.
+     *
+     * @return a validated connection
+     * @throws SQLException if the pool is closed, the wait times out or a new
+     *                      connection cannot be opened
+     */
+    public Connection borrow() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return acquire(start);
+        } catch (SQLException e) {
+            borrowMetrics.record(System.nanoTime() - start, 0, true);
+            throw e;
+        }
+    }
+
+    private Connection acquire(long start) throws SQLException {
+        long deadline = start + borrowTimeoutNanos;
+
+        while (true) {
+            PooledConnection candidate = null;
+            boolean mustCreate = false;
+
+            lock.lock();
+            try {
+                while (true) {
+                    if (closed) {
+                        throw new SQLException("Connection pool is closed");
+                    }
+                    candidate = idle.pollFirst();
+                    if (candidate != null) {
+                        break;
+                    }
+                    if (totalConnections < maxSize) {
+                        totalConnections++;
+                        mustCreate = true;
+                        break;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        timeoutCount.increment();
+                        throw new SQLException("Timed out after " +
+                                TimeUnit.NANOSECONDS.toMillis(borrowTimeoutNanos) +
+                                " ms waiting for a database connection");
+                    }
+                    awaitConnection(remaining);
+                }
+                leasedConnections++;
+            } finally {
+                lock.unlock();
+            }
+
+            if (mustCreate) {
+                try {
+                    candidate = openPooledConnection();
+                } catch (SQLException e) {
+                    discardLease();
+                    throw e;
+                }
+            } else if (!isUsable(candidate)) {
+                candidate.closePhysical();
+                discardLease();
+                continue;
+            }
+
+            recordWait(System.nanoTime() - start);
+            return candidate.lease();
+        }
+    }
+
+    /**
+     * Returns a connection to the pool. Called by the lease proxy when the caller
+     * closes its connection. Connections left mid-transaction are rolled back,
+     * read-only connections are made writable again, and broken connections are
+     * discarded.
+     *
+     * @param connection the pooled connection being returned
+     */
+    void release(PooledConnection connection) {
+        Connection physical = connection.getPhysical();
+        boolean healthy;
+        try {
+            if (physical.isClosed()) {
+                healthy = false;
+            } else {
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+                if (physical.isReadOnly()) {
+                    physical.setReadOnly(false);
+                }
+                physical.clearWarnings();
+                healthy = true;
+            }
+        } catch (SQLException e) {
+            healthy = false;
+        }
+
+        lock.lock();
+        try {
+            leasedConnections--;
+            if (healthy && !closed) {
+                connection.markReturned();
+                idle.addFirst(connection);
+                connectionAvailable.signal();
+                return;
+            }
+            totalConnections--;
+            connectionAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+        connection.closePhysical();
+    }
+
+    /**
+     * Returns a point-in-time snapshot of the pool's usage statistics.
+     *
+     * @return current pool statistics
+     */
+    public PoolStats getStats() {
+        lock.lock();
+        try {
+            return new PoolStats(
+                    totalConnections,
+                    leasedConnections,
+                    idle.size(),
+                    waitingCallers,
+                    borrowCount.sum(),
+                    timeoutCount.sum(),
+                    TimeUnit.NANOSECONDS.toMicros(totalWaitNanos.sum()),
+                    TimeUnit.NANOSECONDS.toMicros(maxWaitNanos.get()),
+                    statementCacheHits.sum(),
+                    statementCacheMisses.sum(),
+                    statementCacheEvictions.sum()
+            );
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the pool. Idle connections are closed immediately; leased connections
+     * are closed as they are returned. Waiting callers fail with an exception.
+     */
+    @Override
+    public void close() {
+        List<PooledConnection> toClose;
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            toClose = new ArrayList<>(idle);
+            totalConnections -= idle.size();
+            idle.clear();
+            connectionAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        evictor.shutdownNow();
+        toClose.forEach(PooledConnection::closePhysical);
+    }
+
+    /**
+     * Closes idle connections that have exceeded the idle timeout while keeping
+     * at least {@code minSize} connections, then tops the pool back up to the minimum.
+     */
+    private void evictIdleConnections() {
+        List<PooledConnection> expired = new ArrayList<>();
+        long now = System.nanoTime();
+
+        lock.lock();
+        try {
+            // Idle connections are pushed to the front, so the oldest sit at the back
+            Iterator<PooledConnection> iterator = idle.descendingIterator();
+            while (iterator.hasNext() && totalConnections > minSize) {
+                PooledConnection connection = iterator.next();
+                if (now - connection.getLastReturnedNanos() < idleTimeoutNanos) {
+                    break;
+                }
+                iterator.remove();
+                totalConnections--;
+                expired.add(connection);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        expired.forEach(PooledConnection::closePhysical);
+
+        try {
+            fillToMinimum();
+        } catch (SQLException e) {
+            LOG.log(System.Logger.Level.WARNING, "Error replenishing connection pool", e);
+        }
+    }
+
+    /**
+     * Opens connections until the pool holds at least {@code minSize} of them.
+     *
+     * @throws SQLException if a connection cannot be opened
+     */
+    private void fillToMinimum() throws SQLException {
+        while (true) {
+            lock.lock();
+            try {
+                if (closed || totalConnections >= minSize) {
+                    return;
+                }
+                totalConnections++;
+            } finally {
+                lock.unlock();
+            }
+
+            PooledConnection connection;
+            try {
+                connection = openPooledConnection();
+            } catch (SQLException e) {
+                lock.lock();
+                try {
+                    totalConnections--;
+                } finally {
+                    lock.unlock();
+                }
+                throw e;
+            }
+
+            lock.lock();
+            try {
+                idle.addLast(connection);
+                connectionAvailable.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Forgets a connection slot that was reserved for a lease but could not be used,
+     * either because opening failed or because validation rejected it.
+     */
+    private void discardLease() {
+        lock.lock();
+        try {
+            leasedConnections--;
+            totalConnections--;
+            connectionAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits on the availability condition. Must be called with the lock held.
+     *
+     * @param remainingNanos the maximum time to wait
+     * @throws SQLException if the waiting thread is interrupted
+     */
+    private void awaitConnection(long remainingNanos) throws SQLException {
+        waitingCallers++;
+        try {
+            connectionAvailable.awaitNanos(remainingNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        } finally {
+            waitingCallers--;
+        }
+    }
+
+    private boolean isUsable(PooledConnection connection) {
+        try {
+            return connection.getPhysical().isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Opens a physical connection and, if enabled, attaches and warms its statement cache.
+     *
+     * @return the new pooled connection
+     * @throws SQLException if the connection cannot be opened
+     */
+    private PooledConnection openPooledConnection() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, connectionProperties);
+        if (statementCacheSize <= 0) {
+            return new PooledConnection(this, physical, null);
+        }
+
+        StatementCache cache = new StatementCache(physical, statementCacheSize,
+                statementCacheHits, statementCacheMisses, statementCacheEvictions);
+        if (preloadStatements) {
+            try {
+                cache.warmUp();
+            } catch (SQLException e) {
+                cache.closeAll();
+                physical.close();
+                throw e;
+            }
+        }
+        return new PooledConnection(this, physical, cache);
+    }
+
+    private void recordWait(long waitNanos) {
+        borrowCount.increment();
+        totalWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        borrowMetrics.record(waitNanos, 0, false);
+    }
+}
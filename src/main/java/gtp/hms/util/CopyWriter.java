@@ -0,0 +1,214 @@
+package gtp.hms.util;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Streams rows into a table with PostgreSQL {@code COPY ... FROM STDIN}.
+ * <p>
+ * Rows are written field by field in COPY's text format and sent to the
+ * server in 64 KB chunks, so memory use stays flat however many rows are
+ * loaded. Call {@link #finish()} to complete the load; closing a writer that
+ * was not finished cancels the COPY and nothing it wrote is kept.
+ */
+public final class CopyWriter implements AutoCloseable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final CopyIn copyIn;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private boolean firstField = true;
+    private long rows;
+    private boolean finished;
+
+    /**
+     * Starts a COPY into the given columns of a table.
+     *
+     * @param conn    a connection to a PostgreSQL database; pooled connections are unwrapped
+     * @param table   the table to load
+     * @param columns the columns each row supplies, in order
+     * @throws SQLException if the COPY cannot be started
+     */
+    public CopyWriter(Connection conn, String table, String... columns) throws SQLException {
+        this(conn.unwrap(PGConnection.class).getCopyAPI()
+                .copyIn("COPY " + table + " (" + String.join(", ", columns) + ") FROM STDIN"));
+    }
+
+    /**
+     * Writes to a COPY that has already been started.
+     */
+    CopyWriter(CopyIn copyIn) {
+        this.copyIn = copyIn;
+    }
+
+    public CopyWriter field(String value) throws SQLException {
+        if (value == null) {
+            return nullField();
+        }
+        separator();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> writeAscii("\\\\");
+                case '\t' -> writeAscii("\\t");
+                case '\n' -> writeAscii("\\n");
+                case '\r' -> writeAscii("\\r");
+                default -> {
+                    if (c < 0x80) {
+                        writeByte((byte) c);
+                    } else {
+                        // Rare outside ASCII; encode the rest of the value in one go
+                        writeBytes(escape(value.substring(i)).getBytes(StandardCharsets.UTF_8));
+                        return this;
+                    }
+                }
+            }
+        }
+        return this;
+    }
+
+    public CopyWriter field(int value) throws SQLException {
+        separator();
+        writeAscii(Integer.toString(value));
+        return this;
+    }
+
+    public CopyWriter field(long value) throws SQLException {
+        separator();
+        writeAscii(Long.toString(value));
+        return this;
+    }
+
+    public CopyWriter field(boolean value) throws SQLException {
+        separator();
+        writeByte((byte) (value ? 't' : 'f'));
+        return this;
+    }
+
+    public CopyWriter field(UUID value) throws SQLException {
+        if (value == null) {
+            return nullField();
+        }
+        separator();
+        writeAscii(value.toString());
+        return this;
+    }
+
+    public CopyWriter field(LocalDateTime value) throws SQLException {
+        if (value == null) {
+            return nullField();
+        }
+        separator();
+        writeAscii(value.toString());
+        return this;
+    }
+
+    /**
+     * Writes a value whose text form needs no escaping, such as a number or date.
+     * The value is sent as UTF-8 and may be of any length.
+     */
+    public CopyWriter rawField(String value) throws SQLException {
+        separator();
+        writeBytes(value.getBytes(StandardCharsets.UTF_8));
+        return this;
+    }
+
+    public CopyWriter nullField() throws SQLException {
+        separator();
+        writeAscii("\\N");
+        return this;
+    }
+
+    /**
+     * Ends the current row.
+     */
+    public void endRow() throws SQLException {
+        writeByte((byte) '\n');
+        firstField = true;
+        rows++;
+    }
+
+    /**
+     * Returns the number of rows written so far.
+     *
+     * @return rows written
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * Sends the remaining rows and completes the COPY.
+     *
+     * @return the number of rows the server loaded
+     * @throws SQLException if the server rejects the data
+     */
+    public long finish() throws SQLException {
+        flush();
+        finished = true;
+        return copyIn.endCopy();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (!finished && copyIn.isActive()) {
+            copyIn.cancelCopy();
+        }
+    }
+
+    private void separator() throws SQLException {
+        if (!firstField) {
+            writeByte((byte) '\t');
+        }
+        firstField = false;
+    }
+
+    /**
+     * Writes short ASCII text such as a number, UUID or timestamp; anything
+     * else goes through {@link #writeBytes(byte[])}.
+     */
+    private void writeAscii(String text) throws SQLException {
+        if (BUFFER_SIZE - position < text.length()) {
+            flush();
+        }
+        for (int i = 0; i < text.length(); i++) {
+            buffer[position++] = (byte) text.charAt(i);
+        }
+    }
+
+    private void writeByte(byte b) throws SQLException {
+        if (position == BUFFER_SIZE) {
+            flush();
+        }
+        buffer[position++] = b;
+    }
+
+    private void writeBytes(byte[] bytes) throws SQLException {
+        if (BUFFER_SIZE - position < bytes.length) {
+            flush();
+        }
+        if (bytes.length > BUFFER_SIZE) {
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            return;
+        }
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void flush() throws SQLException {
+        if (position > 0) {
+            copyIn.writeToCopy(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+}
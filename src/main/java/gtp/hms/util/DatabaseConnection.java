@@ -3,33 +3,55 @@ package gtp.hms.util;
 import gtp.hms.config.DatabaseConfig;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 /**
- * Singleton class for managing database connections.
- * Provides thread-safe access to a single database connection instance
- * with lazy initialisation and automatic reconnection when closed.
+ * Singleton entry point for obtaining database connections.
+ * Backs every {@link #getConnection()} call with a bounded {@link ConnectionPool}
+ * configured through {@link DatabaseConfig}, so concurrent callers each get their
+ * own connection instead of sharing one socket.
+ * <p>
+ * Read-only DAO methods use {@link #getReadConnection()}, which routes to a
+ * read replica when any are configured. A thread that has just written keeps
+ * reading from the primary for the configured read-your-writes window. A write
+ * counts from the moment it is durable: when {@link TransactionManager} commits
+ * a transaction that changed data, or when a pooled connection that ran an
+ * insert, update or delete in autocommit mode is closed. Leasing a connection
+ * through {@link #getConnection()} does not by itself count as a write.
+ * <p>
+ * The write stamp belongs to the thread. Work that continues on another thread
+ * carries it along with {@link #currentWriteStamp()} and
+ * {@link #adoptWriteStamp(AtomicLong)}, as the asynchronous service API does.
+ * <p>
+ * Connections must be closed by the caller; closing hands them back to the pool.
  */
 public class DatabaseConnection {
-    private static DatabaseConnection instance;
-    private final Connection connection;
+    private static final Object LOCK = new Object();
+    private static volatile DatabaseConnection instance;
+    private static final ThreadLocal<AtomicLong> LAST_WRITE_NANOS =
+            ThreadLocal.withInitial(() -> new AtomicLong(Long.MIN_VALUE));
+
+    private final ConnectionPool pool;
+    private final ReplicaRouter replicaRouter;
+    private final long readYourWritesNanos;
 
     /**
      * Private constructor to enforce singleton pattern.
-     * Initialises database connection using configuration from DatabaseConfig.
+     * Initialises the connection pool using configuration from DatabaseConfig.
      *
      * @throws SQLException if database connection fails or driver not found
      */
     private DatabaseConnection() throws SQLException {
         try {
             Class.forName(DatabaseConfig.getDbDriver());
-            this.connection = DriverManager.getConnection(
-                    DatabaseConfig.getDbUrl(),
-                    DatabaseConfig.getDbUsername(),
-                    DatabaseConfig.getDbPassword()
-            );
+            this.pool = ConnectionPool.fromConfig(DatabaseConfig.getDbUrl());
+            this.replicaRouter = ReplicaRouter.fromConfig();
+            this.readYourWritesNanos = TimeUnit.MILLISECONDS.toNanos(DatabaseConfig.getReadYourWritesMillis());
         } catch (ClassNotFoundException ex) {
             throw new SQLException("Database driver not found", ex);
         }
@@ -37,41 +59,165 @@ public class DatabaseConnection {
 
     /**
      * Gets the singleton instance of DatabaseConnection.
-     * Creates new connection if none exists or previous connection was closed.
+     * Creates the pool on first use, or again after {@link #closeConnection()}.
      *
      * @return DatabaseConnection instance
-     * @throws SQLException if database connection fails
+     * @throws SQLException if the connection pool cannot be initialised
      */
     public static DatabaseConnection getInstance() throws SQLException {
-        if (instance == null) {
-            instance = new DatabaseConnection();
-        } else if (instance.getConnection().isClosed()) {
-            instance = new DatabaseConnection();
+        DatabaseConnection current = instance;
+        if (current == null) {
+            synchronized (LOCK) {
+                current = instance;
+                if (current == null) {
+                    current = new DatabaseConnection();
+                    instance = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Leases a connection from the pool. Closing the returned connection
+     * hands it back to the pool rather than closing the underlying socket.
+     * Inside {@link TransactionManager#inTransaction} the transaction's
+     * connection is returned instead, and closing it has no effect.
+     *
+     * @return a pooled Connection object
+     * @throws SQLException if no connection becomes available within the borrow timeout
+     */
+    public Connection getConnection() throws SQLException {
+        Connection bound = TransactionManager.currentConnection();
+        if (bound != null) {
+            return bound;
+        }
+        return pool.borrow();
+    }
+
+    /**
+     * Leases a connection for a read-only query. Uses a read replica when one is
+     * configured and healthy, and the primary otherwise, inside a transaction, or
+     * within the read-your-writes window after this thread last wrote.
+     *
+     * @return a pooled Connection object that must not be used for writes
+     * @throws SQLException if no connection becomes available within the borrow timeout
+     */
+    public Connection getReadConnection() throws SQLException {
+        Connection bound = TransactionManager.currentConnection();
+        if (bound != null) {
+            return bound;
+        }
+        if (replicaRouter != null && !withinReadYourWritesWindow()) {
+            Connection replica = replicaRouter.borrow();
+            if (replica != null) {
+                return replica;
+            }
         }
-        return instance;
+        return pool.borrow();
+    }
+
+    private boolean withinReadYourWritesWindow() {
+        long lastWrite = LAST_WRITE_NANOS.get().get();
+        return lastWrite != Long.MIN_VALUE && System.nanoTime() - lastWrite < readYourWritesNanos;
     }
 
     /**
-     * Gets the active database connection.
+     * Returns the current thread's write stamp, so work handed to another
+     * thread can adopt it and keep reading its own writes.
      *
-     * @return current Connection object
+     * @return the stamp shared by every thread that adopts it
      */
-    public Connection getConnection() {
-        return connection;
+    public static AtomicLong currentWriteStamp() {
+        return LAST_WRITE_NANOS.get();
     }
 
     /**
-     * Closes the database connection if it's open.
-     * Silently handles any errors that occur during closing.
+     * Makes the current thread share a stamp captured on another thread with
+     * {@link #currentWriteStamp()}. Writes made here then also keep the other
+     * thread's reads on the primary, and the other way round.
+     *
+     * @param stamp the stamp to adopt
+     * @return the stamp the thread used before, for restoring afterwards
+     */
+    public static AtomicLong adoptWriteStamp(AtomicLong stamp) {
+        AtomicLong previous = LAST_WRITE_NANOS.get();
+        LAST_WRITE_NANOS.set(stamp);
+        return previous;
+    }
+
+    /**
+     * Records that the current thread's writes have just become durable.
+     */
+    static void recordWrite() {
+        LAST_WRITE_NANOS.get().set(System.nanoTime());
+    }
+
+    /**
+     * Indicates whether a statement changes data, going by its leading keyword.
+     * A {@code WITH} query counts as a write if any of its parts does.
+     *
+     * @param sql the statement text
+     * @return true for inserts, updates, deletes and other non-query statements
+     */
+    static boolean isWriteStatement(String sql) {
+        int start = 0;
+        while (start < sql.length() && (Character.isWhitespace(sql.charAt(start)) || sql.charAt(start) == '(')) {
+            start++;
+        }
+        int end = start;
+        while (end < sql.length() && Character.isLetter(sql.charAt(end))) {
+            end++;
+        }
+        String keyword = sql.substring(start, end).toUpperCase(Locale.ROOT);
+        switch (keyword) {
+            case "SELECT":
+            case "VALUES":
+            case "TABLE":
+            case "SHOW":
+            case "EXPLAIN":
+                return false;
+            case "WITH":
+                String upper = sql.toUpperCase(Locale.ROOT);
+                return upper.contains("INSERT ") || upper.contains("UPDATE ")
+                        || upper.contains("DELETE ") || upper.contains("MERGE ");
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Gets the current usage statistics of the connection pool.
+     *
+     * @return snapshot of pool statistics
+     */
+    public PoolStats getPoolStats() {
+        return pool.getStats();
+    }
+
+    /**
+     * Gets the usage statistics of each read replica's pool, keyed by URL.
+     *
+     * @return replica pool statistics, empty if no replicas are configured
+     */
+    public Map<String, PoolStats> getReplicaPoolStats() {
+        return replicaRouter == null ? Map.of() : replicaRouter.getStats();
+    }
+
+    /**
+     * Shuts down the connection pool, closing all idle connections.
+     * A later call to {@link #getInstance()} starts a fresh pool.
      */
     public void closeConnection() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-                System.out.println("Database connection closed successfully");
+        synchronized (LOCK) {
+            if (instance == this) {
+                instance = null;
             }
-        } catch (SQLException e) {
-            System.err.println("Error closing connection: " + e.getMessage());
         }
+        pool.close();
+        if (replicaRouter != null) {
+            replicaRouter.close();
+        }
+        System.out.println("Database connection pool closed successfully");
     }
 }
@@ -59,12 +59,19 @@ public class DatabaseSeeder {
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
              Statement stmt = conn.createStatement()) {
 
-            // Split and execute each statement
-            String[] statements = sqlScript.split(";(?=\\s*[A-Z])");
-            for (String statement : statements) {
-                if (!statement.trim().isEmpty()) {
-                    stmt.execute(statement);
+            // Send every statement in one batch and one transaction, so a failure leaves no partial seed
+            conn.setAutoCommit(false);
+            try {
+                for (String statement : SqlScriptTokenizer.split(sqlScript)) {
+                    stmt.addBatch(statement);
                 }
+                stmt.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
             System.out.println("✅ Database seeded successfully!");
         }
@@ -0,0 +1,134 @@
+package gtp.hms.util;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of one {@link BulkImporter} run: how many rows were read, merged
+ * and rejected, the rejection reasons with their counts, and the first few
+ * rejected rows for a quick look.
+ */
+public final class ImportReport {
+    private final String target;
+    private final long rowsRead;
+    private final long inserted;
+    private final long updated;
+    private final long rejected;
+    private final Map<String, Long> rejectsByReason;
+    private final List<Rejection> sampleRejects;
+    private final long elapsedNanos;
+
+    ImportReport(String target, long rowsRead, long inserted, long updated, long rejected,
+                 Map<String, Long> rejectsByReason, List<Rejection> sampleRejects, long elapsedNanos) {
+        this.target = target;
+        this.rowsRead = rowsRead;
+        this.inserted = inserted;
+        this.updated = updated;
+        this.rejected = rejected;
+        this.rejectsByReason = Collections.unmodifiableMap(rejectsByReason);
+        this.sampleRejects = List.copyOf(sampleRejects);
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getInserted() {
+        return inserted;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Returns the number of rejected rows per reason, most frequent first.
+     *
+     * @return an unmodifiable map of reason to count
+     */
+    public Map<String, Long> getRejectsByReason() {
+        return rejectsByReason;
+    }
+
+    /**
+     * Returns the first rejected rows in file order.
+     *
+     * @return an unmodifiable list of at most {@link BulkImporter#SAMPLE_REJECTS} rejections
+     */
+    public List<Rejection> getSampleRejects() {
+        return sampleRejects;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    /**
+     * Returns the rows processed per second, counting rejected rows.
+     *
+     * @return the import rate, or 0 if nothing was read
+     */
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rowsRead * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ImportReport[target=%s, read=%d, inserted=%d, updated=%d, rejected=%d, " +
+                        "elapsed=%dms, %.0f rows/s, reasons=%s]",
+                target, rowsRead, inserted, updated, rejected, getElapsedMillis(), getRowsPerSecond(),
+                rejectsByReason);
+    }
+
+    /**
+     * A rejected input row.
+     */
+    public static final class Rejection {
+        private final long line;
+        private final String key;
+        private final String reason;
+
+        Rejection(long line, String key, String reason) {
+            this.line = line;
+            this.key = key;
+            this.reason = reason;
+        }
+
+        /**
+         * Returns the row's line number in the file, counting the header as line 1.
+         *
+         * @return the line number
+         */
+        public long getLine() {
+            return line;
+        }
+
+        /**
+         * Returns the row's patient number as it appeared in the file.
+         *
+         * @return the raw key, possibly null or malformed
+         */
+        public String getKey() {
+            return key;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return "line " + line + " (" + key + "): " + reason;
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package gtp.hms.util;
+
+import gtp.hms.exception.DaoException;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Applies versioned schema migrations from {@code db/migration}.
+ * <p>
+ * Scripts are named {@code V<version>__<description>.sql} and run once each,
+ * in version order. Every applied script is recorded in
+ * {@code schema_migration_history} with a SHA-256 checksum; editing a script
+ * after it has been applied is reported as an error rather than silently
+ * ignored, so fixes must ship as a new version.
+ * <p>
+ * A script normally runs as a single transaction, its statements sent to the
+ * server as one batch. A script whose first line is
+ * {@code -- migration: no-transaction} instead runs statement by statement in
+ * autocommit mode, which {@code CREATE INDEX CONCURRENTLY} requires. Such a
+ * script is only recorded once all of its statements succeed, so it must be
+ * safe to re-run after a partial failure.
+ * <p>
+ * {@code V1} is the original {@code hms_schema.sql}, unchanged. A database
+ * that was created from that script before migrations existed has no history
+ * yet but already has the schema, so V1 is recorded as applied without being
+ * run and every later version is applied on top of it.
+ * <p>
+ * A session-level advisory lock keeps two instances starting at the same
+ * time from migrating concurrently.
+ */
+public final class MigrationRunner {
+    private static final System.Logger LOG = System.getLogger(MigrationRunner.class.getName());
+
+    private static final String LOCATION = "db/migration";
+
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+
+    private static final String NO_TRANSACTION_DIRECTIVE = "-- migration: no-transaction";
+
+    // Arbitrary application-wide key for pg_advisory_lock
+    private static final long LOCK_KEY = 0x686d735f6d6967L;
+
+    private static final String CREATE_HISTORY_SQL = "CREATE TABLE IF NOT EXISTS schema_migration_history (" +
+            "version INT PRIMARY KEY, " +
+            "description VARCHAR(200) NOT NULL, " +
+            "script VARCHAR(255) NOT NULL, " +
+            "checksum CHAR(64) NOT NULL, " +
+            "execution_millis BIGINT NOT NULL, " +
+            "installed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)";
+
+    private static final String FIND_APPLIED_SQL = "SELECT version, checksum FROM schema_migration_history";
+
+    private static final String INSERT_HISTORY_SQL = "INSERT INTO schema_migration_history " +
+            "(version, description, script, checksum, execution_millis) VALUES (?, ?, ?, ?, ?)";
+
+    // A table created by V1; if it exists without any history, V1 was applied by hand
+    private static final String BASELINE_TABLE = "patient";
+
+    private static final String SCHEMA_EXISTS_SQL = "SELECT to_regclass(?) IS NOT NULL";
+
+    private static final String LOCK_SQL = "SELECT pg_advisory_lock(?)";
+
+    private static final String UNLOCK_SQL = "SELECT pg_advisory_unlock(?)";
+
+    private MigrationRunner() {}
+
+    /**
+     * A migration script found on the classpath or in the source tree.
+     */
+    private static final class Migration {
+        private final int version;
+        private final String description;
+        private final String scriptName;
+        private final String script;
+        private final String checksum;
+        private final boolean transactional;
+
+        private Migration(int version, String description, String scriptName, String script) {
+            this.version = version;
+            this.description = description.replace('_', ' ');
+            this.scriptName = scriptName;
+            this.script = script;
+            this.checksum = sha256(script.replace("\r\n", "\n"));
+            this.transactional = runsInTransaction(script);
+        }
+    }
+
+    /**
+     * Indicates whether a script runs as one transaction, that is, whether it
+     * does not start with the no-transaction directive.
+     *
+     * @param script the script text
+     * @return false if the first line is {@code -- migration: no-transaction}
+     */
+    static boolean runsInTransaction(String script) {
+        return !script.stripLeading().startsWith(NO_TRANSACTION_DIRECTIVE);
+    }
+
+    /**
+     * Brings the schema up to date, applying every script newer than the last
+     * one recorded.
+     *
+     * @return the number of migrations applied
+     * @throws DaoException if a script cannot be read, an applied script has
+     *                      changed, or a migration fails
+     */
+    public static int migrate() throws DaoException {
+        if (TransactionManager.isActive()) {
+            throw new DaoException("Migrations cannot run inside a transaction");
+        }
+
+        List<Migration> migrations = loadMigrations();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(true);
+            lock(conn, LOCK_SQL);
+            try {
+                return applyPending(conn, migrations);
+            } finally {
+                lock(conn, UNLOCK_SQL);
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (DaoException e) {
+            throw e;
+        } catch (SQLException e) {
+            throw new DaoException("Schema migration failed", e);
+        }
+    }
+
+    private static int applyPending(Connection conn, List<Migration> migrations) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(CREATE_HISTORY_SQL);
+        }
+
+        Map<Integer, String> applied = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement(FIND_APPLIED_SQL);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                applied.put(rs.getInt("version"), rs.getString("checksum"));
+            }
+        }
+
+        if (applied.isEmpty() && !migrations.isEmpty() && migrations.get(0).version == 1
+                && baselineSchemaExists(conn)) {
+            Migration baseline = migrations.get(0);
+            LOG.log(System.Logger.Level.INFO, "Existing schema found; recording " + baseline.scriptName + " as applied");
+            recordApplied(conn, baseline, System.nanoTime());
+            applied.put(baseline.version, baseline.checksum);
+        }
+
+        int count = 0;
+        for (Migration migration : migrations) {
+            String checksum = applied.remove(migration.version);
+            if (checksum != null) {
+                if (!checksum.equals(migration.checksum)) {
+                    throw new DaoException("Migration " + migration.scriptName +
+                            " has changed since it was applied; add a new version instead");
+                }
+                continue;
+            }
+
+            LOG.log(System.Logger.Level.INFO, "Applying migration " + migration.scriptName);
+            long start = System.nanoTime();
+            if (migration.transactional) {
+                applyInTransaction(conn, migration, start);
+            } else {
+                applyWithoutTransaction(conn, migration, start);
+            }
+            count++;
+        }
+
+        for (Integer version : applied.keySet()) {
+            LOG.log(System.Logger.Level.WARNING, "Applied migration V" + version + " no longer exists in " + LOCATION);
+        }
+        LOG.log(System.Logger.Level.INFO, count == 0 ? "Schema is up to date" : "Applied " + count + " migration(s)");
+        return count;
+    }
+
+    private static void applyInTransaction(Connection conn, Migration migration, long start) throws SQLException {
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            for (String statement : SqlScriptTokenizer.split(migration.script)) {
+                stmt.addBatch(statement);
+            }
+            stmt.executeBatch();
+            recordApplied(conn, migration, start);
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw new DaoException("Migration " + migration.scriptName + " failed and was rolled back", e);
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private static void applyWithoutTransaction(Connection conn, Migration migration, long start) throws SQLException {
+        // Executed one at a time: a batch would run as a single implicit transaction
+        try (Statement stmt = conn.createStatement()) {
+            for (String statement : SqlScriptTokenizer.split(migration.script)) {
+                stmt.execute(statement);
+            }
+            recordApplied(conn, migration, start);
+        } catch (SQLException e) {
+            throw new DaoException("Migration " + migration.scriptName +
+                    " failed part-way; fix the cause and run it again", e);
+        }
+    }
+
+    private static void recordApplied(Connection conn, Migration migration, long start) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_HISTORY_SQL)) {
+            stmt.setInt(1, migration.version);
+            stmt.setString(2, migration.description);
+            stmt.setString(3, migration.scriptName);
+            stmt.setString(4, migration.checksum);
+            stmt.setLong(5, (System.nanoTime() - start) / 1_000_000);
+            stmt.executeUpdate();
+        }
+    }
+
+    private static boolean baselineSchemaExists(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(SCHEMA_EXISTS_SQL)) {
+            stmt.setString(1, BASELINE_TABLE);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private static void lock(Connection conn, String sql) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setLong(1, LOCK_KEY);
+            stmt.execute();
+        }
+    }
+
+    /**
+     * Reads every migration script, sorted by version.
+     */
+    private static List<Migration> loadMigrations() throws DaoException {
+        List<Migration> migrations = new ArrayList<>();
+        Map<Integer, String> seen = new HashMap<>();
+
+        try (Stream<Path> scripts = Files.list(locateScripts())) {
+            for (Path path : (Iterable<Path>) scripts::iterator) {
+                String name = path.getFileName().toString();
+                Matcher matcher = SCRIPT_NAME.matcher(name);
+                if (!matcher.matches()) {
+                    continue;
+                }
+                int version = Integer.parseInt(matcher.group(1));
+                String duplicate = seen.put(version, name);
+                if (duplicate != null) {
+                    throw new DaoException("Migrations " + duplicate + " and " + name + " share version " + version);
+                }
+                migrations.add(new Migration(version, matcher.group(2), name,
+                        Files.readString(path, StandardCharsets.UTF_8)));
+            }
+        } catch (IOException e) {
+            throw new DaoException("Failed to read migration scripts", e);
+        }
+
+        migrations.sort((a, b) -> Integer.compare(a.version, b.version));
+        return Collections.unmodifiableList(migrations);
+    }
+
+    /**
+     * Finds the migration directory on the classpath, inside a JAR or not,
+     * falling back to the source tree during development.
+     */
+    private static Path locateScripts() throws IOException {
+        URL url = MigrationRunner.class.getResource("/" + LOCATION);
+        if (url != null) {
+            try {
+                URI uri = url.toURI();
+                if ("jar".equals(uri.getScheme())) {
+                    try {
+                        FileSystems.newFileSystem(uri, Map.of());
+                    } catch (FileSystemAlreadyExistsException ignored) {
+                        // Already open from an earlier run
+                    }
+                }
+                return Paths.get(uri);
+            } catch (URISyntaxException e) {
+                throw new IOException("Invalid migration location " + url, e);
+            }
+        }
+
+        Path devPath = Paths.get("src/main/resources", LOCATION);
+        if (Files.isDirectory(devPath)) {
+            return devPath;
+        }
+        throw new IOException("Migration directory " + LOCATION + " not found");
+    }
+
+    private static String sha256(String script) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(script.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
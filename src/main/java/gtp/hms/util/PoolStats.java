@@ -0,0 +1,99 @@
+package gtp.hms.util;
+
+/**
+ * Immutable snapshot of a {@link ConnectionPool}'s usage statistics.
+ */
+public class PoolStats {
+    private final int totalConnections;
+    private final int activeConnections;
+    private final int idleConnections;
+    private final int waitingCallers;
+    private final long borrowCount;
+    private final long timeoutCount;
+    private final long totalWaitMicros;
+    private final long maxWaitMicros;
+    private final long statementCacheHits;
+    private final long statementCacheMisses;
+    private final long statementCacheEvictions;
+
+    public PoolStats(int totalConnections, int activeConnections, int idleConnections,
+                     int waitingCallers, long borrowCount, long timeoutCount,
+                     long totalWaitMicros, long maxWaitMicros,
+                     long statementCacheHits, long statementCacheMisses, long statementCacheEvictions) {
+        this.totalConnections = totalConnections;
+        this.activeConnections = activeConnections;
+        this.idleConnections = idleConnections;
+        this.waitingCallers = waitingCallers;
+        this.borrowCount = borrowCount;
+        this.timeoutCount = timeoutCount;
+        this.totalWaitMicros = totalWaitMicros;
+        this.maxWaitMicros = maxWaitMicros;
+        this.statementCacheHits = statementCacheHits;
+        this.statementCacheMisses = statementCacheMisses;
+        this.statementCacheEvictions = statementCacheEvictions;
+    }
+
+    public int getTotalConnections() {
+        return totalConnections;
+    }
+
+    public int getActiveConnections() {
+        return activeConnections;
+    }
+
+    public int getIdleConnections() {
+        return idleConnections;
+    }
+
+    public int getWaitingCallers() {
+        return waitingCallers;
+    }
+
+    public long getBorrowCount() {
+        return borrowCount;
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount;
+    }
+
+    public long getTotalWaitMicros() {
+        return totalWaitMicros;
+    }
+
+    public long getMaxWaitMicros() {
+        return maxWaitMicros;
+    }
+
+    public long getStatementCacheHits() {
+        return statementCacheHits;
+    }
+
+    public long getStatementCacheMisses() {
+        return statementCacheMisses;
+    }
+
+    public long getStatementCacheEvictions() {
+        return statementCacheEvictions;
+    }
+
+    /**
+     * Average time callers spent waiting for a connection, including validation
+     * and any connection that had to be opened on their behalf.
+     *
+     * @return average wait in microseconds, or 0 if nothing has been borrowed yet
+     */
+    public long getAverageWaitMicros() {
+        return borrowCount == 0 ? 0 : totalWaitMicros / borrowCount;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolStats [total=" + totalConnections + ", active=" + activeConnections +
+                ", idle=" + idleConnections + ", waiters=" + waitingCallers +
+                ", borrows=" + borrowCount + ", timeouts=" + timeoutCount +
+                ", avgWaitMicros=" + getAverageWaitMicros() + ", maxWaitMicros=" + maxWaitMicros +
+                ", stmtCacheHits=" + statementCacheHits + ", stmtCacheMisses=" + statementCacheMisses +
+                ", stmtCacheEvictions=" + statementCacheEvictions + "]";
+    }
+}
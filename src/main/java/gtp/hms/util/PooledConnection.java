@@ -0,0 +1,232 @@
+package gtp.hms.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * A physical database connection owned by a {@link ConnectionPool}.
+ * <p>
+ * Callers never see the physical connection directly. Each lease hands out a
+ * lightweight proxy whose {@code close()} returns the connection to the pool
+ * instead of closing the socket, so DAOs can keep using try-with-resources.
+ * Once a lease has been closed, every further call through that proxy fails.
+ * <p>
+ * When a {@link StatementCache} is attached, {@code prepareStatement(sql)} and
+ * {@code prepareStatement(sql, autoGeneratedKeys)} are served from it. Prepared
+ * statements are also handed to an open {@link StatementCapture}, if any.
+ * <p>
+ * A lease that ran an insert, update or delete records a write for
+ * read-your-writes routing once it has committed: when the lease is closed in
+ * autocommit mode, or when its own transaction commits. Statement text is
+ * checked as it is prepared, or as it is executed for plain statements;
+ * stored procedure calls and {@code COPY}, which runs through the driver's own
+ * API, always count as writes.
+ */
+class PooledConnection {
+    private static final System.Logger LOG = System.getLogger(PooledConnection.class.getName());
+
+    private final ConnectionPool pool;
+    private final Connection physical;
+    private final StatementCache statementCache;
+    private final long createdAtNanos;
+    private volatile long lastReturnedNanos;
+
+    /**
+     * Wraps a physical connection.
+     *
+     * @param pool           the owning pool
+     * @param physical       the physical connection
+     * @param statementCache the statement cache for this connection, or null to disable caching
+     */
+    PooledConnection(ConnectionPool pool, Connection physical, StatementCache statementCache) {
+        this.pool = pool;
+        this.physical = physical;
+        this.statementCache = statementCache;
+        this.createdAtNanos = System.nanoTime();
+        this.lastReturnedNanos = createdAtNanos;
+    }
+
+    /**
+     * Creates a new lease proxy for this connection.
+     *
+     * @return a Connection whose close() hands the connection back to the pool
+     */
+    Connection lease() {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new Lease());
+    }
+
+    Connection getPhysical() {
+        return physical;
+    }
+
+    long getCreatedAtNanos() {
+        return createdAtNanos;
+    }
+
+    long getLastReturnedNanos() {
+        return lastReturnedNanos;
+    }
+
+    void markReturned() {
+        this.lastReturnedNanos = System.nanoTime();
+        if (statementCache != null) {
+            statementCache.onConnectionReturned();
+        }
+    }
+
+    /**
+     * Closes the cached statements and the underlying physical connection, ignoring any errors.
+     */
+    void closePhysical() {
+        if (statementCache != null) {
+            statementCache.closeAll();
+        }
+        try {
+            physical.close();
+        } catch (SQLException e) {
+            LOG.log(System.Logger.Level.WARNING, "Error closing pooled connection", e);
+        }
+    }
+
+    /**
+     * Invocation handler backing a single lease of the physical connection.
+     */
+    private final class Lease implements InvocationHandler {
+        private boolean returned;
+        private boolean wrote;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        try {
+                            if (wrote && physical.getAutoCommit()) {
+                                DatabaseConnection.recordWrite();
+                            }
+                        } finally {
+                            pool.release(PooledConnection.this);
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + physical + (returned ? ", returned" : "") + "]";
+                default:
+                    break;
+            }
+
+            if (returned) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+
+            switch (method.getName()) {
+                case "prepareStatement":
+                    break;
+                case "createStatement":
+                    return trackWrites((Statement) invokePhysical(method, args));
+                case "prepareCall":
+                case "unwrap": // COPY runs through the driver's own API
+                    wrote = true;
+                    return invokePhysical(method, args);
+                case "commit":
+                    invokePhysical(method, args);
+                    committed();
+                    return null;
+                case "setAutoCommit":
+                    // Switching autocommit back on commits the open transaction
+                    boolean commits = (Boolean) args[0] && !physical.getAutoCommit();
+                    invokePhysical(method, args);
+                    if (commits) {
+                        committed();
+                    }
+                    return null;
+                case "rollback":
+                    invokePhysical(method, args);
+                    if (args == null) {
+                        wrote = false;
+                    }
+                    return null;
+                default:
+                    return invokePhysical(method, args);
+            }
+            if (!wrote && DatabaseConnection.isWriteStatement((String) args[0])) {
+                wrote = true;
+            }
+
+            PreparedStatement stmt = null;
+            if (statementCache != null) {
+                Class<?>[] types = method.getParameterTypes();
+                if (types.length == 1) {
+                    stmt = statementCache.prepare((String) args[0], Statement.NO_GENERATED_KEYS, (Connection) proxy);
+                } else if (types.length == 2 && types[1] == int.class) {
+                    stmt = statementCache.prepare((String) args[0], (Integer) args[1], (Connection) proxy);
+                }
+            }
+            if (stmt == null) {
+                stmt = (PreparedStatement) invokePhysical(method, args);
+            }
+            return StatementCapture.wrapIfCapturing(stmt, (String) args[0]);
+        }
+
+        private void committed() {
+            if (wrote) {
+                wrote = false;
+                DatabaseConnection.recordWrite();
+            }
+        }
+
+        /**
+         * Wraps a plain statement so that executing or batching a write through
+         * it marks this lease as having written.
+         */
+        private Statement trackWrites(Statement stmt) {
+            return (Statement) Proxy.newProxyInstance(
+                    Statement.class.getClassLoader(),
+                    new Class<?>[]{Statement.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "equals":
+                                return proxy == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            default:
+                                break;
+                        }
+                        if (!wrote && args != null && args.length > 0 && args[0] instanceof String sql
+                                && (method.getName().startsWith("execute") || "addBatch".equals(method.getName()))
+                                && DatabaseConnection.isWriteStatement(sql)) {
+                            wrote = true;
+                        }
+                        try {
+                            return method.invoke(stmt, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+
+        private Object invokePhysical(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package gtp.hms.util;
+
+import gtp.hms.config.DatabaseConfig;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Routes read-only queries to PostgreSQL read replicas.
+ * <p>
+ * Each replica has its own {@link ConnectionPool}. A background task measures
+ * replication lag on every replica; replicas that lag more than the configured
+ * maximum, or that could not be reached, are skipped until they catch up.
+ * When no replica is usable {@link #borrow()} returns null and the caller
+ * falls back to the primary.
+ */
+public class ReplicaRouter implements AutoCloseable {
+    private static final System.Logger LOG = System.getLogger(ReplicaRouter.class.getName());
+
+    private static final String LAG_SQL =
+            "SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+                    "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0) END";
+
+    /**
+     * How a replica is chosen among the usable ones.
+     */
+    public enum Selection {
+        ROUND_ROBIN,
+        LEAST_LOADED;
+
+        static Selection fromConfig(String value) {
+            return "least-loaded".equalsIgnoreCase(value) ? LEAST_LOADED : ROUND_ROBIN;
+        }
+    }
+
+    private final List<Replica> replicas;
+    private final Selection selection;
+    private final long maxLagMillis;
+    private final AtomicInteger nextIndex = new AtomicInteger();
+    private final ScheduledExecutorService lagChecker;
+
+    /**
+     * Creates pools for the given replica URLs and starts lag monitoring.
+     * Replicas that cannot be reached at startup are logged and left out.
+     *
+     * @param urls                 the replica JDBC URLs
+     * @param selection            the replica selection strategy
+     * @param maxLagMillis         lag above which a replica is skipped
+     * @param lagCheckIntervalMillis how often lag is measured
+     */
+    public ReplicaRouter(List<String> urls, Selection selection,
+                         long maxLagMillis, long lagCheckIntervalMillis) {
+        List<Replica> opened = new ArrayList<>();
+        for (String url : urls) {
+            try {
+                opened.add(new Replica(url, ConnectionPool.fromConfig(url)));
+            } catch (SQLException e) {
+                LOG.log(System.Logger.Level.WARNING, "Read replica " + url + " unavailable, skipping", e);
+            }
+        }
+
+        this.replicas = Collections.unmodifiableList(opened);
+        this.selection = selection;
+        this.maxLagMillis = maxLagMillis;
+        this.lagChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hms-replica-lag");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        checkLag();
+        lagChecker.scheduleWithFixedDelay(this::checkLag,
+                lagCheckIntervalMillis, lagCheckIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a router from the replica settings in {@link DatabaseConfig}.
+     *
+     * @return a router, or null if no replicas are configured
+     */
+    public static ReplicaRouter fromConfig() {
+        List<String> urls = DatabaseConfig.getReplicaUrls();
+        if (urls.isEmpty()) {
+            return null;
+        }
+        return new ReplicaRouter(urls,
+                Selection.fromConfig(DatabaseConfig.getReplicaSelection()),
+                DatabaseConfig.getReplicaMaxLagMillis(),
+                DatabaseConfig.getReplicaLagCheckIntervalMillis());
+    }
+
+    /**
+     * Leases a connection from a usable replica.
+     *
+     * @return a replica connection, or null if no replica is currently usable
+     */
+    public Connection borrow() {
+        List<Replica> candidates = usableReplicas();
+        if (candidates.isEmpty()) {
+            return null;
+        }
+
+        int start = selection == Selection.LEAST_LOADED
+                ? leastLoadedIndex(candidates)
+                : Math.floorMod(nextIndex.getAndIncrement(), candidates.size());
+
+        // Try the chosen replica first, then the others before giving up
+        for (int i = 0; i < candidates.size(); i++) {
+            Replica replica = candidates.get((start + i) % candidates.size());
+            try {
+                return replica.pool.borrow();
+            } catch (SQLException e) {
+                replica.usable = false;
+                LOG.log(System.Logger.Level.WARNING, "Read replica " + replica.url + " failed, routing elsewhere", e);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns pool statistics for every replica, keyed by URL.
+     *
+     * @return replica pool statistics
+     */
+    public Map<String, PoolStats> getStats() {
+        Map<String, PoolStats> stats = new LinkedHashMap<>();
+        for (Replica replica : replicas) {
+            stats.put(replica.url, replica.pool.getStats());
+        }
+        return stats;
+    }
+
+    /**
+     * Returns the most recently measured lag of every replica, keyed by URL.
+     * Unreachable replicas report -1.
+     *
+     * @return replica lag in milliseconds
+     */
+    public Map<String, Long> getLagMillis() {
+        Map<String, Long> lag = new LinkedHashMap<>();
+        for (Replica replica : replicas) {
+            lag.put(replica.url, replica.lagMillis);
+        }
+        return lag;
+    }
+
+    @Override
+    public void close() {
+        lagChecker.shutdownNow();
+        replicas.forEach(replica -> replica.pool.close());
+    }
+
+    private List<Replica> usableReplicas() {
+        List<Replica> usable = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            if (replica.usable) {
+                usable.add(replica);
+            }
+        }
+        return usable;
+    }
+
+    private int leastLoadedIndex(List<Replica> candidates) {
+        int best = 0;
+        int bestActive = Integer.MAX_VALUE;
+        for (int i = 0; i < candidates.size(); i++) {
+            int active = candidates.get(i).pool.getStats().getActiveConnections();
+            if (active < bestActive) {
+                best = i;
+                bestActive = active;
+            }
+        }
+        return best;
+    }
+
+    private void checkLag() {
+        for (Replica replica : replicas) {
+            try (Connection conn = replica.pool.borrow();
+                 PreparedStatement stmt = conn.prepareStatement(LAG_SQL);
+                 ResultSet rs = stmt.executeQuery()) {
+                long lag = rs.next() ? rs.getLong(1) : Long.MAX_VALUE;
+                replica.lagMillis = lag;
+                replica.usable = lag <= maxLagMillis;
+            } catch (SQLException e) {
+                replica.lagMillis = -1;
+                replica.usable = false;
+            }
+        }
+    }
+
+    /**
+     * A replica's pool and its most recent health information.
+     */
+    private static final class Replica {
+        private final String url;
+        private final ConnectionPool pool;
+        private volatile long lagMillis;
+        private volatile boolean usable;
+
+        private Replica(String url, ConnectionPool pool) {
+            this.url = url;
+            this.pool = pool;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package gtp.hms.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a PostgreSQL script into individual statements.
+ * <p>
+ * Semicolons only end a statement at the top level: those inside string
+ * literals ({@code '...'}, {@code E'...'}), quoted identifiers, dollar-quoted
+ * bodies ({@code $$...$$}, {@code $tag$...$tag$}) and comments are kept as
+ * part of the statement. Line and (nested) block comments are removed, and
+ * statements that are empty once comments are gone are dropped.
+ */
+public final class SqlScriptTokenizer {
+
+    private SqlScriptTokenizer() {}
+
+    /**
+     * Splits a script into statements, without their terminating semicolons.
+     *
+     * @param script the SQL script
+     * @return the statements in script order
+     * @throws IllegalArgumentException if a literal, identifier, dollar quote
+     *                                  or block comment is not terminated
+     */
+    public static List<String> split(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        int length = script.length();
+        int i = 0;
+
+        while (i < length) {
+            char c = script.charAt(i);
+            char next = i + 1 < length ? script.charAt(i + 1) : '\0';
+
+            if (c == '-' && next == '-') {
+                int end = script.indexOf('\n', i);
+                i = end < 0 ? length : end;
+            } else if (c == '/' && next == '*') {
+                i = skipBlockComment(script, i);
+                current.append(' ');
+            } else if (c == '\'') {
+                int end = endOfQuoted(script, i, '\'', isEscapeString(script, i));
+                current.append(script, i, end);
+                i = end;
+            } else if (c == '"') {
+                int end = endOfQuoted(script, i, '"', false);
+                current.append(script, i, end);
+                i = end;
+            } else if (c == '$' && !isIdentifierPart(script, i - 1)) {
+                String tag = dollarTag(script, i);
+                if (tag == null) {
+                    current.append(c);
+                    i++;
+                } else {
+                    int close = script.indexOf(tag, i + tag.length());
+                    if (close < 0) {
+                        throw new IllegalArgumentException("Unterminated dollar quote " + tag + " at offset " + i);
+                    }
+                    int end = close + tag.length();
+                    current.append(script, i, end);
+                    i = end;
+                }
+            } else if (c == ';') {
+                addStatement(statements, current);
+                i++;
+            } else {
+                current.append(c);
+                i++;
+            }
+        }
+        addStatement(statements, current);
+        return statements;
+    }
+
+    private static void addStatement(List<String> statements, StringBuilder current) {
+        String statement = current.toString().strip();
+        if (!statement.isEmpty()) {
+            statements.add(statement);
+        }
+        current.setLength(0);
+    }
+
+    private static int skipBlockComment(String script, int start) {
+        int depth = 0;
+        int i = start;
+        while (i < script.length() - 1) {
+            if (script.charAt(i) == '/' && script.charAt(i + 1) == '*') {
+                depth++;
+                i += 2;
+            } else if (script.charAt(i) == '*' && script.charAt(i + 1) == '/') {
+                depth--;
+                i += 2;
+                if (depth == 0) {
+                    return i;
+                }
+            } else {
+                i++;
+            }
+        }
+        throw new IllegalArgumentException("Unterminated block comment at offset " + start);
+    }
+
+    /**
+     * Returns the offset just past the closing quote. A doubled quote is an
+     * escaped quote; in escape strings a backslash escapes the next character.
+     */
+    private static int endOfQuoted(String script, int start, char quote, boolean backslashEscapes) {
+        int i = start + 1;
+        while (i < script.length()) {
+            char c = script.charAt(i);
+            if (backslashEscapes && c == '\\') {
+                i += 2;
+            } else if (c == quote) {
+                if (i + 1 < script.length() && script.charAt(i + 1) == quote) {
+                    i += 2;
+                } else {
+                    return i + 1;
+                }
+            } else {
+                i++;
+            }
+        }
+        throw new IllegalArgumentException("Unterminated " + (quote == '"' ? "quoted identifier" : "string literal") +
+                " at offset " + start);
+    }
+
+    /** An E'...' literal, where the E is not the end of a longer identifier. */
+    private static boolean isEscapeString(String script, int quote) {
+        return quote > 0 && (script.charAt(quote - 1) == 'E' || script.charAt(quote - 1) == 'e')
+                && !isIdentifierPart(script, quote - 2);
+    }
+
+    /** Returns the dollar-quote tag starting at the offset, such as {@code $$} or {@code $body$}. */
+    private static String dollarTag(String script, int start) {
+        int i = start + 1;
+        while (i < script.length()) {
+            char c = script.charAt(i);
+            if (c == '$') {
+                return script.substring(start, i + 1);
+            }
+            boolean valid = i == start + 1
+                    ? Character.isLetter(c) || c == '_'
+                    : Character.isLetterOrDigit(c) || c == '_';
+            if (!valid) {
+                return null;
+            }
+            i++;
+        }
+        return null;
+    }
+
+    private static boolean isIdentifierPart(String script, int index) {
+        if (index < 0) {
+            return false;
+        }
+        char c = script.charAt(index);
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+}
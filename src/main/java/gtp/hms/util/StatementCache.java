@@ -0,0 +1,275 @@
+package gtp.hms.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded LRU cache of prepared statements belonging to one physical connection.
+ * <p>
+ * Statements are keyed by their SQL text and generated-keys mode. A cached
+ * statement is handed out wrapped in a proxy whose {@code close()} clears its
+ * parameters and returns it to the cache, so DAOs keep their usual
+ * try-with-resources blocks. When the cache is full the least recently used
+ * idle statement is closed. If the same SQL is requested again while its cached
+ * statement is still open, an uncached statement is returned instead.
+ * <p>
+ * DAOs can register their hot statements with {@link #preload(String...)} so
+ * that every new connection prepares them up front.
+ */
+public final class StatementCache {
+    private static final List<Key> PRELOADED = new CopyOnWriteArrayList<>();
+
+    private final Connection physical;
+    private final int maxSize;
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder evictions;
+    private int generation;
+
+    /**
+     * Creates a cache for one physical connection. The counters are shared by
+     * all caches of a pool so the pool can report totals.
+     */
+    StatementCache(Connection physical, int maxSize,
+                   LongAdder hits, LongAdder misses, LongAdder evictions) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+    }
+
+    /**
+     * Registers statements that should be prepared on every new pooled connection.
+     *
+     * @param sql the SQL texts to prepare
+     */
+    public static void preload(String... sql) {
+        for (String statement : sql) {
+            addPreloaded(new Key(statement, Statement.NO_GENERATED_KEYS));
+        }
+    }
+
+    /**
+     * Registers insert statements that are prepared with
+     * {@link Statement#RETURN_GENERATED_KEYS} on every new pooled connection.
+     *
+     * @param sql the SQL texts to prepare
+     */
+    public static void preloadWithGeneratedKeys(String... sql) {
+        for (String statement : sql) {
+            addPreloaded(new Key(statement, Statement.RETURN_GENERATED_KEYS));
+        }
+    }
+
+    private static void addPreloaded(Key key) {
+        if (!PRELOADED.contains(key)) {
+            PRELOADED.add(key);
+        }
+    }
+
+    /**
+     * Prepares every registered statement that fits in the cache.
+     *
+     * @throws SQLException if a statement cannot be prepared
+     */
+    void warmUp() throws SQLException {
+        for (Key key : PRELOADED) {
+            if (entries.size() >= maxSize) {
+                return;
+            }
+            if (!entries.containsKey(key)) {
+                entries.put(key, new Entry(key, physical.prepareStatement(key.sql, key.autoGeneratedKeys)));
+            }
+        }
+    }
+
+    /**
+     * Returns a prepared statement for the given SQL, reusing a cached one if possible.
+     *
+     * @param sql               the SQL text
+     * @param autoGeneratedKeys the generated-keys mode
+     * @param owner             the connection proxy reported by {@link Statement#getConnection()}
+     * @return a statement whose close() returns it to the cache
+     * @throws SQLException if the statement cannot be prepared
+     */
+    PreparedStatement prepare(String sql, int autoGeneratedKeys, Connection owner) throws SQLException {
+        Key key = new Key(sql, autoGeneratedKeys);
+        Entry entry = entries.get(key);
+
+        if (entry != null) {
+            if (entry.inUse) {
+                // Same SQL nested on one connection; don't share the open statement
+                return physical.prepareStatement(sql, autoGeneratedKeys);
+            }
+            hits.increment();
+        } else {
+            misses.increment();
+            entry = new Entry(key, physical.prepareStatement(sql, autoGeneratedKeys));
+            entries.put(key, entry);
+            evictOverflow();
+        }
+
+        entry.inUse = true;
+        return entry.checkOut(owner, generation);
+    }
+
+    /**
+     * Called when the owning connection goes back to the pool. Statements that
+     * a caller forgot to close become reusable, and their old handles stop working.
+     */
+    void onConnectionReturned() {
+        generation++;
+        for (Entry entry : entries.values()) {
+            entry.inUse = false;
+        }
+    }
+
+    /**
+     * Closes every cached statement.
+     */
+    void closeAll() {
+        for (Entry entry : entries.values()) {
+            entry.closeQuietly();
+        }
+        entries.clear();
+    }
+
+    private void evictOverflow() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > maxSize && iterator.hasNext()) {
+            Entry eldest = iterator.next();
+            if (!eldest.inUse) {
+                iterator.remove();
+                eldest.closeQuietly();
+                evictions.increment();
+            }
+        }
+    }
+
+    private void remove(Entry entry) {
+        if (entries.get(entry.key) == entry) {
+            entries.remove(entry.key);
+        }
+        entry.closeQuietly();
+    }
+
+    private record Key(String sql, int autoGeneratedKeys) {
+        private Key {
+            Objects.requireNonNull(sql, "sql");
+        }
+    }
+
+    /**
+     * A cached physical statement and whether a caller currently holds it.
+     */
+    private final class Entry {
+        private final Key key;
+        private final PreparedStatement statement;
+        private boolean inUse;
+
+        private Entry(Key key, PreparedStatement statement) {
+            this.key = key;
+            this.statement = statement;
+        }
+
+        private PreparedStatement checkOut(Connection owner, int checkoutGeneration) {
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    new Handle(this, owner, checkoutGeneration));
+        }
+
+        private void closeQuietly() {
+            try {
+                statement.close();
+            } catch (SQLException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Invocation handler for one checkout of a cached statement.
+     */
+    private final class Handle implements InvocationHandler {
+        private final Entry entry;
+        private final Connection owner;
+        private final int checkoutGeneration;
+        private boolean closed;
+
+        private Handle(Entry entry, Connection owner, int checkoutGeneration) {
+            this.entry = entry;
+            this.owner = owner;
+            this.checkoutGeneration = checkoutGeneration;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        checkIn();
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || isStale() || entry.statement.isClosed();
+                case "getConnection":
+                    return owner;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + entry.key.sql + "]";
+                default:
+                    break;
+            }
+
+            if (closed || isStale()) {
+                throw new SQLException("Statement has already been closed");
+            }
+
+            try {
+                return method.invoke(entry.statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private boolean isStale() {
+            return checkoutGeneration != generation;
+        }
+
+        private void checkIn() {
+            if (isStale()) {
+                return;
+            }
+            try {
+                if (entry.statement.isClosed()) {
+                    remove(entry);
+                    return;
+                }
+                entry.statement.clearParameters();
+                entry.statement.clearBatch();
+                entry.inUse = false;
+            } catch (SQLException e) {
+                remove(entry);
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package gtp.hms.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Records the prepared statements executed on the current thread, with their
+ * parameters, so they can be replayed elsewhere, for example under
+ * {@code EXPLAIN}.
+ * <p>
+ * While a capture is open, statements prepared on pooled connections by this
+ * thread are wrapped in a recording proxy. Each execution, or each
+ * {@code addBatch()}, records the SQL and the parameter setter calls made so
+ * far. Outside a capture nothing is wrapped, so the hook costs a thread-local
+ * read per prepared statement.
+ *
+ * <pre>{@code
+ * try (StatementCapture capture = StatementCapture.begin()) {
+ *     patientDAO.findById(id);
+ *     statements = capture.getStatements();
+ * }
+ * }</pre>
+ */
+public final class StatementCapture implements AutoCloseable {
+    private static final ThreadLocal<StatementCapture> CURRENT = new ThreadLocal<>();
+
+    private final List<CapturedStatement> statements = new ArrayList<>();
+
+    private StatementCapture() {}
+
+    /**
+     * Starts capturing statements executed on the current thread.
+     *
+     * @return the capture; close it to stop
+     * @throws IllegalStateException if a capture is already open on this thread
+     */
+    public static StatementCapture begin() {
+        if (CURRENT.get() != null) {
+            throw new IllegalStateException("A statement capture is already open on this thread");
+        }
+        StatementCapture capture = new StatementCapture();
+        CURRENT.set(capture);
+        return capture;
+    }
+
+    /**
+     * Returns the statements executed so far, in execution order.
+     *
+     * @return an unmodifiable view of the captured statements
+     */
+    public List<CapturedStatement> getStatements() {
+        return Collections.unmodifiableList(statements);
+    }
+
+    @Override
+    public void close() {
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * Wraps a freshly prepared statement for recording if a capture is open
+     * on the current thread.
+     *
+     * @return the recording proxy, or the statement itself if nothing is being captured
+     */
+    static PreparedStatement wrapIfCapturing(PreparedStatement stmt, String sql) {
+        StatementCapture capture = CURRENT.get();
+        if (capture == null) {
+            return stmt;
+        }
+        return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                capture.new Recorder(stmt, sql));
+    }
+
+    /**
+     * An executed statement and the parameters it was executed with.
+     */
+    public static final class CapturedStatement {
+        private final String sql;
+        private final List<Binding> bindings;
+
+        private CapturedStatement(String sql, List<Binding> bindings) {
+            this.sql = sql;
+            this.bindings = bindings;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        /**
+         * Sets the captured parameters on another statement by repeating the
+         * original setter calls. The target's parameter markers must line up
+         * with the original's, as they do when only a prefix such as
+         * {@code EXPLAIN} is added.
+         *
+         * @param target the statement to bind
+         * @throws SQLException if a setter fails
+         */
+        public void bindTo(PreparedStatement target) throws SQLException {
+            for (Binding binding : bindings) {
+                try {
+                    binding.setter().invoke(target, binding.args());
+                } catch (InvocationTargetException e) {
+                    if (e.getCause() instanceof SQLException sqlException) {
+                        throw sqlException;
+                    }
+                    throw new SQLException("Failed to bind captured parameter", e.getCause());
+                } catch (IllegalAccessException e) {
+                    throw new SQLException("Failed to bind captured parameter", e);
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return sql;
+        }
+    }
+
+    private record Binding(Method setter, Object[] args) {}
+
+    /**
+     * Records setter calls and snapshots them on each execution.
+     */
+    private final class Recorder implements InvocationHandler {
+        private final PreparedStatement delegate;
+        private final String sql;
+        // Keyed by parameter index so that re-setting a parameter replaces it
+        private final Map<Integer, Binding> bindings = new TreeMap<>();
+
+        private Recorder(PreparedStatement delegate, String sql) {
+            this.delegate = delegate;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                bindings.put(index, new Binding(method, args.clone()));
+            } else if (name.equals("clearParameters")) {
+                bindings.clear();
+            } else if ((args == null || args.length == 0)
+                    && (name.equals("execute") || name.equals("executeQuery") || name.equals("executeUpdate")
+                    || name.equals("executeLargeUpdate") || name.equals("addBatch"))) {
+                statements.add(new CapturedStatement(sql, List.copyOf(bindings.values())));
+            }
+
+            try {
+                return method.invoke(delegate, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,466 @@
+package gtp.hms.util;
+
+import gtp.hms.config.DatabaseConfig;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Generates a hospital-scale dataset for load and scale testing.
+ * <p>
+ * Produces hospitals with departments, wards, doctors and nurses, then the
+ * requested number of patients with a history of admissions each. Stays
+ * follow a log-normal distribution (median about three days, with a long
+ * tail), and about 85% of beds are occupied by a current admission, with no
+ * bed given to two current patients.
+ * <p>
+ * Output depends only on the seed and the sizes: patients are generated in
+ * fixed-size chunks, each with its own random stream, so the thread count
+ * changes how fast the data loads but not what is loaded. Chunks are loaded
+ * with {@code COPY} on parallel connections, each chunk in its own
+ * transaction.
+ * <p>
+ * Usage: {@code SyntheticDataGenerator [patients] [admissionsPerPatient] [seed] [threads]}.
+ * Load into a freshly migrated database: the generated keys are fixed for a
+ * given seed, so loading the same seed twice fails on unique constraints.
+ */
+public final class SyntheticDataGenerator {
+    private static final LocalDateTime ANCHOR = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final long HISTORY_MINUTES = 10L * 365 * 24 * 60;
+    private static final long RECENT_MINUTES = 30L * 24 * 60;
+    private static final int PATIENTS_PER_CHUNK = 10_000;
+    private static final int PATIENT_NUMBER_BASE = 10_000_000;
+    private static final int EMPLOYEE_NUMBER_BASE = 5_000_000;
+    // Department.getDepartmentCode() is an int, so codes must stay numeric
+    private static final int DEPARTMENT_CODE_BASE = 9_000;
+    private static final double BED_OCCUPANCY = 0.85;
+
+    // Log-normal length of stay in minutes: median e^mu (~3 days)
+    private static final double STAY_MU = Math.log(3 * 24 * 60);
+    private static final double STAY_SIGMA = 0.9;
+    private static final long MAX_STAY_MINUTES = 180L * 24 * 60;
+
+    private static final int HOSPITALS = 4;
+    private static final int DEPARTMENTS_PER_HOSPITAL = 8;
+    private static final int WARDS_PER_DEPARTMENT = 6;
+    private static final int DOCTORS_PER_DEPARTMENT = 20;
+    private static final int NURSES_PER_DEPARTMENT = 25;
+
+    private static final String[] FIRST_NAMES = {
+            "Kwame", "Ama", "Kofi", "Akosua", "Yaw", "Abena", "Kwabena", "Adwoa", "Kojo", "Efua",
+            "Kwaku", "Yaa", "Emmanuel", "Grace", "Samuel", "Mercy", "Daniel", "Esther", "Michael", "Comfort",
+            "John", "Mary", "David", "Sarah", "Joseph", "Elizabeth", "Isaac", "Ruth", "Patrick", "Emily",
+            "Elias", "Joan", "Richard", "Linda", "Francis", "Gifty", "Eric", "Priscilla", "Prince", "Nancy"};
+
+    private static final String[] LAST_NAMES = {
+            "Mensah", "Boateng", "Owusu", "Asante", "Osei", "Agyeman", "Appiah", "Addo", "Quaye", "Tetteh",
+            "Ofori", "Amoah", "Darko", "Acheampong", "Badu", "Frimpong", "Nkrumah", "Antwi", "Sarpong", "Kubi",
+            "Djonu", "Noblet", "Johnson", "Williams", "Brown", "Smith", "Adjei", "Bonsu", "Yeboah", "Ansah"};
+
+    private static final String[] STREETS = {
+            "Asaman", "Oxford", "Liberation", "Independence", "Ring Road", "Spintex", "Cantonments", "Airport"};
+
+    private static final String[] CITIES = {"Accra", "Kumasi", "Tamale", "Takoradi", "Cape Coast", "Ho"};
+
+    private static final String[] DEPARTMENT_NAMES = {
+            "Cardiology", "Neurology", "Orthopaedics", "Paediatrics",
+            "Oncology", "General Surgery", "Internal Medicine", "Obstetrics"};
+
+    private static final String[] SPECIALTIES = {
+            "Cardiology", "Neurology", "Orthopaedics", "Paediatrics",
+            "Oncology", "Surgery", "Internal Medicine", "Obstetrics"};
+
+    private static final String[] ROTATIONS = {"Day", "Night", "Rotating"};
+
+    private static final String[] DIAGNOSES = {
+            "Malaria", "Pneumonia", "Hypertension", "Type 2 diabetes", "Appendicitis", "Fractured femur",
+            "Gastroenteritis", "Asthma exacerbation", "Sickle cell crisis", "Heart failure",
+            "Urinary tract infection", "Typhoid fever", "Stroke", "Caesarean section", "Cellulitis"};
+
+    private final long seed;
+    private final int patients;
+    private final double admissionsPerPatient;
+    private final int threads;
+
+    private final LongAdder patientRows = new LongAdder();
+    private final LongAdder admissionRows = new LongAdder();
+
+    // Reference data shared read-only by the producers once generated
+    private UUID[] wardIds;
+    private int[] wardDepartment;
+    private int[] bedOffsets;
+    private UUID[][] doctorsByDepartment;
+    private int occupiedBeds;
+    private int currentStride;
+    private int bedStep;
+
+    /**
+     * Creates a generator.
+     *
+     * @param seed                 the random seed; equal seeds and sizes produce identical data
+     * @param patients             the number of patients to generate
+     * @param admissionsPerPatient the mean number of past admissions per patient
+     * @param threads              the number of parallel loading connections
+     */
+    public SyntheticDataGenerator(long seed, int patients, double admissionsPerPatient, int threads) {
+        if (patients < 1 || admissionsPerPatient < 0 || threads < 1) {
+            throw new IllegalArgumentException("patients and threads must be positive, admissions non-negative");
+        }
+        this.seed = seed;
+        this.patients = patients;
+        this.admissionsPerPatient = admissionsPerPatient;
+        this.threads = Math.min(threads, DatabaseConfig.getPoolMaxSize());
+    }
+
+    public static void main(String[] args) throws Exception {
+        int patients = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        double admissionsPerPatient = args.length > 1 ? Double.parseDouble(args[1]) : 10;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42L;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        try {
+            new SyntheticDataGenerator(seed, patients, admissionsPerPatient, threads).generate();
+        } finally {
+            DatabaseConnection.getInstance().closeConnection();
+        }
+    }
+
+    /**
+     * Generates and loads the whole dataset, printing progress and load rates.
+     *
+     * @throws SQLException if loading fails; chunks already committed are kept
+     */
+    public void generate() throws SQLException {
+        System.out.printf("Generating %,d patients with ~%.1f admissions each (seed %d, %d threads)%n",
+                patients, admissionsPerPatient, seed, threads);
+
+        long start = System.nanoTime();
+        long referenceRows = loadReferenceData();
+        System.out.printf("Reference data: %,d rows, %,d beds, %,d currently occupied%n",
+                referenceRows, bedOffsets[bedOffsets.length - 1], occupiedBeds);
+
+        loadPatients();
+        analyze();
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long total = referenceRows + patientRows.sum() + admissionRows.sum();
+        System.out.printf("✅ Loaded %,d patients and %,d admissions in %.1fs%n",
+                patientRows.sum(), admissionRows.sum(), seconds);
+        System.out.printf("Throughput: %,.0f rows/s overall (%,.0f patients/s, %,.0f admissions/s)%n",
+                total / seconds, patientRows.sum() / seconds, admissionRows.sum() / seconds);
+    }
+
+    private long loadReferenceData() throws SQLException {
+        SplittableRandom random = new SplittableRandom(seed);
+        int departments = HOSPITALS * DEPARTMENTS_PER_HOSPITAL;
+        int wards = departments * WARDS_PER_DEPARTMENT;
+
+        UUID[] hospitalIds = new UUID[HOSPITALS];
+        UUID[] departmentIds = new UUID[departments];
+        UUID[][] nursesByDepartment = new UUID[departments][NURSES_PER_DEPARTMENT];
+        doctorsByDepartment = new UUID[departments][DOCTORS_PER_DEPARTMENT];
+        wardIds = new UUID[wards];
+        wardDepartment = new int[wards];
+        bedOffsets = new int[wards + 1];
+
+        long rows = 0;
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                try (CopyWriter copy = new CopyWriter(conn, "hospital", "id", "name", "branch", "address", "city")) {
+                    for (int h = 0; h < HOSPITALS; h++) {
+                        hospitalIds[h] = uuid(random);
+                        copy.field(hospitalIds[h]).field("Synthetic Hospital " + (h + 1)).field("Main")
+                                .field(address(random)).field(pick(random, CITIES)).endRow();
+                    }
+                    rows += copy.finish();
+                }
+
+                int employeeNumber = EMPLOYEE_NUMBER_BASE;
+                try (CopyWriter copy = new CopyWriter(conn, "employee", "id", "employee_number", "first_name",
+                        "last_name", "address", "phone_number", "employee_type")) {
+                    for (int d = 0; d < departments; d++) {
+                        for (int i = 0; i < DOCTORS_PER_DEPARTMENT; i++) {
+                            doctorsByDepartment[d][i] = uuid(random);
+                            writeEmployee(copy, random, doctorsByDepartment[d][i], employeeNumber++, "doctor");
+                        }
+                        for (int i = 0; i < NURSES_PER_DEPARTMENT; i++) {
+                            nursesByDepartment[d][i] = uuid(random);
+                            writeEmployee(copy, random, nursesByDepartment[d][i], employeeNumber++, "nurse");
+                        }
+                    }
+                    rows += copy.finish();
+                }
+
+                try (CopyWriter copy = new CopyWriter(conn, "doctor", "id", "specialty")) {
+                    for (int d = 0; d < departments; d++) {
+                        for (UUID doctorId : doctorsByDepartment[d]) {
+                            copy.field(doctorId).field(SPECIALTIES[d % SPECIALTIES.length]).endRow();
+                        }
+                    }
+                    rows += copy.finish();
+                }
+
+                try (CopyWriter copy = new CopyWriter(conn, "department", "id", "department_name",
+                        "department_code", "number_of_wards", "building", "hospital_id", "director_id")) {
+                    for (int d = 0; d < departments; d++) {
+                        departmentIds[d] = uuid(random);
+                        copy.field(departmentIds[d]).field(DEPARTMENT_NAMES[d % DEPARTMENT_NAMES.length])
+                                .field(String.valueOf(DEPARTMENT_CODE_BASE + d)).field(WARDS_PER_DEPARTMENT)
+                                .field("Block " + (char) ('A' + d % DEPARTMENTS_PER_HOSPITAL))
+                                .field(hospitalIds[d / DEPARTMENTS_PER_HOSPITAL]).field(doctorsByDepartment[d][0])
+                                .endRow();
+                    }
+                    rows += copy.finish();
+                }
+
+                try (CopyWriter copy = new CopyWriter(conn, "nurse", "id", "rotation", "salary", "department_id")) {
+                    for (int d = 0; d < departments; d++) {
+                        for (UUID nurseId : nursesByDepartment[d]) {
+                            copy.field(nurseId).field(pick(random, ROTATIONS))
+                                    .rawField(String.valueOf(2_000 + random.nextInt(4_000))).field(departmentIds[d])
+                                    .endRow();
+                        }
+                    }
+                    rows += copy.finish();
+                }
+
+                try (CopyWriter copy = new CopyWriter(conn, "ward", "id", "ward_number", "number_of_beds",
+                        "department_id", "supervisor_id")) {
+                    for (int w = 0; w < wards; w++) {
+                        int d = w / WARDS_PER_DEPARTMENT;
+                        int beds = 20 + random.nextInt(21);
+                        wardIds[w] = uuid(random);
+                        wardDepartment[w] = d;
+                        bedOffsets[w + 1] = bedOffsets[w] + beds;
+                        copy.field(wardIds[w]).field(w % WARDS_PER_DEPARTMENT + 1).field(beds)
+                                .field(departmentIds[d]).field(nursesByDepartment[d][w % NURSES_PER_DEPARTMENT])
+                                .endRow();
+                    }
+                    rows += copy.finish();
+                }
+
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+
+        planCurrentAdmissions();
+        return rows;
+    }
+
+    /**
+     * Chooses which patients are currently admitted and spreads them over the
+     * beds: every {@code currentStride}-th patient is current, and the k-th
+     * current patient gets bed {@code k * bedStep mod totalBeds}, which is a
+     * distinct bed for each k because the step is coprime to the bed count.
+     */
+    private void planCurrentAdmissions() {
+        int totalBeds = bedOffsets[bedOffsets.length - 1];
+        occupiedBeds = (int) Math.min(patients, (long) (totalBeds * BED_OCCUPANCY));
+        currentStride = Math.max(1, patients / Math.max(1, occupiedBeds));
+
+        int step = Math.max(1, (int) (totalBeds * 0.618));
+        while (gcd(step, totalBeds) != 1) {
+            step++;
+        }
+        bedStep = step;
+    }
+
+    private void loadPatients() throws SQLException {
+        int chunks = (patients + PATIENTS_PER_CHUNK - 1) / PATIENTS_PER_CHUNK;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>(chunks);
+        long start = System.nanoTime();
+
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            int first = chunk * PATIENTS_PER_CHUNK;
+            int last = Math.min(patients, first + PATIENTS_PER_CHUNK);
+            int chunkIndex = chunk;
+            futures.add(executor.submit(() -> {
+                loadChunk(chunkIndex, first, last);
+                return null;
+            }));
+        }
+        executor.shutdown();
+
+        try {
+            int done = 0;
+            for (Future<?> future : futures) {
+                future.get();
+                done++;
+                if (done % 10 == 0 || done == chunks) {
+                    double seconds = (System.nanoTime() - start) / 1e9;
+                    System.out.printf("  %d/%d chunks, %,d patients, %,d admissions, %,.0f rows/s%n",
+                            done, chunks, patientRows.sum(), admissionRows.sum(),
+                            (patientRows.sum() + admissionRows.sum()) / seconds);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+            throw new SQLException("Interrupted while loading patients", e);
+        } catch (ExecutionException e) {
+            executor.shutdownNow();
+            Throwable cause = e.getCause();
+            throw cause instanceof SQLException sqlException ? sqlException
+                    : new SQLException("Loading patients failed", cause);
+        }
+    }
+
+    private void loadChunk(int chunk, int first, int last) throws SQLException {
+        SplittableRandom random = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + chunk);
+        UUID[] patientIds = new UUID[last - first];
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                try (CopyWriter copy = new CopyWriter(conn, "patient", "id", "patient_number", "first_name",
+                        "middle_name", "last_name", "address", "telephone_number")) {
+                    for (int p = first; p < last; p++) {
+                        UUID id = uuid(random);
+                        patientIds[p - first] = id;
+                        copy.field(id).field(PATIENT_NUMBER_BASE + p).field(pick(random, FIRST_NAMES))
+                                .field(random.nextInt(10) < 4 ? pick(random, FIRST_NAMES) : null)
+                                .field(pick(random, LAST_NAMES)).field(address(random)).field(phone(random))
+                                .endRow();
+                    }
+                    copy.finish();
+                }
+
+                long admissions;
+                try (CopyWriter copy = new CopyWriter(conn, "patient_admission", "id", "patient_id", "ward_id",
+                        "bed_number", "diagnosis", "treating_doctor_id", "admission_date", "discharge_date",
+                        "is_current")) {
+                    for (int p = first; p < last; p++) {
+                        writeAdmissions(copy, random, p, patientIds[p - first]);
+                    }
+                    admissions = copy.finish();
+                }
+
+                conn.commit();
+                patientRows.add(last - first);
+                admissionRows.add(admissions);
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Writes a patient's past admissions in date order, plus a current one if
+     * the patient is among those occupying a bed.
+     */
+    private void writeAdmissions(CopyWriter copy, SplittableRandom random, int patient, UUID patientId)
+            throws SQLException {
+        // Geometric count with the configured mean
+        int count = 0;
+        if (admissionsPerPatient > 0) {
+            double p = 1 / (admissionsPerPatient + 1);
+            count = (int) Math.min(1_000, Math.floor(Math.log(1 - random.nextDouble()) / Math.log(1 - p)));
+        }
+
+        boolean current = patient % currentStride == 0 && patient / currentStride < occupiedBeds;
+        long currentStay = current ? Math.min(stayMinutes(random), RECENT_MINUTES) : 0;
+
+        // Minutes before the anchor, oldest first; past stays all end before the current one starts
+        long[] admittedAt = new long[count];
+        for (int i = 0; i < count; i++) {
+            admittedAt[i] = RECENT_MINUTES + random.nextLong(HISTORY_MINUTES - RECENT_MINUTES);
+        }
+        Arrays.sort(admittedAt);
+
+        for (int i = count - 1; i >= 0; i--) {
+            long admitted = admittedAt[i];
+            long nextAdmitted = i > 0 ? admittedAt[i - 1] : currentStay;
+            long stay = Math.min(stayMinutes(random), Math.max(60, admitted - nextAdmitted - 60));
+
+            int ward = random.nextInt(wardIds.length);
+            int beds = bedOffsets[ward + 1] - bedOffsets[ward];
+            writeAdmission(copy, random, patientId, ward, 1 + random.nextInt(beds),
+                    ANCHOR.minusMinutes(admitted), ANCHOR.minusMinutes(admitted - stay), false);
+        }
+
+        if (current) {
+            long slot = patient / currentStride;
+            int bed = (int) (slot * bedStep % bedOffsets[bedOffsets.length - 1]);
+            int ward = wardOfBed(bed);
+            writeAdmission(copy, random, patientId, ward, bed - bedOffsets[ward] + 1,
+                    ANCHOR.minusMinutes(currentStay), null, true);
+        }
+    }
+
+    private void writeAdmission(CopyWriter copy, SplittableRandom random, UUID patientId, int ward, int bed,
+                                LocalDateTime admitted, LocalDateTime discharged, boolean current)
+            throws SQLException {
+        UUID[] doctors = doctorsByDepartment[wardDepartment[ward]];
+        copy.field(uuid(random)).field(patientId).field(wardIds[ward]).field(bed).field(pick(random, DIAGNOSES))
+                .field(doctors[random.nextInt(doctors.length)]).field(admitted).field(discharged).field(current)
+                .endRow();
+    }
+
+    private int wardOfBed(int bed) {
+        int index = Arrays.binarySearch(bedOffsets, bed);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    private static long stayMinutes(SplittableRandom random) {
+        double minutes = Math.exp(STAY_MU + STAY_SIGMA * random.nextGaussian());
+        return Math.max(60, Math.min(MAX_STAY_MINUTES, (long) minutes));
+    }
+
+    private static void writeEmployee(CopyWriter copy, SplittableRandom random, UUID id, int number, String type)
+            throws SQLException {
+        copy.field(id).field(number).field(pick(random, FIRST_NAMES)).field(pick(random, LAST_NAMES))
+                .field(address(random)).field(phone(random)).field(type).endRow();
+    }
+
+    private void analyze() throws SQLException {
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("ANALYZE patient");
+            stmt.execute("ANALYZE patient_admission");
+        }
+    }
+
+    private static UUID uuid(SplittableRandom random) {
+        long msb = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+
+    private static String address(SplittableRandom random) {
+        return (1 + random.nextInt(200)) + " " + pick(random, STREETS) + " St., " + pick(random, CITIES);
+    }
+
+    private static String phone(SplittableRandom random) {
+        return String.format("0%d%d%07d", 2 + random.nextInt(3), random.nextInt(10), random.nextInt(10_000_000));
+    }
+
+    private static String pick(SplittableRandom random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static int gcd(int a, int b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+}
@@ -0,0 +1,277 @@
+package gtp.hms.util;
+
+import gtp.hms.exception.DaoException;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs work inside a database transaction bound to the current thread.
+ * <p>
+ * While a transaction is active, {@link DatabaseConnection#getConnection()}
+ * returns the transaction's connection on that thread, so DAOs take part in
+ * the transaction without having a connection passed in. Closing that
+ * connection inside the work is a no-op; commit and rollback are handled here.
+ * <p>
+ * Calls nest: a transaction started while another is active on the same
+ * thread joins the outer one. Work handed to another thread, for example via
+ * the asynchronous service methods, runs outside the transaction.
+ * <p>
+ * A committed transaction that changed data records a write for
+ * read-your-writes routing, see {@link DatabaseConnection}.
+ */
+public final class TransactionManager {
+    private static final System.Logger LOG = System.getLogger(TransactionManager.class.getName());
+    private static final ThreadLocal<TransactionContext> CURRENT = new ThreadLocal<>();
+
+    private TransactionManager() {}
+
+    /**
+     * A unit of work executed inside a transaction.
+     *
+     * @param <T> the result type
+     */
+    @FunctionalInterface
+    public interface TransactionalWork<T> {
+        T execute() throws SQLException;
+    }
+
+    /**
+     * Runs the work in a transaction, committing if it completes normally and
+     * rolling back if it throws.
+     *
+     * @param work the work to run
+     * @param <T>  the result type
+     * @return the work's result
+     * @throws DaoException if the work or the commit fails
+     */
+    public static <T> T inTransaction(TransactionalWork<T> work) throws DaoException {
+        return execute(work, false);
+    }
+
+    /**
+     * Runs the work in a transaction with a {@link UnitOfWork} attached. DAOs
+     * queue their inserts and updates on it instead of executing them, and the
+     * queue is flushed as JDBC batches just before commit, or earlier if
+     * another statement is about to run on the transaction's connection.
+     *
+     * @param work the work to run
+     * @param <T>  the result type
+     * @return the work's result
+     * @throws DaoException if the work, the flush or the commit fails
+     */
+    public static <T> T inUnitOfWork(TransactionalWork<T> work) throws DaoException {
+        return execute(work, true);
+    }
+
+    /**
+     * Indicates whether a transaction is active on the current thread.
+     *
+     * @return true if inside {@link #inTransaction} or {@link #inUnitOfWork}
+     */
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Returns the unit of work attached to the current thread's transaction.
+     *
+     * @return the active unit of work, or null if none
+     */
+    public static UnitOfWork currentUnitOfWork() {
+        TransactionContext context = CURRENT.get();
+        return context == null ? null : context.unitOfWork;
+    }
+
+    /**
+     * Runs the action after the current thread's transaction commits, or
+     * straight away if no transaction is active. Actions registered in a
+     * transaction that rolls back are discarded. Typically used to invalidate
+     * caches so they never observe uncommitted data.
+     *
+     * @param action the action to run
+     */
+    public static void afterCommit(Runnable action) {
+        TransactionContext context = CURRENT.get();
+        if (context == null) {
+            action.run();
+        } else {
+            context.afterCommit.add(action);
+        }
+    }
+
+    /**
+     * Returns the connection bound to the current thread's transaction.
+     *
+     * @return a connection whose close() is a no-op, or null if no transaction is active
+     */
+    static Connection currentConnection() {
+        TransactionContext context = CURRENT.get();
+        return context == null ? null : context.boundView;
+    }
+
+    private static <T> T execute(TransactionalWork<T> work, boolean withUnitOfWork) throws DaoException {
+        TransactionContext existing = CURRENT.get();
+        if (existing != null) {
+            return join(existing, work, withUnitOfWork);
+        }
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            TransactionContext context = new TransactionContext(conn);
+            if (withUnitOfWork) {
+                context.unitOfWork = new UnitOfWork(conn);
+            }
+
+            CURRENT.set(context);
+            try {
+                T result = work.execute();
+                context.flushUnitOfWork();
+                conn.commit();
+                CURRENT.remove();
+                if (context.wrote) {
+                    DatabaseConnection.recordWrite();
+                }
+                runAfterCommit(context);
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                rollbackQuietly(conn);
+                throw e;
+            } finally {
+                CURRENT.remove();
+            }
+        } catch (DaoException e) {
+            throw e;
+        } catch (SQLException e) {
+            throw new DaoException("Transaction failed", e);
+        }
+    }
+
+    /**
+     * Runs nested work inside an already active transaction. A nested unit of
+     * work is flushed when the nested block completes.
+     */
+    private static <T> T join(TransactionContext context, TransactionalWork<T> work,
+                              boolean withUnitOfWork) throws DaoException {
+        boolean ownsUnitOfWork = withUnitOfWork && context.unitOfWork == null;
+        if (ownsUnitOfWork) {
+            context.unitOfWork = new UnitOfWork(context.connection);
+        }
+
+        try {
+            T result = work.execute();
+            if (ownsUnitOfWork) {
+                context.flushUnitOfWork();
+            }
+            return result;
+        } catch (DaoException e) {
+            throw e;
+        } catch (SQLException e) {
+            throw new DaoException("Transaction failed", e);
+        } finally {
+            if (ownsUnitOfWork) {
+                context.unitOfWork = null;
+            }
+        }
+    }
+
+    private static void runAfterCommit(TransactionContext context) {
+        for (Runnable action : context.afterCommit) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                LOG.log(System.Logger.Level.WARNING, "After-commit action failed", e);
+            }
+        }
+    }
+
+    private static void rollbackQuietly(Connection conn) {
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            LOG.log(System.Logger.Level.WARNING, "Error rolling back transaction", e);
+        }
+    }
+
+    /**
+     * State of the transaction active on one thread.
+     */
+    private static final class TransactionContext {
+        private final Connection connection;
+        private final Connection boundView;
+        private final List<Runnable> afterCommit = new ArrayList<>();
+        private UnitOfWork unitOfWork;
+        private boolean wrote;
+
+        private TransactionContext(Connection connection) {
+            this.connection = connection;
+            this.boundView = (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new BoundConnectionHandler(this));
+        }
+
+        private void flushUnitOfWork() throws DaoException {
+            if (unitOfWork != null && unitOfWork.getPendingCount() > 0) {
+                wrote = true;
+                unitOfWork.flush();
+            }
+        }
+    }
+
+    /**
+     * Hands the transaction's connection to DAOs while keeping transaction
+     * boundaries under the manager's control. Queued unit-of-work operations
+     * are flushed before any other statement is created, so that statement
+     * runs after them and sees their rows.
+     */
+    private static final class BoundConnectionHandler implements InvocationHandler {
+        private final TransactionContext context;
+
+        private BoundConnectionHandler(TransactionContext context) {
+            this.context = context;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    return null;
+                case "commit":
+                case "rollback":
+                case "setAutoCommit":
+                    throw new SQLException("Transaction boundaries are managed by TransactionManager");
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "prepareStatement":
+                    context.flushUnitOfWork();
+                    if (DatabaseConnection.isWriteStatement((String) args[0])) {
+                        context.wrote = true;
+                    }
+                    break;
+                case "prepareCall":
+                case "createStatement":
+                case "unwrap": // COPY runs through the driver's own API
+                    context.flushUnitOfWork();
+                    context.wrote = true;
+                    break;
+                default:
+                    break;
+            }
+
+            try {
+                return method.invoke(context.connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package gtp.hms.util;
+
+import gtp.hms.exception.DaoException;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Queue of pending inserts and updates that are written as JDBC batches when
+ * the surrounding transaction commits.
+ * <p>
+ * Operations run in the order they were registered. Consecutive operations
+ * with the same SQL text are sent as one batch; a different statement in
+ * between starts a new batch, so an update queued after the insert it
+ * depends on always runs after it. The queue is flushed at commit, and also
+ * before any other statement is prepared on the transaction's connection, so
+ * queries and unqueued writes in the same transaction see the queued rows.
+ * <p>
+ * A unit of work is obtained from {@link TransactionManager#currentUnitOfWork()}
+ * inside {@link TransactionManager#inUnitOfWork}.
+ */
+public class UnitOfWork {
+    private final Connection connection;
+    private final List<Batch> pending = new ArrayList<>();
+    private int pendingCount;
+
+    /**
+     * Binds the parameters of one queued operation.
+     */
+    @FunctionalInterface
+    public interface ParameterBinder {
+        void bind(PreparedStatement stmt) throws SQLException;
+    }
+
+    UnitOfWork(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Queues an insert or update to be executed when the unit of work is flushed.
+     *
+     * @param sql    the parameterised SQL statement
+     * @param binder sets the statement parameters for this operation
+     */
+    public void register(String sql, ParameterBinder binder) {
+        Batch last = pending.isEmpty() ? null : pending.get(pending.size() - 1);
+        if (last == null || !last.sql.equals(sql)) {
+            last = new Batch(sql);
+            pending.add(last);
+        }
+        last.binders.add(binder);
+        pendingCount++;
+    }
+
+    /**
+     * Returns the number of operations waiting to be flushed.
+     *
+     * @return pending operation count
+     */
+    public int getPendingCount() {
+        return pendingCount;
+    }
+
+    /**
+     * Executes all queued operations in registration order, as one batch per
+     * run of consecutive operations with the same SQL.
+     *
+     * @throws DaoException if a batch fails or an operation affects no rows
+     */
+    public void flush() throws DaoException {
+        if (pending.isEmpty()) {
+            return;
+        }
+        try {
+            for (Batch batch : pending) {
+                try (PreparedStatement stmt = connection.prepareStatement(batch.sql)) {
+                    for (ParameterBinder binder : batch.binders) {
+                        binder.bind(stmt);
+                        stmt.addBatch();
+                    }
+
+                    int[] counts = stmt.executeBatch();
+                    for (int i = 0; i < counts.length; i++) {
+                        if (counts[i] == 0) {
+                            throw new DaoException("Batched operation " + (i + 1) +
+                                    " affected no rows: " + batch.sql);
+                        }
+                        if (counts[i] == Statement.EXECUTE_FAILED) {
+                            throw new DaoException("Batched operation " + (i + 1) +
+                                    " failed: " + batch.sql);
+                        }
+                    }
+                }
+            }
+        } catch (DaoException e) {
+            throw e;
+        } catch (SQLException e) {
+            throw new DaoException("Flushing unit of work failed", e);
+        } finally {
+            pending.clear();
+            pendingCount = 0;
+        }
+    }
+
+    /**
+     * A run of consecutive operations sharing one statement.
+     */
+    private static final class Batch {
+        private final String sql;
+        private final List<ParameterBinder> binders = new ArrayList<>();
+
+        private Batch(String sql) {
+            this.sql = sql;
+        }
+    }
+}
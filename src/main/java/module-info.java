@@ -4,10 +4,13 @@ module gtp.hms {
 
     requires org.controlsfx.controls;
     requires java.sql;
+    requires org.postgresql.jdbc;
     requires java.desktop;
+    requires java.management;
 
     opens gtp.hms.model to javafx.fxml;
     exports gtp.hms.model;
+    exports gtp.hms.metrics;
     exports gtp.hms;
     opens gtp.hms;
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+-- migration: no-transaction
+-- Keyset pagination by name seeks on (last_name, first_name, id). Built
+-- without blocking writes; a failed concurrent build leaves an invalid index
+-- behind, so any leftover is dropped first and the script can be re-run.
+
+DROP INDEX CONCURRENTLY IF EXISTS idx_patient_name_keyset;
+
+CREATE INDEX CONCURRENTLY idx_patient_name_keyset
+    ON patient (last_name, first_name, id);
@@ -0,0 +1,12 @@
+-- Fuzzy and ranked patient name search match against a lower-case full name
+-- through a trigram index. Adding the stored generated column rewrites the
+-- patient table under an exclusive lock, so the index is built in the same
+-- transaction rather than concurrently.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+ALTER TABLE patient ADD COLUMN IF NOT EXISTS search_name TEXT GENERATED ALWAYS AS (
+    LOWER(first_name || ' ' || COALESCE(middle_name || ' ', '') || last_name)
+) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_patient_search_name_trgm ON patient USING GIN (search_name gin_trgm_ops);
@@ -0,0 +1,27 @@
+-- At most one current admission per bed; concurrent admissions to the same bed
+-- fail with a unique violation. Existing double bookings would make the index
+-- build fail with a bare duplicate-key error, so they are looked for first and
+-- reported by bed. They need a clinical decision (discharge or move one of the
+-- patients), so the migration stops rather than changing any admission itself.
+
+DO $$
+DECLARE
+    conflicts TEXT;
+BEGIN
+    SELECT string_agg(format('ward %s bed %s (admissions %s)', ward_id, bed_number, admissions), '; ')
+    INTO conflicts
+    FROM (SELECT ward_id, bed_number, string_agg(id::text, ', ' ORDER BY admission_date) AS admissions
+          FROM patient_admission
+          WHERE is_current
+          GROUP BY ward_id, bed_number
+          HAVING count(*) > 1) AS doubled;
+
+    IF conflicts IS NOT NULL THEN
+        RAISE EXCEPTION 'Beds with more than one current admission: %', conflicts
+            USING HINT = 'Discharge or move all but one admission per bed, then run the migrations again.';
+    END IF;
+END
+$$;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_admission_current_bed
+    ON patient_admission (ward_id, bed_number) WHERE is_current;
@@ -0,0 +1,12 @@
+-- migration: no-transaction
+-- Charts list a patient's admissions newest first. Replace the single-column
+-- patient index with one that also serves the ordering, building it without
+-- blocking writes. A failed concurrent build leaves an invalid index behind,
+-- so any leftover is dropped first and the script can simply be re-run.
+
+DROP INDEX CONCURRENTLY IF EXISTS idx_admission_patient_date;
+
+CREATE INDEX CONCURRENTLY idx_admission_patient_date
+    ON patient_admission (patient_id, admission_date DESC);
+
+DROP INDEX CONCURRENTLY IF EXISTS idx_admission_patient;
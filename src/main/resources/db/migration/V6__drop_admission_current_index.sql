@@ -0,0 +1,7 @@
+-- migration: no-transaction
+-- idx_admission_current is a plain index on a boolean. The partial unique
+-- index uq_admission_current_bed (WHERE is_current) already serves every
+-- query for current admissions, and is far smaller, yet each admission and
+-- discharge also has to maintain this one.
+
+DROP INDEX CONCURRENTLY IF EXISTS idx_admission_current;
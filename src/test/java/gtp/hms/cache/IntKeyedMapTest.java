@@ -0,0 +1,72 @@
+package gtp.hms.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class IntKeyedMapTest {
+
+    @Test
+    void putGetAndReplace() {
+        IntKeyedMap<String> map = new IntKeyedMap<>(4);
+        map.put(1, "one");
+        map.put(-7, "minus seven");
+        map.put(1, "uno");
+
+        assertEquals("uno", map.get(1));
+        assertEquals("minus seven", map.get(-7));
+        assertNull(map.get(2));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    void growsPastTheExpectedSize() {
+        IntKeyedMap<Integer> map = new IntKeyedMap<>(2);
+        for (int i = 0; i < 10_000; i++) {
+            map.put(i, i * 10);
+        }
+
+        assertEquals(10_000, map.size());
+        assertEquals(0, Integer.bitCount(map.capacity()) - 1, "capacity stays a power of two");
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i * 10, map.get(i));
+        }
+    }
+
+    @Test
+    void removeKeepsCollidingKeysReachable() {
+        IntKeyedMap<Integer> map = new IntKeyedMap<>(1024);
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(11);
+        for (int round = 0; round < 50_000; round++) {
+            int key = random.nextInt(2048);
+            if (random.nextBoolean()) {
+                map.put(key, round);
+                expected.put(key, round);
+            } else {
+                map.remove(key);
+                expected.remove(key);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (int key = 0; key < 2048; key++) {
+            assertEquals(expected.get(key), map.get(key), "key " + key);
+        }
+    }
+
+    @Test
+    void clearEmptiesTheMap() {
+        IntKeyedMap<String> map = new IntKeyedMap<>(8);
+        map.put(3, "three");
+        map.clear();
+
+        assertNull(map.get(3));
+        assertEquals(0, map.size());
+    }
+}
@@ -0,0 +1,104 @@
+package gtp.hms.cache;
+
+import gtp.hms.model.Patient;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PatientCacheTest {
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntry() {
+        PatientCache cache = new PatientCache(2);
+        Patient first = patient(1);
+        Patient second = patient(2);
+        cache.put(first, cache.currentVersion());
+        cache.put(second, cache.currentVersion());
+
+        assertNotNull(cache.getById(first.getId()));
+        cache.put(patient(3), cache.currentVersion());
+
+        assertNotNull(cache.getById(first.getId()));
+        assertNull(cache.getById(second.getId()));
+        assertNull(cache.getByPatientNumber(2));
+        assertEquals(1, cache.getStats().getEvictions());
+        assertEquals(2, cache.getStats().getSize());
+    }
+
+    @Test
+    void looksUpByPatientNumber() {
+        PatientCache cache = new PatientCache(10);
+        Patient patient = patient(42);
+        cache.put(patient, cache.currentVersion());
+
+        assertEquals(patient.getId(), cache.getByPatientNumber(42).getId());
+        assertNull(cache.getByPatientNumber(43));
+    }
+
+    @Test
+    void returnsCopies() {
+        PatientCache cache = new PatientCache(10);
+        Patient patient = patient(5);
+        cache.put(patient, cache.currentVersion());
+        patient.setFirstName("Changed");
+
+        Patient cached = cache.getById(patient.getId());
+        cached.setLastName("Changed");
+
+        assertNotSame(patient, cached);
+        assertEquals("First5", cached.getFirstName());
+        assertEquals("Last5", cache.getById(patient.getId()).getLastName());
+    }
+
+    @Test
+    void skipsLoadsThatRacedAnInvalidation() {
+        PatientCache cache = new PatientCache(10);
+        Patient patient = patient(7);
+        long version = cache.currentVersion();
+        cache.invalidate(patient.getId());
+        cache.put(patient, version);
+
+        assertNull(cache.getById(patient.getId()));
+    }
+
+    @Test
+    void numberTakenOverByAnotherPatientDropsTheOldEntry() {
+        PatientCache cache = new PatientCache(10);
+        Patient old = patient(9);
+        Patient replacement = patient(9);
+        cache.put(old, cache.currentVersion());
+        cache.put(replacement, cache.currentVersion());
+
+        assertNull(cache.getById(old.getId()));
+        assertEquals(replacement.getId(), cache.getByPatientNumber(9).getId());
+
+        cache.invalidateNumber(9);
+        assertNull(cache.getById(replacement.getId()));
+        assertEquals(0, cache.getStats().getSize());
+    }
+
+    @Test
+    void zeroCapacityDisablesCaching() {
+        PatientCache cache = new PatientCache(0);
+        Patient patient = patient(1);
+        cache.put(patient, cache.currentVersion());
+
+        assertFalse(cache.isEnabled());
+        assertNull(cache.getById(patient.getId()));
+    }
+
+    private static Patient patient(int number) {
+        Patient patient = new Patient();
+        patient.setId(UUID.randomUUID());
+        patient.setPatientNumber(number);
+        patient.setFirstName("First" + number);
+        patient.setLastName("Last" + number);
+        return patient;
+    }
+}
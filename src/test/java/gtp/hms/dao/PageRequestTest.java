@@ -0,0 +1,78 @@
+package gtp.hms.dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PageRequestTest {
+
+    @Test
+    void nameTokenRoundTrips() {
+        String id = UUID.randomUUID().toString();
+        String token = PageRequest.encodeToken(PageRequest.Sort.NAME, "O'Brien", "Zoë", id);
+
+        PageRequest next = PageRequest.after(token, 25);
+
+        assertEquals(PageRequest.Sort.NAME, next.getSort());
+        assertEquals(25, next.getSize());
+        assertEquals(List.of("O'Brien", "Zoë", id), next.getAfterKey());
+        assertFalse(next.isTotalEstimateRequested());
+    }
+
+    @Test
+    void patientNumberTokenRoundTrips() {
+        String token = PageRequest.encodeToken(PageRequest.Sort.PATIENT_NUMBER, "1042");
+
+        PageRequest next = PageRequest.after(token, 10);
+
+        assertEquals(PageRequest.Sort.PATIENT_NUMBER, next.getSort());
+        assertEquals(List.of("1042"), next.getAfterKey());
+    }
+
+    @Test
+    void tokenIsUrlSafe() {
+        String token = PageRequest.encodeToken(PageRequest.Sort.NAME, "???", ">>>", UUID.randomUUID().toString());
+
+        assertTrue(token.matches("[A-Za-z0-9_-]+"), token);
+    }
+
+    @Test
+    void firstPageHasNoKey() {
+        PageRequest first = PageRequest.first(PageRequest.Sort.NAME, 50);
+
+        assertNull(first.getAfterKey());
+        assertTrue(first.withTotalEstimate().isTotalEstimateRequested());
+    }
+
+    @Test
+    void sizeIsBounded() {
+        assertThrows(IllegalArgumentException.class, () -> PageRequest.first(PageRequest.Sort.NAME, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> PageRequest.first(PageRequest.Sort.NAME, PageRequest.MAX_SIZE + 1));
+    }
+
+    @Test
+    void malformedTokensAreRejected() {
+        String valid = PageRequest.encodeToken(PageRequest.Sort.PATIENT_NUMBER, "7");
+        byte[] bytes = Base64.getUrlDecoder().decode(valid);
+        String truncated = Base64.getUrlEncoder().encodeToString(Arrays.copyOf(bytes, bytes.length - 1));
+        String trailing = Base64.getUrlEncoder().encodeToString(Arrays.copyOf(bytes, bytes.length + 1));
+
+        assertThrows(IllegalArgumentException.class, () -> PageRequest.after("not base64!", 10));
+        assertThrows(IllegalArgumentException.class, () -> PageRequest.after(truncated, 10));
+        assertThrows(IllegalArgumentException.class, () -> PageRequest.after(trailing, 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> PageRequest.after(PageRequest.encodeToken(PageRequest.Sort.PATIENT_NUMBER, "abc"), 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> PageRequest.after(PageRequest.encodeToken(PageRequest.Sort.NAME, "a", "b", "not-a-uuid"), 10));
+    }
+}
@@ -0,0 +1,409 @@
+package gtp.hms.dao;
+
+import gtp.hms.cache.PatientCache;
+import gtp.hms.model.Department;
+import gtp.hms.model.Patient;
+import gtp.hms.model.PatientAdmission;
+import gtp.hms.model.Ward;
+import gtp.hms.model.employee.Doctor;
+import gtp.hms.util.DatabaseConnection;
+import gtp.hms.util.StatementCapture;
+import gtp.hms.util.StatementCapture.CapturedStatement;
+import gtp.hms.util.TransactionManager;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.TestFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that DAO queries are still served by indexes.
+ * <p>
+ * Each DAO method below declares the access it expects, and optionally the
+ * index it relies on. The test calls the method with a
+ * {@link StatementCapture} open, then runs {@code EXPLAIN (FORMAT JSON)} on
+ * every statement it executed, with the same parameters. A method fails if
+ * its index does not exist or, when the index's table holds at least
+ * {@code plan.rowThreshold} rows (by the planner's estimate, default 10000),
+ * no plan scans with it. It also fails if its plan reads a table that large
+ * in a way its expectation rules out:
+ * <ul>
+ *   <li>{@code INDEX_ONLY} - only index-only scans</li>
+ *   <li>{@code INDEX} - index, index-only or bitmap scans, no sequential scans</li>
+ *   <li>{@code SCAN_ALLOWED} - anything; for methods that must read every row</li>
+ * </ul>
+ * Smaller tables are ignored: a sequential scan is the right plan for them.
+ * Methods that write run inside a transaction that is rolled back.
+ * <p>
+ * Tagged {@code database} and run only with {@code -Pplan-check}, against the
+ * test database seeded with {@link gtp.hms.util.SyntheticDataGenerator} and
+ * analyzed.
+ */
+@Tag("database")
+class QueryPlanTest {
+    private static final Pattern NODE_TYPE = Pattern.compile("\"Node Type\":\\s*\"([^\"]+)\"");
+    private static final Pattern RELATION_NAME = Pattern.compile("\"Relation Name\":\\s*\"([^\"]+)\"");
+    private static final Pattern INDEX_NAME = Pattern.compile("\"Index Name\":\\s*\"([^\"]+)\"");
+
+    private static final Set<String> SCAN_NODES = Set.of(
+            "Seq Scan", "Index Scan", "Index Only Scan", "Bitmap Heap Scan", "Tid Scan", "Tid Range Scan");
+
+    private static final Set<String> INDEX_NODES = Set.of(
+            "Index Scan", "Index Only Scan", "Bitmap Heap Scan", "Tid Scan", "Tid Range Scan");
+
+    private static final String TABLE_ROWS_SQL = "SELECT relname, reltuples::bigint FROM pg_class " +
+            "WHERE relkind IN ('r', 'p') AND relnamespace = 'public'::regnamespace";
+
+    private static final String INDEXES_SQL = "SELECT c.relname, t.relname FROM pg_index i " +
+            "JOIN pg_class c ON c.oid = i.indexrelid " +
+            "JOIN pg_class t ON t.oid = i.indrelid " +
+            "WHERE i.indisvalid AND c.relnamespace = 'public'::regnamespace";
+
+    private enum Access { INDEX_ONLY, INDEX, SCAN_ALLOWED }
+
+    @FunctionalInterface
+    private interface Call {
+        Object run(Keys keys) throws Exception;
+    }
+
+    private record Expectation(String method, Access access, String index, boolean writes, Call call) {}
+
+    /**
+     * Existing rows for the methods to look up.
+     */
+    private record Keys(Patient patient, UUID admissionId, Ward ward, Department department, Doctor doctor) {}
+
+    private record PlanNode(String type, String relation, String index) {}
+
+    /** Thrown to roll back the transaction around a write. */
+    private static final class Rollback extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private Rollback() {
+            super(null, null, false, false);
+        }
+    }
+
+    private final PatientDAO patientDAO = new PatientDAO();
+    private final PatientAdmissionDAO admissionDAO = new PatientAdmissionDAO();
+    private final PatientChartDAO chartDAO = new PatientChartDAO();
+    private final WardDAO wardDAO = new WardDAO();
+    private final DepartmentDAO departmentDAO = new DepartmentDAO();
+    private final DoctorDAO doctorDAO = new DoctorDAO();
+    private final EmployeeDAO employeeDAO = new EmployeeDAO();
+
+    private final List<Expectation> expectations = List.of(
+            read("PatientDAO.findById", Access.INDEX, k -> patientDAO.findById(k.patient().getId())),
+            read("PatientDAO.findByPatientNumber", Access.INDEX,
+                    k -> patientDAO.findByPatientNumber(k.patient().getPatientNumber())),
+            read("PatientDAO.findByIds", Access.INDEX, k -> patientDAO.findByIds(List.of(k.patient().getId()))),
+            read("PatientDAO.findByPatientNumbers", Access.INDEX,
+                    k -> patientDAO.findByPatientNumbers(List.of(k.patient().getPatientNumber()))),
+            read("PatientDAO.findPage(name)", Access.INDEX, "idx_patient_name_keyset",
+                    k -> patientDAO.findPage(PageRequest.first(PageRequest.Sort.NAME, 20))),
+            read("PatientDAO.findPage(number)", Access.INDEX,
+                    k -> patientDAO.findPage(PageRequest.first(PageRequest.Sort.PATIENT_NUMBER, 20))),
+            // A name shared by a large share of patients is rightly a scan, so search for a rare one
+            read("PatientDAO.searchRanked", Access.INDEX, "idx_patient_search_name_trgm",
+                    k -> patientDAO.searchRanked("Quarshie", 20)),
+            // Substring LIKE on LOWER(first_name) and LOWER(last_name) has no index to use
+            read("PatientDAO.searchByName", Access.SCAN_ALLOWED,
+                    k -> patientDAO.searchByName(k.patient().getLastName())),
+            read("PatientDAO.searchByName(page)", Access.SCAN_ALLOWED,
+                    k -> patientDAO.searchByName(k.patient().getLastName(),
+                            PageRequest.first(PageRequest.Sort.NAME, 20))),
+            write("PatientDAO.create", Access.INDEX, k -> patientDAO.create(newPatient())),
+            write("PatientDAO.update", Access.INDEX, k -> {
+                patientDAO.update(k.patient());
+                return null;
+            }),
+            write("PatientDAO.delete", Access.INDEX, k -> patientDAO.delete(patientDAO.create(newPatient()))),
+            write("PatientDAO.upsertAll", Access.INDEX, k -> patientDAO.upsertAll(List.of(k.patient(), newPatient()))),
+
+            read("PatientAdmissionDAO.findByPatientId", Access.INDEX, "idx_admission_patient_date",
+                    k -> admissionDAO.findByPatientId(k.patient().getId())),
+            read("PatientAdmissionDAO.findCurrentAdmissionByPatientId", Access.INDEX,
+                    k -> admissionDAO.findCurrentAdmissionByPatientId(k.patient().getId())),
+            read("PatientAdmissionDAO.findAllCurrent", Access.INDEX, k -> admissionDAO.findAllCurrent()),
+            write("PatientAdmissionDAO.dischargeAll", Access.INDEX,
+                    k -> admissionDAO.dischargeAll(List.of(k.admissionId()))),
+            write("PatientAdmissionDAO.dischargeWard", Access.INDEX, k -> admissionDAO.dischargeWard(k.ward().getId())),
+            // An insert scans nothing; WardDAO.isBedAvailable covers uq_admission_current_bed
+            write("PatientAdmissionDAO.create", Access.INDEX, k -> {
+                // Free bed 1 so the new admission does not conflict
+                admissionDAO.dischargeWard(k.ward().getId());
+                PatientAdmission admission = new PatientAdmission();
+                admission.setPatientId(k.patient().getId());
+                admission.setWardId(k.ward().getId());
+                admission.setBedNumber(1);
+                admission.setDiagnosis("Plan check");
+                admission.setTreatingDoctorId(k.doctor().getId());
+                admission.setAdmissionDate(LocalDate.now());
+                admission.setIsCurrent(true);
+                return admissionDAO.create(admission);
+            }),
+            write("PatientAdmissionDAO.delete", Access.INDEX, k -> admissionDAO.delete(k.admissionId())),
+
+            read("PatientChartDAO.findByPatientId", Access.INDEX, "idx_admission_patient_date",
+                    k -> chartDAO.findByPatientId(k.patient().getId())),
+            read("PatientChartDAO.findByPatientNumber", Access.INDEX, "idx_admission_patient_date",
+                    k -> chartDAO.findByPatientNumber(k.patient().getPatientNumber())),
+
+            read("WardDAO.findById", Access.INDEX, k -> wardDAO.findById(k.ward().getId())),
+            read("WardDAO.findByIds", Access.INDEX, k -> wardDAO.findByIds(List.of(k.ward().getId()))),
+            read("WardDAO.findWardIdByNumber", Access.INDEX,
+                    k -> wardDAO.findWardIdByNumber(k.ward().getWardNumber(), k.ward().getDepartmentId())),
+            // Only (ward_id, bed_number) of current admissions is needed, all in uq_admission_current_bed
+            read("WardDAO.isBedAvailable", Access.INDEX_ONLY, PatientAdmissionDAO.CURRENT_BED_INDEX,
+                    k -> wardDAO.isBedAvailable(k.ward().getWardNumber(), k.ward().getDepartmentId(), 1)),
+            read("WardDAO.findAll", Access.SCAN_ALLOWED, k -> wardDAO.findAll()),
+
+            read("DepartmentDAO.findById", Access.INDEX, k -> departmentDAO.findById(k.department().getId())),
+            read("DepartmentDAO.findDepartmentIdByCode", Access.INDEX,
+                    k -> departmentDAO.findDepartmentIdByCode(String.valueOf(k.department().getDepartmentCode()))),
+            read("DepartmentDAO.findAll", Access.SCAN_ALLOWED, k -> departmentDAO.findAll()),
+
+            read("DoctorDAO.findById", Access.INDEX, k -> doctorDAO.findById(k.doctor().getId())),
+            read("DoctorDAO.findByEmployeeNumber", Access.INDEX,
+                    k -> doctorDAO.findByEmployeeNumber(k.doctor().getEmployeeNumber())),
+            read("DoctorDAO.findByIds", Access.INDEX, k -> doctorDAO.findByIds(List.of(k.doctor().getId()))),
+            read("DoctorDAO.findBySpecialty", Access.SCAN_ALLOWED, k -> doctorDAO.findBySpecialty(k.doctor().getSpecialty())),
+            read("DoctorDAO.findAll", Access.SCAN_ALLOWED, k -> doctorDAO.findAll()),
+
+            read("EmployeeDAO.getEmployee", Access.INDEX, k -> employeeDAO.getEmployee(k.doctor().getId())),
+            read("EmployeeDAO.getEmployees", Access.INDEX, k -> employeeDAO.getEmployees(List.of(k.doctor().getId()))));
+
+    private final long rowThreshold = Long.getLong("plan.rowThreshold", 10_000);
+    private final Map<String, Long> tableRows = new HashMap<>();
+    private final Map<String, String> indexTables = new HashMap<>();
+
+    @AfterAll
+    static void closePool() throws SQLException {
+        DatabaseConnection.getInstance().closeConnection();
+    }
+
+    @TestFactory
+    Stream<DynamicTest> daoMethodsUseTheirIndexes() throws Exception {
+        loadTableRows();
+        loadIndexes();
+        Keys keys = sampleKeys();
+
+        return expectations.stream().map(expectation -> DynamicTest.dynamicTest(
+                expectation.method() + " " + expectation.access(), () -> {
+                    Set<String> problems = new LinkedHashSet<>(problems(expectation, keys));
+                    assertTrue(problems.isEmpty(), () -> expectation.method() + " failed its plan expectation" +
+                            String.format(" (threshold %,d rows):%n    - ", rowThreshold) +
+                            String.join(String.format("%n    - "), problems));
+                }));
+    }
+
+    private List<String> problems(Expectation expectation, Keys keys) throws Exception {
+        List<String> problems = new ArrayList<>();
+        String index = expectation.index();
+        if (index != null && !indexTables.containsKey(index)) {
+            problems.add("index " + index + " does not exist");
+        }
+
+        List<CapturedStatement> statements = capture(expectation, keys);
+        if (statements.isEmpty()) {
+            problems.add("no statements were executed");
+        }
+        Set<String> usedIndexes = new LinkedHashSet<>();
+        for (CapturedStatement statement : statements) {
+            for (PlanNode node : explain(statement)) {
+                if (node.index() != null) {
+                    usedIndexes.add(node.index());
+                }
+                String problem = check(expectation.access(), node);
+                if (problem != null) {
+                    problems.add(problem + "\n      in: " + statement.getSql());
+                }
+            }
+        }
+
+        // A bitmap scan names its index on the child Bitmap Index Scan node
+        String indexTable = index == null ? null : indexTables.get(index);
+        if (indexTable != null && !statements.isEmpty() && !usedIndexes.contains(index)) {
+            long rows = tableRows.getOrDefault(indexTable, -1L);
+            if (rows < 0 || rows >= rowThreshold) {
+                problems.add("expected a scan using " + index + " on " + describe(indexTable, rows) +
+                        " but the plans use " + (usedIndexes.isEmpty() ? "no index" : String.join(", ", usedIndexes)));
+            }
+        }
+        return problems;
+    }
+
+    /**
+     * Calls the method and returns the statements it executed. Writes are
+     * rolled back.
+     */
+    private List<CapturedStatement> capture(Expectation expectation, Keys keys) throws Exception {
+        PatientCache.getInstance().clear();
+        try (StatementCapture capture = StatementCapture.begin()) {
+            if (!expectation.writes()) {
+                expectation.call().run(keys);
+                return capture.getStatements();
+            }
+            try {
+                TransactionManager.inTransaction(() -> {
+                    try {
+                        expectation.call().run(keys);
+                    } catch (SQLException | RuntimeException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        throw new SQLException(e);
+                    }
+                    throw new Rollback();
+                });
+            } catch (Rollback expected) {
+                // The write ran; its statements are captured
+            }
+            return capture.getStatements();
+        }
+    }
+
+    private List<PlanNode> explain(CapturedStatement statement) throws SQLException {
+        String plan;
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement("EXPLAIN (FORMAT JSON) " + statement.getSql())) {
+            statement.bindTo(stmt);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                plan = rs.getString(1);
+            }
+        }
+
+        // Child plans follow a node's own properties, so each node's properties
+        // run from its "Node Type" to the next one
+        List<PlanNode> nodes = new ArrayList<>();
+        Matcher type = NODE_TYPE.matcher(plan);
+        List<int[]> spans = new ArrayList<>();
+        List<String> types = new ArrayList<>();
+        while (type.find()) {
+            if (!spans.isEmpty()) {
+                spans.get(spans.size() - 1)[1] = type.start();
+            }
+            spans.add(new int[]{type.end(), plan.length()});
+            types.add(type.group(1));
+        }
+        for (int i = 0; i < spans.size(); i++) {
+            String properties = plan.substring(spans.get(i)[0], spans.get(i)[1]);
+            nodes.add(new PlanNode(types.get(i), find(RELATION_NAME, properties), find(INDEX_NAME, properties)));
+        }
+        return nodes;
+    }
+
+    /**
+     * Returns what is wrong with a plan node under the given expectation, or
+     * null if nothing is.
+     */
+    private String check(Access access, PlanNode node) {
+        if (access == Access.SCAN_ALLOWED || !SCAN_NODES.contains(node.type()) || node.relation() == null) {
+            return null;
+        }
+        long rows = tableRows.getOrDefault(node.relation(), -1L);
+        if (rows >= 0 && rows < rowThreshold) {
+            return null;
+        }
+
+        String table = describe(node.relation(), rows);
+        if (access == Access.INDEX_ONLY && !"Index Only Scan".equals(node.type())) {
+            return "expected an index-only scan on " + table + " but got " + describe(node);
+        }
+        if (!INDEX_NODES.contains(node.type())) {
+            return "expected an index scan on " + table + " but got " + describe(node);
+        }
+        return null;
+    }
+
+    private static String describe(String table, long rows) {
+        return table + (rows < 0 ? " (never analyzed)" : String.format(" (~%,d rows)", rows));
+    }
+
+    private static String describe(PlanNode node) {
+        return node.index() == null ? node.type() : node.type() + " using " + node.index();
+    }
+
+    private void loadTableRows() throws SQLException {
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(TABLE_ROWS_SQL);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                tableRows.put(rs.getString(1), rs.getLong(2));
+            }
+        }
+    }
+
+    private void loadIndexes() throws SQLException {
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(INDEXES_SQL);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                indexTables.put(rs.getString(1), rs.getString(2));
+            }
+        }
+    }
+
+    private Keys sampleKeys() throws Exception {
+        UUID patientId;
+        UUID admissionId;
+        UUID wardId;
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                     "SELECT id, patient_id, ward_id FROM patient_admission WHERE is_current LIMIT 1");
+             ResultSet rs = stmt.executeQuery()) {
+            if (!rs.next()) {
+                throw new IllegalStateException("No current admissions found; seed the database first");
+            }
+            admissionId = (UUID) rs.getObject("id");
+            patientId = (UUID) rs.getObject("patient_id");
+            wardId = (UUID) rs.getObject("ward_id");
+        }
+
+        Ward ward = wardDAO.findById(wardId);
+        return new Keys(patientDAO.findById(patientId), admissionId, ward,
+                departmentDAO.findById(ward.getDepartmentId()), doctorDAO.findAll().get(0));
+    }
+
+    private static Patient newPatient() {
+        return new Patient(Integer.MAX_VALUE - 1, "Plan", null, "Check", null, null);
+    }
+
+    private static String find(Pattern pattern, String text) {
+        Matcher matcher = pattern.matcher(text);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private static Expectation read(String method, Access access, Call call) {
+        return read(method, access, null, call);
+    }
+
+    private static Expectation read(String method, Access access, String index, Call call) {
+        return new Expectation(method, access, index, false, call);
+    }
+
+    private static Expectation write(String method, Access access, Call call) {
+        return write(method, access, null, call);
+    }
+
+    private static Expectation write(String method, Access access, String index, Call call) {
+        return new Expectation(method, access, index, true, call);
+    }
+}
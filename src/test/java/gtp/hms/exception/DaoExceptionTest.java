@@ -0,0 +1,56 @@
+package gtp.hms.exception;
+
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.ServerErrorMessage;
+import org.junit.jupiter.api.Test;
+
+import java.sql.BatchUpdateException;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DaoExceptionTest {
+
+    @Test
+    void matchesTheConstraintReportedByTheServer() {
+        DaoException e = new DaoException("Error creating admission",
+                serverError("doppelter Schlüsselwert verletzt Unique-Constraint", "uq_admission_current_bed"));
+
+        assertTrue(e.isUniqueViolation());
+        assertTrue(e.isUniqueViolation("uq_admission_current_bed"));
+        assertFalse(e.isUniqueViolation("uq_patient_number"));
+    }
+
+    @Test
+    void prefersTheServerFieldOverTheMessage() {
+        DaoException e = new DaoException("Error creating admission",
+                serverError("duplicate key value violates unique constraint \"uq_admission_current_bed\"",
+                        "uq_patient_number"));
+
+        assertFalse(e.isUniqueViolation("uq_admission_current_bed"));
+    }
+
+    @Test
+    void fallsBackToTheMessageWithoutServerFields() {
+        DaoException e = new DaoException("Error creating admission", new SQLException(
+                "duplicate key value violates unique constraint \"uq_admission_current_bed\"", "23505"));
+
+        assertTrue(e.isUniqueViolation("uq_admission_current_bed"));
+        assertFalse(e.isUniqueViolation("uq_admission"));
+    }
+
+    @Test
+    void readsChainedBatchErrors() {
+        BatchUpdateException batch = new BatchUpdateException("Batch entry 0 was aborted", "23505", new int[0]);
+        batch.setNextException(serverError("duplicate key", "uq_admission_current_bed"));
+
+        assertTrue(new DaoException("Error importing admissions", batch)
+                .isUniqueViolation("uq_admission_current_bed"));
+    }
+
+    private static PSQLException serverError(String message, String constraint) {
+        return new PSQLException(new ServerErrorMessage(
+                "SERROR\0C23505\0M" + message + "\0n" + constraint + "\0"));
+    }
+}
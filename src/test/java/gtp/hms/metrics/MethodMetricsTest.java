@@ -0,0 +1,62 @@
+package gtp.hms.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MethodMetricsTest {
+
+    @Test
+    void countsRowsReportedByTheResult() {
+        MethodMetrics metrics = new MethodMetrics("Test.upsertAll");
+        RowCounted result = () -> 42;
+        metrics.time(() -> result);
+        metrics.time(() -> List.of(1, 2));
+        assertEquals(44, metrics.getRows());
+    }
+
+    @Test
+    void streamIsRecordedOnCloseWithConsumedRows() {
+        MethodMetrics metrics = new MethodMetrics("Test.streamAll");
+        try (Stream<Integer> stream = metrics.timeStream(() -> Stream.of(1, 2, 3, 4, 5))) {
+            assertEquals(List.of(1, 2, 3), stream.limit(3).toList());
+            assertEquals(0, metrics.getCalls());
+        }
+        assertEquals(1, metrics.getCalls());
+        assertEquals(3, metrics.getRows());
+        assertEquals(0, metrics.getErrors());
+    }
+
+    @Test
+    void closeRunsTheSourceCloseHandler() {
+        MethodMetrics metrics = new MethodMetrics("Test.streamAll");
+        boolean[] closed = {false};
+        metrics.timeStream(() -> Stream.of(1).onClose(() -> closed[0] = true)).close();
+        assertEquals(true, closed[0]);
+    }
+
+    @Test
+    void failureWhileConsumingCountsAsError() {
+        MethodMetrics metrics = new MethodMetrics("Test.streamAll");
+        try (Stream<Integer> stream = metrics.timeStream(() -> Stream.of(1, 0).map(i -> 1 / i))) {
+            assertThrows(ArithmeticException.class, stream::toList);
+        }
+        assertEquals(1, metrics.getCalls());
+        assertEquals(1, metrics.getErrors());
+        assertEquals(0, metrics.getRows());
+    }
+
+    @Test
+    void failureWhileOpeningIsRecordedImmediately() {
+        MethodMetrics metrics = new MethodMetrics("Test.streamAll");
+        assertThrows(IllegalStateException.class, () -> metrics.timeStream(() -> {
+            throw new IllegalStateException("no cursor");
+        }));
+        assertEquals(1, metrics.getCalls());
+        assertEquals(1, metrics.getErrors());
+    }
+}
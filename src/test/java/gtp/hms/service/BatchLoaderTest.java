@@ -0,0 +1,102 @@
+package gtp.hms.service;
+
+import gtp.hms.config.DatabaseConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BatchLoaderTest {
+
+    @Test
+    void coalescesKeysIntoOneBatch() throws Exception {
+        List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+        BatchLoader<Integer, String> loader = new BatchLoader<>(keys -> {
+            batches.add(List.copyOf(keys));
+            Map<Integer, String> values = new HashMap<>();
+            keys.stream().filter(key -> key != 3).forEach(key -> values.put(key, "v" + key));
+            return values;
+        }, 0, 100);
+
+        CompletableFuture<String> one = loader.load(1);
+        CompletableFuture<Map<Integer, String>> many = loader.loadMany(List.of(2, 3, 1));
+        loader.dispatch();
+
+        assertEquals("v1", one.get(5, TimeUnit.SECONDS));
+        assertEquals(Map.of(2, "v2", 1, "v1"), many.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(List.of(1, 2, 3)), batches);
+        assertSame(one, loader.load(1));
+    }
+
+    @Test
+    void dispatchesOnceTheBatchIsFull() throws Exception {
+        BatchLoader<Integer, Integer> loader = new BatchLoader<>(keys -> {
+            Map<Integer, Integer> values = new HashMap<>();
+            keys.forEach(key -> values.put(key, key * 2));
+            return values;
+        }, 0, 2);
+
+        CompletableFuture<Integer> first = loader.load(1);
+        CompletableFuture<Integer> second = loader.load(2);
+
+        assertEquals(2, first.get(5, TimeUnit.SECONDS));
+        assertEquals(4, second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void failsEveryFutureIfTheResultCannotBeRead() throws Exception {
+        BatchLoader<Integer, String> loader = new BatchLoader<>(keys -> null, 0, 100);
+        CompletableFuture<String> first = loader.load(1);
+        CompletableFuture<String> second = loader.load(2);
+        loader.dispatch();
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(NullPointerException.class, error.getCause());
+        assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        assertNotSame(first, loader.load(1), "failed keys are retried by a later load");
+    }
+
+    @Test
+    void batchesDoNotNeedADatabasePermit() throws Exception {
+        int permits = DatabaseConfig.getPoolMaxSize();
+        BatchLoader<Integer, Integer> loader = new BatchLoader<>(keys -> {
+            Map<Integer, Integer> values = new HashMap<>();
+            keys.forEach(key -> values.put(key, key));
+            return values;
+        }, 0, permits);
+
+        // Every permit is held by a call waiting on the same batch
+        List<CompletableFuture<Integer>> callers = new ArrayList<>();
+        for (int i = 0; i < permits; i++) {
+            int key = i;
+            callers.add(ServiceExecutor.supplyAsync(() -> loader.load(key).join()));
+        }
+
+        for (int i = 0; i < permits; i++) {
+            assertEquals(i, callers.get(i).get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void loadsNothingForAnEmptyDispatch() {
+        BatchLoader<Integer, Integer> loader = new BatchLoader<>(keys -> {
+            throw new AssertionError("no keys were queued");
+        }, 0, 10);
+
+        loader.dispatch();
+        assertNull(loader.loadMany(List.of()).join().get(1));
+    }
+}
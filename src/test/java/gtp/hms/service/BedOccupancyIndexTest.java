@@ -0,0 +1,165 @@
+package gtp.hms.service;
+
+import gtp.hms.dao.PatientAdmissionDAO;
+import gtp.hms.dao.WardDAO;
+import gtp.hms.model.PatientAdmission;
+import gtp.hms.model.Ward;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BedOccupancyIndexTest {
+    private final UUID department = UUID.randomUUID();
+    private final List<Ward> wards = new ArrayList<>();
+    private final List<PatientAdmission> current = new ArrayList<>();
+    private Runnable duringSnapshot = () -> {};
+
+    private final BedOccupancyIndex index = new BedOccupancyIndex(new WardDAO() {
+        @Override
+        public List<Ward> findAll() {
+            return List.copyOf(wards);
+        }
+    }, new PatientAdmissionDAO() {
+        @Override
+        public List<PatientAdmission> findAllCurrent() {
+            duringSnapshot.run();
+            return List.copyOf(current);
+        }
+    }, 0);
+
+    @Test
+    void loadsOccupancyFromCurrentAdmissions() throws Exception {
+        Ward ward = ward(130);
+        admit(ward, 1);
+        admit(ward, 64);
+        admit(ward, 65);
+        index.reconcile();
+
+        assertFalse(index.isBedAvailable(ward.getId(), 1));
+        assertFalse(index.isBedAvailable(ward.getId(), 64));
+        assertFalse(index.isBedAvailable(ward.getId(), 65));
+        assertTrue(index.isBedAvailable(ward.getId(), 2));
+        assertEquals(2, index.nextFreeBed(ward.getId()));
+        assertEquals(127, index.getFreeBeds(ward.getId()));
+        assertEquals(127, index.getFreeBedsInDepartment(department));
+    }
+
+    @Test
+    void rejectsBedsOutsideTheWard() throws Exception {
+        Ward ward = ward(10);
+        index.reconcile();
+
+        assertFalse(index.isBedAvailable(ward.getId(), 0));
+        assertFalse(index.isBedAvailable(ward.getId(), 11));
+        assertFalse(index.markOccupied(ward.getId(), 11));
+        assertFalse(index.markOccupied(UUID.randomUUID(), 1));
+        assertEquals(-1, index.nextFreeBed(UUID.randomUUID()));
+    }
+
+    @Test
+    void markOccupiedIsAReservation() throws Exception {
+        Ward ward = ward(3);
+        index.reconcile();
+
+        assertTrue(index.markOccupied(ward.getId(), 2));
+        assertFalse(index.markOccupied(ward.getId(), 2));
+        assertEquals(2, index.getFreeBedsInDepartment(department));
+
+        assertTrue(index.markFree(ward.getId(), 2));
+        assertFalse(index.markFree(ward.getId(), 2));
+        assertEquals(3, index.getFreeBedsInDepartment(department));
+    }
+
+    @Test
+    void fullWardHasNoNextBed() throws Exception {
+        Ward ward = ward(64);
+        index.reconcile();
+        for (int bed = 1; bed <= 64; bed++) {
+            assertTrue(index.markOccupied(ward.getId(), bed));
+        }
+
+        assertEquals(-1, index.nextFreeBed(ward.getId()));
+        assertEquals(0, index.getFreeBeds(ward.getId()));
+    }
+
+    @Test
+    void reconcileCorrectsDriftAndCountsIt() throws Exception {
+        Ward ward = ward(20);
+        index.reconcile();
+        admit(ward, 5);
+        admit(ward, 6);
+
+        assertEquals(2, index.reconcile());
+        assertFalse(index.isBedAvailable(ward.getId(), 5));
+        assertEquals(18, index.getFreeBedsInDepartment(department));
+        assertEquals(0, index.reconcile());
+    }
+
+    @Test
+    void reconcileLeavesWardsChangedDuringTheSnapshot() throws Exception {
+        Ward ward = ward(20);
+        index.reconcile();
+
+        // An admission is recorded while the snapshot is being read
+        duringSnapshot = () -> assertTrue(index.markOccupied(ward.getId(), 7));
+        assertEquals(0, index.reconcile());
+        assertFalse(index.isBedAvailable(ward.getId(), 7));
+
+        // The next run sees the ward unchanged and trusts the database
+        duringSnapshot = () -> {};
+        assertEquals(1, index.reconcile());
+        assertTrue(index.isBedAvailable(ward.getId(), 7));
+    }
+
+    @Test
+    void reconcileDropsDeletedWards() throws Exception {
+        Ward kept = ward(10);
+        Ward deleted = ward(5);
+        index.reconcile();
+        assertEquals(15, index.getFreeBedsInDepartment(department));
+
+        wards.remove(deleted);
+        index.reconcile();
+
+        assertFalse(index.hasWard(deleted.getId()));
+        assertFalse(index.markOccupied(deleted.getId(), 1));
+        assertTrue(index.hasWard(kept.getId()));
+        assertEquals(10, index.getFreeBedsInDepartment(department));
+    }
+
+    @Test
+    void reconcileKeepsDeletedWardsChangedDuringTheSnapshot() throws Exception {
+        Ward ward = ward(5);
+        index.reconcile();
+        wards.remove(ward);
+
+        duringSnapshot = () -> assertTrue(index.markOccupied(ward.getId(), 1));
+        index.reconcile();
+        assertTrue(index.hasWard(ward.getId()));
+
+        duringSnapshot = () -> {};
+        index.reconcile();
+        assertFalse(index.hasWard(ward.getId()));
+        assertEquals(0, index.getFreeBedsInDepartment(department));
+    }
+
+    private Ward ward(int beds) {
+        Ward ward = new Ward(UUID.randomUUID(), wards.size() + 1, beds, department, null, null, null);
+        wards.add(ward);
+        return ward;
+    }
+
+    private void admit(Ward ward, int bed) {
+        PatientAdmission admission = new PatientAdmission();
+        admission.setWardId(ward.getId());
+        admission.setBedNumber(bed);
+        admission.setIsCurrent(true);
+        current.add(admission);
+    }
+}
@@ -0,0 +1,137 @@
+package gtp.hms.service;
+
+import gtp.hms.model.Patient;
+import gtp.hms.model.PatientSuggestion;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PatientTypeaheadIndexTest {
+    private static final String[] FIRST = {"Ama", "Amos", "Kofi", "Kwame", "Patrick", "Patience", "Esi", "Yaw"};
+    private static final String[] LAST = {"Kubi", "Mensah", "Owusu", "Asante", "Boateng", "Ansah", "Kuffour"};
+
+    @Test
+    void matchesEveryQueryWordAsAPrefix() {
+        PatientTypeaheadIndex index = new PatientTypeaheadIndex();
+        index.put(patient(10021, "Patrick", null, "Kubi"));
+        index.put(patient(10022, "Patience", null, "Mensah"));
+        index.put(patient(20001, "Kofi", "Patrick", "Owusu"));
+
+        assertEquals(List.of("Patrick Kubi"), names(index.search("kub pat", 10)));
+        assertEquals(List.of("Patrick Kubi", "Patience Mensah"), names(index.search("1002", 10)));
+        assertEquals(3, index.search("pat", 10).size());
+        assertTrue(index.search("  ", 10).isEmpty());
+        assertTrue(index.search("pat", 0).isEmpty());
+    }
+
+    @Test
+    void removedAndReplacedPatientsAreSkipped() {
+        PatientTypeaheadIndex index = new PatientTypeaheadIndex();
+        Patient ama = patient(1, "Ama", null, "Mensah");
+        Patient amos = patient(2, "Amos", null, "Asante");
+        index.put(ama);
+        index.put(amos);
+
+        index.remove(amos.getId());
+        ama.setLastName("Owusu");
+        index.put(ama);
+
+        assertEquals(List.of("Ama Owusu"), names(index.search("am", 10)));
+        assertTrue(index.search("mensah", 10).isEmpty());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void resultsAfterRebuildComeInNameOrderAndStopAtLimit() {
+        PatientTypeaheadIndex index = new PatientTypeaheadIndex();
+        List<Patient> patients = randomPatients(1500, new Random(42));
+        patients.forEach(index::put);
+
+        List<Patient> expected = patients.stream()
+                .filter(p -> p.getLastName().toLowerCase(Locale.ROOT).startsWith("ku"))
+                .sorted(nameOrder())
+                .limit(5)
+                .toList();
+        List<PatientSuggestion> results = index.search("ku", 5);
+
+        assertEquals(5, results.size());
+        assertEquals(expected.stream().map(Patient::getId).toList(),
+                results.stream().map(PatientSuggestion::getPatientId).toList());
+    }
+
+    @Test
+    void agreesWithAFullScan() {
+        Random random = new Random(7);
+        PatientTypeaheadIndex index = new PatientTypeaheadIndex();
+        List<Patient> live = new ArrayList<>(randomPatients(2500, random));
+        live.forEach(index::put);
+        for (int i = 0; i < 200; i++) {
+            index.remove(live.remove(random.nextInt(live.size())).getId());
+        }
+
+        for (String query : new String[]{"a", "ka", "pat kub", "am as", "1", "12 o", "zz"}) {
+            List<UUID> expected = live.stream()
+                    .filter(p -> matches(p, query))
+                    .map(Patient::getId)
+                    .sorted()
+                    .toList();
+            List<UUID> actual = index.search(query, Integer.MAX_VALUE).stream()
+                    .map(PatientSuggestion::getPatientId)
+                    .sorted()
+                    .toList();
+            assertEquals(expected, actual, query);
+        }
+    }
+
+    private static boolean matches(Patient patient, String query) {
+        List<String> words = new ArrayList<>(List.of(Integer.toString(patient.getPatientNumber()),
+                patient.getFirstName().toLowerCase(Locale.ROOT), patient.getLastName().toLowerCase(Locale.ROOT)));
+        if (patient.getMiddleName() != null) {
+            words.add(patient.getMiddleName().toLowerCase(Locale.ROOT));
+        }
+        for (String prefix : query.split(" ")) {
+            if (words.stream().noneMatch(word -> word.startsWith(prefix))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<Patient> randomPatients(int count, Random random) {
+        List<Patient> patients = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            patients.add(patient(1000 + i, FIRST[random.nextInt(FIRST.length)],
+                    random.nextInt(4) == 0 ? FIRST[random.nextInt(FIRST.length)] : null,
+                    LAST[random.nextInt(LAST.length)]));
+        }
+        return patients;
+    }
+
+    private static Comparator<Patient> nameOrder() {
+        return Comparator.comparing(Patient::getLastName, String.CASE_INSENSITIVE_ORDER)
+                .thenComparing(Patient::getFirstName, String.CASE_INSENSITIVE_ORDER)
+                .thenComparingInt(Patient::getPatientNumber);
+    }
+
+    private static Patient patient(int number, String first, String middle, String last) {
+        Patient patient = new Patient();
+        patient.setId(UUID.randomUUID());
+        patient.setPatientNumber(number);
+        patient.setFirstName(first);
+        patient.setMiddleName(middle);
+        patient.setLastName(last);
+        return patient;
+    }
+
+    private static List<String> names(List<PatientSuggestion> suggestions) {
+        return suggestions.stream().map(PatientSuggestion::getFullName).toList();
+    }
+}
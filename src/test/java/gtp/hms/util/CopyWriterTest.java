@@ -0,0 +1,169 @@
+package gtp.hms.util;
+
+import org.junit.jupiter.api.Test;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.util.ByteStreamWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CopyWriterTest {
+
+    @Test
+    void escapesCopyTextSpecialCharacters() throws Exception {
+        RecordingCopyIn copy = new RecordingCopyIn();
+        try (CopyWriter writer = new CopyWriter(copy)) {
+            writer.field("back\\slash").field("tab\there").field("line\nbreak").field("cr\rhere").endRow();
+            writer.finish();
+        }
+
+        assertEquals("back\\\\slash\ttab\\there\tline\\nbreak\tcr\\rhere\n", copy.text());
+    }
+
+    @Test
+    void distinguishesNullFromTheTextBackslashN() throws Exception {
+        RecordingCopyIn copy = new RecordingCopyIn();
+        try (CopyWriter writer = new CopyWriter(copy)) {
+            writer.field((String) null).field("\\N").field((UUID) null).field((LocalDateTime) null).endRow();
+            writer.finish();
+        }
+
+        assertEquals("\\N\t\\\\N\t\\N\t\\N\n", copy.text());
+    }
+
+    @Test
+    void encodesNonAsciiAsUtf8AndKeepsEscaping() throws Exception {
+        RecordingCopyIn copy = new RecordingCopyIn();
+        try (CopyWriter writer = new CopyWriter(copy)) {
+            writer.field("Kwabena \\ Adjoa").field("Zoë\tÅsa\nО'Брайен\\").endRow();
+            writer.finish();
+        }
+
+        assertEquals("Kwabena \\\\ Adjoa\tZoë\\tÅsa\\nО'Брайен\\\\\n", copy.text());
+    }
+
+    @Test
+    void writesTypedFieldsAndCountsRows() throws Exception {
+        RecordingCopyIn copy = new RecordingCopyIn();
+        UUID id = UUID.fromString("00000000-0000-0000-0000-00000000002a");
+        LocalDateTime at = LocalDateTime.of(2024, 5, 1, 8, 30);
+        try (CopyWriter writer = new CopyWriter(copy)) {
+            writer.field(id).field(42).field(7_000_000_000L).field(true).field(at).endRow();
+            writer.field(false).endRow();
+            assertEquals(2, writer.getRows());
+            writer.finish();
+        }
+
+        assertEquals(id + "\t42\t7000000000\tt\t2024-05-01T08:30\nf\n", copy.text());
+    }
+
+    @Test
+    void streamsRowsLargerThanTheBuffer() throws Exception {
+        RecordingCopyIn copy = new RecordingCopyIn();
+        String large = "x".repeat(100_000) + "é".repeat(70_000);
+        try (CopyWriter writer = new CopyWriter(copy)) {
+            for (int i = 0; i < 3; i++) {
+                writer.field(i).field(large).endRow();
+            }
+            writer.finish();
+        }
+
+        String expected = ("0\t" + large + "\n") + ("1\t" + large + "\n") + ("2\t" + large + "\n");
+        assertEquals(expected, copy.text());
+        assertTrue(copy.writes > 3);
+    }
+
+    @Test
+    void streamsRawFieldsLargerThanTheBuffer() throws Exception {
+        RecordingCopyIn copy = new RecordingCopyIn();
+        String large = "{" + "9".repeat(70_000) + "}";
+        try (CopyWriter writer = new CopyWriter(copy)) {
+            writer.field("x".repeat(60_000)).rawField(large).rawField("2024-05-01 08:30:00+00 Zoë").endRow();
+            writer.finish();
+        }
+
+        assertEquals("x".repeat(60_000) + "\t" + large + "\t2024-05-01 08:30:00+00 Zoë\n", copy.text());
+    }
+
+    @Test
+    void closingAnUnfinishedWriterCancelsTheCopy() throws Exception {
+        RecordingCopyIn copy = new RecordingCopyIn();
+        try (CopyWriter writer = new CopyWriter(copy)) {
+            writer.field("partial").endRow();
+        }
+
+        assertTrue(copy.cancelled);
+        assertFalse(copy.ended);
+    }
+
+    /**
+     * Collects everything written to the COPY.
+     */
+    private static final class RecordingCopyIn implements CopyIn {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private int writes;
+        private boolean ended;
+        private boolean cancelled;
+
+        String text() {
+            return bytes.toString(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void writeToCopy(byte[] buf, int off, int siz) {
+            bytes.write(buf, off, siz);
+            writes++;
+        }
+
+        @Override
+        public void writeToCopy(ByteStreamWriter from) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void flushCopy() {
+        }
+
+        @Override
+        public long endCopy() {
+            ended = true;
+            return 0;
+        }
+
+        @Override
+        public int getFieldCount() {
+            return 0;
+        }
+
+        @Override
+        public int getFormat() {
+            return 0;
+        }
+
+        @Override
+        public int getFieldFormat(int field) {
+            return 0;
+        }
+
+        @Override
+        public boolean isActive() {
+            return !ended && !cancelled;
+        }
+
+        @Override
+        public void cancelCopy() {
+            cancelled = true;
+        }
+
+        @Override
+        public long getHandledRowCount() {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package gtp.hms.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DatabaseConnectionTest {
+
+    @Test
+    void queriesAreNotWrites() {
+        assertFalse(DatabaseConnection.isWriteStatement("SELECT * FROM patient WHERE id = ?"));
+        assertFalse(DatabaseConnection.isWriteStatement("  \n select 1"));
+        assertFalse(DatabaseConnection.isWriteStatement("(SELECT 1) UNION (SELECT 2)"));
+        assertFalse(DatabaseConnection.isWriteStatement("WITH recent AS (SELECT 1) SELECT * FROM recent"));
+    }
+
+    @Test
+    void dmlIsAWrite() {
+        assertTrue(DatabaseConnection.isWriteStatement("INSERT INTO patient (id) VALUES (?)"));
+        assertTrue(DatabaseConnection.isWriteStatement("update patient SET address = ?"));
+        assertTrue(DatabaseConnection.isWriteStatement("DELETE FROM patient WHERE id = ?"));
+        assertTrue(DatabaseConnection.isWriteStatement("WITH merged AS (INSERT INTO patient SELECT 1 RETURNING id) SELECT 1"));
+    }
+
+    @Test
+    void adoptedStampIsShared() {
+        AtomicLong stamp = new AtomicLong(Long.MIN_VALUE);
+        AtomicLong previous = DatabaseConnection.adoptWriteStamp(stamp);
+        try {
+            assertSame(stamp, DatabaseConnection.currentWriteStamp());
+            DatabaseConnection.recordWrite();
+            assertNotEquals(Long.MIN_VALUE, stamp.get());
+        } finally {
+            DatabaseConnection.adoptWriteStamp(previous);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package gtp.hms.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void valuesBelowTheFirstSplitAreExact() {
+        for (long value = 0; value < 128; value++) {
+            assertEquals(value, bucketTop(value));
+        }
+    }
+
+    @Test
+    void firstSplitBucketsHoldTwoValues() {
+        assertEquals(129, bucketTop(128));
+        assertEquals(129, bucketTop(129));
+        assertEquals(131, bucketTop(130));
+        assertEquals(255, bucketTop(254));
+        assertEquals(255, bucketTop(255));
+        assertEquals(259, bucketTop(256));
+    }
+
+    @Test
+    void everyPowerOfTwoStartsANewBucket() {
+        for (int bits = 7; bits < 63; bits++) {
+            long power = 1L << bits;
+            long width = Math.max(1, power >>> 6);
+            assertEquals(power - 1, bucketTop(power - 1), "below 2^" + bits);
+            assertEquals(power + width - 1, bucketTop(power), "at 2^" + bits);
+            assertEquals(power + width - 1, bucketTop(power + width - 1), "end of first bucket at 2^" + bits);
+            assertEquals(power + 2 * width - 1, bucketTop(power + width), "second bucket at 2^" + bits);
+        }
+    }
+
+    @Test
+    void relativeErrorStaysWithinOneSixtyFourth() {
+        for (int bits = 7; bits < 63; bits++) {
+            long power = 1L << bits;
+            for (long value : new long[]{power, power + 1, power + power / 3, 2 * power - 1}) {
+                long top = bucketTop(value);
+                assertTrue(top >= value, "top below value " + value);
+                assertTrue((double) (top - value) / value <= 1.0 / 64, "error too large at " + value);
+            }
+        }
+    }
+
+    @Test
+    void recordsTheLargestLong() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(100));
+        assertEquals(Long.MAX_VALUE, bucketTop(Long.MAX_VALUE - (1L << 56) + 1));
+    }
+
+    @Test
+    void percentilesAreCappedAtTheMaximum() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1000);
+
+        assertEquals(1000, histogram.getValueAtPercentile(100));
+        assertEquals(1000, histogram.getValueAtPercentile(0));
+    }
+
+    @Test
+    void percentilesWalkTheRecordedValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(1, histogram.getValueAtPercentile(0));
+        assertEquals(50, histogram.getValueAtPercentile(50));
+        assertEquals(99, histogram.getValueAtPercentile(99));
+        assertEquals(100, histogram.getValueAtPercentile(99.9));
+        assertEquals(50.5, histogram.getMeanNanos());
+    }
+
+    @Test
+    void negativeDurationsAreRecordedAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(100));
+        assertEquals(0, histogram.getMaxNanos());
+    }
+
+    @Test
+    void emptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        assertEquals(0, histogram.getMeanNanos());
+        assertThrows(IllegalArgumentException.class, () -> histogram.getValueAtPercentile(100.5));
+        assertThrows(IllegalArgumentException.class, () -> histogram.getValueAtPercentile(-1));
+    }
+
+    @Test
+    void addMergesAndResetClears() {
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        first.record(10);
+        second.record(1_000_000);
+        second.record(20);
+
+        first.add(second);
+
+        assertEquals(3, first.getCount());
+        assertEquals(1_000_000, first.getMaxNanos());
+        assertEquals(20, first.getValueAtPercentile(50));
+
+        first.reset();
+
+        assertEquals(0, first.getCount());
+        assertEquals(0, first.getMaxNanos());
+        assertEquals(0, first.getValueAtPercentile(100));
+    }
+
+    /**
+     * Returns the highest value reported for the bucket holding {@code value},
+     * by recording it below a larger value so the maximum does not cap it.
+     */
+    private static long bucketTop(long value) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(value);
+        histogram.record(Long.MAX_VALUE);
+        return histogram.getValueAtPercentile(50);
+    }
+}
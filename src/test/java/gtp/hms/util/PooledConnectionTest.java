@@ -0,0 +1,137 @@
+package gtp.hms.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class PooledConnectionTest {
+    private ConnectionPool pool;
+    private AtomicLong stamp;
+    private AtomicLong previousStamp;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        // Never connects: the pool starts empty and the tests lease fake connections
+        pool = new ConnectionPool("jdbc:postgresql://localhost:1/none", new Properties(),
+                0, 1, 1_000, 60_000, 1, 60_000, 0, false);
+        stamp = new AtomicLong(Long.MIN_VALUE);
+        previousStamp = DatabaseConnection.adoptWriteStamp(stamp);
+    }
+
+    @AfterEach
+    void tearDown() {
+        DatabaseConnection.adoptWriteStamp(previousStamp);
+        pool.close();
+    }
+
+    @Test
+    void plainStatementWriteInAutocommitIsRecordedOnClose() throws SQLException {
+        try (Connection conn = lease(); Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM patient WHERE patient_number = 1");
+            assertEquals(Long.MIN_VALUE, stamp.get());
+        }
+
+        assertNotEquals(Long.MIN_VALUE, stamp.get());
+    }
+
+    @Test
+    void plainStatementReadIsNotAWrite() throws SQLException {
+        try (Connection conn = lease(); Statement stmt = conn.createStatement()) {
+            stmt.executeQuery("SELECT count(*) FROM patient");
+        }
+
+        assertEquals(Long.MIN_VALUE, stamp.get());
+    }
+
+    @Test
+    void manualTransactionRecordsOnCommit() throws SQLException {
+        try (Connection conn = lease()) {
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.addBatch("INSERT INTO patient (patient_number) VALUES (1)");
+                stmt.executeBatch();
+            }
+            assertEquals(Long.MIN_VALUE, stamp.get());
+
+            conn.commit();
+            assertNotEquals(Long.MIN_VALUE, stamp.get());
+        }
+    }
+
+    @Test
+    void rolledBackTransactionIsNotAWrite() throws SQLException {
+        try (Connection conn = lease()) {
+            conn.setAutoCommit(false);
+            conn.prepareStatement("UPDATE patient SET address = ?");
+            conn.rollback();
+            conn.setAutoCommit(true);
+        }
+
+        assertEquals(Long.MIN_VALUE, stamp.get());
+    }
+
+    @Test
+    void reenablingAutocommitCommitsTheWrite() throws SQLException {
+        try (Connection conn = lease()) {
+            conn.setAutoCommit(false);
+            conn.unwrap(Connection.class); // as CopyWriter does for COPY
+            conn.setAutoCommit(true);
+            assertNotEquals(Long.MIN_VALUE, stamp.get());
+        }
+    }
+
+    @Test
+    void abandonedTransactionIsNotAWrite() throws SQLException {
+        try (Connection conn = lease()) {
+            conn.setAutoCommit(false);
+            conn.prepareCall("CALL archive_admissions()");
+        }
+
+        assertEquals(Long.MIN_VALUE, stamp.get());
+    }
+
+    private Connection lease() {
+        return new PooledConnection(pool, fakeConnection(), null).lease();
+    }
+
+    /**
+     * A connection that only tracks its autocommit mode and whether it is closed.
+     */
+    private static Connection fakeConnection() {
+        boolean[] state = {true, false}; // autocommit, closed
+        Statement statement = (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(),
+                new Class<?>[]{Statement.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "executeUpdate" -> 1;
+                    case "executeBatch" -> new int[]{1};
+                    case "execute" -> false;
+                    default -> null;
+                });
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getAutoCommit" -> state[0];
+                    case "setAutoCommit" -> {
+                        state[0] = (Boolean) args[0];
+                        yield null;
+                    }
+                    case "isClosed" -> state[1];
+                    case "close" -> {
+                        state[1] = true;
+                        yield null;
+                    }
+                    case "isReadOnly" -> false;
+                    case "createStatement" -> statement;
+                    case "unwrap" -> proxy;
+                    default -> null;
+                });
+    }
+}
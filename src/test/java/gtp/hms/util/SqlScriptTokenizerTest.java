@@ -0,0 +1,98 @@
+package gtp.hms.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SqlScriptTokenizerTest {
+
+    @Test
+    void splitsOnTopLevelSemicolons() {
+        assertEquals(List.of("SELECT 1", "SELECT 2"), SqlScriptTokenizer.split("SELECT 1;\nSELECT 2;\n"));
+        assertEquals(List.of("SELECT 1"), SqlScriptTokenizer.split("SELECT 1"));
+        assertEquals(List.of(), SqlScriptTokenizer.split(" ;\n; "));
+    }
+
+    @Test
+    void keepsSemicolonsInsideLiteralsAndIdentifiers() {
+        assertEquals(List.of("SELECT 'a;b', \"odd;name\", 'it''s;'", "SELECT E'\\';'"),
+                SqlScriptTokenizer.split("SELECT 'a;b', \"odd;name\", 'it''s;'; SELECT E'\\';';"));
+    }
+
+    @Test
+    void keepsDollarQuotedBodiesWhole() {
+        String body = "DO $$\nBEGIN\n    PERFORM 1;\n    RAISE NOTICE 'x;y';\nEND\n$$";
+        String tagged = "CREATE FUNCTION f() RETURNS int AS $fn$ SELECT 1; $$ not the end $$; $fn$ LANGUAGE sql";
+
+        assertEquals(List.of(body, tagged, "SELECT 2"),
+                SqlScriptTokenizer.split(body + ";\n" + tagged + ";\nSELECT 2;"));
+    }
+
+    @Test
+    void dollarInsideIdentifierIsNotAQuote() {
+        assertEquals(List.of("SELECT a$b FROM t", "SELECT $1"), SqlScriptTokenizer.split("SELECT a$b FROM t; SELECT $1;"));
+    }
+
+    @Test
+    void dropsLineAndNestedBlockComments() {
+        String script = "-- header; not a statement\n" +
+                "SELECT 1 -- trailing; comment\n;" +
+                "/* outer /* inner; */ still comment; */ SELECT 2;\n" +
+                "-- only a comment;\n";
+
+        List<String> statements = SqlScriptTokenizer.split(script);
+
+        assertEquals(2, statements.size());
+        assertEquals("SELECT 1", statements.get(0));
+        assertEquals("SELECT 2", statements.get(1).strip());
+    }
+
+    @Test
+    void commentMarkersInsideLiteralsAreText() {
+        assertEquals(List.of("SELECT '-- not a comment', '/* nor this */'"),
+                SqlScriptTokenizer.split("SELECT '-- not a comment', '/* nor this */';"));
+    }
+
+    @Test
+    void rejectsUnterminatedTokens() {
+        assertThrows(IllegalArgumentException.class, () -> SqlScriptTokenizer.split("SELECT 'open;"));
+        assertThrows(IllegalArgumentException.class, () -> SqlScriptTokenizer.split("DO $$ BEGIN END;"));
+        assertThrows(IllegalArgumentException.class, () -> SqlScriptTokenizer.split("/* open /* nested */ SELECT 1;"));
+    }
+
+    @Test
+    void noTransactionDirectiveMustOpenTheScript() {
+        assertFalse(MigrationRunner.runsInTransaction("-- migration: no-transaction\nCREATE INDEX CONCURRENTLY i ON t (c);"));
+        assertFalse(MigrationRunner.runsInTransaction("\r\n  -- migration: no-transaction\r\nDROP INDEX CONCURRENTLY i;"));
+        assertTrue(MigrationRunner.runsInTransaction("-- Adds an index\n-- migration: no-transaction\nCREATE INDEX i ON t (c);"));
+        assertTrue(MigrationRunner.runsInTransaction("CREATE TABLE t (c INT);"));
+
+        // The directive is a comment, so it never reaches the server
+        assertEquals(List.of("DROP INDEX CONCURRENTLY i"),
+                SqlScriptTokenizer.split("-- migration: no-transaction\nDROP INDEX CONCURRENTLY i;"));
+    }
+
+    @Test
+    void splitsEveryShippedMigration() throws IOException {
+        try (Stream<Path> scripts = Files.list(Path.of("src/main/resources/db/migration"))) {
+            for (Path script : scripts.toList()) {
+                List<String> statements = SqlScriptTokenizer.split(Files.readString(script));
+                assertFalse(statements.isEmpty(), script.toString());
+                statements.forEach(statement -> assertFalse(statement.isBlank(), script.toString()));
+            }
+        }
+        List<String> bedIndex = SqlScriptTokenizer.split(
+                Files.readString(Path.of("src/main/resources/db/migration/V4__admission_current_bed_unique.sql")));
+        assertEquals(2, bedIndex.size());
+        assertTrue(bedIndex.get(0).startsWith("DO $$"));
+    }
+}
@@ -0,0 +1,106 @@
+package gtp.hms.util;
+
+import gtp.hms.exception.DaoException;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UnitOfWorkTest {
+    private static final String INSERT = "INSERT INTO t (id) VALUES (?)";
+    private static final String UPDATE = "UPDATE t SET v = ? WHERE id = ?";
+
+    private final List<String> executed = new ArrayList<>();
+    private int[] nextCounts;
+
+    @Test
+    void flushKeepsRegistrationOrderAcrossStatements() throws DaoException {
+        UnitOfWork unitOfWork = new UnitOfWork(connection());
+        unitOfWork.register(UPDATE, stmt -> {});
+        unitOfWork.register(INSERT, stmt -> {});
+        unitOfWork.register(UPDATE, stmt -> {});
+
+        unitOfWork.flush();
+
+        assertEquals(List.of(UPDATE + " x1", INSERT + " x1", UPDATE + " x1"), executed);
+    }
+
+    @Test
+    void consecutiveOperationsWithTheSameSqlShareABatch() throws DaoException {
+        UnitOfWork unitOfWork = new UnitOfWork(connection());
+        unitOfWork.register(INSERT, stmt -> {});
+        unitOfWork.register(INSERT, stmt -> {});
+        unitOfWork.register(INSERT, stmt -> {});
+        unitOfWork.register(UPDATE, stmt -> {});
+        unitOfWork.register(UPDATE, stmt -> {});
+        assertEquals(5, unitOfWork.getPendingCount());
+
+        unitOfWork.flush();
+
+        assertEquals(List.of(INSERT + " x3", UPDATE + " x2"), executed);
+        assertEquals(0, unitOfWork.getPendingCount());
+    }
+
+    @Test
+    void flushWithNothingQueuedRunsNothing() throws DaoException {
+        new UnitOfWork(connection()).flush();
+
+        assertEquals(List.of(), executed);
+    }
+
+    @Test
+    void operationAffectingNoRowsFailsTheFlushAndClearsTheQueue() {
+        UnitOfWork unitOfWork = new UnitOfWork(connection());
+        unitOfWork.register(UPDATE, stmt -> {});
+        unitOfWork.register(UPDATE, stmt -> {});
+        nextCounts = new int[]{1, 0};
+
+        DaoException e = assertThrows(DaoException.class, unitOfWork::flush);
+
+        assertEquals("Batched operation 2 affected no rows: " + UPDATE, e.getMessage());
+        assertEquals(0, unitOfWork.getPendingCount());
+    }
+
+    /**
+     * A connection whose statements record each executed batch as
+     * "SQL xN", where N is the number of rows added to it.
+     */
+    private Connection connection() {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("prepareStatement")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    return statement((String) args[0]);
+                });
+    }
+
+    private PreparedStatement statement(String sql) {
+        int[] batchSize = {0};
+        return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "addBatch" -> {
+                        batchSize[0]++;
+                        yield null;
+                    }
+                    case "executeBatch" -> {
+                        executed.add(sql + " x" + batchSize[0]);
+                        int[] counts = nextCounts != null ? nextCounts : new int[batchSize[0]];
+                        if (nextCounts == null) {
+                            Arrays.fill(counts, 1);
+                        }
+                        yield counts;
+                    }
+                    case "close" -> null;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}